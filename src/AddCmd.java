@@ -1,19 +1,45 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
- * Add command used to add new books to the library from a given book data file.
+ * Add command used to add new books to the library from a given book data file,
+ * which may be gzip compressed. Plain book data files can also be watched, so
+ * records appended to them later on are added as well, until they are unwatched.
  */
 public class AddCmd extends LibraryCommand {
 
+    /** Extension of plain book data files. */
+    private static final String CSV_EXTENSION = ".csv";
+    /** Extension of gzip compressed book data files. */
+    private static final String COMPRESSED_CSV_EXTENSION = ".csv.gz";
+    /** Option to skip invalid records instead of rejecting the whole file. */
+    private static final String LENIENT_OPTION = "--lenient";
+    /** Option to keep adding records appended to the file. */
+    private static final String WATCH_OPTION = "--watch";
+    /** Option to stop adding records appended to a watched file. */
+    private static final String UNWATCH_OPTION = "--unwatch";
+
     /** A path to the file with book data remembered from user's input. */
     private Path bookDataPath;
+    /** True if invalid records should be skipped. */
+    private boolean lenient;
+    /** True if the file should be watched for appended records. */
+    private boolean watch;
+    /** True if the file should no longer be watched. */
+    private boolean unwatch;
 
     /**
      * Create an add command.
      *
-     * @param argumentInput argument input is expected to be a path to a book file.
+     * @param argumentInput argument input is expected to be a path to a book file,
+     *                      optionally preceded by the '--lenient' and '--watch' options,
+     *                      or by the '--unwatch' option alone.
      * @throws IllegalArgumentException if given arguments are invalid
      * @throws NullPointerException if the given argumentInput is null.
      */
@@ -24,6 +50,11 @@ public class AddCmd extends LibraryCommand {
     /**
      * Execute the add command. This loads the book data into the library
      * by calling a loadData method of the given LibraryData instance.
+     * With the lenient option, invalid records are skipped and written
+     * to a reject file instead of failing the whole command. With the watch
+     * option, the file keeps being watched and appended records are added
+     * in the background. With the unwatch option, nothing is loaded and the
+     * file is no longer watched.
      *
      * @param data book data to be considered for command execution.
      * @throws NullPointerException if the given data is null
@@ -32,23 +63,104 @@ public class AddCmd extends LibraryCommand {
     public void execute(LibraryData data) {
         Objects.requireNonNull(data, "Given data must not be null.");
 
-        data.loadData(bookDataPath);
+        if (unwatch) {
+            data.unwatchData(bookDataPath);
+        } else if (watch) {
+            data.watchData(bookDataPath, lenient);
+        } else {
+            data.loadData(bookDataPath, lenient);
+        }
     }
 
     /**
-     * Remembers the command argument input in bookDataPath field for later use.
+     * Adding books changes the book data.
+     *
+     * @return true
+     */
+    @Override
+    public boolean changesData() {
+        return true;
+    }
+
+    /**
+     * Load the book data file on the coordinator and add every entry to the
+     * worker its ISBN belongs to. Files cannot be watched in cluster mode.
+     *
+     * @param cluster coordinator connected to the workers holding the book data
+     * @throws IOException if communicating with a worker fails
+     */
+    @Override
+    public void executeOnCluster(ClusterCoordinator cluster) throws IOException {
+        if (watch || unwatch) {
+            System.err.println("ERROR: Watching files is not supported in cluster mode.");
+            return;
+        }
+        cluster.loadData(bookDataPath, lenient, this);
+    }
+
+    /**
+     * Add the entries sent by the coordinator, which are already known to belong
+     * to this worker, and reply with the sequence numbers of the duplicates.
+     *
+     * @param worker worker holding part of the book data
+     * @param request number of entries followed by every entry with its sequence number
+     * @param reply receives the sequence numbers of duplicates
+     * @throws IOException if reading the request or writing the reply fails
+     */
+    @Override
+    void executeOnWorker(ClusterWorker worker, DataInputStream request, DataOutputStream reply) throws IOException {
+        int count = request.readInt();
+        List<BookEntry> entries = new ArrayList<>(count);
+        long[] sequences = new long[count];
+        for (int i = 0; i < count; i++) {
+            sequences[i] = request.readLong();
+            entries.add(ClusterProtocol.readEntry(request));
+        }
+
+        for (long duplicate : worker.addEntries(entries, sequences)) {
+            reply.writeLong(duplicate);
+        }
+        reply.writeLong(ClusterProtocol.END_OF_RECORDS);
+    }
+
+    /**
+     * Remembers the command argument input in bookDataPath field for later use,
+     * as well as whether the lenient, watch and unwatch options have been given.
      * Does not check if the given input is a valid path or not.
      *
      * @param argumentInput argument input for this command
-     * @return true if the given argument ends with '.csv', false otherwise.
+     * @return true if the given argument ends with '.csv' or '.csv.gz', false otherwise.
+     * Watched files have to end with '.csv', and the unwatch option cannot be combined with others.
      * @throws NullPointerException if the given argumentInput is null.
      */
     @Override
     protected boolean parseArguments(String argumentInput) {
         Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
 
-        bookDataPath = Paths.get(argumentInput.trim());
+        String path = argumentInput.trim();
+        lenient = false;
+        watch = false;
+        unwatch = false;
+        while (true) {
+            if (!lenient && path.startsWith(LENIENT_OPTION + " ")) {
+                lenient = true;
+                path = path.substring(LENIENT_OPTION.length()).trim();
+            } else if (!watch && path.startsWith(WATCH_OPTION + " ")) {
+                watch = true;
+                path = path.substring(WATCH_OPTION.length()).trim();
+            } else if (!unwatch && path.startsWith(UNWATCH_OPTION + " ")) {
+                unwatch = true;
+                path = path.substring(UNWATCH_OPTION.length()).trim();
+            } else {
+                break;
+            }
+        }
+
+        bookDataPath = Paths.get(path);
 
-        return argumentInput.trim().endsWith(".csv");
+        if (unwatch && (watch || lenient)) {
+            return false;
+        }
+        return path.endsWith(CSV_EXTENSION) || (!watch && !unwatch && path.endsWith(COMPRESSED_CSV_EXTENSION));
     }
 }
@@ -0,0 +1,132 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-author aggregates of the library: number of books, sums of ratings and
+ * pages and the lowest and highest rating of every author.
+ *
+ * Adding or removing a book updates the aggregates of each of its authors
+ * only. The ratings of every author are kept as a multiset ordered by rating,
+ * so the lowest and highest rating are still known after removing a book
+ * holding one of them.
+ */
+class AuthorAggregates implements LibraryIndex {
+
+    /** Aggregate of the books of a single author. */
+    private static final class Aggregate {
+
+        private int bookCount;
+        /** Sum of all ratings in hundredths. */
+        private long ratingSum;
+        private long pagesSum;
+        /** Number of books by rating. */
+        private final TreeMap<Float, Integer> ratings = new TreeMap<>();
+    }
+
+    /** Aggregates by author. */
+    private final Map<String, Aggregate> aggregates;
+
+    /** Create empty aggregates. */
+    public AuthorAggregates() {
+        aggregates = new HashMap<>();
+    }
+
+    @Override
+    public void add(BookEntry entry) {
+        for (String author : entry.getAuthors()) {
+            Aggregate aggregate = aggregates.computeIfAbsent(author, key -> new Aggregate());
+            aggregate.bookCount++;
+            aggregate.ratingSum += hundredths(entry.getRating());
+            aggregate.pagesSum += entry.getPages();
+            aggregate.ratings.merge(entry.getRating(), 1, Integer::sum);
+        }
+    }
+
+    @Override
+    public void remove(BookEntry entry) {
+        for (String author : entry.getAuthors()) {
+            Aggregate aggregate = aggregates.get(author);
+            if (aggregate == null) {
+                continue;
+            }
+
+            if (--aggregate.bookCount == 0) {
+                aggregates.remove(author);
+                continue;
+            }
+            aggregate.ratingSum -= hundredths(entry.getRating());
+            aggregate.pagesSum -= entry.getPages();
+            aggregate.ratings.merge(entry.getRating(), -1,
+                    (count, change) -> count + change == 0 ? null : count + change);
+        }
+    }
+
+    @Override
+    public long estimateBytes() {
+        long bytes = MemoryLayout.object(MemoryLayout.REFERENCE) + MemoryLayout.hashMap(aggregates.size());
+        for (Aggregate aggregate : aggregates.values()) {
+            bytes += MemoryLayout.object(MemoryLayout.REFERENCE + 4 + 2 * 8)
+                    + MemoryLayout.treeMap(aggregate.ratings.size())
+                    + aggregate.ratings.size() * MemoryLayout.BOXED_INT; // boxed ratings, small counts are cached
+        }
+        return bytes;
+    }
+
+    /**
+     * Number of authors in the library.
+     * @return number of distinct authors
+     */
+    public int getAuthorCount() {
+        return aggregates.size();
+    }
+
+    /**
+     * Get the statistics of the given author.
+     *
+     * @param author full name of the author
+     * @return statistics of all books of the author, or null if the library has none
+     */
+    public AuthorStats getStats(String author) {
+        Aggregate aggregate = aggregates.get(author);
+        return aggregate == null ? null : toStats(author, aggregate);
+    }
+
+    /**
+     * Get the statistics of all authors.
+     * @return statistics of every author, ordered by author
+     */
+    public List<AuthorStats> getAllStats() {
+        List<AuthorStats> stats = new ArrayList<>(aggregates.size());
+        aggregates.forEach((author, aggregate) -> stats.add(toStats(author, aggregate)));
+        stats.sort(Comparator.comparing(AuthorStats::getAuthor));
+        return stats;
+    }
+
+    /**
+     * Add the books aggregated by the given aggregates to this one.
+     * @param other aggregates of another part of the library
+     */
+    public void merge(AuthorAggregates other) {
+        other.aggregates.forEach((author, part) -> {
+            Aggregate aggregate = aggregates.computeIfAbsent(author, key -> new Aggregate());
+            aggregate.bookCount += part.bookCount;
+            aggregate.ratingSum += part.ratingSum;
+            aggregate.pagesSum += part.pagesSum;
+            part.ratings.forEach((rating, count) -> aggregate.ratings.merge(rating, count, Integer::sum));
+        });
+    }
+
+    private static AuthorStats toStats(String author, Aggregate aggregate) {
+        return new AuthorStats(author, aggregate.bookCount, aggregate.ratingSum, aggregate.pagesSum,
+                aggregate.ratings.firstKey(), aggregate.ratings.lastKey());
+    }
+
+    /** Rating in hundredths, the precision of ratings in book data files. */
+    private static long hundredths(float rating) {
+        return Math.round(rating * 100.0);
+    }
+}
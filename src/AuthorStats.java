@@ -0,0 +1,117 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Aggregate figures of the books of a single author: number of books, their
+ * ratings and their pages.
+ *
+ * Ratings are summed in hundredths, the precision of ratings in book data
+ * files, so sums stay exact however often books are added and removed.
+ * Statistics of the same author computed over parts of the library merge
+ * into the statistics over the whole library.
+ */
+final class AuthorStats {
+
+    private final String author;
+    private final int bookCount;
+    /** Sum of all ratings in hundredths. */
+    private final long ratingSum;
+    private final long pagesSum;
+    private final float minRating;
+    private final float maxRating;
+
+    /**
+     * Create statistics of an author.
+     *
+     * @param author full name of the author
+     * @param bookCount number of books
+     * @param ratingSum sum of all ratings in hundredths
+     * @param pagesSum sum of all page counts
+     * @param minRating lowest rating
+     * @param maxRating highest rating
+     */
+    AuthorStats(String author, int bookCount, long ratingSum, long pagesSum, float minRating, float maxRating) {
+        this.author = author;
+        this.bookCount = bookCount;
+        this.ratingSum = ratingSum;
+        this.pagesSum = pagesSum;
+        this.minRating = minRating;
+        this.maxRating = maxRating;
+    }
+
+    String getAuthor() {
+        return author;
+    }
+
+    int getBookCount() {
+        return bookCount;
+    }
+
+    long getPagesSum() {
+        return pagesSum;
+    }
+
+    float getMinRating() {
+        return minRating;
+    }
+
+    float getMaxRating() {
+        return maxRating;
+    }
+
+    /**
+     * Average rating of the books of the author.
+     * @return mean rating
+     */
+    double getAverageRating() {
+        return ratingSum / 100.0 / bookCount;
+    }
+
+    /**
+     * Combine these statistics with those of other books of the same author.
+     *
+     * @param other statistics of other books of the author
+     * @return statistics of all books of both
+     */
+    AuthorStats merge(AuthorStats other) {
+        return new AuthorStats(author, bookCount + other.bookCount, ratingSum + other.ratingSum,
+                pagesSum + other.pagesSum, Math.min(minRating, other.minRating), Math.max(maxRating, other.maxRating));
+    }
+
+    /**
+     * Describe the statistics as printed by the author statistics command.
+     * @return single line description
+     */
+    @Override
+    public String toString() {
+        return author + ": " + bookCount + " books, rating " + String.format("%.2f", getAverageRating())
+                + " on average (" + String.format("%.2f", minRating) + " to " + String.format("%.2f", maxRating)
+                + "), " + pagesSum + " pages in total";
+    }
+
+    /**
+     * Write the statistics to the given stream.
+     * @param out stream to write to
+     * @throws IOException if writing fails
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        ClusterProtocol.writeString(out, author);
+        out.writeInt(bookCount);
+        out.writeLong(ratingSum);
+        out.writeLong(pagesSum);
+        out.writeFloat(minRating);
+        out.writeFloat(maxRating);
+    }
+
+    /**
+     * Read statistics written by writeTo.
+     * @param in stream to read from
+     * @return statistics read
+     * @throws IOException if reading fails
+     */
+    static AuthorStats readFrom(DataInputStream in) throws IOException {
+        return new AuthorStats(ClusterProtocol.readString(in), in.readInt(), in.readLong(), in.readLong(), in.readFloat(),
+                in.readFloat());
+    }
+}
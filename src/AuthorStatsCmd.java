@@ -0,0 +1,164 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Author statistics command used to print the number of books, the average,
+ * lowest and highest rating and the total pages of a single author or of
+ * every author in the library.
+ *
+ * The figures come from the per-author aggregates of the library, which are
+ * kept up to date as books are added and removed, so a single author is
+ * answered without looking at any books.
+ */
+public class AuthorStatsCmd extends LibraryCommand {
+
+    /** Full name of the author to print the statistics of (blank for all authors). */
+    private String author;
+
+    /**
+     * Create an author statistics command.
+     *
+     * @param argumentInput argument input is expected to be the full name of an author, or blank for all authors.
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public AuthorStatsCmd(String argumentInput) {
+        super(CommandType.AUTHORSTATS, argumentInput);
+    }
+
+    /**
+     * Execute the author statistics command. This prints the statistics of
+     * the given author, or of all authors ordered by name.
+     *
+     * @param data book data to be considered for command execution.
+     * @throws NullPointerException if the given data is null
+     */
+    @Override
+    public void execute(LibraryData data) {
+        Objects.requireNonNull(data, "Given data must not be null.");
+
+        AuthorAggregates aggregates = data.getAuthorAggregates();
+        if (!author.isEmpty()) {
+            printStats(data.getBookData().size(), aggregates.getStats(author));
+        } else {
+            printAllStats(data.getBookData().size(), aggregates.getAllStats());
+        }
+    }
+
+    /**
+     * Ask every worker for the statistics of the authors of its books and
+     * print them merged.
+     *
+     * @param cluster coordinator connected to the workers holding the book data
+     * @throws IOException if communicating with a worker fails
+     */
+    @Override
+    public void executeOnCluster(ClusterCoordinator cluster) throws IOException {
+        int bookCount = 0;
+        TreeMap<String, AuthorStats> stats = new TreeMap<>();
+        for (DataInputStream reply : cluster.broadcast(this)) {
+            bookCount += reply.readInt();
+            for (int i = reply.readInt(); i > 0; i--) {
+                AuthorStats workerStats = AuthorStats.readFrom(reply);
+                stats.merge(workerStats.getAuthor(), workerStats, AuthorStats::merge);
+            }
+        }
+
+        if (!author.isEmpty()) {
+            printStats(bookCount, stats.get(author));
+        } else {
+            printAllStats(bookCount, new ArrayList<>(stats.values()));
+        }
+    }
+
+    /**
+     * Reply with the number of books held followed by the statistics of the
+     * requested author, or of all authors of the books held.
+     *
+     * @param worker worker holding part of the book data
+     * @param request empty payload
+     * @param reply receives the number of books and the statistics
+     * @throws IOException if writing the reply fails
+     */
+    @Override
+    void executeOnWorker(ClusterWorker worker, DataInputStream request, DataOutputStream reply) throws IOException {
+        LibraryData data = worker.getData();
+        List<AuthorStats> stats = new ArrayList<>();
+        if (author.isEmpty()) {
+            stats.addAll(data.getAuthorAggregates().getAllStats());
+        } else if (data.getAuthorAggregates().getStats(author) != null) {
+            stats.add(data.getAuthorAggregates().getStats(author));
+        }
+
+        reply.writeInt(data.getBookData().size());
+        reply.writeInt(stats.size());
+        for (AuthorStats authorStats : stats) {
+            authorStats.writeTo(reply);
+        }
+    }
+
+    /**
+     * Print the statistics of the requested author.
+     *
+     * @param bookCount number of books in the library
+     * @param stats statistics of the author, or null if the library has no books of the author
+     */
+    private void printStats(int bookCount, AuthorStats stats) {
+        if (bookCount == 0) {
+            System.out.println("The library has no book entries.");
+        } else if (stats == null) {
+            System.out.println("No books found for author: " + author);
+        } else {
+            System.out.println(stats);
+        }
+    }
+
+    /**
+     * Print the statistics of all authors.
+     *
+     * @param bookCount number of books in the library
+     * @param stats statistics of every author, ordered by author
+     */
+    private void printAllStats(int bookCount, List<AuthorStats> stats) {
+        if (bookCount == 0) {
+            System.out.println("The library has no book entries.");
+            return;
+        }
+
+        System.out.println(stats.size() + " authors in library:");
+        for (AuthorStats authorStats : stats) {
+            System.out.println(authorStats);
+        }
+    }
+
+    /**
+     * The output only depends on the arguments and the book data, so it may be cached.
+     *
+     * @return command type and argument
+     */
+    @Override
+    public String cacheKey() {
+        return getType() + " " + author;
+    }
+
+    /**
+     * Remembers the author in the author field.
+     *
+     * @param argumentInput argument input for author statistics command
+     * @return true, as any author name or a blank argument is valid
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+
+        author = argumentInput.trim();
+
+        return true;
+    }
+}
@@ -0,0 +1,25 @@
+import java.util.ArrayList;
+
+/**
+ * Array list of book entries which also counts replaced elements as changes
+ * (see ModificationCounting), which ArrayList itself does not.
+ */
+class BookArrayList extends ArrayList<BookEntry> implements ModificationCounting {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Number of elements replaced, which ArrayList does not count in modCount. */
+    private int replacements;
+
+    @Override
+    public BookEntry set(int index, BookEntry entry) {
+        BookEntry previous = super.set(index, entry);
+        replacements++;
+        return previous;
+    }
+
+    @Override
+    public int getModificationCount() {
+        return modCount + replacements;
+    }
+}
@@ -16,6 +16,8 @@ public final class BookEntry {
     private final String ISBN;
     /** Number of pages in the book. */
     private final int pages;
+    /** Title of the book in lower case, as compared by title searches. */
+    private final String foldedTitle;
 
     /**
      * Create a BookEntry class instance.
@@ -30,18 +32,47 @@ public final class BookEntry {
      * @throws NullPointerException if even one of the given arguments is null.
      */
     public BookEntry(String title, String[] authors, float rating, String ISBN, int pages) {
-        if (rating < 0 || rating > 5) {
-            throw new IllegalArgumentException(("Rating value should be a number between 0 and 5"));
-        }
-        if (pages < 0) {
-            throw new IllegalArgumentException(("Pages parameter must not be negative"));
-        }
+        this(title, authors, rating, ISBN, pages, Objects.requireNonNull(title).toLowerCase());
+    }
+
+    /**
+     * Create a BookEntry class instance from stored data which already holds
+     * the title in lower case, so it does not have to be folded again.
+     *
+     * @param title title of the book.
+     * @param authors String array of all the book's authors.
+     * @param rating book's rating expected to be between 0 and 5.
+     * @param ISBN a unique book's numerical identifier.
+     * @param pages number of pages in the book must not be negative.
+     * @param foldedTitle title of the book in lower case, as returned by getFoldedTitle.
+     * @throws IllegalArgumentException if at least one of the given arguments is invalid
+     * @throws NullPointerException if even one of the given arguments is null.
+     */
+    BookEntry(String title, String[] authors, float rating, String ISBN, int pages, String foldedTitle) {
+        checkValues(rating, pages);
 
         this.title = Objects.requireNonNull(title);
         this.authors = Objects.requireNonNull(authors);
         this.ISBN = Objects.requireNonNull(ISBN);
         this.rating = rating;
         this.pages = pages;
+        this.foldedTitle = Objects.requireNonNull(foldedTitle);
+    }
+
+    /**
+     * Checks the numeric values of a book entry, as the constructor does.
+     *
+     * @param rating book's rating expected to be between 0 and 5.
+     * @param pages number of pages in the book must not be negative.
+     * @throws IllegalArgumentException if at least one of the given values is invalid
+     */
+    static void checkValues(float rating, int pages) {
+        if (rating < 0 || rating > 5) {
+            throw new IllegalArgumentException(("Rating value should be a number between 0 and 5"));
+        }
+        if (pages < 0) {
+            throw new IllegalArgumentException(("Pages parameter must not be negative"));
+        }
     }
 
     /**
@@ -84,6 +115,15 @@ public final class BookEntry {
     public int getPages() {
         return pages;
     }
+    /**
+     * Returns the title of the book in lower case. It is computed once
+     * when the entry is created, so searches do not have to.
+     *
+     *  @return title of the book in lower case
+     */
+    public String getFoldedTitle() {
+        return foldedTitle;
+    }
 
     /**
      * Returns a string representation of a BookEntry instance
@@ -0,0 +1,131 @@
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Condition on a single field of book entries, such as 'rating>=4',
+ * 'pages<300', 'author=George Orwell' or 'isbn=0-452-28424-4'.
+ *
+ * Ratings and pages can be compared with a number using any of
+ * {@code < <= = != >= >}, authors and ISBNs can only be matched exactly.
+ * ISBNs are compared ignoring hyphens, spaces and leading zeros, like
+ * the ISBN index does.
+ */
+final class BookFilter implements Predicate<BookEntry> {
+
+    /** Fields of book entries a filter can refer to. */
+    enum Field { RATING, PAGES, AUTHOR, ISBN }
+
+    /** Condition comparing a numeric field with a number. */
+    private static final Pattern NUMERIC_CONDITION =
+            Pattern.compile("(rating|pages)\\s*(<=|>=|!=|<|>|=)\\s*(\\d+(?:\\.\\d+)?)");
+    /** Condition matching a text field exactly. */
+    private static final Pattern TEXT_CONDITION = Pattern.compile("(author|isbn)\\s*=\\s*(\\S.*)");
+
+    private final Field field;
+    private final String operator;
+    private final String value;
+    /** Value parsed as number for numeric fields (0 for text fields). */
+    private final double number;
+
+    private BookFilter(Field field, String operator, String value) {
+        this.field = field;
+        this.operator = operator;
+        this.value = value;
+        if (field == Field.RATING) {
+            this.number = Float.parseFloat(value); // compared with float ratings, so 'rating=4.1' matches 4.1f
+        } else if (field == Field.PAGES) {
+            this.number = Double.parseDouble(value);
+        } else {
+            this.number = 0;
+        }
+    }
+
+    /**
+     * Parse a filter condition.
+     *
+     * @param condition condition such as 'rating>=4'
+     * @return the filter, or null if the condition is invalid
+     * @throws NullPointerException if the given condition is null
+     */
+    public static BookFilter parse(String condition) {
+        Objects.requireNonNull(condition, "Given condition must not be null.");
+
+        Matcher numeric = NUMERIC_CONDITION.matcher(condition.trim());
+        if (numeric.matches()) {
+            return new BookFilter(Field.valueOf(numeric.group(1).toUpperCase()), numeric.group(2), numeric.group(3));
+        }
+        Matcher text = TEXT_CONDITION.matcher(condition.trim());
+        if (text.matches()) {
+            return new BookFilter(Field.valueOf(text.group(1).toUpperCase()), "=", text.group(2).trim());
+        }
+        return null;
+    }
+
+    /**
+     * Field the condition refers to.
+     * @return field of the condition
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Comparison operator of the condition.
+     * @return one of {@code < <= = != >= >}
+     */
+    public String getOperator() {
+        return operator;
+    }
+
+    /**
+     * Value the field is compared with.
+     * @return value as given in the condition
+     */
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean test(BookEntry book) {
+        switch (field) {
+            case RATING:
+                return compare(book.getRating());
+            case PAGES:
+                return compare(book.getPages());
+            case AUTHOR:
+                for (String author : book.getAuthors()) {
+                    if (author.equals(value)) {
+                        return true;
+                    }
+                }
+                return false;
+            case ISBN:
+                return IsbnIndex.sameIsbn(book.getISBN(), value);
+            default:
+                throw new UnsupportedOperationException("Filter field " + field + " is not yet implemented");
+        }
+    }
+
+    /**
+     * Normalised text of the condition.
+     * @return condition without spaces around the operator, such as 'rating>=4'
+     */
+    @Override
+    public String toString() {
+        return field.toString().toLowerCase() + operator + value;
+    }
+
+    private boolean compare(double actual) {
+        int comparison = Double.compare(actual, number);
+        switch (operator) {
+            case "<": return comparison < 0;
+            case "<=": return comparison <= 0;
+            case ">": return comparison > 0;
+            case ">=": return comparison >= 0;
+            case "=": return comparison == 0;
+            default: return comparison != 0;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Coordinator of a cluster, spreading the library across worker processes
+ * which each hold the entries of a partition of all ISBNs.
+ *
+ * Commands are forwarded to the workers as their command type and argument
+ * input, and the partial results of the workers are merged by the commands
+ * themselves (see LibraryCommand.executeOnCluster). All entries are given
+ * increasing sequence numbers when they are added, so results can be merged
+ * back into the order of a single library. Sequence numbers are reserved from
+ * the first worker, so several coordinators connected to the same workers,
+ * which have to list them in the same order anyway, never give out the same
+ * sequence numbers.
+ *
+ * Requests are sent to all workers before any reply is read, so the workers
+ * execute them concurrently. After communicating with a worker has failed,
+ * the coordinator connects to all workers again before the next command. A
+ * coordinator must not be used concurrently.
+ */
+public class ClusterCoordinator {
+
+    /** Number of book entries parsed before they are sent to the workers. */
+    static final int BATCH_SIZE = 4096;
+
+    /** Addresses of all workers. */
+    private final List<InetSocketAddress> addresses;
+    /** Connections to all workers. */
+    private final List<Connection> workers;
+    /** False once communicating with a worker has failed, until connected again. */
+    private boolean connected;
+
+    /**
+     * Connect to all given workers.
+     *
+     * @param addresses addresses of the workers, at least one
+     * @throws IOException if connecting to a worker fails
+     * @throws IllegalArgumentException if no address is given
+     * @throws NullPointerException if the given addresses are null
+     */
+    public ClusterCoordinator(List<InetSocketAddress> addresses) throws IOException {
+        Objects.requireNonNull(addresses, "Given addresses must not be null.");
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("A cluster needs at least one worker.");
+        }
+
+        this.addresses = new ArrayList<>(addresses);
+        workers = new ArrayList<>();
+        connect();
+    }
+
+    /**
+     * Connect to all workers, closing any previous connections.
+     *
+     * @throws IOException if connecting to a worker fails
+     */
+    private void connect() throws IOException {
+        close();
+        workers.clear();
+        try {
+            for (InetSocketAddress address : addresses) {
+                workers.add(new Connection(address));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        connected = true;
+    }
+
+    /**
+     * Execute the given command on the whole library spread across the workers.
+     *
+     * @param command command to be executed
+     * @throws NullPointerException if the given command is null
+     */
+    public void execute(LibraryCommand command) {
+        Objects.requireNonNull(command, "Given command must not be null.");
+
+        if (!connected) {
+            try {
+                connect();
+            } catch (IOException e) {
+                System.err.println("ERROR: Connection to the cluster has been lost: " + e);
+                return;
+            }
+        }
+        try {
+            command.executeOnCluster(this);
+        } catch (IOException e) {
+            // replies may have been read partially, so the connections cannot be used any more
+            connected = false;
+            System.err.println("ERROR: Cluster request failed: " + e);
+        }
+    }
+
+    /** Close the connections to all workers. */
+    public void close() {
+        for (Connection worker : workers) {
+            try {
+                worker.socket.close();
+            } catch (IOException e) {
+                System.err.println("ERROR: Closing cluster connection failed: " + e);
+            }
+        }
+        connected = false;
+    }
+
+    /**
+     * Number of workers in the cluster.
+     * @return number of workers
+     */
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    /**
+     * Load the given book data file and add its entries to the workers their
+     * ISBNs belong to, reporting duplicates and invalid records the same way
+     * as LibraryData.loadData.
+     *
+     * Entries are sent to the workers in batches of BATCH_SIZE while the file
+     * is parsed, so the file is never held in memory as a whole. Unless
+     * lenient, the file is parsed once beforehand to make sure no entry is
+     * added from an invalid file.
+     *
+     * @param libraryFile specified path to book data file
+     * @param lenient true to skip invalid records, false to reject the whole file
+     * @param command add command to be forwarded to the workers
+     * @return true if loading was successful, false otherwise
+     * @throws IOException if communicating with a worker fails
+     */
+    boolean loadData(Path libraryFile, boolean lenient, LibraryCommand command) throws IOException {
+        LibraryFileLoader loader = new LibraryFileLoader();
+        try {
+            if (!lenient && !loader.parseFile(libraryFile, false, entry -> { })) {
+                System.err.println("ERROR: Loading book data failed for file: " + libraryFile);
+                return false;
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR: Parsing book data failed for file: " + libraryFile + ": " + e.getMessage());
+            return false;
+        }
+
+        List<BookEntry> batch = new ArrayList<>(BATCH_SIZE);
+        int[] added = new int[1];
+        boolean read = loader.parseFile(libraryFile, lenient, entry -> {
+            batch.add(entry);
+            if (batch.size() == BATCH_SIZE) {
+                added[0] += addBatch(batch, command);
+                batch.clear();
+            }
+        });
+        added[0] += addBatch(batch, command);
+        if (!read) {
+            System.err.println("ERROR: Loading book data failed for file: " + libraryFile);
+        }
+        System.out.println(added[0] + " new book entries added.");
+
+        if (lenient) {
+            LibraryData.writeRejects(libraryFile, loader.getRejectedRecords());
+        }
+        return read;
+    }
+
+    /**
+     * Add the given entries to the workers their ISBNs belong to, reporting
+     * duplicates in the given order.
+     *
+     * @param batch entries to be added, in file order
+     * @param command add command to be forwarded to the workers
+     * @return number of entries added
+     * @throws IOException if communicating with a worker fails
+     */
+    private int addBatch(List<BookEntry> batch, LibraryCommand command) throws IOException {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        long firstSequence = reserveSequences(batch.size());
+        int[] workerIdxs = new int[batch.size()];
+        int[] workerCounts = new int[workers.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            workerIdxs[i] = ShardedBookList.shardIndex(batch.get(i), workers.size());
+            workerCounts[workerIdxs[i]]++;
+        }
+
+        for (int w = 0; w < workers.size(); w++) {
+            DataOutputStream out = send(w, command);
+            out.writeInt(workerCounts[w]);
+            for (int i = 0; i < batch.size(); i++) {
+                if (workerIdxs[i] == w) {
+                    out.writeLong(firstSequence + i);
+                    ClusterProtocol.writeEntry(out, batch.get(i));
+                }
+            }
+            out.flush();
+        }
+
+        int[] duplicates = new int[1];
+        ClusterProtocol.mergeBySequence(replies(), in -> null, (sequence, ignored) -> {
+            duplicates[0]++;
+            System.out.println("Duplicate entry found for book: " + batch.get((int) (sequence - firstSequence)));
+        });
+        return batch.size() - duplicates[0];
+    }
+
+    /**
+     * Reserve consecutive sequence numbers for entries to be added from the first worker.
+     *
+     * @param count number of sequence numbers to reserve
+     * @return first sequence number reserved
+     * @throws IOException if communicating with the worker fails
+     */
+    private long reserveSequences(int count) throws IOException {
+        Connection worker = workers.get(0);
+        ClusterProtocol.writeString(worker.out, ClusterProtocol.RESERVE_SEQUENCES);
+        worker.out.writeInt(count);
+        worker.out.flush();
+        return worker.in.readLong();
+    }
+
+    /**
+     * Start a request of the given command to a single worker. The caller
+     * writes the payload of the request and flushes the returned stream.
+     *
+     * @param worker index of the worker
+     * @param command command to be forwarded
+     * @return stream to write the payload of the request to
+     * @throws IOException if writing fails
+     */
+    DataOutputStream send(int worker, LibraryCommand command) throws IOException {
+        DataOutputStream out = workers.get(worker).out;
+        ClusterProtocol.writeString(out, command.getType().name());
+        ClusterProtocol.writeString(out, command.getArgumentInput());
+        return out;
+    }
+
+    /**
+     * Send a request of the given command without payload to all workers.
+     *
+     * @param command command to be forwarded
+     * @return streams to read the replies of all workers from
+     * @throws IOException if writing fails
+     */
+    List<DataInputStream> broadcast(LibraryCommand command) throws IOException {
+        for (int i = 0; i < workers.size(); i++) {
+            send(i, command).flush();
+        }
+        return replies();
+    }
+
+    /**
+     * Streams to read the replies of the workers from.
+     * @return stream of every worker, in worker order
+     */
+    List<DataInputStream> replies() {
+        List<DataInputStream> replies = new ArrayList<>();
+        for (Connection worker : workers) {
+            replies.add(worker.in);
+        }
+        return replies;
+    }
+
+    /** Connection to a single worker. */
+    private static final class Connection {
+
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        private Connection(InetSocketAddress address) throws IOException {
+            socket = new Socket();
+            try {
+                socket.connect(address);
+                socket.setTcpNoDelay(true);
+                in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), ClusterWorker.BUFFER_SIZE));
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), ClusterWorker.BUFFER_SIZE));
+
+                int version = in.readInt();
+                if (version != ClusterProtocol.VERSION) {
+                    throw new IOException("Unsupported protocol version of worker " + address + ": " + version);
+                }
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+    }
+}
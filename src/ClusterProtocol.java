@@ -0,0 +1,206 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Static helpers for the binary protocol between a cluster coordinator and
+ * its workers, which talk over plain TCP sockets.
+ *
+ * After connecting, a worker sends the protocol version. Every request
+ * consists of the command type and argument input of a command, followed by
+ * a payload specific to the command, and is answered by a reply specific to
+ * the command. A request of type RESERVE_SEQUENCES instead carries a number
+ * of sequence numbers to reserve and is answered by the first one reserved.
+ * Strings are written as their length in UTF-8 bytes followed by the bytes,
+ * so they are not limited in length like DataOutput.writeUTF.
+ *
+ * Every book entry is given a sequence number by the coordinator when it is
+ * added, which it reserves from the first worker, and partial results are
+ * written as streams of records in sequence order, ended by END_OF_RECORDS,
+ * so the coordinator can merge the streams of all workers back into library
+ * order while reading them.
+ */
+final class ClusterProtocol {
+
+    /** Version of the protocol, increased with every incompatible change. */
+    public static final int VERSION = 2;
+    /** Marks the end of a stream of records instead of a sequence number. */
+    public static final long END_OF_RECORDS = -1;
+    /** Request type reserving sequence numbers for entries to be added, instead of a command type. */
+    public static final String RESERVE_SEQUENCES = "RESERVE_SEQUENCES";
+    /** Delimiter between host and port of an address. */
+    private static final String PORT_DELIMITER = ":";
+
+    /** Not to be used. */
+    private ClusterProtocol() {
+        throw new UnsupportedOperationException("This constructor should never be used.");
+    }
+
+    /** Reads the value of a single record following its sequence number. */
+    interface RecordReader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    /** Receives merged records. */
+    interface RecordConsumer<T> {
+        void accept(long sequence, T record) throws IOException;
+    }
+
+    /**
+     * Parse an address of the form 'host:port' or just 'port', which stands
+     * for the given port on the loopback interface.
+     *
+     * @param address address to parse
+     * @return parsed address, or null if it is invalid
+     */
+    public static InetSocketAddress parseAddress(String address) {
+        int delimiterIdx = address.lastIndexOf(PORT_DELIMITER);
+        String host = delimiterIdx < 0 ? null : address.substring(0, delimiterIdx);
+        try {
+            int port = Integer.parseInt(address.substring(delimiterIdx + 1));
+            if (port < 0 || port > 0xffff || (host != null && host.isBlank())) {
+                return null;
+            }
+            return host == null ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+                    : new InetSocketAddress(host, port);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Write a string of any length.
+     *
+     * @param out stream to write to
+     * @param text string to be written
+     * @throws IOException if writing fails
+     */
+    public static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Read a string written by writeString.
+     *
+     * @param in stream to read from
+     * @return string read
+     * @throws IOException if reading fails or the length is invalid
+     */
+    public static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid string length received: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a book entry.
+     *
+     * @param out stream to write to
+     * @param entry entry to be written
+     * @throws IOException if writing fails
+     */
+    public static void writeEntry(DataOutputStream out, BookEntry entry) throws IOException {
+        writeString(out, entry.getTitle());
+        out.writeInt(entry.getAuthors().length);
+        for (String author : entry.getAuthors()) {
+            writeString(out, author);
+        }
+        out.writeFloat(entry.getRating());
+        writeString(out, entry.getISBN());
+        out.writeInt(entry.getPages());
+    }
+
+    /**
+     * Read a book entry written by writeEntry.
+     *
+     * @param in stream to read from
+     * @return entry read
+     * @throws IOException if reading fails or the entry is invalid
+     */
+    public static BookEntry readEntry(DataInputStream in) throws IOException {
+        String title = readString(in);
+        String[] authors = new String[in.readInt()];
+        for (int i = 0; i < authors.length; i++) {
+            authors[i] = readString(in);
+        }
+        float rating = in.readFloat();
+        String isbn = readString(in);
+        int pages = in.readInt();
+        try {
+            return new BookEntry(title, authors, rating, isbn, pages);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid book entry received: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Read streams of records from all replies and pass the records on in
+     * sequence order, reading only one record ahead per reply.
+     *
+     * @param replies streams positioned at the first record of a stream
+     * @param reader reads a single record value
+     * @param consumer receives the records of all streams merged in sequence order
+     * @throws IOException if reading fails
+     */
+    public static <T> void mergeBySequence(List<DataInputStream> replies, RecordReader<T> reader,
+            RecordConsumer<T> consumer) throws IOException {
+        PriorityQueue<RecordStream<T>> next = new PriorityQueue<>(Math.max(1, replies.size()),
+                (a, b) -> Long.compare(a.sequence, b.sequence));
+        for (DataInputStream reply : replies) {
+            RecordStream<T> stream = new RecordStream<>(reply, reader);
+            if (stream.advance()) {
+                next.add(stream);
+            }
+        }
+
+        while (!next.isEmpty()) {
+            RecordStream<T> stream = next.poll();
+            consumer.accept(stream.sequence, stream.record);
+            if (stream.advance()) {
+                next.add(stream);
+            }
+        }
+    }
+
+    /** Stream of records of a single reply, positioned at its current record. */
+    private static final class RecordStream<T> {
+
+        private final DataInputStream in;
+        private final RecordReader<T> reader;
+        /** Sequence number of the current record. */
+        private long sequence;
+        /** Value of the current record. */
+        private T record;
+
+        private RecordStream(DataInputStream in, RecordReader<T> reader) {
+            this.in = in;
+            this.reader = reader;
+        }
+
+        /**
+         * Read the next record.
+         *
+         * @return true if a record has been read, false if the stream has ended
+         * @throws IOException if reading fails
+         */
+        private boolean advance() throws IOException {
+            sequence = in.readLong();
+            if (sequence == END_OF_RECORDS) {
+                return false;
+            }
+            record = reader.read(in);
+            return true;
+        }
+    }
+}
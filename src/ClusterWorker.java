@@ -0,0 +1,216 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Worker process of a cluster, holding the part of the library assigned to it
+ * by the coordinator and executing the requests of coordinators connected to it.
+ *
+ * Besides the book data, the worker remembers the sequence number the
+ * coordinator has given every entry, so partial results can be merged into
+ * library order. Entries arrive in sequence order, so the order of the book
+ * data is the sequence order. The first worker of a cluster also reserves the
+ * sequence numbers for all coordinators, so they never give out the same ones.
+ * Requests of all connections are executed one after another while
+ * synchronized on the library.
+ */
+public class ClusterWorker {
+
+    /** Size of the buffers of socket streams. */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    /** Part of the library held by this worker. */
+    private final LibraryData data;
+    /** Sequence numbers of all book entries held (equal entries are never held twice). */
+    private final Map<BookEntry, Long> sequences;
+    /** Sequence number after the highest one received or reserved so far. */
+    private long nextSequence;
+    /** Socket accepting connections of coordinators. */
+    private final ServerSocket serverSocket;
+
+    /**
+     * Create a worker listening on the given address.
+     *
+     * @param data empty library to hold the book data of this worker
+     * @param address address to listen on, port 0 choosing any free port
+     * @throws IOException if the address cannot be listened on
+     * @throws NullPointerException if any of the given parameters are null
+     */
+    public ClusterWorker(LibraryData data, InetSocketAddress address) throws IOException {
+        this.data = Objects.requireNonNull(data, "Given data must not be null.");
+        Objects.requireNonNull(address, "Given address must not be null.");
+        sequences = new ConcurrentHashMap<>();
+        nextSequence = 0;
+        serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+    }
+
+    /**
+     * Address this worker is listening on.
+     * @return local address of the server socket
+     */
+    public InetSocketAddress getAddress() {
+        return (InetSocketAddress) serverSocket.getLocalSocketAddress();
+    }
+
+    /**
+     * Part of the library held by this worker.
+     * @return book data of this worker
+     */
+    public LibraryData getData() {
+        return data;
+    }
+
+    /**
+     * Accept connections of coordinators until this worker is closed, serving
+     * every connection on its own thread.
+     */
+    public void run() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("ERROR: Accepting cluster connection failed: " + e);
+                }
+                continue;
+            }
+
+            Thread thread = new Thread(() -> serve(socket), "cluster connection " + socket.getRemoteSocketAddress());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /** Stop accepting connections. Connections already accepted are served until they are closed. */
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("ERROR: Closing cluster worker failed: " + e);
+        }
+    }
+
+    /**
+     * Sequence number the coordinator has given the entry.
+     *
+     * @param entry book entry held by this worker
+     * @return sequence number of the entry
+     */
+    long sequenceOf(BookEntry entry) {
+        return sequences.get(entry);
+    }
+
+    /**
+     * Add the given book entries which are not equal to an entry already held.
+     *
+     * @param entries entries to be added, in sequence order
+     * @param entrySequences sequence numbers of the entries
+     * @return sequence numbers of the entries not added, in sequence order
+     */
+    List<Long> addEntries(List<BookEntry> entries, long[] entrySequences) {
+        Map<BookEntry, Long> batchSequences = new IdentityHashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            batchSequences.put(entries.get(i), entrySequences[i]);
+        }
+
+        List<Long> duplicates = new ArrayList<>();
+        for (BookEntry duplicate : data.addEntries(entries)) {
+            duplicates.add(batchSequences.remove(duplicate));
+        }
+        sequences.putAll(batchSequences);
+        if (!entries.isEmpty()) {
+            nextSequence = Math.max(nextSequence, entrySequences[entries.size() - 1] + 1);
+        }
+        return duplicates;
+    }
+
+    /**
+     * Reserve the given number of consecutive sequence numbers, above all
+     * sequence numbers received or reserved so far.
+     *
+     * @param count number of sequence numbers to reserve
+     * @return first sequence number reserved
+     */
+    long reserveSequences(int count) {
+        long first = nextSequence;
+        nextSequence += count;
+        return first;
+    }
+
+    /**
+     * Remove all book entries matching the given filter.
+     *
+     * @param filter condition for entries to be removed
+     * @return number of entries removed
+     */
+    int removeEntries(Predicate<BookEntry> filter) {
+        return data.removeEntries(entry -> filter.test(entry) && sequences.remove(entry) != null);
+    }
+
+    /**
+     * Remove the book entry with the given sequence number.
+     *
+     * @param sequence sequence number of the entry
+     * @return true if the entry has been removed, false if no entry has the sequence number
+     */
+    boolean removeEntry(long sequence) {
+        return data.removeFirstEntry(entry -> sequences.get(entry) == sequence && sequences.remove(entry) != null);
+    }
+
+    /**
+     * Execute the requests of a single coordinator until it closes the connection.
+     * @param socket connection to the coordinator
+     */
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE))) {
+            out.writeInt(ClusterProtocol.VERSION);
+            out.flush();
+
+            while (true) {
+                String type;
+                try {
+                    type = ClusterProtocol.readString(in);
+                } catch (EOFException e) {
+                    return; // closed by the coordinator
+                }
+                if (type.equals(ClusterProtocol.RESERVE_SEQUENCES)) {
+                    int count = in.readInt();
+                    synchronized (data) {
+                        out.writeLong(reserveSequences(count));
+                    }
+                    out.flush();
+                    continue;
+                }
+                LibraryCommand command = CommandFactory.createCommand(CommandType.valueOf(type),
+                        ClusterProtocol.readString(in));
+                if (command == null) {
+                    throw new IOException("Invalid command received: " + type);
+                }
+
+                synchronized (data) {
+                    command.executeOnWorker(this, in, out);
+                }
+                out.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("ERROR: Cluster connection failed: " + socket.getRemoteSocketAddress() + ": " + e);
+        }
+    }
+}
@@ -39,6 +39,16 @@ public final class CommandFactory { // the final keyword prevents subclassing of
                 case SEARCH: return new SearchCmd(argumentInput);
                 case REMOVE: return new RemoveCmd(argumentInput);
                 case GROUP: return new GroupCmd(argumentInput);
+                case COMPLETE: return new CompleteCmd(argumentInput);
+                case ISBN: return new IsbnCmd(argumentInput);
+                case PIPELINE: return new PipelineCmd(argumentInput);
+                case EXPLAIN: return new ExplainCmd(argumentInput);
+                case EXPORT: return new ExportCmd(argumentInput);
+                case MEMORY: return new MemoryCmd(argumentInput);
+                case REPLICATION: return new ReplicationCmd(argumentInput);
+                case SUMMARY: return new SummaryCmd(argumentInput);
+                case TOPAUTHORS: return new TopAuthorsCmd(argumentInput);
+                case AUTHORSTATS: return new AuthorStatsCmd(argumentInput);
                 default:
                     throw new IllegalArgumentException("Command type not supported: " + cmdType);
             }
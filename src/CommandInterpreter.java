@@ -1,3 +1,7 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
 import java.util.Objects;
 
 /**
@@ -16,6 +20,8 @@ public class CommandInterpreter {
 
     /**
      * Parse given user input and create a corresponding library command.
+     * SEARCH or LIST input followed by further stages separated by '|'
+     * is parsed as a pipeline command.
      * 
      * @param inputLine The input is expected to be a single line starting with a command
      * keyword followed by corresponding arguments.
@@ -37,11 +43,23 @@ public class CommandInterpreter {
             argumentInput = inputLine.substring(firstSpaceIdx + 1);
         }
 
+        boolean pipelineSource = commandInput.equals(CommandType.SEARCH.name())
+                || commandInput.equals(CommandType.LIST.name());
+        if (pipelineSource && inputLine.contains(PipelineCmd.STAGE_DELIMITER)) {
+            return setupCommand(CommandType.PIPELINE.name(), inputLine);
+        }
         return setupCommand(commandInput, argumentInput);
     }
 
     /**
      * Execute the given command.
+     *
+     * Output of commands providing a cache key is cached by the library,
+     * so repeating such a command on unchanged book data prints the cached
+     * output instead of executing the command again. Only output printed by
+     * the calling thread is cached, and output too large for the cache or
+     * of a command reporting a failure is not kept at all. Commands changing the book data are rejected on
+     * read-only libraries.
      * 
      * @param command Command to be executed.
      * @param data book data to be considered for command execution.
@@ -51,7 +69,39 @@ public class CommandInterpreter {
         Objects.requireNonNull(command, "Given command must not be null.");
         Objects.requireNonNull(data, "Given data must not be null.");
 
-        command.execute(data);
+        if (command.changesData() && data.isReadOnly()) {
+            System.err.println("ERROR: The library is a read-only replica, " + command.getType()
+                    + " has to be executed on the primary.");
+            return;
+        }
+
+        String cacheKey = command.cacheKey();
+        if (cacheKey == null) {
+            command.execute(data);
+            return;
+        }
+
+        ResultCache cache = data.getResultCache();
+        long version = data.getVersion();
+        byte[] cached = cache.get(cacheKey, version);
+        if (cached != null) {
+            System.out.write(cached, 0, cached.length);
+            System.out.flush();
+            return;
+        }
+
+        PrintStream stdOut = System.out;
+        CapturingOutputStream output = new CapturingOutputStream(stdOut, cache.getMaxOutputBytes(cacheKey));
+        System.setOut(new PrintStream(output, true));
+        try {
+            command.execute(data);
+        } finally {
+            System.out.flush();
+            System.setOut(stdOut);
+        }
+        if (output.getCaptured() != null && !command.hasFailed()) {
+            cache.put(cacheKey, version, output.getCaptured().toByteArray());
+        }
     }
 
     /**
@@ -87,4 +137,69 @@ public class CommandInterpreter {
         return null;
     }
 
+    /**
+     * Output stream writing everything to a target stream, and keeping a copy
+     * of what the thread which created it writes as long as the copy stays
+     * within a maximum size. Output of other threads, such as watchers or
+     * replication, is passed through only.
+     */
+    private static final class CapturingOutputStream extends OutputStream {
+
+        private final OutputStream target;
+        private final Thread owner;
+        private final long maxBytes;
+        /** Copy of the output of the owner thread, null once it has grown too large. */
+        private ByteArrayOutputStream captured;
+
+        private CapturingOutputStream(OutputStream target, long maxBytes) {
+            this.target = target;
+            this.owner = Thread.currentThread();
+            this.maxBytes = maxBytes;
+            this.captured = maxBytes >= 0 ? new ByteArrayOutputStream() : null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+            if (keep(1)) {
+                captured.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+            if (keep(len)) {
+                captured.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        /**
+         * Get the captured output.
+         * @return output of the owner thread, or null if it was too large to be kept
+         */
+        private ByteArrayOutputStream getCaptured() {
+            return captured;
+        }
+
+        /**
+         * Check if the given number of bytes written by the current thread
+         * are to be copied, dropping the copy if it would grow too large.
+         */
+        private boolean keep(int len) {
+            if (captured == null || Thread.currentThread() != owner) {
+                return false;
+            }
+            if (captured.size() + (long) len > maxBytes) {
+                captured = null;
+                return false;
+            }
+            return true;
+        }
+    }
 }
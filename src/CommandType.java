@@ -6,5 +6,15 @@ public enum CommandType {
     SEARCH,
     LIST,
     REMOVE,
-    GROUP
+    GROUP,
+    COMPLETE,
+    ISBN,
+    PIPELINE,
+    EXPLAIN,
+    EXPORT,
+    MEMORY,
+    REPLICATION,
+    SUMMARY,
+    TOPAUTHORS,
+    AUTHORSTATS
 }
@@ -0,0 +1,64 @@
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Complete command used to print titles and author names starting with a given prefix.
+ */
+public class CompleteCmd extends LibraryCommand {
+
+    /** Maximum number of completions printed for a prefix. */
+    private static final int MAX_COMPLETIONS = 10;
+
+    /** A string to remember the prefix to complete. */
+    private String prefixToComplete;
+
+    /**
+     * Create a complete command.
+     *
+     * @param argumentInput argument input is expected to be a non blank prefix.
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public CompleteCmd(String argumentInput) {
+        super(CommandType.COMPLETE, argumentInput);
+    }
+
+    /**
+     * Execute the complete command. This prints the first titles and
+     * author names in the library starting with the remembered prefix,
+     * ignoring case, in lexicographic order.
+     *
+     * @param data book data to be considered for command execution.
+     * @throws NullPointerException if the given data is null
+     */
+    @Override
+    public void execute(LibraryData data) {
+        Objects.requireNonNull(data, "Given data must not be null.");
+
+        List<String> completions = data.getPrefixIndex().complete(prefixToComplete, MAX_COMPLETIONS);
+
+        if (completions.isEmpty()) {
+            System.out.println("No completions found for prefix: " + prefixToComplete);
+        }
+        for (String completion : completions) {
+            System.out.println(completion);
+        }
+    }
+
+    /**
+     * Remembers the command argument input in prefixToComplete field.
+     * Trailing spaces are kept as they are part of the prefix.
+     *
+     * @param argumentInput argument input for complete command
+     * @return true if the given argument is not blank, false otherwise.
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+
+        prefixToComplete = argumentInput.stripLeading();
+
+        return !prefixToComplete.isBlank();
+    }
+}
@@ -0,0 +1,132 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Static helpers for reading files which may be gzip compressed.
+ *
+ * Compression is detected from the gzip magic number rather than the file name.
+ * Compressed files are inflated on a separate thread into a pipe, so decompression
+ * overlaps with whatever the reading thread does with the data, and no uncompressed
+ * copy of the file is ever written to disk.
+ */
+final class CompressedInput {
+
+    /** First two bytes of every gzip stream. */
+    private static final int GZIP_MAGIC = 0x8b1f;
+    /** Size of the buffers used for reading and for the pipe between the threads. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Not to be used. */
+    private CompressedInput() {
+        throw new UnsupportedOperationException("This constructor should never be used.");
+    }
+
+    /**
+     * Open the given file for reading its uncompressed content.
+     *
+     * @param file plain or gzip compressed file
+     * @return stream of the uncompressed file content
+     * @throws IOException if the file cannot be opened
+     */
+    public static InputStream open(Path file) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+
+        in.mark(2);
+        int magic = in.read() | (in.read() << 8);
+        in.reset();
+
+        if (magic != GZIP_MAGIC) {
+            return in;
+        }
+        return new InflatingPipe(new GZIPInputStream(in, BUFFER_SIZE), file.toString());
+    }
+
+    /**
+     * Check if the given file is gzip compressed.
+     *
+     * @param file file to check
+     * @return true if the file starts with the gzip magic number, false if not or if it cannot be read
+     */
+    public static boolean isCompressed(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return (in.read() | (in.read() << 8)) == GZIP_MAGIC;
+        } catch (IOException | SecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Pipe filled with decompressed data by a background thread.
+     * Failures of the background thread are reported by the reading side.
+     */
+    private static final class InflatingPipe extends PipedInputStream {
+
+        private final Thread inflater;
+        private volatile IOException failure;
+
+        private InflatingPipe(InputStream compressed, String name) throws IOException {
+            super(BUFFER_SIZE);
+            PipedOutputStream sink = new PipedOutputStream(this);
+
+            inflater = new Thread(() -> pump(compressed, sink), "inflate " + name);
+            inflater.setDaemon(true);
+            inflater.start();
+        }
+
+        private void pump(InputStream compressed, OutputStream sink) {
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = compressed.read(buffer)) >= 0) {
+                    sink.write(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                failure = e; // has to be set before the sink is closed and the reader sees the end of data
+            } finally {
+                closeQuietly(compressed);
+                closeQuietly(sink);
+            }
+        }
+
+        private static void closeQuietly(AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                // nothing left to clean up
+            }
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            int b = super.read();
+            checkFailure(b);
+            return b;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            checkFailure(read);
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            inflater.interrupt();
+        }
+
+        private void checkFailure(int read) throws IOException {
+            if (read < 0 && failure != null) {
+                throw new IOException("Decompression failed: " + failure.getMessage(), failure);
+            }
+        }
+    }
+}
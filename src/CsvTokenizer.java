@@ -0,0 +1,248 @@
+/**
+ * Single pass tokenizer for comma separated records as described in RFC 4180.
+ *
+ * Fields may be enclosed in double quotes, in which case they can contain commas,
+ * line breaks and double quotes (escaped by doubling them). The tokenizer only
+ * tracks field boundaries in the current record, so numeric fields can be parsed
+ * straight from the record text and Strings are only created for fields which
+ * are actually needed as text.
+ *
+ * A tokenizer instance is meant to be reused for all records of a file.
+ */
+final class CsvTokenizer {
+
+    /** Character separating fields of a record. */
+    private static final char FIELD_DELIMITER = ',';
+    /** Character enclosing fields containing special characters. */
+    private static final char QUOTE = '"';
+    /** Powers of ten exactly representable as float, for fast decimal parsing. */
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+    /** Largest integer up to which every integer is exactly representable as float. */
+    private static final int FLOAT_EXACT_INTEGER_LIMIT = 1 << 24;
+
+    /** Text of the current record. */
+    private String record;
+    /** Position in the record where the next field starts. */
+    private int position;
+    /** Start of the current field's content (after an opening quote). */
+    private int fieldStart;
+    /** End of the current field's content (before a closing quote). */
+    private int fieldEnd;
+    /** True if the current field is enclosed in quotes. */
+    private boolean fieldQuoted;
+    /** True if the current field contains escaped quotes. */
+    private boolean fieldEscaped;
+    /** Reusable buffer for unescaping quoted fields. */
+    private final StringBuilder unescapeBuffer;
+
+    /** Create a tokenizer without a current record. */
+    public CsvTokenizer() {
+        record = "";
+        position = 1;
+        unescapeBuffer = new StringBuilder();
+    }
+
+    /**
+     * Check if the given line ends inside a quoted field, meaning
+     * the record continues on the following line.
+     *
+     * @param line a line of a file, or several joined lines
+     * @return true if the line contains an odd number of quotes
+     */
+    public static boolean isIncompleteRecord(String line) {
+        int quotes = 0;
+        for (int idx = line.indexOf(QUOTE); idx >= 0; idx = line.indexOf(QUOTE, idx + 1)) {
+            quotes++;
+        }
+        return quotes % 2 != 0;
+    }
+
+    /**
+     * Start tokenizing the given record.
+     *
+     * @param record complete text of a single record without trailing line break
+     */
+    public void reset(String record) {
+        this.record = record;
+        this.position = 0;
+    }
+
+    /**
+     * Move to the next field of the current record.
+     *
+     * @return true if there is another field, false if the end of the record has been reached
+     * @throws IllegalArgumentException if a quoted field is not closed properly
+     */
+    public boolean nextField() {
+        int length = record.length();
+        if (position > length) {
+            return false;
+        }
+
+        fieldEscaped = false;
+        fieldQuoted = position < length && record.charAt(position) == QUOTE;
+
+        if (!fieldQuoted) {
+            fieldStart = position;
+            int end = record.indexOf(FIELD_DELIMITER, position);
+            fieldEnd = end < 0 ? length : end;
+            position = fieldEnd + 1;
+            return true;
+        }
+
+        fieldStart = position + 1;
+        int idx = fieldStart;
+        while (true) {
+            int quote = record.indexOf(QUOTE, idx);
+            if (quote < 0) {
+                throw new IllegalArgumentException("Unterminated quoted field at position " + position);
+            }
+            if (quote + 1 < length && record.charAt(quote + 1) == QUOTE) {
+                fieldEscaped = true;
+                idx = quote + 2;
+                continue;
+            }
+
+            fieldEnd = quote;
+            if (quote + 1 < length && record.charAt(quote + 1) != FIELD_DELIMITER) {
+                throw new IllegalArgumentException("Unexpected character after quoted field at position " + quote);
+            }
+            position = quote + 2;
+            return true;
+        }
+    }
+
+    /**
+     * Create a String of the current field's content.
+     *
+     * @return content of the current field with enclosing quotes removed and escaped quotes unescaped
+     */
+    public String fieldAsString() {
+        if (!fieldEscaped) {
+            return record.substring(fieldStart, fieldEnd);
+        }
+
+        unescapeBuffer.setLength(0);
+        for (int i = fieldStart; i < fieldEnd; i++) {
+            char c = record.charAt(i);
+            unescapeBuffer.append(c);
+            if (c == QUOTE) {
+                i++;
+            }
+        }
+        return unescapeBuffer.toString();
+    }
+
+    /**
+     * Split the current field's content at the given delimiter.
+     *
+     * @param delimiter character separating the parts
+     * @return parts of the current field's content
+     */
+    public String[] fieldAsStrings(char delimiter) {
+        String source = record;
+        int start = fieldStart;
+        int end = fieldEnd;
+        if (fieldEscaped) {
+            source = fieldAsString();
+            start = 0;
+            end = source.length();
+        }
+
+        int parts = 1;
+        for (int i = start; i < end; i++) {
+            if (source.charAt(i) == delimiter) {
+                parts++;
+            }
+        }
+
+        String[] result = new String[parts];
+        int partStart = start;
+        for (int part = 0; part < parts; part++) {
+            int partEnd = part == parts - 1 ? end : source.indexOf(delimiter, partStart);
+            result[part] = source.substring(partStart, partEnd);
+            partStart = partEnd + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Parse the current field's content as a decimal integer.
+     *
+     * @return integer value of the field
+     * @throws NumberFormatException if the field is not a valid integer
+     */
+    public int fieldAsInt() {
+        int i = fieldStart;
+        boolean negative = i < fieldEnd && record.charAt(i) == '-';
+        if (i < fieldEnd && (record.charAt(i) == '-' || record.charAt(i) == '+')) {
+            i++;
+        }
+        if (i == fieldEnd) {
+            throw invalidNumber();
+        }
+
+        long value = 0;
+        for (; i < fieldEnd; i++) {
+            int digit = record.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalidNumber();
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw invalidNumber();
+            }
+        }
+
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw invalidNumber();
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parse the current field's content as a decimal floating point number.
+     * Plain decimals of up to seven significant digits are converted directly,
+     * giving the same result as Float.parseFloat, which is used for anything else.
+     *
+     * @return float value of the field
+     * @throws NumberFormatException if the field is not a valid number
+     */
+    public float fieldAsFloat() {
+        int start = fieldStart;
+        int end = fieldEnd;
+        while (start < end && record.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && record.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        int mantissa = 0;
+        int scale = -1;
+        boolean digits = false;
+        for (int i = start; i < end; i++) {
+            char c = record.charAt(i);
+            if (c == '.' && scale < 0) {
+                scale = 0;
+            } else if (c >= '0' && c <= '9' && mantissa < FLOAT_EXACT_INTEGER_LIMIT / 10) {
+                mantissa = mantissa * 10 + (c - '0');
+                scale = scale < 0 ? scale : scale + 1;
+                digits = true;
+            } else {
+                return Float.parseFloat(fieldAsString());
+            }
+        }
+
+        if (!digits || scale >= FLOAT_POWERS_OF_TEN.length) {
+            return Float.parseFloat(fieldAsString());
+        }
+        return scale <= 0 ? mantissa : mantissa / FLOAT_POWERS_OF_TEN[scale];
+    }
+
+    private NumberFormatException invalidNumber() {
+        return new NumberFormatException("For input string: \"" + fieldAsString() + "\"");
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Bloom filter over the fingerprints of all book entries of the library,
+ * used to rule out duplicates without comparing entries.
+ *
+ * A negative answer of mightContain is exact, a positive one is wrong for
+ * about one percent of new entries as long as the filter is not filled beyond
+ * the capacity it was sized for. Bits cannot be cleared again, so removed
+ * entries keep counting towards that capacity until the filter is rebuilt.
+ */
+class EntryBloomFilter implements LibraryIndex {
+
+    /** Bits reserved per entry the filter is sized for. */
+    private static final int BITS_PER_ENTRY = 10;
+    /** Number of bits set per entry (optimal for ten bits per entry). */
+    private static final int HASH_COUNT = 7;
+    /** Smallest number of entries a filter is sized for. */
+    private static final int MIN_CAPACITY = 1024;
+    /** Largest number of bits of a filter. */
+    private static final long MAX_BITS = 1L << 31;
+
+    private final long[] bits;
+    /** Number of bits minus one (the number of bits is a power of two). */
+    private final int mask;
+    /** Number of entries the filter is sized for. */
+    private final int capacity;
+    /** Number of entries ever added, including removed ones. */
+    private int insertions;
+
+    /**
+     * Create an empty filter.
+     *
+     * @param capacity number of entries the filter should hold at its nominal error rate
+     */
+    public EntryBloomFilter(int capacity) {
+        this.capacity = Math.max(MIN_CAPACITY, capacity);
+        long bitCount = Math.min(MAX_BITS, Long.highestOneBit((long) this.capacity * BITS_PER_ENTRY - 1) << 1);
+        bits = new long[(int) (bitCount >>> 6)];
+        mask = (int) (bitCount - 1);
+        insertions = 0;
+    }
+
+    @Override
+    public void add(BookEntry entry) {
+        long fingerprint = fingerprint(entry);
+        int step = (int) (fingerprint >>> 32) | 1;
+        int bit = (int) fingerprint;
+        for (int i = 0; i < HASH_COUNT; i++, bit += step) {
+            int slot = bit & mask;
+            bits[slot >>> 6] |= 1L << slot;
+        }
+        insertions++;
+    }
+
+    @Override
+    public void remove(BookEntry entry) {
+        // bits might be shared with other entries, so they have to stay set
+    }
+
+    @Override
+    public long estimateBytes() {
+        return MemoryLayout.object(MemoryLayout.REFERENCE + 3 * 4) + MemoryLayout.array(bits.length, Long.BYTES);
+    }
+
+    /**
+     * Check if an entry equal to the given one might have been added.
+     *
+     * @param entry entry to look for
+     * @return false if no equal entry has been added, true if one might have been
+     */
+    public boolean mightContain(BookEntry entry) {
+        long fingerprint = fingerprint(entry);
+        int step = (int) (fingerprint >>> 32) | 1;
+        int bit = (int) fingerprint;
+        for (int i = 0; i < HASH_COUNT; i++, bit += step) {
+            int slot = bit & mask;
+            if ((bits[slot >>> 6] & (1L << slot)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the given number of further entries can be added without
+     * exceeding the capacity of the filter.
+     *
+     * @param additions number of entries about to be added
+     * @return true if the filter keeps its nominal error rate after adding them
+     */
+    public boolean canHold(int additions) {
+        return (long) insertions + additions <= capacity;
+    }
+
+    /**
+     * Compute a 64 bit FNV-1a hash of all fields compared by BookEntry.equals.
+     *
+     * @param entry entry to compute the fingerprint for
+     * @return fingerprint equal for all equal entries
+     */
+    static long fingerprint(BookEntry entry) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, entry.getTitle());
+        for (String author : entry.getAuthors()) {
+            hash = mix(hash, author);
+        }
+        hash = mix(hash, Float.floatToIntBits(entry.getRating()));
+        hash = mix(hash, entry.getISBN());
+        hash = mix(hash, entry.getPages());
+        // spread the bits, FNV-1a leaves the upper half poorly mixed for short inputs
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = mix(hash, value.charAt(i));
+        }
+        return mix(hash, -1); // separates consecutive strings
+    }
+
+    private static long mix(long hash, int value) {
+        hash ^= value;
+        return hash * 0x100000001b3L;
+    }
+}
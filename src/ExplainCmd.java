@@ -0,0 +1,56 @@
+import java.util.Objects;
+
+/**
+ * Explain command used to print how a search, list or pipeline is executed,
+ * with estimated and actual numbers of books passing each of its stages.
+ */
+public class ExplainCmd extends LibraryCommand {
+
+    /** Pipeline to be explained. */
+    private PipelineCmd pipeline;
+
+    /**
+     * Create an explain command.
+     *
+     * @param argumentInput argument input is expected to be a SEARCH command, or
+     *                      LIST, optionally followed by further pipeline stages.
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public ExplainCmd(String argumentInput) {
+        super(CommandType.EXPLAIN, argumentInput);
+    }
+
+    /**
+     * Execute the explain command. This executes the remembered pipeline
+     * without printing its result and prints its plan instead.
+     *
+     * @param data book data to be considered for command execution.
+     * @throws NullPointerException if the given data is null
+     */
+    @Override
+    public void execute(LibraryData data) {
+        Objects.requireNonNull(data, "Given data must not be null.");
+
+        pipeline.explain(data);
+    }
+
+    /**
+     * Remembers the pipeline to be explained in the pipeline field.
+     *
+     * @param argumentInput argument input for explain command
+     * @return true if the given argument is a valid pipeline
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+
+        try {
+            pipeline = new PipelineCmd(argumentInput);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export command used to write all books of the library to a file, either as
+ * CSV in the format of book data files, as a JSON array or as newline
+ * delimited JSON with one book per line. Files ending with '.gz' are gzip
+ * compressed.
+ *
+ * Books are encoded straight into a reusable direct buffer which is written to
+ * the file channel whenever it is full, so exporting does not build a String
+ * per book. Exported CSV files can be added to a library again, except that
+ * authors containing '-' are split there, as for any book data file.
+ */
+public class ExportCmd extends LibraryCommand {
+
+    /** Delimiter between path and format. */
+    private static final String FORMAT_DELIMITER = " ";
+    /** Extension of files to be gzip compressed. */
+    private static final String COMPRESSED_EXTENSION = ".gz";
+    /** Header line of book data files. */
+    private static final String CSV_HEADER = "title,authors,average_rating,isbn,# num_pages";
+    /** Character separating the authors in book data files. */
+    private static final char AUTHORS_DELIMITER = '-';
+    /** Size of the buffer of the gzip compressor. */
+    private static final int COMPRESSION_BUFFER_SIZE = 1 << 16;
+
+    /** An enumerator of possible export formats.
+     * Extending it will have to be followed by also extending the switch
+     * case in writeBooks method of the class.
+     */
+    private enum ExportFormat { CSV, JSON, NDJSON }
+    /** Format the books are written in. */
+    private ExportFormat format;
+    /** Path of the file to be written. */
+    private Path exportPath;
+
+    /**
+     * Create an export command.
+     *
+     * @param argumentInput argument input is expected to be a path followed by
+     *                      the format 'csv', 'json' or 'ndjson'.
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public ExportCmd(String argumentInput) {
+        super(CommandType.EXPORT, argumentInput);
+    }
+
+    /**
+     * Execute the export command. This writes all books of the library to the
+     * file, replacing its previous content, and prints the number of books written.
+     *
+     * @param data book data to be considered for command execution.
+     * @throws NullPointerException if the given data is null
+     */
+    @Override
+    public void execute(LibraryData data) {
+        Objects.requireNonNull(data, "Given data must not be null.");
+
+        List<BookEntry> books = data.getBookData();
+        try (Utf8ChannelWriter writer = new Utf8ChannelWriter(openChannel())) {
+            writeBooks(books, writer);
+        } catch (IOException | SecurityException e) {
+            System.err.println("ERROR: Exporting library failed: " + e);
+            return;
+        }
+
+        System.out.println("Exported " + books.size() + " books to " + exportPath);
+    }
+
+    /**
+     * Parses the path and format of the export.
+     *
+     * @param argumentInput argument input for export command
+     * @return true if a path is followed by a valid format
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+
+        String arguments = argumentInput.trim();
+        int delimiterIdx = arguments.lastIndexOf(FORMAT_DELIMITER);
+        if (delimiterIdx < 0) {
+            return false;
+        }
+
+        try {
+            format = ExportFormat.valueOf(arguments.substring(delimiterIdx + 1).toUpperCase());
+            exportPath = Paths.get(arguments.substring(0, delimiterIdx).trim());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Open the export file for writing, compressing the content if the file
+     * name ends with '.gz'.
+     *
+     * @return channel writing to the export file
+     * @throws IOException if the file cannot be opened
+     */
+    private WritableByteChannel openChannel() throws IOException {
+        FileChannel file = FileChannel.open(exportPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if (!exportPath.toString().endsWith(COMPRESSED_EXTENSION)) {
+            return file;
+        }
+        return Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(file), COMPRESSION_BUFFER_SIZE));
+    }
+
+    /**
+     * Write the given books in the chosen format.
+     *
+     * @param books books to be written
+     * @param writer writer of the export file
+     * @throws IOException if writing fails
+     * @throws UnsupportedOperationException if the enumerator of possible export
+     * formats has been extended but the switch case for dealing with them has not
+     */
+    private void writeBooks(List<BookEntry> books, Utf8ChannelWriter writer) throws IOException {
+        switch (format) {
+            case CSV:
+                writer.write(CSV_HEADER).writeAscii('\n');
+                for (BookEntry book : books) {
+                    writeCsv(book, writer);
+                }
+                break;
+            case JSON:
+                writer.writeAscii('[');
+                for (int i = 0; i < books.size(); i++) {
+                    writer.write(i == 0 ? "\n" : ",\n");
+                    writeJson(books.get(i), writer);
+                }
+                writer.write(books.isEmpty() ? "]\n" : "\n]\n");
+                break;
+            case NDJSON:
+                for (BookEntry book : books) {
+                    writeJson(book, writer);
+                    writer.writeAscii('\n');
+                }
+                break;
+            default:
+                throw new UnsupportedOperationException("Export format " + format + " is not yet implemented");
+        }
+    }
+
+    private static void writeCsv(BookEntry book, Utf8ChannelWriter writer) throws IOException {
+        writer.writeCsvField(book.getTitle()).writeAscii(',');
+
+        String[] authors = book.getAuthors();
+        boolean quoted = false;
+        for (String author : authors) {
+            quoted |= Utf8ChannelWriter.needsCsvQuotes(author);
+        }
+        if (quoted) {
+            writer.writeCsvField(String.join(String.valueOf(AUTHORS_DELIMITER), authors));
+        } else {
+            for (int i = 0; i < authors.length; i++) {
+                if (i > 0) {
+                    writer.writeAscii(AUTHORS_DELIMITER);
+                }
+                writer.write(authors[i]);
+            }
+        }
+
+        writer.writeAscii(',').writeRating(book.getRating()).writeAscii(',');
+        writer.writeCsvField(book.getISBN()).writeAscii(',').writeInt(book.getPages()).writeAscii('\n');
+    }
+
+    private static void writeJson(BookEntry book, Utf8ChannelWriter writer) throws IOException {
+        writer.write("{\"title\":").writeJsonString(book.getTitle()).write(",\"authors\":[");
+        String[] authors = book.getAuthors();
+        for (int i = 0; i < authors.length; i++) {
+            if (i > 0) {
+                writer.writeAscii(',');
+            }
+            writer.writeJsonString(authors[i]);
+        }
+        writer.write("],\"rating\":").writeRating(book.getRating());
+        writer.write(",\"isbn\":").writeJsonString(book.getISBN());
+        writer.write(",\"pages\":").writeInt(book.getPages()).writeAscii('}');
+    }
+}
@@ -0,0 +1,309 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts key-value records by key within a fixed memory budget, spilling
+ * sorted runs to temporary files whenever the records held in memory exceed
+ * the budget and merging all runs while the sorted records are read.
+ *
+ * At most MAX_MERGE_RUNS runs are merged at once, so the files open and the
+ * buffers held while merging do not grow with the number of runs. If there
+ * are more runs, consecutive runs are merged into longer runs first. Buffers
+ * of run files are sized from the budget, and strings are written as their
+ * length in UTF-8 bytes followed by the bytes (see ClusterProtocol), so they
+ * are not limited in length.
+ *
+ * Sorting is stable: records with equal keys keep the order they have been
+ * added in, as runs hold consecutive records and are merged by key first and
+ * by run second. Temporary files are deleted when the sorter is closed.
+ */
+final class ExternalSorter implements Closeable {
+
+    /** Bytes of a record held in memory besides its strings (object and list slot). */
+    private static final long RECORD_BYTES = MemoryLayout.object(2 * MemoryLayout.REFERENCE) + MemoryLayout.REFERENCE;
+    /** Maximum number of run files merged at once. */
+    static final int MAX_MERGE_RUNS = 16;
+    /** Smallest size of the buffers of run files. */
+    private static final int MIN_BUFFER_SIZE = 1 << 12;
+    /** Largest size of the buffers of run files. */
+    private static final int MAX_BUFFER_SIZE = 1 << 16;
+    /** Order of records, by key only so sorting a run keeps equal keys in order. */
+    private static final Comparator<Record> KEY_ORDER = Comparator.comparing(record -> record.key);
+
+    /** Receives sorted records. */
+    interface RecordConsumer {
+        void accept(String key, String value);
+    }
+
+    /** Receives merged records, possibly writing them to a run file. */
+    private interface RecordSink {
+        void accept(Record record) throws IOException;
+    }
+
+    /** Maximum estimated bytes of records held in memory. */
+    private final long memoryBudget;
+    /** Size of the buffer of every run file read or written, so all buffers of a merge fit the budget. */
+    private final int bufferSize;
+    /** Records not spilled yet, in the order added. */
+    private final List<Record> records;
+    /** Estimated bytes of the records held. */
+    private long recordBytes;
+    /** Files holding the spilled runs, in the order spilled. */
+    private final List<Path> runs;
+
+    /**
+     * Create an empty sorter.
+     *
+     * @param memoryBudget maximum estimated bytes of records held in memory
+     * @throws IllegalArgumentException if the budget is not positive
+     */
+    ExternalSorter(long memoryBudget) {
+        if (memoryBudget < 1) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + memoryBudget);
+        }
+
+        this.memoryBudget = memoryBudget;
+        bufferSize = (int) Math.max(MIN_BUFFER_SIZE, Math.min(MAX_BUFFER_SIZE, memoryBudget / (MAX_MERGE_RUNS + 1)));
+        records = new ArrayList<>();
+        recordBytes = 0;
+        runs = new ArrayList<>();
+    }
+
+    /**
+     * Add a record, spilling all records held to a run file if they exceed the budget.
+     *
+     * @param key key to sort by
+     * @param value value of the record
+     * @throws IOException if spilling fails
+     */
+    void add(String key, String value) throws IOException {
+        records.add(new Record(key, value));
+        recordBytes += RECORD_BYTES + MemoryLayout.string(key) + MemoryLayout.string(value);
+        if (recordBytes > memoryBudget) {
+            spill();
+        }
+    }
+
+    /**
+     * Number of runs spilled to temporary files so far.
+     * @return number of run files
+     */
+    int getRunCount() {
+        return runs.size();
+    }
+
+    /**
+     * Pass all records added on in key order, merging the spilled runs with
+     * the records held in memory. Only one record per run is read ahead, and
+     * runs beyond MAX_MERGE_RUNS are merged into longer runs first.
+     *
+     * @param consumer receives the sorted records
+     * @throws IOException if reading or merging runs fails
+     */
+    void forEachSorted(RecordConsumer consumer) throws IOException {
+        records.sort(KEY_ORDER);
+        if (runs.isEmpty()) {
+            for (Record record : records) {
+                consumer.accept(record.key, record.value);
+            }
+            return;
+        }
+
+        while (runs.size() > MAX_MERGE_RUNS) {
+            mergeRunGroups();
+        }
+
+        List<RunReader> readers = new ArrayList<>();
+        try {
+            for (int i = 0; i < runs.size(); i++) {
+                readers.add(new RunReader(i, runs.get(i), bufferSize));
+            }
+            readers.add(new RunReader(runs.size(), records));
+            merge(readers, record -> consumer.accept(record.key, record.value));
+        } finally {
+            closeAll(readers);
+        }
+    }
+
+    /**
+     * Merge every MAX_MERGE_RUNS consecutive runs into a single run, which
+     * keeps records with equal keys in the order they have been added.
+     * @throws IOException if reading or writing runs fails
+     */
+    private void mergeRunGroups() throws IOException {
+        List<Path> merged = new ArrayList<>();
+        for (int start = 0; start < runs.size(); start += MAX_MERGE_RUNS) {
+            List<Path> group = runs.subList(start, Math.min(runs.size(), start + MAX_MERGE_RUNS));
+            if (group.size() == 1) {
+                merged.add(group.get(0));
+                continue;
+            }
+
+            Path run = Files.createTempFile("library-sort", ".run");
+            merged.add(run);
+            List<RunReader> readers = new ArrayList<>();
+            try (DataOutputStream out = openRun(run)) {
+                for (int i = 0; i < group.size(); i++) {
+                    readers.add(new RunReader(i, group.get(i), bufferSize));
+                }
+                merge(readers, record -> writeRecord(out, record));
+            } catch (IOException e) {
+                // runs not merged yet are still deleted on close
+                merged.addAll(runs.subList(start, runs.size()));
+                runs.clear();
+                runs.addAll(merged);
+                throw e;
+            } finally {
+                closeAll(readers);
+            }
+            for (Path groupRun : group) {
+                Files.deleteIfExists(groupRun);
+            }
+        }
+        runs.clear();
+        runs.addAll(merged);
+    }
+
+    /**
+     * Pass the records of all given runs on in key order, records with equal
+     * keys in the order of their runs.
+     *
+     * @param readers readers of the runs, none of which has been advanced yet
+     * @param sink receives the merged records
+     * @throws IOException if reading a run or passing a record on fails
+     */
+    private static void merge(List<RunReader> readers, RecordSink sink) throws IOException {
+        PriorityQueue<RunReader> next = new PriorityQueue<>(readers.size(),
+                Comparator.comparing((RunReader reader) -> reader.current.key).thenComparingInt(reader -> reader.run));
+        for (RunReader reader : readers) {
+            if (reader.advance()) {
+                next.add(reader);
+            }
+        }
+
+        while (!next.isEmpty()) {
+            RunReader reader = next.poll();
+            sink.accept(reader.current);
+            if (reader.advance()) {
+                next.add(reader);
+            }
+        }
+    }
+
+    private static void closeAll(List<RunReader> readers) throws IOException {
+        for (RunReader reader : readers) {
+            if (reader.in != null) {
+                reader.in.close();
+            }
+        }
+    }
+
+    /** Delete all run files. */
+    @Override
+    public void close() throws IOException {
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+        records.clear();
+    }
+
+    /**
+     * Sort the records held and write them to a new run file.
+     * @throws IOException if writing fails
+     */
+    private void spill() throws IOException {
+        records.sort(KEY_ORDER);
+        Path run = Files.createTempFile("library-sort", ".run");
+        runs.add(run);
+
+        try (DataOutputStream out = openRun(run)) {
+            for (Record record : records) {
+                writeRecord(out, record);
+            }
+        }
+        records.clear();
+        recordBytes = 0;
+    }
+
+    private DataOutputStream openRun(Path run) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), bufferSize));
+    }
+
+    private static void writeRecord(DataOutputStream out, Record record) throws IOException {
+        ClusterProtocol.writeString(out, record.key);
+        ClusterProtocol.writeString(out, record.value);
+    }
+
+    /** A single key-value record. */
+    private static final class Record {
+
+        private final String key;
+        private final String value;
+
+        private Record(String key, String value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /** Reads the records of a single run, either from its file or from memory. */
+    private static final class RunReader {
+
+        /** Index of the run, which orders records with equal keys. */
+        private final int run;
+        /** Stream of the run file (null for the run held in memory). */
+        private final DataInputStream in;
+        /** Records of the run held in memory (null for a run file). */
+        private final List<Record> records;
+        /** Position of the next record held in memory. */
+        private int position;
+        /** Current record of the run. */
+        private Record current;
+
+        private RunReader(int run, Path file, int bufferSize) throws IOException {
+            this.run = run;
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), bufferSize));
+            records = null;
+        }
+
+        private RunReader(int run, List<Record> records) {
+            this.run = run;
+            in = null;
+            this.records = records;
+            position = 0;
+        }
+
+        /**
+         * Move to the next record of the run.
+         * @return true if there is a next record, false at the end of the run
+         * @throws IOException if reading fails
+         */
+        private boolean advance() throws IOException {
+            if (records != null) {
+                current = position < records.size() ? records.get(position++) : null;
+                return current != null;
+            }
+
+            String key;
+            try {
+                key = ClusterProtocol.readString(in);
+            } catch (EOFException e) {
+                return false;
+            }
+            current = new Record(key, ClusterProtocol.readString(in));
+            return true;
+        }
+    }
+}
@@ -1,8 +1,16 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.TreeMap;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
 
 /**
  * Group command used to group books either alphabetically by title or by author
@@ -10,9 +18,14 @@ import java.util.Set;
  */
 public class GroupCmd extends LibraryCommand {
 
+    /** Minimum number of books for grouping them in parallel. */
+    protected static final int PARALLEL_THRESHOLD = 1 << 16;
+    /** Number of books below which a parallel grouping task groups its slice itself. */
+    private static final int SLICE_SIZE = 1 << 13;
+
     /** An enumerator of possible arguments to group books by.
      * Extending it will have to be followed by also extending the switch
-     * case in execute method of the class, as well as writing grouping
+     * case in grouping method of the class, as well as writing grouping
      * functions (such as groupByTitle) for newly added arguments.
      */
     private enum GroupArgumentType { TITLE, AUTHOR }
@@ -46,28 +59,168 @@ public class GroupCmd extends LibraryCommand {
         Objects.requireNonNull(data, "Given data must not be null.");
 
         List<BookEntry> books = data.getBookData();
-        if (books.size() == 0) {
+        printHeader(books.size());
+        if (books.size() > 0 && data.getSortMemory() > 0) {
+            groupOnDisk(books, data.getSortMemory());
+        }
+        else if (books.size() > 0) {
+            TreeMap<String, ArrayList<String>> groupedBooks = group(books, grouping());
+            printGroup(groupedBooks);
+        }
+    }
+
+    /**
+     * Group and print the books within the given memory budget, spilling
+     * sorted runs of (key, title) records to disk and printing the groups
+     * while merging the runs, so no group is ever held in memory as a whole.
+     *
+     * @param books list of all the book entries in the library.
+     * @param memoryBudget maximum bytes of records held in memory
+     * @throws UnsupportedOperationException if the enumerator of possible group command
+     * arguments has been extended but the switch case for dealing with them has not
+     */
+    private void groupOnDisk(List<BookEntry> books, long memoryBudget) {
+        try (ExternalSorter sorter = new ExternalSorter(memoryBudget)) {
+            for (BookEntry book : books) {
+                for (String key : groupKeys(book)) {
+                    sorter.add(key, book.getTitle());
+                }
+            }
+
+            String[] currentKey = new String[1];
+            sorter.forEachSorted((key, title) -> {
+                if (!key.equals(currentKey[0])) {
+                    printGroupKey(key);
+                    currentKey[0] = key;
+                }
+                printTitle(title);
+            });
+        } catch (IOException e) {
+            reportFailure("Sorting on disk failed: " + e);
+        }
+    }
+
+    /**
+     * Ask every worker for its groups and print them merged, merging the
+     * sorted group keys of all workers and the titles of every group back
+     * into library order while reading the replies.
+     *
+     * @param cluster coordinator connected to the workers holding the book data
+     * @throws IOException if communicating with a worker fails
+     */
+    @Override
+    public void executeOnCluster(ClusterCoordinator cluster) throws IOException {
+        List<DataInputStream> replies = cluster.broadcast(this);
+        int bookCount = 0;
+        for (DataInputStream reply : replies) {
+            bookCount += reply.readInt();
+        }
+        printHeader(bookCount);
+
+        // key of the group each reply is positioned at, null once all its groups have been read
+        String[] keys = new String[replies.size()];
+        for (int i = 0; i < replies.size(); i++) {
+            keys[i] = readGroupKey(replies.get(i));
+        }
+
+        while (true) {
+            String key = null;
+            for (String workerKey : keys) {
+                if (workerKey != null && (key == null || workerKey.compareTo(key) < 0)) {
+                    key = workerKey;
+                }
+            }
+            if (key == null) {
+                return;
+            }
+
+            List<DataInputStream> groupReplies = new ArrayList<>();
+            for (int i = 0; i < replies.size(); i++) {
+                if (key.equals(keys[i])) {
+                    groupReplies.add(replies.get(i));
+                }
+            }
+            List<String> titles = new ArrayList<>();
+            ClusterProtocol.mergeBySequence(groupReplies, ClusterProtocol::readString,
+                    (sequence, title) -> titles.add(title));
+            printGroup(key, titles);
+
+            for (int i = 0; i < replies.size(); i++) {
+                if (key.equals(keys[i])) {
+                    keys[i] = readGroupKey(replies.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reply with the number of books held followed by the groups of these
+     * books in key order, each with its titles in sequence order.
+     *
+     * @param worker worker holding part of the book data
+     * @param request empty payload
+     * @param reply receives the number of books and the groups
+     * @throws IOException if writing the reply fails
+     * @throws UnsupportedOperationException if the enumerator of possible group command
+     * arguments has been extended but the switch case for dealing with them has not
+     */
+    @Override
+    void executeOnWorker(ClusterWorker worker, DataInputStream request, DataOutputStream reply) throws IOException {
+        List<BookEntry> books = worker.getData().getBookData();
+        TreeMap<String, List<BookEntry>> groups = new TreeMap<>();
+        for (BookEntry book : books) {
+            for (String key : groupKeys(book)) {
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(book);
+            }
+        }
+
+        reply.writeInt(books.size());
+        for (Map.Entry<String, List<BookEntry>> group : groups.entrySet()) {
+            reply.writeBoolean(true);
+            ClusterProtocol.writeString(reply, group.getKey());
+            for (BookEntry book : group.getValue()) {
+                reply.writeLong(worker.sequenceOf(book));
+                ClusterProtocol.writeString(reply, book.getTitle());
+            }
+            reply.writeLong(ClusterProtocol.END_OF_RECORDS);
+        }
+        reply.writeBoolean(false);
+    }
+
+    /**
+     * Read the key of the next group of a worker reply.
+     *
+     * @param reply reply positioned at a group or at its end
+     * @return key of the group, or null at the end of the reply
+     * @throws IOException if reading fails
+     */
+    private static String readGroupKey(DataInputStream reply) throws IOException {
+        return reply.readBoolean() ? ClusterProtocol.readString(reply) : null;
+    }
+
+    /**
+     * Print that the library is empty, or what the books are grouped by.
+     * @param bookCount number of books in the library
+     */
+    private void printHeader(int bookCount) {
+        if (bookCount == 0) {
             System.out.println("The library has no book entries.");
         }
         else {
             System.out.println("Grouped data by " + commandArgument.toString());
-            TreeMap<String, ArrayList<String>> groupedBooks;
-
-            switch (commandArgument) {
-                case TITLE:
-                    groupedBooks = groupByTitle(books);
-                    break;
-                case AUTHOR:
-                    groupedBooks = groupByAuthor(books);
-                    break;
-                default:
-                    throw new UnsupportedOperationException("Command argument " + commandArgument + " is not yet implemented");
-            }
-
-            printGroup(groupedBooks);
         }
     }
 
+    /**
+     * The output only depends on the arguments and the book data, so it may be cached.
+     *
+     * @return command type and argument
+     */
+    @Override
+    public String cacheKey() {
+        return getType() + " " + commandArgument;
+    }
+
     /**
      * Translates given command argument to corresponding GroupArgumentType
      * if it is valid and remembers it in commandArgument field for later use
@@ -95,27 +248,103 @@ public class GroupCmd extends LibraryCommand {
     }
 
     /**
-     * Groups the book data by title.
+     * Groups the given book entries one after another by the argument of this command.
+     * Used for entries which are produced on the fly rather than held in a list.
+     *
+     * @param entries book entries to group.
+     * @return a TreeMap of the grouped book titles, as returned by groupByTitle or groupByAuthor.
+     * @throws UnsupportedOperationException if the enumerator of possible group command
+     * arguments has been extended but the switch case for dealing with them has not
+     */
+    protected TreeMap<String, ArrayList<String>> groupEntries(Iterable<BookEntry> entries) {
+        return grouping().apply(entries);
+    }
+
+    /**
+     * Selects the grouping function for the argument of this command.
+     *
+     * @return grouping function such as groupByTitle.
+     * @throws UnsupportedOperationException if the enumerator of possible group command
+     * arguments has been extended but the switch case for dealing with them has not
+     */
+    private Function<Iterable<BookEntry>, TreeMap<String, ArrayList<String>>> grouping() {
+        switch (commandArgument) {
+            case TITLE:
+                return this::groupByTitle;
+            case AUTHOR:
+                return this::groupByAuthor;
+            default:
+                throw new UnsupportedOperationException("Command argument " + commandArgument + " is not yet implemented");
+        }
+    }
+
+    /**
+     * Groups the book data with the given grouping function, splitting large
+     * libraries into slices which are grouped in parallel.
+     *
+     * Partial groups of neighbouring slices are merged with the titles of the
+     * earlier slice first, so the result is the same as grouping sequentially.
      *
      * @param books list of all the book entries in the library.
+     * @param grouping groups a list of book entries, such as groupByTitle.
+     * @return a TreeMap of the grouped book titles, as returned by the grouping function.
+     */
+    protected TreeMap<String, ArrayList<String>> group(List<BookEntry> books,
+            Function<Iterable<BookEntry>, TreeMap<String, ArrayList<String>>> grouping) {
+        if (books.size() < PARALLEL_THRESHOLD || !(books instanceof RandomAccess)) {
+            return grouping.apply(books);
+        }
+
+        return ForkJoinPool.commonPool().invoke(new GroupingTask(books, grouping));
+    }
+
+    /**
+     * Keys of the groups the given book belongs to, as grouped by the argument of this command.
+     *
+     * @param book book entry to group
+     * @return the key of its title group, or all its authors
+     * @throws UnsupportedOperationException if the enumerator of possible group command
+     * arguments has been extended but the switch case for dealing with them has not
+     */
+    private String[] groupKeys(BookEntry book) {
+        switch (commandArgument) {
+            case TITLE:
+                return new String[] { titleGroupKey(book.getTitle()) };
+            case AUTHOR:
+                return book.getAuthors();
+            default:
+                throw new UnsupportedOperationException("Command argument " + commandArgument + " is not yet implemented");
+        }
+    }
+
+    /**
+     * Key of the group of the given title when grouping by title.
+     *
+     * @param title title of a book
+     * @return the capital first letter of the title, or "[0-9]" if it starts with a number
+     */
+    private static String titleGroupKey(String title) {
+        final String numberGroupHeader = "[0-9]"; // The header under which all book titles starting with a number go
+
+        if (Character.isDigit(title.charAt(0))) {
+            return numberGroupHeader;
+        }
+        return Character.toUpperCase(title.charAt(0)) + "";
+    }
+
+    /**
+     * Groups the book data by title.
+     *
+     * @param books book entries to group, such as all the book entries in the library.
      * @return a TreeMap where keys are either capital letters (+ a key "[0-9]"), and values are book titles
      * starting with the letter represented by the corresponding key (or starting with a number).
      */
-    protected TreeMap<String, ArrayList<String>> groupByTitle(List<BookEntry> books) {
+    protected TreeMap<String, ArrayList<String>> groupByTitle(Iterable<BookEntry> books) {
         TreeMap<String, ArrayList<String>> groupMap = new TreeMap<>();
 
-        final String numberGroupHeader = "[0-9]"; // The header under which all book titles starting with a number go
-
         for (BookEntry book : books) {
             String title = book.getTitle();
-            String key;
-
-            if (Character.isDigit(title.charAt(0))) {
-                key = numberGroupHeader;
-            }
-            else {
-                key = Character.toUpperCase(title.charAt(0)) + "";
-            }
+            String key = titleGroupKey(title);
 
             if (!groupMap.containsKey(key)) {
                 ArrayList<String> value = new ArrayList<>() {{add(title);}};
@@ -134,11 +363,11 @@ public class GroupCmd extends LibraryCommand {
     /**
      * Groups the book data by author.
      *
-     * @param books list of all the book entries in the library.
+     * @param books book entries to group, such as all the book entries in the library.
      * @return a TreeMap where keys are full names of authors, and values are book titles
      * of the books written by the corresponding author.
      */
-    protected TreeMap<String, ArrayList<String>> groupByAuthor(List<BookEntry> books) {
+    protected TreeMap<String, ArrayList<String>> groupByAuthor(Iterable<BookEntry> books) {
         TreeMap<String, ArrayList<String>> groupMap = new TreeMap<>();
 
         for (BookEntry book : books) {
@@ -161,6 +390,46 @@ public class GroupCmd extends LibraryCommand {
         return groupMap;
     }
 
+    /**
+     * Fork-join task grouping a slice of the library, splitting it in
+     * halves until it is small enough to be grouped directly.
+     */
+    private static final class GroupingTask extends RecursiveTask<TreeMap<String, ArrayList<String>>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<BookEntry> slice;
+        private final Function<Iterable<BookEntry>, TreeMap<String, ArrayList<String>>> grouping;
+
+        private GroupingTask(List<BookEntry> slice,
+                Function<Iterable<BookEntry>, TreeMap<String, ArrayList<String>>> grouping) {
+            this.slice = slice;
+            this.grouping = grouping;
+        }
+
+        @Override
+        protected TreeMap<String, ArrayList<String>> compute() {
+            if (slice.size() <= SLICE_SIZE) {
+                return grouping.apply(slice);
+            }
+
+            int middle = slice.size() / 2;
+            GroupingTask first = new GroupingTask(slice.subList(0, middle), grouping);
+            first.fork();
+            TreeMap<String, ArrayList<String>> secondGroups =
+                    new GroupingTask(slice.subList(middle, slice.size()), grouping).compute();
+            TreeMap<String, ArrayList<String>> groups = first.join();
+
+            for (Map.Entry<String, ArrayList<String>> group : secondGroups.entrySet()) {
+                groups.merge(group.getKey(), group.getValue(), (titles, laterTitles) -> {
+                    titles.addAll(laterTitles);
+                    return titles;
+                });
+            }
+            return groups;
+        }
+    }
+
     /**
      * Helper function to print the grouped books.
      *
@@ -168,14 +437,40 @@ public class GroupCmd extends LibraryCommand {
      */
     protected void printGroup(TreeMap<String, ArrayList<String>> group) {
         Set<String> keys = group.keySet();
-        final String padding = "   ";
 
         for (String key : keys) {
-            System.out.println("## " + key);
+            printGroup(key, group.get(key));
+        }
+    }
 
-            for (String title : group.get(key)) {
-                System.out.println(padding + title);
-            }
+    /**
+     * Helper function to print a single group of books.
+     *
+     * @param key key of the group
+     * @param titles titles of the books in the group
+     */
+    private void printGroup(String key, List<String> titles) {
+        printGroupKey(key);
+        for (String title : titles) {
+            printTitle(title);
         }
     }
+
+    /**
+     * Helper function to print the heading of a group of books.
+     * @param key key of the group
+     */
+    private static void printGroupKey(String key) {
+        System.out.println("## " + key);
+    }
+
+    /**
+     * Helper function to print a book of a group.
+     * @param title title of the book
+     */
+    private static void printTitle(String title) {
+        final String padding = "   ";
+
+        System.out.println(padding + title);
+    }
 }
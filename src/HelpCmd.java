@@ -30,17 +30,38 @@ public class HelpCmd extends LibraryCommand {
         System.out.println(helpOutput);
     }
 
+    /**
+     * Print the available commands, which does not need any book data.
+     *
+     * @param cluster coordinator connected to the workers holding the book data
+     */
+    @Override
+    public void executeOnCluster(ClusterCoordinator cluster) {
+        execute(null);
+    }
+
     private String buildHelpOutput() {
         final String padding = "\n  ";
         StringBuilder bld = new StringBuilder("The following commands are available:");
 
         bld.append(padding).append(CommandType.HELP);
         bld.append(padding).append(CommandType.EXIT);
-        bld.append(padding).append(CommandType.ADD).append(" path/to/book/data.csv");
-        bld.append(padding).append(CommandType.LIST).append(" [short|long]");
-        bld.append(padding).append(CommandType.SEARCH).append(" <value>");
+        bld.append(padding).append(CommandType.ADD).append(" [--lenient] [--watch|--unwatch] path/to/book/data.csv[.gz]");
+        bld.append(padding).append(CommandType.LIST).append(" [short|long|sorted]");
+        bld.append(padding).append(CommandType.SEARCH).append(" <value> [[AND|OR] <value> ...]");
         bld.append(padding).append(CommandType.REMOVE).append(" TITLE|AUTHOR <value>");
         bld.append(padding).append(CommandType.GROUP).append(" TITLE|AUTHOR");
+        bld.append(padding).append(CommandType.COMPLETE).append(" <prefix>");
+        bld.append(padding).append(CommandType.ISBN).append(" <value>");
+        bld.append(padding).append("SEARCH <value>|LIST [| FILTER <condition>] [| LIMIT <n>]")
+                .append(" [| GROUP TITLE|AUTHOR [| LIMIT <n>]]");
+        bld.append(padding).append(CommandType.EXPLAIN).append(" <search or pipeline>");
+        bld.append(padding).append(CommandType.EXPORT).append(" path/to/export[.gz] csv|json|ndjson");
+        bld.append(padding).append(CommandType.MEMORY);
+        bld.append(padding).append(CommandType.REPLICATION);
+        bld.append(padding).append(CommandType.SUMMARY);
+        bld.append(padding).append(CommandType.TOPAUTHORS).append(" <n>");
+        bld.append(padding).append(CommandType.AUTHORSTATS).append(" [<author>]");
 
         return bld.toString();
     }
@@ -0,0 +1,128 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * HyperLogLog sketch estimating the number of distinct strings added to it
+ * in a fixed amount of memory.
+ *
+ * Every string is hashed to 64 bits. The upper bits select one of the
+ * registers, which keeps the longest run of leading zeros seen in the
+ * remaining bits. The standard error of the estimate is about 1.04 divided by
+ * the square root of the number of registers, 1.6 percent for the 4096
+ * registers used. Small cardinalities are estimated by linear counting of the
+ * empty registers, which is nearly exact. Sketches of disjoint or overlapping
+ * parts of a set merge into the sketch of the whole set.
+ */
+final class HyperLogLog {
+
+    /** Number of hash bits selecting a register. */
+    private static final int PRECISION = 12;
+    /** Number of registers. */
+    private static final int REGISTERS = 1 << PRECISION;
+    /** Bias correction of the raw estimate for the number of registers. */
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    /** Longest run of leading zeros plus one, by register. */
+    private final byte[] registers;
+
+    /** Create an empty sketch. */
+    HyperLogLog() {
+        registers = new byte[REGISTERS];
+    }
+
+    /**
+     * Add a string to the set.
+     * @param value string to add
+     */
+    void add(String value) {
+        long hash = hash(value);
+        int register = (int) (hash >>> (Long.SIZE - PRECISION));
+        // the sentinel bit bounds the run of zeros when all remaining bits are zero
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        if (rank > registers[register]) {
+            registers[register] = rank;
+        }
+    }
+
+    /**
+     * Estimate the number of distinct strings added.
+     * @return estimated cardinality
+     */
+    long estimate() {
+        double sum = 0;
+        int empty = 0;
+        for (byte rank : registers) {
+            sum += 1.0 / (1L << rank);
+            if (rank == 0) {
+                empty++;
+            }
+        }
+
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && empty > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / empty);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Add all strings added to the given sketch to this one.
+     * @param other sketch to merge into this one
+     */
+    void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+    }
+
+    /**
+     * Write the sketch to the given stream.
+     * @param out stream to write to
+     * @throws IOException if writing fails
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.write(registers);
+    }
+
+    /**
+     * Read a sketch written by writeTo.
+     * @param in stream to read from
+     * @return sketch read
+     * @throws IOException if reading fails
+     */
+    static HyperLogLog readFrom(DataInputStream in) throws IOException {
+        HyperLogLog sketch = new HyperLogLog();
+        in.readFully(sketch.registers);
+        return sketch;
+    }
+
+    /**
+     * Estimate the heap memory of the sketch.
+     * @return estimated number of bytes
+     */
+    long estimateBytes() {
+        return MemoryLayout.object(MemoryLayout.REFERENCE) + MemoryLayout.array(REGISTERS, Byte.BYTES);
+    }
+
+    /**
+     * Compute a well mixed 64 bit hash of the given string (FNV-1a followed by
+     * the MurmurHash3 finalizer).
+     *
+     * @param value string to hash
+     * @return hash equal for all equal strings
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,637 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Inverted index over the words of all book titles and authors of the library,
+ * used to answer ranked multi-term searches.
+ *
+ * Every book entry is assigned an increasing document id, so ids follow the order
+ * the entries were added in. Posting lists store document id gaps and term
+ * frequencies as variable length integers in a single byte array per term.
+ * Removed entries are only marked as deleted and skipped during queries until
+ * enough of them have accumulated for the postings to be rebuilt.
+ *
+ * Results are ranked with Okapi BM25. Disjunctive queries use the MaxScore
+ * strategy, which stops looking at documents only containing low impact terms
+ * once those can no longer make it into the requested number of top hits.
+ */
+class InvertedIndex implements LibraryIndex {
+
+    /** BM25 term frequency saturation parameter. */
+    private static final double K1 = 1.2;
+    /** BM25 document length normalisation parameter. */
+    private static final double B = 0.75;
+    /** Minimum number of deleted documents before postings are rebuilt. */
+    private static final int MIN_DELETED_FOR_REBUILD = 1024;
+
+    /** Entries by document id (null for deleted documents). */
+    private final List<BookEntry> docs;
+    /** Number of words by document id. */
+    private int[] docLengths;
+    /** Document ids of every entry, several if equal entries have been added. */
+    private final Map<BookEntry, ArrayDeque<Integer>> docIds;
+    /** Posting list of every word seen so far. */
+    private final Map<String, PostingList> postings;
+    /** Number of documents not deleted. */
+    private int liveDocs;
+    /** Sum of the lengths of all documents not deleted. */
+    private long totalLength;
+
+    /** Create an empty index. */
+    public InvertedIndex() {
+        docs = new ArrayList<>();
+        docLengths = new int[16];
+        docIds = new HashMap<>();
+        postings = new HashMap<>();
+        liveDocs = 0;
+        totalLength = 0;
+    }
+
+    /**
+     * Split the given text into lower case words consisting of letters and digits.
+     *
+     * @param text text to split
+     * @return words of the text in order of appearance
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+
+        return tokens;
+    }
+
+    @Override
+    public void add(BookEntry entry) {
+        int docId = docs.size();
+        docs.add(entry);
+        docIds.computeIfAbsent(entry, e -> new ArrayDeque<>()).add(docId);
+
+        Map<String, Integer> frequencies = termFrequencies(entry);
+        int length = 0;
+        for (Map.Entry<String, Integer> term : frequencies.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), t -> new PostingList()).append(docId, term.getValue());
+            length += term.getValue();
+        }
+
+        if (docId == docLengths.length) {
+            docLengths = Arrays.copyOf(docLengths, docLengths.length * 2);
+        }
+        docLengths[docId] = length;
+        totalLength += length;
+        liveDocs++;
+    }
+
+    @Override
+    public void remove(BookEntry entry) {
+        ArrayDeque<Integer> ids = docIds.get(entry);
+        if (ids == null) {
+            return;
+        }
+
+        int docId = ids.poll();
+        if (ids.isEmpty()) {
+            docIds.remove(entry);
+        }
+
+        docs.set(docId, null);
+        for (String term : termFrequencies(entry).keySet()) {
+            postings.get(term).liveCount--;
+        }
+        totalLength -= docLengths[docId];
+        liveDocs--;
+
+        int deleted = docs.size() - liveDocs;
+        if (deleted >= MIN_DELETED_FOR_REBUILD && deleted > liveDocs) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public long estimateBytes() {
+        // an ArrayDeque starts with room for 16 ids, document ids above 127 are boxed
+        final long idQueue = MemoryLayout.object(MemoryLayout.REFERENCE + 2 * 4)
+                + MemoryLayout.array(17, MemoryLayout.REFERENCE);
+        long bytes = MemoryLayout.object(4 * MemoryLayout.REFERENCE + 4 + 8)
+                + MemoryLayout.arrayList(docs.size()) + MemoryLayout.array(docLengths.length, Integer.BYTES)
+                + MemoryLayout.hashMap(docIds.size()) + MemoryLayout.hashMap(postings.size());
+        for (ArrayDeque<Integer> ids : docIds.values()) {
+            bytes += idQueue;
+            for (int docId : ids) {
+                bytes += docId > Byte.MAX_VALUE ? MemoryLayout.BOXED_INT : 0;
+            }
+        }
+        for (Map.Entry<String, PostingList> posting : postings.entrySet()) {
+            bytes += MemoryLayout.string(posting.getKey()) + posting.getValue().estimateBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Number of distinct words in titles and authors.
+     *
+     * @return size of the vocabulary, including words only contained in deleted documents
+     */
+    public int getVocabularySize() {
+        return postings.size();
+    }
+
+    /**
+     * Find all entries with a title or author word containing the given fragment,
+     * by scanning the vocabulary instead of the entries.
+     *
+     * @param fragment lower case letters and digits
+     * @return matching entries in library order
+     */
+    public List<BookEntry> findWordsContaining(String fragment) {
+        BitSet matches = new BitSet(docs.size());
+        for (Map.Entry<String, PostingList> term : postings.entrySet()) {
+            if (term.getValue().liveCount > 0 && term.getKey().contains(fragment)) {
+                for (TermCursor cursor = new TermCursor(term.getValue(), 0); cursor.docId != TermCursor.END;
+                        cursor.next()) {
+                    matches.set(cursor.docId);
+                }
+            }
+        }
+
+        List<BookEntry> found = new ArrayList<>();
+        for (int docId = matches.nextSetBit(0); docId >= 0; docId = matches.nextSetBit(docId + 1)) {
+            if (docs.get(docId) != null) {
+                found.add(docs.get(docId));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Find the best matching entries for the given words.
+     *
+     * @param terms lower case words to search for
+     * @param matchAll true if entries must contain all the words,
+     *                 false if containing any of them is sufficient
+     * @param limit maximum number of entries to return
+     * @return matching entries, best match first and equally ranked entries in library order
+     */
+    public List<BookEntry> search(List<String> terms, boolean matchAll, int limit) {
+        List<BookEntry> results = new ArrayList<>();
+        for (Hit hit : rank(terms, matchAll, limit, liveDocs, totalLength, this::docFrequency)) {
+            results.add(docs.get(hit.docId));
+        }
+        return results;
+    }
+
+    /**
+     * Combine the indexes of disjoint parts of the library, such as its shards,
+     * into an index over all of them. Searches rank the entries of every part
+     * by the document counts and lengths of all parts, so they give the same
+     * results as a single index. The combined index reflects later changes of
+     * the parts, but cannot be changed itself.
+     *
+     * @param parts indexes of the parts
+     * @param order position of an entry of any part in the library, to merge results in library order
+     * @return index over all parts
+     */
+    static InvertedIndex union(List<InvertedIndex> parts, ToLongFunction<BookEntry> order) {
+        return new Union(parts, order);
+    }
+
+    /**
+     * Find the best matching documents for the given words, ranked by the
+     * document counts and lengths of the given collection, which may span the
+     * indexes of several parts of the library.
+     *
+     * @param collectionDocs number of live documents of the collection
+     * @param collectionLength sum of the lengths of the live documents of the collection
+     * @param docFrequency number of live documents of the collection containing a word
+     * @return hits, best match first and equally ranked hits in library order
+     */
+    private Hit[] rank(List<String> terms, boolean matchAll, int limit, int collectionDocs, long collectionLength,
+            ToIntFunction<String> docFrequency) {
+        List<TermCursor> cursors = new ArrayList<>();
+        for (String term : new LinkedHashSet<>(terms)) {
+            PostingList list = postings.get(term);
+            if (list != null && list.liveCount > 0) {
+                cursors.add(new TermCursor(list, idf(collectionDocs, docFrequency.applyAsInt(term))));
+            } else if (matchAll) {
+                return new Hit[0];
+            }
+        }
+
+        PriorityQueue<Hit> topHits = new PriorityQueue<>(Hit.WORST_FIRST);
+        double avgLength = averageLength(collectionDocs, collectionLength);
+        if (!cursors.isEmpty() && limit > 0) {
+            if (matchAll) {
+                searchAll(cursors, topHits, limit, avgLength);
+            } else {
+                searchAny(cursors, topHits, limit, avgLength);
+            }
+        }
+
+        Hit[] ranked = topHits.toArray(new Hit[0]);
+        Arrays.sort(ranked, Hit.WORST_FIRST.reversed());
+        return ranked;
+    }
+
+    /**
+     * Collect top hits among documents containing every term by walking the
+     * rarest term's postings and skipping ahead in the others.
+     */
+    private void searchAll(List<TermCursor> cursors, PriorityQueue<Hit> topHits, int limit, double avgLength) {
+        // scores are summed up in term order, so they do not depend on which term is the rarest here
+        List<TermCursor> termOrder = new ArrayList<>(cursors);
+        cursors.sort(Comparator.comparingInt(c -> c.list.liveCount));
+        TermCursor lead = cursors.get(0);
+
+        while (lead.docId != TermCursor.END) {
+            int candidate = lead.docId;
+            boolean inAll = true;
+            for (int i = 1; i < cursors.size() && inAll; i++) {
+                TermCursor cursor = cursors.get(i);
+                cursor.advance(candidate);
+                if (cursor.docId == TermCursor.END) {
+                    return;
+                }
+                inAll = cursor.docId == candidate;
+            }
+
+            if (inAll && docs.get(candidate) != null) {
+                double score = 0;
+                for (TermCursor cursor : termOrder) {
+                    score += cursor.score(docLengths[candidate], avgLength);
+                }
+                offer(topHits, limit, new Hit(candidate, score));
+            }
+            lead.next();
+        }
+    }
+
+    /**
+     * Collect top hits among documents containing any term using MaxScore:
+     * terms are ordered by their maximum possible contribution, and documents
+     * only containing terms whose combined maximum cannot beat the current
+     * top-k threshold are never looked at.
+     */
+    private void searchAny(List<TermCursor> cursors, PriorityQueue<Hit> topHits, int limit, double avgLength) {
+        cursors.sort(Comparator.comparingDouble(c -> c.upperBound));
+        int count = cursors.size();
+        double[] boundSums = new double[count];
+        for (int i = 0; i < count; i++) {
+            boundSums[i] = cursors.get(i).upperBound + (i > 0 ? boundSums[i - 1] : 0);
+        }
+
+        double[] parts = new double[count];
+        double threshold = 0;
+        int firstEssential = 0;
+
+        while (firstEssential < count) {
+            int candidate = TermCursor.END;
+            for (int i = firstEssential; i < count; i++) {
+                candidate = Math.min(candidate, cursors.get(i).docId);
+            }
+            if (candidate == TermCursor.END) {
+                break;
+            }
+
+            boolean live = docs.get(candidate) != null;
+            Arrays.fill(parts, 0);
+            double score = 0;
+            for (int i = firstEssential; i < count; i++) {
+                TermCursor cursor = cursors.get(i);
+                if (cursor.docId == candidate) {
+                    if (live) {
+                        parts[i] = cursor.score(docLengths[candidate], avgLength);
+                        score += parts[i];
+                    }
+                    cursor.next();
+                }
+            }
+            if (!live) {
+                continue;
+            }
+
+            boolean full = topHits.size() >= limit;
+            boolean pruned = false;
+            for (int i = firstEssential - 1; i >= 0 && !pruned; i--) {
+                pruned = full && score + boundSums[i] <= threshold;
+                TermCursor cursor = cursors.get(i);
+                cursor.advance(candidate);
+                if (!pruned && cursor.docId == candidate) {
+                    parts[i] = cursor.score(docLengths[candidate], avgLength);
+                    score += parts[i];
+                }
+            }
+            if (pruned) {
+                continue;
+            }
+
+            // sum up in a fixed order so scores do not depend on which terms were essential
+            score = 0;
+            for (double part : parts) {
+                score += part;
+            }
+            if (offer(topHits, limit, new Hit(candidate, score)) && topHits.size() >= limit) {
+                threshold = topHits.peek().score;
+                while (firstEssential < count && boundSums[firstEssential] <= threshold) {
+                    firstEssential++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add a hit to the top hits if it ranks among the best ones seen so far.
+     *
+     * @return true if the hit has been added
+     */
+    private static boolean offer(PriorityQueue<Hit> topHits, int limit, Hit hit) {
+        if (topHits.size() < limit) {
+            topHits.add(hit);
+            return true;
+        }
+        if (Hit.WORST_FIRST.compare(hit, topHits.peek()) > 0) {
+            topHits.poll();
+            topHits.add(hit);
+            return true;
+        }
+        return false;
+    }
+
+    /** Number of live documents containing the given word. */
+    private int docFrequency(String term) {
+        PostingList list = postings.get(term);
+        return list == null ? 0 : list.liveCount;
+    }
+
+    /** Inverse document frequency of a term contained in the given number of documents of a collection. */
+    private static double idf(int collectionDocs, int docFrequency) {
+        return Math.log(1 + (collectionDocs - docFrequency + 0.5) / (docFrequency + 0.5));
+    }
+
+    private static double averageLength(int collectionDocs, long collectionLength) {
+        return collectionDocs == 0 ? 1 : Math.max(1, (double) collectionLength / collectionDocs);
+    }
+
+    /** Count the words of the title and authors of the given entry. */
+    private static Map<String, Integer> termFrequencies(BookEntry entry) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokenize(entry.getTitle())) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        for (String author : entry.getAuthors()) {
+            for (String token : tokenize(author)) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+        }
+        return frequencies;
+    }
+
+    /** Renumber all live documents in order, dropping deleted ones from the postings. */
+    private void rebuild() {
+        List<BookEntry> live = new ArrayList<>(liveDocs);
+        for (BookEntry entry : docs) {
+            if (entry != null) {
+                live.add(entry);
+            }
+        }
+
+        docs.clear();
+        docIds.clear();
+        postings.clear();
+        liveDocs = 0;
+        totalLength = 0;
+        for (BookEntry entry : live) {
+            add(entry);
+        }
+    }
+
+    /** Index answering searches from the indexes of several parts of the library. */
+    private static final class Union extends InvertedIndex {
+
+        private final List<InvertedIndex> parts;
+        private final ToLongFunction<BookEntry> order;
+
+        private Union(List<InvertedIndex> parts, ToLongFunction<BookEntry> order) {
+            this.parts = parts;
+            this.order = order;
+        }
+
+        @Override
+        public void add(BookEntry entry) {
+            throw new UnsupportedOperationException("Combined index cannot be changed, its parts can.");
+        }
+
+        @Override
+        public void remove(BookEntry entry) {
+            throw new UnsupportedOperationException("Combined index cannot be changed, its parts can.");
+        }
+
+        @Override
+        public long estimateBytes() {
+            long bytes = 0;
+            for (InvertedIndex part : parts) {
+                bytes += part.estimateBytes();
+            }
+            return bytes;
+        }
+
+        /**
+         * Number of words in the vocabularies of all parts. Words in several
+         * parts are counted once for each, as findWordsContaining scans them.
+         *
+         * @return sum of the vocabulary sizes of the parts
+         */
+        @Override
+        public int getVocabularySize() {
+            int size = 0;
+            for (InvertedIndex part : parts) {
+                size += part.getVocabularySize();
+            }
+            return size;
+        }
+
+        @Override
+        public List<BookEntry> findWordsContaining(String fragment) {
+            List<BookEntry> found = new ArrayList<>();
+            for (InvertedIndex part : parts) {
+                found.addAll(part.findWordsContaining(fragment));
+            }
+            found.sort(Comparator.comparingLong(order));
+            return found;
+        }
+
+        @Override
+        public List<BookEntry> search(List<String> terms, boolean matchAll, int limit) {
+            int collectionDocs = 0;
+            long collectionLength = 0;
+            for (InvertedIndex part : parts) {
+                collectionDocs += part.liveDocs;
+                collectionLength += part.totalLength;
+            }
+            Map<String, Integer> docFrequencies = new HashMap<>();
+            for (String term : terms) {
+                int docFrequency = 0;
+                for (InvertedIndex part : parts) {
+                    docFrequency += part.docFrequency(term);
+                }
+                docFrequencies.put(term, docFrequency);
+            }
+
+            // the best hits of all parts are among the best hits of each part, scored alike
+            List<RankedEntry> ranked = new ArrayList<>();
+            for (InvertedIndex part : parts) {
+                for (Hit hit : part.rank(terms, matchAll, limit, collectionDocs, collectionLength,
+                        docFrequencies::get)) {
+                    BookEntry entry = part.docs.get(hit.docId);
+                    ranked.add(new RankedEntry(entry, hit.score, order.applyAsLong(entry)));
+                }
+            }
+            ranked.sort(RankedEntry.BEST_FIRST);
+
+            List<BookEntry> results = new ArrayList<>();
+            for (int i = 0; i < ranked.size() && i < limit; i++) {
+                results.add(ranked.get(i).entry);
+            }
+            return results;
+        }
+    }
+
+    /** Scored entry of one of several parts; ordering ranks higher scores and, on ties, earlier entries first. */
+    private static final class RankedEntry {
+
+        private static final Comparator<RankedEntry> BEST_FIRST = Comparator
+                .<RankedEntry>comparingDouble(r -> r.score).reversed()
+                .thenComparingLong(r -> r.position);
+
+        private final BookEntry entry;
+        private final double score;
+        /** Position of the entry in the library. */
+        private final long position;
+
+        private RankedEntry(BookEntry entry, double score, long position) {
+            this.entry = entry;
+            this.score = score;
+            this.position = position;
+        }
+    }
+
+    /** Variable length encoded document gaps and term frequencies of a single word. */
+    private static final class PostingList {
+
+        private byte[] data = new byte[8];
+        private int size;
+        private int lastDocId = -1;
+        /** Number of documents containing the word which have not been deleted. */
+        private int liveCount;
+
+        private long estimateBytes() {
+            return MemoryLayout.object(MemoryLayout.REFERENCE + 3 * 4) + MemoryLayout.array(data.length, Byte.BYTES);
+        }
+
+        private void append(int docId, int frequency) {
+            writeVarInt(docId - lastDocId);
+            writeVarInt(frequency);
+            lastDocId = docId;
+            liveCount++;
+        }
+
+        private void writeVarInt(int value) {
+            if (size + 5 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+    }
+
+    /** Sequential reader over a posting list. */
+    private static final class TermCursor {
+
+        private static final int END = Integer.MAX_VALUE;
+
+        private final PostingList list;
+        private final double idf;
+        /** Highest score this term can contribute to any document. */
+        private final double upperBound;
+        private int position;
+        private int docId;
+        private int frequency;
+
+        private TermCursor(PostingList list, double idf) {
+            this.list = list;
+            this.idf = idf;
+            this.upperBound = idf * (K1 + 1);
+            this.position = 0;
+            this.docId = -1;
+            next();
+        }
+
+        private void next() {
+            if (position >= list.size) {
+                docId = END;
+                return;
+            }
+            docId += readVarInt();
+            frequency = readVarInt();
+        }
+
+        private void advance(int target) {
+            while (docId < target) {
+                next();
+            }
+        }
+
+        private double score(int docLength, double avgLength) {
+            double norm = K1 * (1 - B + B * docLength / avgLength);
+            return idf * frequency * (K1 + 1) / (frequency + norm);
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = list.data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    /** Scored document; ordering ranks lower scores and, on ties, later documents as worse. */
+    private static final class Hit {
+
+        private static final Comparator<Hit> WORST_FIRST = Comparator.<Hit>comparingDouble(h -> h.score)
+                .thenComparing(Comparator.<Hit>comparingInt(h -> h.docId).reversed());
+
+        private final int docId;
+        private final double score;
+
+        private Hit(int docId, double score) {
+            this.docId = docId;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * ISBN command used to print all books with a given ISBN.
+ */
+public class IsbnCmd extends LibraryCommand {
+
+    /** A string to remember the ISBN to look up. */
+    private String isbnToFind;
+
+    /**
+     * Create an ISBN command.
+     *
+     * @param argumentInput argument input is expected to be a single ISBN,
+     *                      which may contain hyphens.
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public IsbnCmd(String argumentInput) {
+        super(CommandType.ISBN, argumentInput);
+    }
+
+    /**
+     * Execute the ISBN command. This prints all the details of
+     * the books in the library with the remembered ISBN. Leading
+     * zeros and hyphens are not considered when comparing ISBNs.
+     *
+     * @param data book data to be considered for command execution.
+     * @throws NullPointerException if the given data is null
+     */
+    @Override
+    public void execute(LibraryData data) {
+        Objects.requireNonNull(data, "Given data must not be null.");
+
+        List<BookEntry> found = data.getIsbnIndex().lookup(isbnToFind);
+
+        if (found.isEmpty()) {
+            System.out.println("No book found for ISBN: " + isbnToFind);
+        }
+        for (BookEntry entry : found) {
+            System.out.println(entry.toString());
+        }
+    }
+
+    /**
+     * Remembers the command argument input in isbnToFind field.
+     *
+     * @param argumentInput argument input for ISBN command
+     * @return true iff the given argument consists of a single word.
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+
+        isbnToFind = argumentInput.trim();
+
+        return !isbnToFind.isBlank() && isbnToFind.split(" ").length == 1;
+    }
+}
@@ -0,0 +1,273 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Index of all book entries of the library by ISBN.
+ *
+ * ISBNs are normalised into long keys: hyphens and spaces are dropped, leading
+ * zeros are ignored and the remaining digits (and a final 'X' check digit) are
+ * packed into four bits each. Values that are no valid ISBN are hashed instead,
+ * with the highest bit set to tell both kinds of keys apart.
+ *
+ * Keys are held in a primitive open addressing hash map, mapping each key to the
+ * first of a chain of rows. Rows are slots in parallel arrays holding the entry
+ * and the next row of the chain, so no wrapper objects are created per entry.
+ */
+class IsbnIndex implements LibraryIndex {
+
+    /** Marks keys of values which could not be packed as ISBN. */
+    private static final long HASHED_KEY_FLAG = Long.MIN_VALUE;
+    /** Maximum number of ISBN characters that can be packed into a key. */
+    private static final int MAX_PACKED_LENGTH = 15;
+    /** Marks the end of a row chain. */
+    private static final int NO_ROW = -1;
+
+    /** First row of the chain of every key. */
+    private final LongLongHashMap heads;
+
+    /** Book entry by row (null for free rows). */
+    private BookEntry[] rows;
+    /** Next row with the same key by row, or next free row for free rows. */
+    private int[] nextRows;
+    /** Number of rows ever used. */
+    private int rowCount;
+    /** First free row available for reuse. */
+    private int freeRow;
+
+    /** Create an empty index. */
+    public IsbnIndex() {
+        heads = new LongLongHashMap();
+        rows = new BookEntry[16];
+        nextRows = new int[16];
+        rowCount = 0;
+        freeRow = NO_ROW;
+    }
+
+    @Override
+    public long estimateBytes() {
+        return MemoryLayout.object(3 * MemoryLayout.REFERENCE + 2 * 4) + heads.estimateBytes()
+                + MemoryLayout.array(rows.length, MemoryLayout.REFERENCE)
+                + MemoryLayout.array(nextRows.length, Integer.BYTES);
+    }
+
+    /**
+     * Compute the normalised key of an ISBN.
+     *
+     * @param isbn ISBN in any common notation
+     * @return key equal for all notations of the same ISBN, never 0
+     */
+    public static long isbnKey(String isbn) {
+        long packed = 0;
+        int length = 0;
+
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            int code;
+            if (c >= '0' && c <= '9') {
+                code = c - '0' + 1;
+            } else if ((c == 'X' || c == 'x') && i == isbn.length() - 1) {
+                code = 11;
+            } else if (c == '-' || c == ' ') {
+                continue;
+            } else {
+                return hashedKey(isbn);
+            }
+
+            if (code == 1 && length == 0) {
+                continue; // leading zero
+            }
+            if (++length > MAX_PACKED_LENGTH) {
+                return hashedKey(isbn);
+            }
+            packed = (packed << 4) | code;
+        }
+
+        return length == 0 ? 1 : packed;
+    }
+
+    @Override
+    public void add(BookEntry entry) {
+        long key = isbnKey(entry.getISBN());
+
+        int row = allocateRow();
+        rows[row] = entry;
+        nextRows[row] = (int) heads.get(key);
+        heads.put(key, row);
+    }
+
+    @Override
+    public void remove(BookEntry entry) {
+        long key = isbnKey(entry.getISBN());
+
+        int previous = NO_ROW;
+        for (int row = (int) heads.get(key); row != NO_ROW; previous = row, row = nextRows[row]) {
+            if (rows[row].equals(entry)) {
+                if (previous != NO_ROW) {
+                    nextRows[previous] = nextRows[row];
+                } else if (nextRows[row] != NO_ROW) {
+                    heads.put(key, nextRows[row]);
+                } else {
+                    heads.remove(key);
+                }
+                freeRow(row);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Check if an entry equal to the given one is in the index.
+     *
+     * @param entry entry to look for
+     * @return true if an equal entry has been found
+     */
+    public boolean contains(BookEntry entry) {
+        for (int row = (int) heads.get(isbnKey(entry.getISBN())); row != NO_ROW; row = nextRows[row]) {
+            if (rows[row].equals(entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find all entries with the given ISBN.
+     *
+     * @param isbn ISBN in any common notation
+     * @return entries with the given ISBN, in the order they were added
+     */
+    public List<BookEntry> lookup(String isbn) {
+        long key = isbnKey(isbn);
+        List<BookEntry> found = new ArrayList<>();
+
+        for (int row = (int) heads.get(key); row != NO_ROW; row = nextRows[row]) {
+            // hashed keys may collide, so compare the values they were computed from
+            if ((key & HASHED_KEY_FLAG) == 0 || normalise(rows[row].getISBN()).equals(normalise(isbn))) {
+                found.add(rows[row]);
+            }
+        }
+
+        Collections.reverse(found);
+        return found;
+    }
+
+    /**
+     * Check if two values denote the same ISBN, which is the case if
+     * they are equal apart from hyphens, spaces and leading zeros.
+     *
+     * @param isbn ISBN in any common notation
+     * @param other another ISBN in any common notation
+     * @return true if both are notations of the same ISBN
+     */
+    public static boolean sameIsbn(String isbn, String other) {
+        long key = isbnKey(isbn);
+        if (key != isbnKey(other)) {
+            return false;
+        }
+        // hashed keys may collide, so compare the values they were computed from
+        return (key & HASHED_KEY_FLAG) == 0 || normalise(isbn).equals(normalise(other));
+    }
+
+    /**
+     * Combine the indexes of disjoint parts of the library, such as its shards,
+     * into an index over all of them. The combined index reflects later changes
+     * of the parts, but cannot be changed itself.
+     *
+     * @param parts indexes of the parts
+     * @param order position of an entry of any part in the library, to merge lookups in library order
+     * @return index over all parts
+     */
+    static IsbnIndex union(List<IsbnIndex> parts, ToLongFunction<BookEntry> order) {
+        return new Union(parts, order);
+    }
+
+    /** Key for values which are not packable, based on a 64 bit FNV-1a hash of the normalised value. */
+    private static long hashedKey(String value) {
+        String normalised = normalise(value);
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < normalised.length(); i++) {
+            hash ^= normalised.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash | HASHED_KEY_FLAG;
+    }
+
+    private static String normalise(String value) {
+        return value.replace("-", "").replace(" ", "").toUpperCase();
+    }
+
+    /** Index looking up entries in the indexes of several parts of the library. */
+    private static final class Union extends IsbnIndex {
+
+        private final List<IsbnIndex> parts;
+        private final ToLongFunction<BookEntry> order;
+
+        private Union(List<IsbnIndex> parts, ToLongFunction<BookEntry> order) {
+            this.parts = parts;
+            this.order = order;
+        }
+
+        @Override
+        public void add(BookEntry entry) {
+            throw new UnsupportedOperationException("Combined index cannot be changed, its parts can.");
+        }
+
+        @Override
+        public void remove(BookEntry entry) {
+            throw new UnsupportedOperationException("Combined index cannot be changed, its parts can.");
+        }
+
+        @Override
+        public long estimateBytes() {
+            long bytes = 0;
+            for (IsbnIndex part : parts) {
+                bytes += part.estimateBytes();
+            }
+            return bytes;
+        }
+
+        @Override
+        public boolean contains(BookEntry entry) {
+            for (IsbnIndex part : parts) {
+                if (part.contains(entry)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public List<BookEntry> lookup(String isbn) {
+            List<BookEntry> found = new ArrayList<>();
+            for (IsbnIndex part : parts) {
+                found.addAll(part.lookup(isbn));
+            }
+            found.sort(Comparator.comparingLong(order));
+            return found;
+        }
+    }
+
+    private int allocateRow() {
+        if (freeRow != NO_ROW) {
+            int row = freeRow;
+            freeRow = nextRows[row];
+            return row;
+        }
+
+        if (rowCount == rows.length) {
+            rows = Arrays.copyOf(rows, rowCount * 2);
+            nextRows = Arrays.copyOf(nextRows, rowCount * 2);
+        }
+        return rowCount++;
+    }
+
+    private void freeRow(int row) {
+        rows[row] = null;
+        nextRows[row] = freeRow;
+        freeRow = row;
+    }
+}
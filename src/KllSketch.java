@@ -0,0 +1,299 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * KLL sketch estimating quantiles of a stream of numbers in a bounded amount
+ * of memory.
+ *
+ * Numbers are kept in a hierarchy of compactors. A number on level h stands
+ * for 2^h numbers of the stream. Whenever a level holds more numbers than its
+ * capacity, it is sorted and every other number, starting at a random offset,
+ * moves up a level while the rest are dropped. Capacities shrink by a factor
+ * of 2/3 per level below the top one, so the sketch holds about 3k numbers
+ * and the rank error of a quantile is about 1.65 divided by k, below one
+ * percent for the default k. Until level 0 fills up for the first time the
+ * quantiles are exact. The minimum and maximum are always exact. Sketches of
+ * parts of a stream merge into the sketch of the whole stream.
+ *
+ * The offsets are drawn from a generator with a fixed seed, so the same
+ * stream always yields the same estimates.
+ */
+final class KllSketch {
+
+    /** Capacity of the top level, trading memory for accuracy. */
+    static final int DEFAULT_K = 200;
+    /** Smallest capacity of a level. */
+    private static final int MIN_CAPACITY = 8;
+    /** Seed of the generator of compaction offsets. */
+    private static final long SEED = 0x5DEECE66DL;
+
+    /** Capacity of the top level. */
+    private final int k;
+    /** Numbers held, by level (only the first levelSizes[h] of level h are used). */
+    private double[][] levels;
+    /** Number of numbers held, by level. */
+    private int[] levelSizes;
+    /** Number of numbers added. */
+    private long count;
+    private double min;
+    private double max;
+    private final Random random;
+
+    /** Create an empty sketch with the default accuracy. */
+    KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Create an empty sketch.
+     *
+     * @param k capacity of the top level, the rank error being about 1.65 / k
+     * @throws IllegalArgumentException if k is smaller than the minimum capacity of a level
+     */
+    KllSketch(int k) {
+        if (k < MIN_CAPACITY) {
+            throw new IllegalArgumentException("k must be at least " + MIN_CAPACITY + ": " + k);
+        }
+
+        this.k = k;
+        levels = new double[][] { new double[MIN_CAPACITY] };
+        levelSizes = new int[1];
+        count = 0;
+        min = Double.NaN;
+        max = Double.NaN;
+        random = new Random(SEED);
+    }
+
+    /**
+     * Add a number to the stream.
+     * @param value number to add
+     */
+    void add(double value) {
+        if (count == 0 || value < min) {
+            min = value;
+        }
+        if (count == 0 || value > max) {
+            max = value;
+        }
+        count++;
+
+        append(0, value);
+        if (levelSizes[0] >= capacity(0)) {
+            compress();
+        }
+    }
+
+    /**
+     * Number of numbers added.
+     * @return length of the stream
+     */
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * Estimate the number below which the given fraction of the stream lies.
+     *
+     * @param fraction fraction of the stream between 0 (the minimum) and 1 (the maximum)
+     * @return estimated quantile, or NaN if the stream is empty
+     */
+    double quantile(double fraction) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (fraction <= 0) {
+            return min;
+        }
+        if (fraction >= 1) {
+            return max;
+        }
+
+        int held = 0;
+        for (int size : levelSizes) {
+            held += size;
+        }
+        double[] values = new double[held];
+        long[] weights = new long[held];
+        long totalWeight = 0;
+        int next = 0;
+        for (int level = 0; level < levels.length; level++) {
+            for (int i = 0; i < levelSizes[level]; i++) {
+                values[next] = levels[level][i];
+                weights[next++] = 1L << level;
+            }
+            totalWeight += (long) levelSizes[level] << level;
+        }
+
+        Integer[] order = new Integer[held];
+        for (int i = 0; i < held; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> values[i]));
+
+        long rank = Math.max(1, (long) Math.ceil(fraction * totalWeight));
+        long weight = 0;
+        for (int i : order) {
+            weight += weights[i];
+            if (weight >= rank) {
+                return values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Add all numbers of the stream of the given sketch to this one.
+     * @param other sketch to merge into this one
+     */
+    void merge(KllSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0 || other.min < min) {
+            min = other.min;
+        }
+        if (count == 0 || other.max > max) {
+            max = other.max;
+        }
+        count += other.count;
+
+        for (int level = 0; level < other.levels.length; level++) {
+            for (int i = 0; i < other.levelSizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        while (isOverCapacity()) {
+            compress();
+        }
+    }
+
+    /**
+     * Write the sketch to the given stream.
+     * @param out stream to write to
+     * @throws IOException if writing fails
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(k);
+        out.writeLong(count);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(levels.length);
+        for (int level = 0; level < levels.length; level++) {
+            out.writeInt(levelSizes[level]);
+            for (int i = 0; i < levelSizes[level]; i++) {
+                out.writeDouble(levels[level][i]);
+            }
+        }
+    }
+
+    /**
+     * Read a sketch written by writeTo.
+     * @param in stream to read from
+     * @return sketch read
+     * @throws IOException if reading fails
+     */
+    static KllSketch readFrom(DataInputStream in) throws IOException {
+        KllSketch sketch = new KllSketch(in.readInt());
+        sketch.count = in.readLong();
+        sketch.min = in.readDouble();
+        sketch.max = in.readDouble();
+        int levelCount = in.readInt();
+        sketch.addLevels(levelCount);
+        for (int level = 0; level < levelCount; level++) {
+            for (int i = in.readInt(); i > 0; i--) {
+                sketch.append(level, in.readDouble());
+            }
+        }
+        return sketch;
+    }
+
+    /**
+     * Estimate the heap memory of the sketch.
+     * @return estimated number of bytes
+     */
+    long estimateBytes() {
+        long bytes = MemoryLayout.object(4 * MemoryLayout.REFERENCE + Integer.BYTES + Long.BYTES + 2 * Double.BYTES)
+                + MemoryLayout.array(levels.length, MemoryLayout.REFERENCE)
+                + MemoryLayout.array(levelSizes.length, Integer.BYTES)
+                + MemoryLayout.object(2 * Long.BYTES + 8); // Random and its seed
+        for (double[] level : levels) {
+            bytes += MemoryLayout.array(level.length, Double.BYTES);
+        }
+        return bytes;
+    }
+
+    /**
+     * Capacity of the given level, shrinking with the distance from the top level.
+     * @param level level of the hierarchy
+     * @return maximum number of numbers held on the level
+     */
+    private int capacity(int level) {
+        int depth = levels.length - 1 - level;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(2.0 / 3, depth)));
+    }
+
+    private boolean isOverCapacity() {
+        for (int level = 0; level < levels.length; level++) {
+            if (levelSizes[level] >= capacity(level)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Append a number to the given level, adding levels and growing the level as needed.
+     * @param level level to append to
+     * @param value number to append
+     */
+    private void append(int level, double value) {
+        addLevels(level + 1);
+        if (levelSizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], 2 * levels[level].length);
+        }
+        levels[level][levelSizes[level]++] = value;
+    }
+
+    /**
+     * Add empty levels until there are at least the given number of levels.
+     * @param levelCount number of levels needed
+     */
+    private void addLevels(int levelCount) {
+        int oldLevels = levels.length;
+        if (levelCount <= oldLevels) {
+            return;
+        }
+
+        levels = Arrays.copyOf(levels, levelCount);
+        levelSizes = Arrays.copyOf(levelSizes, levelCount);
+        for (int level = oldLevels; level < levelCount; level++) {
+            levels[level] = new double[MIN_CAPACITY];
+        }
+    }
+
+    /**
+     * Compact every level holding more numbers than its capacity, from the
+     * lowest level up, moving every other number of it to the next level.
+     */
+    private void compress() {
+        for (int level = 0; level < levels.length; level++) {
+            int size = levelSizes[level];
+            if (size < capacity(level)) {
+                continue;
+            }
+
+            double[] values = levels[level];
+            Arrays.sort(values, 0, size);
+            // an odd number left out stays on the level
+            int kept = size % 2;
+            for (int i = kept + random.nextInt(2); i < size; i += 2) {
+                append(level + 1, values[i]);
+            }
+            levelSizes[level] = kept;
+        }
+    }
+}
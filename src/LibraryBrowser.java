@@ -1,3 +1,4 @@
+import java.util.Objects;
 import java.util.Scanner;
 
 /**
@@ -7,8 +8,10 @@ import java.util.Scanner;
  */
 public class LibraryBrowser {
 
-    /** Book data currently loaded. */
+    /** Book data currently loaded (null in cluster mode). */
     private final LibraryData data;
+    /** Coordinator of the workers holding the book data (null unless in cluster mode). */
+    private final ClusterCoordinator cluster;
     /** Create and handle commands created via user input. */
     private final CommandInterpreter cmdIntrp;
     /** 
@@ -21,7 +24,29 @@ public class LibraryBrowser {
      * Create library browser.
      */
     public LibraryBrowser() {
-        data = new LibraryData();
+        this(new LibraryData());
+    }
+
+    /**
+     * Create library browser working on the given library.
+     * @param data library to be browsed
+     * @throws NullPointerException if the given library is null
+     */
+    public LibraryBrowser(LibraryData data) {
+        this.data = Objects.requireNonNull(data, "Given data must not be null.");
+        cluster = null;
+        cmdIntrp = new CommandInterpreter();
+        stdInScan = new Scanner(System.in);
+    }
+
+    /**
+     * Create library browser working on a library spread across the workers of a cluster.
+     * @param cluster coordinator connected to the workers
+     * @throws NullPointerException if the given coordinator is null
+     */
+    public LibraryBrowser(ClusterCoordinator cluster) {
+        this.cluster = Objects.requireNonNull(cluster, "Given cluster must not be null.");
+        data = null;
         cmdIntrp = new CommandInterpreter();
         stdInScan = new Scanner(System.in);
     }
@@ -56,8 +81,15 @@ public class LibraryBrowser {
             } else {
                 if (command instanceof ExitCmd) {
                     exit = true;
+                } else if (cluster != null) {
+                    cluster.execute(command);
                 } else {
-                    cmdIntrp.executeCommand(command, data);
+                    // watched files are added to the data in the background
+                    if (command.changesData()) {
+                        data.runUpdate(() -> cmdIntrp.executeCommand(command, data));
+                    } else {
+                        data.runQuery(() -> cmdIntrp.executeCommand(command, data));
+                    }
                 }
             }           
         }
@@ -1,3 +1,6 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Objects;
 
 /**
@@ -8,6 +11,10 @@ public abstract class LibraryCommand {
 
 	/** This commands specific type. */
 	private CommandType type;
+	/** Argument input this command has been created with. */
+	private String argumentInput;
+	/** True if an execution of this command has failed, so its output is incomplete. */
+	private boolean failed;
 
 	/**
 	 * Create the specified command and initialise it with 
@@ -22,6 +29,7 @@ public abstract class LibraryCommand {
 		Objects.requireNonNull(type, "Given type must not be null.");
 		Objects.requireNonNull(argumentInput, "Given argument input must not be null.");
 		this.type = type;
+		this.argumentInput = argumentInput;
 
 		if (!parseArguments(argumentInput)) {
 		    throw new IllegalArgumentException("Invalid argument for " + type + " command: " + argumentInput);
@@ -36,6 +44,15 @@ public abstract class LibraryCommand {
 		return type;
 	}
 
+	/**
+	 * The argument input this command has been created with, so an equal
+	 * command can be created from it again, such as by cluster workers.
+	 * @return argument input of this command
+	 */
+	String getArgumentInput() {
+		return argumentInput;
+	}
+
 	/**
 	 * Execute the specific command.
 	 * 
@@ -45,6 +62,83 @@ public abstract class LibraryCommand {
 	 */
 	public abstract void execute(LibraryData data);
 
+	/**
+	 * Execute the command on a library spread across the workers of a cluster,
+	 * printing the same output as execute would for the whole library.
+	 *
+	 * Subclasses supporting cluster mode must override this method as well as
+	 * executeOnWorker. In this default version, an error is printed.
+	 *
+	 * @param cluster coordinator connected to the workers holding the book data
+	 * @throws IOException if communicating with a worker fails
+	 */
+	public void executeOnCluster(ClusterCoordinator cluster) throws IOException {
+		System.err.println("ERROR: " + type + " command is not supported in cluster mode.");
+	}
+
+	/**
+	 * Execute the part of the command on the book data held by a single worker
+	 * of a cluster, as requested by executeOnCluster on the coordinator.
+	 *
+	 * Subclasses supporting cluster mode must override this method, reading
+	 * the request payload written by their executeOnCluster method and writing
+	 * the partial result it expects.
+	 *
+	 * @param worker worker holding part of the book data
+	 * @param request payload of the request following the command
+	 * @param reply receives the partial result
+	 * @throws IOException if reading the request or writing the reply fails
+	 * @throws UnsupportedOperationException if the command does not support cluster mode
+	 */
+	void executeOnWorker(ClusterWorker worker, DataInputStream request, DataOutputStream reply) throws IOException {
+		throw new UnsupportedOperationException(type + " command is not supported in cluster mode.");
+	}
+
+	/**
+	 * Check if this command changes the book data, so it must not be executed
+	 * on read-only libraries such as replication followers.
+	 *
+	 * Subclasses changing the book data must override this method. In this
+	 * default version, the book data is not changed.
+	 *
+	 * @return true if the command changes the book data
+	 */
+	public boolean changesData() {
+		return false;
+	}
+
+	/**
+	 * Check if an execution of this command has failed.
+	 * @return true if a failure has been reported since the command was created
+	 */
+	public boolean hasFailed() {
+		return failed;
+	}
+
+	/**
+	 * Print the given error and remember that the command has failed, so
+	 * the incomplete output printed before is not cached.
+	 *
+	 * @param message description of the failure, without 'ERROR: ' prefix
+	 */
+	protected void reportFailure(String message) {
+		failed = true;
+		System.err.println("ERROR: " + message);
+	}
+
+	/**
+	 * Key identifying the output of this command for given book data.
+	 *
+	 * Commands which only read book data and whose output only depends on
+	 * their arguments and the book data may override this method, so their
+	 * output can be cached until the book data changes.
+	 *
+	 * @return normalised command, or null if the output must not be cached
+	 */
+	public String cacheKey() {
+		return null;
+	}
+
 	/**
 	 * Parses the given command arguments and initialised necessary
 	 * parameters. In this default version, a blank argument is expected.
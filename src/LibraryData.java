@@ -1,7 +1,16 @@
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /** 
  * Class responsible for handling currently loaded
@@ -9,12 +18,118 @@ import java.util.Objects;
  */
 public class LibraryData {
 
+    /** Maximum number of bytes of command output kept in the result cache. */
+    private static final long RESULT_CACHE_BYTES = 16L << 20;
+
     /** Currently loaded book data. */
     private final List<BookEntry> books;
 
+    /** Indexes built so far for the current book data, by index type. */
+    private final Map<Class<? extends LibraryIndex>, LibraryIndex> indexes;
+    /** Book list the built indexes reflect (used to detect replaced data). */
+    private List<BookEntry> indexedBooks;
+    /** Size of the book list the built indexes reflect (used to detect outside changes). */
+    private int indexedSize;
+    /** Modification count of the book list the built indexes reflect (used to detect outside changes). */
+    private int indexedModifications;
+
+    /** Modification version, increased whenever the book data changes. */
+    private long version;
+    /** Output of read commands for recent versions of the book data. */
+    private final ResultCache resultCache;
+
+    /** Watchers adding records appended to book data files, by absolute file path. */
+    private final Map<Path, LibraryFileWatcher> watchers;
+
+    /** Most frequent authors of all book data files added, including duplicate records. */
+    private final SpaceSaving addedAuthors;
+    /** Most frequent authors of the book data file added last (null if none has been added). */
+    private SpaceSaving lastAddedAuthors;
+
+    /** Memory budget of grouping and sorting in bytes, beyond which they spill to disk (0 for no limit). */
+    private long sortMemory;
+
+    /** Feed of all changes for replication followers (null unless this is a replication primary). */
+    private MutationLog mutationLog;
+    /** Role of this library in replication (null if it is not replicated). */
+    private ReplicationRole replicationRole;
+
     /** Create a new and empty book library. */
     public LibraryData() {
-        books = new ArrayList<>();
+        this(false);
+    }
+
+    /**
+     * Create a new and empty book library, optionally keeping the
+     * book data in native memory outside the Java heap.
+     *
+     * Off-heap book data is decoded into new BookEntry instances on every
+     * access, so it trades some speed for garbage collection cost which does
+     * not grow with the size of the library. Indexes built on demand for
+     * commands are kept on the heap in either case.
+     *
+     * @param offHeapStorage true to store book data off-heap, false to keep it on the heap
+     */
+    public LibraryData(boolean offHeapStorage) {
+        this(offHeapStorage ? new OffHeapBookList() : new BookArrayList());
+    }
+
+    /**
+     * Create a new and empty book library partitioned into the given number
+     * of shards by ISBN.
+     *
+     * Loading, removing and scanning book data works on all shards in parallel,
+     * each shard finding duplicates with its own Bloom filter and ISBN index and
+     * keeping its own further indexes and modification version. Results are
+     * merged in the order the entries were added, so commands give the same
+     * results as on a library with a single shard. Every change only locks the
+     * shards it changes, so changes of different shards, such as records
+     * appended to a watched file and books added by a command, are made
+     * concurrently (see runUpdate).
+     *
+     * @param shardCount number of shards
+     * @throws IllegalArgumentException if the number of shards is not positive
+     */
+    public LibraryData(int shardCount) {
+        this(new ShardedBookList(shardCount));
+    }
+
+    /**
+     * Create a new and empty book library which maps plain book data files
+     * into memory when they are loaded, instead of parsing them.
+     *
+     * Loading a mapped file only finds where its records start, and records
+     * are decoded whenever they are accessed (see MappedBookList), so loading
+     * is fast and the heap holds little more than a row per book. Records are
+     * checked and duplicates skipped as for parsed files, but mapped records
+     * are not counted for the top authors. Gzip compressed files, and all
+     * files while changes are streamed to replication followers, are loaded
+     * as usual.
+     *
+     * @return empty library mapping the book data files loaded
+     */
+    public static LibraryData createMapped() {
+        return new LibraryData(new MappedBookList());
+    }
+
+    /**
+     * Create a new and empty book library storing the book data in the given list.
+     * @param books empty list to store the book data in
+     */
+    private LibraryData(List<BookEntry> books) {
+        this.books = books;
+        indexes = new LinkedHashMap<>();
+        indexedBooks = books;
+        indexedSize = 0;
+        indexedModifications = modificationCount(books);
+        version = 0;
+        resultCache = new ResultCache(RESULT_CACHE_BYTES);
+        watchers = new HashMap<>();
+        addedAuthors = new SpaceSaving(LibraryFileLoader.TRACKED_AUTHORS);
+        lastAddedAuthors = null;
+        sortMemory = 0;
+        mutationLog = null;
+        replicationRole = null;
     }
 
     /** 
@@ -25,6 +140,251 @@ public class LibraryData {
         return books;
     }
 
+    /**
+     * Get the prefix trie over all titles and authors of the library.
+     * @return prefix index reflecting the current book data
+     */
+    public PrefixTrie getPrefixIndex() {
+        if (books instanceof ShardedBookList) {
+            return PrefixTrie.union(((ShardedBookList) books).getShardIndexes(PrefixTrie.class, PrefixTrie::new,
+                    index -> false));
+        }
+        return getIndex(PrefixTrie.class, PrefixTrie::new);
+    }
+
+    /**
+     * Get the inverted index over all words in titles and authors of the library.
+     * @return search index reflecting the current book data
+     */
+    public InvertedIndex getSearchIndex() {
+        if (books instanceof ShardedBookList) {
+            ShardedBookList shardedBooks = (ShardedBookList) books;
+            return InvertedIndex.union(shardedBooks.getShardIndexes(InvertedIndex.class, InvertedIndex::new,
+                    index -> false), shardedBooks::sequenceOf);
+        }
+        return getIndex(InvertedIndex.class, InvertedIndex::new);
+    }
+
+    /**
+     * Get the index of all book entries by ISBN.
+     * @return ISBN index reflecting the current book data
+     */
+    public IsbnIndex getIsbnIndex() {
+        if (books instanceof ShardedBookList) {
+            ShardedBookList shardedBooks = (ShardedBookList) books;
+            return IsbnIndex.union(shardedBooks.getShardIndexes(IsbnIndex.class, IsbnIndex::new, index -> false),
+                    shardedBooks::sequenceOf);
+        }
+        return getIndex(IsbnIndex.class, IsbnIndex::new);
+    }
+
+    /**
+     * Get the cardinality statistics of the library.
+     * @return statistics reflecting the current book data
+     */
+    public LibraryStatistics getStatistics() {
+        if (books instanceof ShardedBookList) {
+            return getMergedIndex(LibraryStatistics.class, LibraryStatistics::new, LibraryStatistics::merge,
+                    index -> false);
+        }
+        return getIndex(LibraryStatistics.class, LibraryStatistics::new);
+    }
+
+    /**
+     * Get the per-author aggregates of the library.
+     * @return aggregates reflecting the current book data
+     */
+    public AuthorAggregates getAuthorAggregates() {
+        if (books instanceof ShardedBookList) {
+            return getMergedIndex(AuthorAggregates.class, AuthorAggregates::new, AuthorAggregates::merge,
+                    index -> false);
+        }
+        return getIndex(AuthorAggregates.class, AuthorAggregates::new);
+    }
+
+    /**
+     * Get the approximate summary of the library, rebuilding it if entries
+     * have been removed since it was built, as its sketches only take additions.
+     * @return summary reflecting the current book data
+     */
+    public LibrarySummary getSummary() {
+        if (books instanceof ShardedBookList) {
+            return getMergedIndex(LibrarySummary.class, LibrarySummary::new, LibrarySummary::merge,
+                    LibrarySummary::isStale);
+        }
+        synchroniseIndexes();
+
+        LibraryIndex summary = indexes.get(LibrarySummary.class);
+        if (summary != null && ((LibrarySummary) summary).isStale()) {
+            indexes.remove(LibrarySummary.class);
+        }
+        return getIndex(LibrarySummary.class, LibrarySummary::new);
+    }
+
+    /**
+     * Check if the index of the given type has already been built, so
+     * using it does not require a pass over all book entries.
+     * @param type class of the index
+     * @return true if the index reflects the current book data already
+     */
+    public boolean isIndexBuilt(Class<? extends LibraryIndex> type) {
+        if (books instanceof ShardedBookList) {
+            return ((ShardedBookList) books).isIndexBuilt(type);
+        }
+        synchroniseIndexes();
+        return indexes.containsKey(type);
+    }
+
+    /**
+     * Get all indexes built so far for the current book data. For sharded book
+     * data, these are the indexes of every shard and those merged from them.
+     * @return built indexes in the order they were built
+     */
+    public List<LibraryIndex> getBuiltIndexes() {
+        synchroniseIndexes();
+        List<LibraryIndex> built = new ArrayList<>(indexes.values());
+        if (books instanceof ShardedBookList) {
+            built.addAll(((ShardedBookList) books).getBuiltIndexes());
+        }
+        return built;
+    }
+
+    /**
+     * Get the modification version of the book data. It increases
+     * whenever book entries are added or removed, so equal versions
+     * mean equal book data.
+     * @return current modification version
+     */
+    public long getVersion() {
+        if (books instanceof ShardedBookList) {
+            return ((ShardedBookList) books).getVersion();
+        }
+        synchroniseIndexes();
+        return version;
+    }
+
+    /**
+     * Get the cache for output of read commands on this library.
+     * @return result cache of this library
+     */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Get the most frequent authors of all book data files added so far, as
+     * counted while parsing them. Removed books are still counted.
+     * @return heavy hitter summary of the authors of all records added
+     */
+    public SpaceSaving getAddedAuthors() {
+        return addedAuthors;
+    }
+
+    /**
+     * Get the most frequent authors of the book data file added last, or of
+     * the records appended to a watched file last.
+     * @return heavy hitter summary of the authors of the last records added, or null if none have been added
+     */
+    public SpaceSaving getLastAddedAuthors() {
+        return lastAddedAuthors;
+    }
+
+    /**
+     * Memory budget of commands grouping or sorting the book data.
+     * @return maximum bytes held in memory before spilling sorted runs to disk, or 0 for no limit
+     */
+    public long getSortMemory() {
+        return sortMemory;
+    }
+
+    /**
+     * Limit the memory commands may use for grouping or sorting the book data.
+     * Beyond the limit, sorted runs are written to temporary files and merged,
+     * so the heap needed does not grow with the size of the library.
+     *
+     * @param bytes maximum bytes held in memory, or 0 for no limit
+     * @throws IllegalArgumentException if the budget is negative
+     */
+    public void setSortMemory(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Memory budget must not be negative: " + bytes);
+        }
+        sortMemory = bytes;
+    }
+
+    /**
+     * Role of this library in replication.
+     * @return replication role, or null if this library is not replicated
+     */
+    ReplicationRole getReplicationRole() {
+        return replicationRole;
+    }
+
+    /**
+     * Let this library take part in replication.
+     * @param role role of this library
+     * @param log feed all changes are appended to, or null if changes are not replicated from here
+     */
+    void setReplicationRole(ReplicationRole role, MutationLog log) {
+        replicationRole = role;
+        mutationLog = log;
+        if (books instanceof ShardedBookList) {
+            // shards append their changes themselves, in the order they make them
+            ((ShardedBookList) books).setMutationLog(log);
+        }
+    }
+
+    /**
+     * Run the given action reading the library, so no changes are made while
+     * it runs and everything it reads belongs to the same book data. Commands
+     * not changing the book data are run this way, as records appended to
+     * watched files are added in the background.
+     *
+     * The library is locked as a whole, and sharded book data additionally
+     * holds the read locks of all shards, which every change of a shard waits for.
+     *
+     * @param query action reading the library
+     */
+    public void runQuery(Runnable query) {
+        synchronized (this) {
+            if (books instanceof ShardedBookList) {
+                ((ShardedBookList) books).readLocked(query);
+            } else {
+                query.run();
+            }
+        }
+    }
+
+    /**
+     * Run the given action changing the library, so it is not read or changed
+     * concurrently. Commands changing the book data are run this way, as are
+     * additions of records appended to watched files.
+     *
+     * The library is locked as a whole, unless its book data is sharded. Then
+     * every change only locks the shards it changes while it makes it, so
+     * changes of different shards are made concurrently, and reports and the
+     * added authors are updated while synchronized on the library.
+     *
+     * @param update action changing the library
+     */
+    public void runUpdate(Runnable update) {
+        if (books instanceof ShardedBookList) {
+            update.run();
+            return;
+        }
+        synchronized (this) {
+            update.run();
+        }
+    }
+
+    /**
+     * Check if commands may change this library, which is not the case on replication followers.
+     * @return true if changes have to be made elsewhere
+     */
+    public boolean isReadOnly() {
+        return replicationRole != null && !replicationRole.acceptsChanges();
+    }
+
     /**
      * Initiate book data loading for the given path.
      * @param libraryFile specified path to book data file
@@ -32,15 +392,35 @@ public class LibraryData {
      * @throws NullPointerException if the given path is null
      */
     public boolean loadData(Path libraryFile) {
+        return loadData(libraryFile, false);
+    }
+
+    /**
+     * Initiate book data loading for the given path, optionally skipping invalid records.
+     *
+     * In lenient mode all valid records are added and invalid ones are written
+     * to a reject file next to the book data file, named like the book data
+     * file with an added '.rejects' extension, replacing a reject file left by
+     * an earlier load, which is deleted if all records are valid. Otherwise
+     * nothing is added if any record is invalid.
+     *
+     * @param libraryFile specified path to book data file
+     * @param lenient true to skip invalid records, false to reject the whole file
+     * @return true if loading was successful, false otherwise
+     * @throws NullPointerException if the given path is null
+     */
+    public boolean loadData(Path libraryFile, boolean lenient) {
         Objects.requireNonNull(libraryFile, "Given file path must not be null.");
+
+        if (books instanceof MappedBookList && mutationLog == null && !CompressedInput.isCompressed(libraryFile)) {
+            return mapData(libraryFile, lenient);
+        }
                
         LibraryFileLoader loader = new LibraryFileLoader();
         boolean success = loader.loadFileContent(libraryFile);
 
         if (success) {
-            List<BookEntry> loaded = loader.parseFileContent();
-            int added = mergeEntries(loaded);
-            System.out.println(added + " new book entries added.");
+            success = addLoadedContent(loader, libraryFile, lenient, true);
         } else {
             System.err.println("ERROR: Loading book data failed for file: " + libraryFile);
         }
@@ -49,25 +429,373 @@ public class LibraryData {
     }
 
     /**
-     * Merge the list of book entries with the
-     * entries already loaded.
+     * Map the given plain book data file and add all its records, reporting the
+     * duplicates and writing invalid records to a reject file.
+     * @param libraryFile specified path to book data file
+     * @param lenient true to skip invalid records, false to reject the whole file
+     * @return true if the file has been mapped successfully, false otherwise
+     */
+    private boolean mapData(Path libraryFile, boolean lenient) {
+        List<String> rejected = new ArrayList<>();
+        List<BookEntry> duplicates = new ArrayList<>();
+        int added;
+        try {
+            added = ((MappedBookList) books).map(libraryFile, lenient, rejected, duplicates);
+        } catch (IOException | SecurityException e) {
+            System.err.println("ERROR: Reading file content failed: " + e);
+            System.err.println("ERROR: Loading book data failed for file: " + libraryFile);
+            return false;
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR: Parsing book data failed for file: " + libraryFile + ": " + e.getMessage());
+            return false;
+        }
+
+        // the book data changed behind the indexes, which are rebuilt on next use
+        synchroniseIndexes();
+        for (BookEntry entry : duplicates) {
+            System.out.println("Duplicate entry found for book: " + entry);
+        }
+        System.out.println(added + " new book entries added.");
+        if (lenient) {
+            writeRejects(libraryFile, rejected);
+        }
+        return true;
+    }
+
+    /**
+     * Load the given book data file and keep watching it, adding records
+     * appended to it later on as they are written. A file already watched is
+     * not watched twice.
+     *
+     * The watcher runs on a background thread and adds entries through
+     * runUpdate, so commands executed concurrently have to run through
+     * runQuery or runUpdate as well.
+     *
+     * @param libraryFile specified path to a plain book data file
+     * @param lenient true to skip invalid records, false to reject all records appended at once
+     * @return true if the file is watched, false if it could not be watched
+     * @throws NullPointerException if the given path is null
+     */
+    public boolean watchData(Path libraryFile, boolean lenient) {
+        Objects.requireNonNull(libraryFile, "Given file path must not be null.");
+
+        Path watchedFile = libraryFile.toAbsolutePath().normalize();
+        if (watchers.containsKey(watchedFile)) {
+            System.out.println("File is already watched: " + libraryFile);
+            return true;
+        }
+
+        if (!Files.isRegularFile(watchedFile)) {
+            System.err.println("ERROR: Loading book data failed for file: " + libraryFile);
+            return false;
+        }
+
+        // register for changes before the initial read, so nothing appended in between is missed
+        LibraryFileWatcher watcher = new LibraryFileWatcher(this, watchedFile, lenient);
+        if (!watcher.start()) {
+            return false;
+        }
+        watcher.poll();
+        watchers.put(watchedFile, watcher);
+        System.out.println("Watching file for appended book entries: " + libraryFile);
+        return true;
+    }
+
+    /**
+     * Stop watching the given book data file. Entries added from it are kept.
+     *
+     * @param libraryFile path of a watched book data file
+     * @return true if the file was watched, false otherwise
+     * @throws NullPointerException if the given path is null
+     */
+    public boolean unwatchData(Path libraryFile) {
+        Objects.requireNonNull(libraryFile, "Given file path must not be null.");
+
+        LibraryFileWatcher watcher = watchers.remove(libraryFile.toAbsolutePath().normalize());
+        if (watcher == null) {
+            System.out.println("File is not watched: " + libraryFile);
+            return false;
+        }
+        watcher.close();
+        System.out.println("Stopped watching file: " + libraryFile);
+        return true;
+    }
+
+    /**
+     * Parse the content loaded by the given loader and merge the book entries
+     * with the entries already loaded, writing invalid records to a reject file.
+     * @param loader loader with loaded content
+     * @param libraryFile book data file the content was loaded from
+     * @param lenient true to skip invalid records, false to reject all records
+     * @param wholeFile true if the content is the whole file, so a reject file
+     *                  left by an earlier load is stale even without invalid records
+     * @return true if the content has been parsed successfully, false otherwise
+     */
+    boolean addLoadedContent(LibraryFileLoader loader, Path libraryFile, boolean lenient, boolean wholeFile) {
+        List<BookEntry> loaded;
+        try {
+            loaded = loader.parseFileContent(lenient);
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR: Parsing book data failed for file: " + libraryFile + ": " + e.getMessage());
+            return false;
+        }
+
+        List<BookEntry> duplicates = addEntries(loaded);
+        // sharded book data is changed without locking the library, so commands reading it are not interleaved here
+        synchronized (this) {
+            for (BookEntry entry : duplicates) {
+                System.out.println("Duplicate entry found for book: " + entry);
+            }
+            System.out.println(loaded.size() - duplicates.size() + " new book entries added.");
+            lastAddedAuthors = loader.getAuthorCounts();
+            addedAuthors.merge(lastAddedAuthors);
+        }
+
+        List<String> rejected = loader.getRejectedRecords();
+        if (lenient && (wholeFile || !rejected.isEmpty())) {
+            writeRejects(libraryFile, rejected);
+        }
+        return true;
+    }
+
+    /**
+     * Remove the first book entry matching the given filter.
+     * @param filter condition for the entry to be removed
+     * @return true if an entry has been removed, false otherwise
+     * @throws NullPointerException if the given filter is null
+     */
+    public boolean removeFirstEntry(Predicate<BookEntry> filter) {
+        Objects.requireNonNull(filter, "Given filter must not be null.");
+
+        if (books instanceof ShardedBookList) {
+            return ((ShardedBookList) books).removeFirst(filter);
+        }
+        synchroniseIndexes();
+        Iterator<BookEntry> it = books.iterator();
+        while (it.hasNext()) {
+            BookEntry entry = it.next();
+            if (filter.test(entry)) {
+                it.remove();
+                entryRemoved(entry);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove all book entries matching the given filter.
+     * @param filter condition for entries to be removed
+     * @return number of book entries removed
+     * @throws NullPointerException if the given filter is null
+     */
+    public int removeEntries(Predicate<BookEntry> filter) {
+        Objects.requireNonNull(filter, "Given filter must not be null.");
+
+        if (books instanceof ShardedBookList) {
+            return ((ShardedBookList) books).removeMatching(filter).size();
+        }
+        synchroniseIndexes();
+
+        // removeIf compacts array lists in a single pass, where removing through an iterator shifts the tail every time
+        List<BookEntry> removed = new ArrayList<>();
+        books.removeIf(entry -> filter.test(entry) && removed.add(entry));
+        for (BookEntry entry : removed) {
+            entryRemoved(entry);
+        }
+        return removed.size();
+    }
+
+    /**
+     * Add the given book entries which are not duplicates of entries already
+     * loaded or of earlier given entries.
      * 
      * Duplicate entries will be discarded (This requires .equals to be
-     * implemented for BookEntry).
+     * implemented for BookEntry). Entries ruled out by the duplicate filter
+     * are added right away. Otherwise only entries with the same ISBN are
+     * compared, which are looked up in the ISBN index or, for off-heap,
+     * mapped book data, in the book data itself. Sharded book data looks
+     * for duplicates and updates its indexes shard by shard.
      * 
-     * @param loaded list of book entries to be merged with data already loaded
-     * @return number of book entries added to the library
+     * @param loaded list of book entries to be added
+     * @return entries not added because they are duplicates, in the given order
      */
-    private int mergeEntries(List<BookEntry> loaded) {
-        int count = 0;
+    List<BookEntry> addEntries(List<BookEntry> loaded) {
+        List<BookEntry> duplicates = new ArrayList<>();
+        if (books instanceof ShardedBookList) {
+            ((ShardedBookList) books).addAllAbsent(loaded, duplicates);
+            return duplicates;
+        }
+
+        EntryBloomFilter duplicateFilter = getDuplicateFilter(loaded.size());
+
+        // only entries with the same ISBN can be equal, which off-heap and mapped book data can look up by itself
+        Predicate<BookEntry> isDuplicate;
+        if (books instanceof OffHeapBookList || books instanceof MappedBookList) {
+            isDuplicate = books::contains;
+        } else {
+            isDuplicate = getIsbnIndex()::contains;
+        }
+
         for (BookEntry entry : loaded) {
-            if (!books.contains(entry)) {
+            if (!duplicateFilter.mightContain(entry) || !isDuplicate.test(entry)) {
                 books.add(entry);
-                count++;
+                entryAdded(entry);
             } else {
-                System.out.println("Duplicate entry found for book: " + entry);
+                duplicates.add(entry);
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * Get the Bloom filter over all book entries, rebuilding it with a larger
+     * capacity if it cannot take the given number of additions any more.
+     * @param additions number of entries about to be added
+     * @return duplicate filter reflecting the current book data
+     */
+    private EntryBloomFilter getDuplicateFilter(int additions) {
+        synchroniseIndexes();
+
+        LibraryIndex filter = indexes.get(EntryBloomFilter.class);
+        if (filter != null && !((EntryBloomFilter) filter).canHold(additions)) {
+            indexes.remove(EntryBloomFilter.class);
+        }
+
+        // leave room for further additions, so the filter is not rebuilt on every load
+        int capacity = (int) Math.min(Integer.MAX_VALUE, 2L * (books.size() + additions));
+        return getIndex(EntryBloomFilter.class, () -> new EntryBloomFilter(capacity));
+    }
+
+    /**
+     * Write descriptions of rejected records next to the given book data file,
+     * or delete the reject file left by an earlier load if there are none.
+     * @param libraryFile book data file the records were rejected from
+     * @param rejected descriptions of the rejected records
+     */
+    static void writeRejects(Path libraryFile, List<String> rejected) {
+        Path rejectFile = libraryFile.resolveSibling(libraryFile.getFileName() + ".rejects");
+
+        try {
+            if (rejected.isEmpty()) {
+                Files.deleteIfExists(rejectFile);
+                return;
+            }
+            Files.write(rejectFile, rejected);
+            System.out.println(rejected.size() + " invalid book entries skipped, see: " + rejectFile);
+        } catch (IOException | SecurityException e) {
+            System.err.println("ERROR: Writing rejected book entries failed: " + e);
+        }
+    }
+
+    /**
+     * Get the index of the given type, building it from the
+     * current book data if it does not exist yet.
+     * @param type class of the requested index
+     * @param factory creates a new empty index of the requested type
+     * @return index of the given type reflecting the current book data
+     */
+    private <T extends LibraryIndex> T getIndex(Class<T> type, Supplier<T> factory) {
+        synchroniseIndexes();
+
+        LibraryIndex index = indexes.get(type);
+        if (index == null) {
+            index = factory.get();
+            for (BookEntry entry : books) {
+                index.add(entry);
             }
+            indexes.put(type, index);
+        }
+
+        return type.cast(index);
+    }
+
+    /**
+     * Get the index of the given type over sharded book data, merging the
+     * indexes of all shards into a new one if the book data has changed since
+     * it has been merged last.
+     * @param type class of the requested index
+     * @param factory creates a new empty index of the requested type
+     * @param merge adds the entries of the index of a shard to the merged index
+     * @param outdated condition for the index of a shard to be rebuilt before merging it
+     * @return index of the given type reflecting the current book data
+     */
+    private <T extends LibraryIndex> T getMergedIndex(Class<T> type, Supplier<T> factory, BiConsumer<T, T> merge,
+            Predicate<? super T> outdated) {
+        synchroniseIndexes();
+
+        LibraryIndex index = indexes.get(type);
+        if (index == null) {
+            T merged = factory.get();
+            for (T part : ((ShardedBookList) books).getShardIndexes(type, factory, outdated)) {
+                merge.accept(merged, part);
+            }
+            indexes.put(type, merged);
+            index = merged;
+        }
+
+        return type.cast(index);
+    }
+
+    /**
+     * Drop all indexes if the book data has been replaced or changed
+     * without going through this class, so they are rebuilt on next use,
+     * and start a new modification version.
+     *
+     * Changes are detected by the modification count of the book list, so
+     * replaced entries are noticed as well. Lists which do not count their
+     * modifications (see ModificationCounting) are only compared by size.
+     */
+    private void synchroniseIndexes() {
+        if (indexedBooks != books || indexedSize != books.size() || indexedModifications != modificationCount(books)) {
+            indexes.clear();
+            indexedBooks = books;
+            indexedSize = books.size();
+            indexedModifications = modificationCount(books);
+            version++;
+        }
+    }
+
+    /**
+     * Modification count of the given book list.
+     * @param bookList book list to look at
+     * @return number of changes made to the list, or 0 if the list does not count them
+     */
+    private static int modificationCount(List<BookEntry> bookList) {
+        return bookList instanceof ModificationCounting ? ((ModificationCounting) bookList).getModificationCount() : 0;
+    }
+
+    /**
+     * Update all indexes, the modification version and the replication feed
+     * after an entry has been added to the book data.
+     * @param entry newly added entry
+     */
+    private void entryAdded(BookEntry entry) {
+        for (LibraryIndex index : indexes.values()) {
+            index.add(entry);
+        }
+        if (mutationLog != null) {
+            mutationLog.append(MutationLog.Kind.ADD, entry);
+        }
+        indexedSize = books.size();
+        indexedModifications = modificationCount(books);
+        version++;
+    }
+
+    /**
+     * Update all indexes, the modification version and the replication feed
+     * after an entry has been removed from the book data.
+     * @param entry removed entry
+     */
+    private void entryRemoved(BookEntry entry) {
+        for (LibraryIndex index : indexes.values()) {
+            index.remove(entry);
+        }
+        if (mutationLog != null) {
+            mutationLog.append(MutationLog.Kind.REMOVE, entry);
         }
-        return count;
+        indexedSize = books.size();
+        indexedModifications = modificationCount(books);
+        version++;
     }
 }
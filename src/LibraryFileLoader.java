@@ -1,7 +1,14 @@
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 
@@ -11,6 +18,20 @@ import java.util.Objects;
  */
 public class LibraryFileLoader {
 
+    /** Number of authors tracked as possible heavy hitters of a parsed file. */
+    static final int TRACKED_AUTHORS = 1024;
+
+    /** Maximum number of lines joined into a single record because of line breaks within quotes. */
+    static final int MAX_RECORD_LINES = 64;
+
+    /** Number of lines read ahead by parseFile, which must exceed MAX_RECORD_LINES. */
+    static final int PARSED_LINES = 4096;
+
+    /** Receives book entries as they are parsed. */
+    interface EntryConsumer<E extends Exception> {
+        void accept(BookEntry entry) throws E;
+    }
+
     /**
      * Contains all lines read from a book data file using
      * the loadFileContent method.
@@ -23,14 +44,40 @@ public class LibraryFileLoader {
      */
     private List<String> fileContent;
 
+    /**
+     * Index of the first line of fileContent holding a record, which is 1
+     * if the content starts with the header line and 0 otherwise.
+     */
+    private int firstRecordIdx;
+
+    /** Line number of the first line of fileContent within its file. */
+    private int firstLineNumber;
+
+    /**
+     * Descriptions of all records skipped by the last lenient parse, each
+     * consisting of line number, reason and record text separated by tabs.
+     */
+    private final List<String> rejectedRecords;
+
+    /**
+     * Most frequent authors of all records parsed by the last parse, counted
+     * in the same pass with a fixed number of counters.
+     */
+    private SpaceSaving authorCounts;
+
     /** Create a new loader. No file content has been loaded yet. */
     public LibraryFileLoader() { 
         fileContent = null;
+        firstRecordIdx = 1;
+        firstLineNumber = 1;
+        rejectedRecords = new ArrayList<>();
+        authorCounts = new SpaceSaving(TRACKED_AUTHORS);
     }
 
     /**
      * Load all lines from the specified book data file and
      * save them for later parsing with the parseFileContent method.
+     * Gzip compressed files are decompressed while reading.
      * 
      * This method has to be called before the parseFileContent method
      * can be executed successfully.
@@ -44,7 +91,9 @@ public class LibraryFileLoader {
         boolean success = false;
 
         try {
-            fileContent = Files.readAllLines(fileName);
+            fileContent = readAllLines(fileName);
+            firstRecordIdx = 1;
+            firstLineNumber = 1;
             success = true;
         } catch (IOException | SecurityException e) {
             System.err.println("ERROR: Reading file content failed: " + e);
@@ -53,6 +102,139 @@ public class LibraryFileLoader {
         return success;
     }
 
+    /**
+     * Load the complete lines appended to a plain book data file after the
+     * given byte offset, for later parsing with the parseFileContent method.
+     *
+     * Only bytes up to the line break ending the last complete record are
+     * loaded, so a record still being written, or any last record without a
+     * line break, is left for the next call. Line breaks within quoted fields do not end a
+     * record, unless the quote is still open after MAX_RECORD_LINES lines. If
+     * the offset is 0 the first line is taken as the header, as for
+     * loadFileContent.
+     *
+     * @param fileName file path with book data, which must not be compressed
+     * @param offset number of bytes at the start of the file already loaded,
+     *               which must be the end of a record
+     * @param lineNumber line number of the first line after the offset, used for rejected records
+     * @return offset after the last record loaded, or -1 if reading failed
+     * @throws NullPointerException if the given file name is null
+     */
+    public long loadAppendedContent(Path fileName, long offset, int lineNumber) {
+        Objects.requireNonNull(fileName, "Given filename must not be null.");
+
+        try (FileChannel channel = FileChannel.open(fileName, StandardOpenOption.READ)) {
+            long appended = channel.size() - offset;
+            if (appended > Integer.MAX_VALUE - 8) {
+                throw new IOException("Too many bytes appended at once: " + appended);
+            }
+
+            // bytes appended while reading are left for the next call
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(0, appended));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            byte[] bytes = buffer.array();
+            int complete = endOfCompleteRecords(bytes, buffer.position());
+
+            String text = StandardCharsets.UTF_8.newDecoder()
+                    .decode(ByteBuffer.wrap(bytes, 0, complete)).toString();
+            fileContent = splitLines(text);
+            firstRecordIdx = offset == 0 ? 1 : 0;
+            firstLineNumber = lineNumber;
+            return offset + complete;
+        } catch (IOException | SecurityException e) {
+            System.err.println("ERROR: Reading appended file content failed: " + e);
+            return -1;
+        }
+    }
+
+    /**
+     * Find the end of the last record followed by a line break outside of quotes.
+     * A quote still open after MAX_RECORD_LINES lines is taken as unbalanced,
+     * so its record ends at its first line break, as parseFileContent does.
+     *
+     * @param bytes UTF-8 encoded records
+     * @param length number of valid bytes
+     * @return number of bytes up to and including the line break after the last complete record
+     */
+    private static int endOfCompleteRecords(byte[] bytes, int length) {
+        int complete = 0;
+        boolean quoted = false;
+        int recordLines = 1;
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == '"') {
+                quoted = !quoted;
+            } else if (bytes[i] == '\n' && !quoted) {
+                complete = i + 1;
+                recordLines = 1;
+            } else if (bytes[i] == '\n' && ++recordLines == MAX_RECORD_LINES) {
+                // continue after the first line of the record
+                int firstBreak = complete;
+                while (bytes[firstBreak] != '\n') {
+                    firstBreak++;
+                }
+                complete = firstBreak + 1;
+                i = firstBreak;
+                quoted = false;
+                recordLines = 1;
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * Split text into lines, like BufferedReader.readLine does.
+     *
+     * @param text lines each ending with '\n' or '\r\n', except for the last one which may have no line break
+     * @return lines without line breaks
+     */
+    private static List<String> splitLines(String text) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int end = text.indexOf('\n'); end >= 0; end = text.indexOf('\n', start)) {
+            int lineEnd = end > start && text.charAt(end - 1) == '\r' ? end - 1 : end;
+            lines.add(text.substring(start, lineEnd));
+            start = end + 1;
+        }
+        if (start < text.length()) {
+            lines.add(text.substring(start));
+        }
+        return lines;
+    }
+
+    /**
+     * Number of lines loaded by the last call of a loading method.
+     *
+     * @return number of lines loaded, or 0 if no content has been loaded yet
+     */
+    public int getLoadedLineCount() {
+        return contentLoaded() ? fileContent.size() : 0;
+    }
+
+    /**
+     * Read all lines of the given plain or gzip compressed file as UTF-8 text.
+     *
+     * @param fileName file path with book data
+     * @return all lines of the file without line breaks
+     * @throws IOException if reading fails or the content is not valid UTF-8
+     */
+    private static List<String> readAllLines(Path fileName) throws IOException {
+        List<String> lines = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(CompressedInput.open(fileName), StandardCharsets.UTF_8.newDecoder()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+
+        return lines;
+    }
+
     /**
      * Has file content been loaded already?
      * @return true if file content has been loaded already.
@@ -63,36 +245,276 @@ public class LibraryFileLoader {
 
     /**
      * Parse file content loaded previously.
+     *
+     * Records are expected to follow RFC 4180, so titles and authors
+     * containing commas or quotes have to be enclosed in double quotes.
+     * Records spanning several lines because of line breaks within quotes
+     * are joined again before parsing, up to MAX_RECORD_LINES lines. A line
+     * whose quote is not closed within these lines or before the end of the
+     * content is parsed on its own, so only this line is invalid rather than
+     * all records following it. Blank lines are ignored.
      * 
      * @return list of books ,each represented as a BookEntry instance,
      * parsed from the previously loaded data or an empty
      * list if no book data has been loaded yet.
+     * @throws IllegalArgumentException if a record is malformed or contains invalid book data
      */
     public List<BookEntry> parseFileContent() {
+        return parseFileContent(false);
+    }
+
+    /**
+     * Parse file content loaded previously, optionally skipping invalid records.
+     *
+     * In lenient mode, malformed records and records with invalid book data are
+     * not added to the result but remembered for getRejectedRecords instead.
+     *
+     * @param lenient true to skip invalid records, false to fail on the first one
+     * @return list of books ,each represented as a BookEntry instance,
+     * parsed from the previously loaded data or an empty
+     * list if no book data has been loaded yet.
+     * @throws IllegalArgumentException if not lenient and a record is malformed
+     * or contains invalid book data
+     */
+    public List<BookEntry> parseFileContent(boolean lenient) {
         List<BookEntry> bookEntriesList = new ArrayList<>();
+        rejectedRecords.clear();
+        authorCounts = new SpaceSaving(TRACKED_AUTHORS);
 
         if (!contentLoaded()) {
             System.err.println("ERROR: No content loaded before parsing.");
         }
         else {
-            final String entryDelimiter = ",";
-            final String authorsDelimiter = "-";
+            parseLines(fileContent, firstRecordIdx, firstLineNumber, true, lenient, bookEntriesList::add);
+        }
 
-            List<String> fileContentBooks = fileContent.subList(1, fileContent.size()); //disregard the header
-            for (String bookString : fileContentBooks) {
-                String[] bookEntryArray = bookString.split(entryDelimiter);
+        return bookEntriesList;
+    }
 
-                String title = bookEntryArray[0];
-                String[] authors = bookEntryArray[1].split(authorsDelimiter);
-                float rating = Float.parseFloat(bookEntryArray[2]);
-                String ISBN = bookEntryArray[3];
-                int pages = Integer.parseInt(bookEntryArray[4]);
+    /**
+     * Parse the given plain or gzip compressed book data file while reading it,
+     * passing every book entry on as soon as its record has been parsed, so
+     * the file is never held in memory as a whole. Records are parsed the same
+     * way as by parseFileContent, and the records skipped in lenient mode as
+     * well as the authors counted are available afterwards in the same way.
+     *
+     * @param fileName file path with book data
+     * @param lenient true to skip invalid records, false to fail on the first one
+     * @param consumer receives every book entry parsed, in file order
+     * @return true if the whole file has been read, false if reading failed,
+     * possibly after some entries have been passed on
+     * @throws E if the consumer fails
+     * @throws IllegalArgumentException if not lenient and a record is malformed
+     * or contains invalid book data, after the entries before it have been passed on
+     * @throws NullPointerException if the given file name or consumer is null
+     */
+    public <E extends Exception> boolean parseFile(Path fileName, boolean lenient, EntryConsumer<E> consumer)
+            throws E {
+        Objects.requireNonNull(fileName, "Given filename must not be null.");
+        Objects.requireNonNull(consumer, "Given consumer must not be null.");
+        rejectedRecords.clear();
+        authorCounts = new SpaceSaving(TRACKED_AUTHORS);
 
-                BookEntry newBookEntry = new BookEntry(title, authors, rating, ISBN, pages);
-                bookEntriesList.add(newBookEntry);
+        BufferedReader reader;
+        try {
+            reader = new BufferedReader(
+                    new InputStreamReader(CompressedInput.open(fileName), StandardCharsets.UTF_8.newDecoder()));
+        } catch (IOException | SecurityException e) {
+            System.err.println("ERROR: Reading file content failed: " + e);
+            return false;
+        }
+
+        // reading fails with unchecked exceptions, which cannot be confused with those of the consumer
+        try {
+            Iterator<String> fileLines = reader.lines().iterator();
+            // lines not parsed yet, as their record may continue in the lines following them
+            List<String> lines = new ArrayList<>();
+            int firstIdx = 1; // disregard the header
+            int lineNumber = 1;
+            boolean endOfContent = false;
+            while (!endOfContent) {
+                while (lines.size() < PARSED_LINES && fileLines.hasNext()) {
+                    lines.add(fileLines.next());
+                }
+                endOfContent = lines.size() < PARSED_LINES;
+
+                int parsed = parseLines(lines, firstIdx, lineNumber, endOfContent, lenient, consumer);
+                lines.subList(0, parsed).clear();
+                lineNumber += parsed;
+                firstIdx = 0;
             }
+            return true;
+        } catch (UncheckedIOException e) {
+            System.err.println("ERROR: Reading file content failed: " + e.getCause());
+            return false;
+        } finally {
+            close(reader);
+        }
+    }
+
+    /** Close the given reader, reporting a failure. */
+    private static void close(BufferedReader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            System.err.println("ERROR: Closing file failed: " + e);
         }
+    }
 
-        return bookEntriesList;
+    /**
+     * Parse the records of the given lines, joining records spanning several
+     * lines as described for parseFileContent.
+     *
+     * @param lines lines of a book data file without line breaks
+     * @param firstIdx index of the first line holding a record
+     * @param firstLineNumber line number of the first of the lines within its file
+     * @param endOfContent true if the lines end with the last line of the file, false if
+     *                     more lines may follow, so a record still open at the end is not parsed
+     * @param lenient true to skip invalid records, false to fail on the first one
+     * @param consumer receives every book entry parsed
+     * @return number of lines parsed from the start, after which the next record starts
+     * @throws IllegalArgumentException if not lenient and a record is malformed
+     * or contains invalid book data
+     */
+    private <E extends Exception> int parseLines(List<String> lines, int firstIdx, int firstLineNumber,
+            boolean endOfContent, boolean lenient, EntryConsumer<E> consumer) throws E {
+        CsvTokenizer tokenizer = new CsvTokenizer();
+
+        for (int lineIdx = firstIdx; lineIdx < lines.size(); lineIdx++) {
+            int lineNumber = firstLineNumber + lineIdx;
+            int recordIdx = lineIdx;
+            String bookString = lines.get(lineIdx);
+            while (CsvTokenizer.isIncompleteRecord(bookString) && lineIdx + 1 < lines.size()
+                    && lineIdx - recordIdx + 1 < MAX_RECORD_LINES) {
+                bookString = bookString + "\n" + lines.get(++lineIdx);
+            }
+            if (CsvTokenizer.isIncompleteRecord(bookString) && !endOfContent
+                    && lineIdx - recordIdx + 1 < MAX_RECORD_LINES) {
+                return recordIdx; // the record may be completed by the lines following
+            }
+            if (CsvTokenizer.isIncompleteRecord(bookString) && lineIdx > recordIdx) {
+                // an unbalanced quote, which must not take the following records with it
+                lineIdx = recordIdx;
+                bookString = lines.get(lineIdx);
+            }
+            if (bookString.isBlank()) {
+                continue;
+            }
+
+            tokenizer.reset(bookString);
+            BookEntry entry;
+            try {
+                entry = parseBookEntry(tokenizer);
+            } catch (IllegalArgumentException e) {
+                if (!lenient) {
+                    throw new IllegalArgumentException("Invalid book record in line " + lineNumber + ": "
+                            + e.getMessage(), e);
+                }
+                rejectedRecords.add(lineNumber + "\t" + e.getMessage() + "\t" + bookString.replace("\n", "\\n"));
+                continue;
+            }
+            for (String author : entry.getAuthors()) {
+                authorCounts.add(author);
+            }
+            consumer.accept(entry);
+        }
+        return lines.size();
+    }
+
+    /**
+     * Get the records skipped by the last lenient call of parseFileContent.
+     *
+     * @return descriptions of skipped records, each consisting of line number,
+     * reason and record text separated by tabs (line breaks within the record
+     * are written as \n)
+     */
+    public List<String> getRejectedRecords() {
+        return rejectedRecords;
+    }
+
+    /**
+     * Get the most frequent authors of the records parsed by the last call of
+     * parseFileContent, including records which turn out to be duplicates
+     * of books already in the library.
+     *
+     * @return heavy hitter summary of the authors of all valid records parsed
+     */
+    public SpaceSaving getAuthorCounts() {
+        return authorCounts;
+    }
+
+    /**
+     * Create a book entry from a single record of a book data file.
+     *
+     * @param tokenizer tokenizer to parse the record with
+     * @param record complete record without the line break at its end
+     * @return book entry described by the record
+     * @throws IllegalArgumentException if the record is malformed or contains invalid book data
+     */
+    static BookEntry parseRecord(CsvTokenizer tokenizer, String record) {
+        tokenizer.reset(record);
+        return parseBookEntry(tokenizer);
+    }
+
+    /**
+     * Check that a single record of a book data file describes a valid book,
+     * without creating a book entry or strings for its title and authors.
+     * Every record passing the check is parsed by parseRecord without failing.
+     *
+     * @param tokenizer tokenizer to check the record with
+     * @param record complete record without the line break at its end
+     * @return ISBN of the book described by the record
+     * @throws IllegalArgumentException if the record is malformed or contains invalid book data
+     */
+    static String checkRecord(CsvTokenizer tokenizer, String record) {
+        tokenizer.reset(record);
+
+        nextBookField(tokenizer); // title
+        nextBookField(tokenizer); // authors
+        nextBookField(tokenizer);
+        float rating = tokenizer.fieldAsFloat();
+        nextBookField(tokenizer);
+        String ISBN = tokenizer.fieldAsString();
+        nextBookField(tokenizer);
+        int pages = tokenizer.fieldAsInt();
+
+        BookEntry.checkValues(rating, pages);
+        return ISBN;
+    }
+
+    /**
+     * Create a book entry from the fields of the tokenizer's current record.
+     *
+     * @param tokenizer tokenizer positioned before the first field of a record
+     * @return book entry described by the record
+     * @throws IllegalArgumentException if the record is malformed or contains invalid book data
+     */
+    private static BookEntry parseBookEntry(CsvTokenizer tokenizer) {
+        final char authorsDelimiter = '-';
+
+        nextBookField(tokenizer);
+        String title = tokenizer.fieldAsString();
+        nextBookField(tokenizer);
+        String[] authors = tokenizer.fieldAsStrings(authorsDelimiter);
+        nextBookField(tokenizer);
+        float rating = tokenizer.fieldAsFloat();
+        nextBookField(tokenizer);
+        String ISBN = tokenizer.fieldAsString();
+        nextBookField(tokenizer);
+        int pages = tokenizer.fieldAsInt();
+
+        return new BookEntry(title, authors, rating, ISBN, pages);
+    }
+
+    /**
+     * Move the tokenizer to the next field of a book record.
+     *
+     * @param tokenizer tokenizer of the current record
+     * @throws IllegalArgumentException if the record has no more fields
+     */
+    private static void nextBookField(CsvTokenizer tokenizer) {
+        if (!tokenizer.nextField()) {
+            throw new IllegalArgumentException("Book record has too few fields.");
+        }
     }
 }
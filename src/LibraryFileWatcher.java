@@ -0,0 +1,189 @@
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+/**
+ * Adds records appended to a book data file to the library as they are written.
+ *
+ * The watcher first reads all complete records of the file and remembers the
+ * byte offset up to which it has been read. Later on it only reads and parses
+ * the bytes appended after that offset. Every read ends at the line break of
+ * the last complete record, so a record still being written, including a last
+ * record without line break, is only added once its line break follows. If the file shrinks below that offset or is replaced by a different
+ * file, it is read again from the start; entries read before are then skipped
+ * as duplicates by the library.
+ *
+ * Changes are picked up by a daemon thread waiting on a WatchService for the
+ * directory of the file, until the watcher is closed. All reading and merging
+ * happens within LibraryData.runUpdate and while synchronized on the watcher.
+ */
+final class LibraryFileWatcher {
+
+    /** Library the appended records are added to. */
+    private final LibraryData data;
+    /** Absolute path of the watched file. */
+    private final Path file;
+    /** True if invalid records should be skipped. */
+    private final boolean lenient;
+
+    /** Number of bytes at the start of the file already read. */
+    private long offset;
+    /** Line number of the first line after the offset. */
+    private int lineNumber;
+    /** Identity of the file read so far, used to detect a replaced file (null if unknown). */
+    private Object fileKey;
+    /** Service notifying about changes in the directory of the file (null until started). */
+    private WatchService watchService;
+    /** Thread waiting for changes (null until started). */
+    private Thread thread;
+    /** True once the watcher has been closed, so a pending poll adds nothing. */
+    private volatile boolean closed;
+
+    /**
+     * Create a watcher which has not read anything yet.
+     *
+     * @param data library the records are added to
+     * @param file absolute path of a plain book data file
+     * @param lenient true to skip invalid records, false to reject all records read at once
+     * @throws NullPointerException if the given library or file is null
+     */
+    LibraryFileWatcher(LibraryData data, Path file, boolean lenient) {
+        this.data = Objects.requireNonNull(data, "Given data must not be null.");
+        this.file = Objects.requireNonNull(file, "Given file must not be null.");
+        this.lenient = lenient;
+        offset = 0;
+        lineNumber = 1;
+        fileKey = null;
+        watchService = null;
+        thread = null;
+        closed = false;
+    }
+
+    /**
+     * Start watching the directory of the file for changes on a background thread.
+     *
+     * @return true if watching started, false if the directory cannot be watched
+     */
+    boolean start() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            System.err.println("ERROR: Watching file failed: " + file + ": " + e);
+            return false;
+        }
+
+        thread = new Thread(this::watch, "watch " + file);
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Stop watching the file. The background thread ends without adding
+     * anything more, which it may do after this method has returned, as it
+     * may be waiting for the library held by the caller, or be adding
+     * records to sharded book data already.
+     */
+    void close() {
+        closed = true;
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("ERROR: Closing watch service failed: " + file + ": " + e);
+        }
+        thread.interrupt();
+    }
+
+    /**
+     * Check if the background thread is still running, for tests.
+     * @return true if the watcher has been started and its thread has not ended yet
+     */
+    boolean isWatching() {
+        return thread != null && thread.isAlive();
+    }
+
+    /**
+     * Read the records appended since the last call and add them to the library.
+     * If the file has been truncated or replaced, it is read again from the start.
+     * Nothing happens if the file does not exist at the moment.
+     */
+    void poll() {
+        data.runUpdate(this::pollLocked);
+    }
+
+    /** Read and add the appended records, while no other poll of this watcher runs. */
+    private synchronized void pollLocked() {
+        if (closed) {
+            return;
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException | SecurityException e) {
+            return; // rotated away, the new file is read once it has been created
+        }
+
+        boolean replaced = fileKey != null && !fileKey.equals(attributes.fileKey());
+        if (replaced || attributes.size() < offset) {
+            synchronized (data) { // not interleaved with commands reading sharded book data meanwhile
+                System.out.println("File has been truncated or replaced, reading again: " + file);
+            }
+            offset = 0;
+            lineNumber = 1;
+        }
+        fileKey = attributes.fileKey();
+        if (attributes.size() == offset) {
+            return;
+        }
+
+        // a record without line break may still be written, so it is left for a later poll
+        LibraryFileLoader loader = new LibraryFileLoader();
+        long end = loader.loadAppendedContent(file, offset, lineNumber);
+        if (end < 0 || end == offset) {
+            return;
+        }
+        // a read from the start makes earlier rejects stale, appended records without rejects leave them in place
+        data.addLoadedContent(loader, file, lenient, offset == 0);
+        // invalid records are not read again, they would fail the same way
+        offset = end;
+        lineNumber += loader.getLoadedLineCount();
+    }
+
+    /** Poll the file whenever the watch service reports a change of it, until the service is closed. */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || file.getFileName().equals(event.context());
+                }
+                if (changed) {
+                    poll();
+                }
+                if (!key.reset()) {
+                    System.err.println("ERROR: Directory of watched file is no longer accessible: " + file);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // watching has been stopped
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * Auxiliary lookup structure derived from the book data of a library.
+ *
+ * Indexes are created on demand by LibraryData, filled with all
+ * currently loaded book entries and from then on kept up to date
+ * incrementally whenever entries are added or removed.
+ */
+interface LibraryIndex {
+
+    /**
+     * Register a book entry which has just been added to the library.
+     *
+     * @param entry book entry added to the library
+     */
+    void add(BookEntry entry);
+
+    /**
+     * Unregister a book entry which has just been removed from the library.
+     *
+     * @param entry book entry removed from the library
+     */
+    void remove(BookEntry entry);
+
+    /**
+     * Estimate the heap memory retained by the index, not counting book
+     * entries and their strings, which are shared with the book data.
+     *
+     * @return estimated number of bytes
+     */
+    long estimateBytes();
+}
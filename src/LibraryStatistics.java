@@ -0,0 +1,195 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cardinality statistics over all book entries of the library, used to
+ * estimate how many entries satisfy a condition without looking at them.
+ *
+ * Title trigram counts are kept in a fixed number of hashed buckets, each
+ * counting the titles containing any trigram of the bucket. A bucket count is
+ * therefore never lower than the number of titles containing one of its
+ * trigrams, which makes estimates for title searches upper bounds.
+ */
+class LibraryStatistics implements LibraryIndex {
+
+    /** Number of rating histogram buckets, each half a rating point wide. */
+    private static final int RATING_BUCKETS = 10;
+    /** Width of a rating histogram bucket. */
+    private static final float RATING_BUCKET_WIDTH = 0.5f;
+    /** Number of distinct ratings within a histogram bucket (ratings have two decimals). */
+    private static final int RATINGS_PER_BUCKET = 50;
+    /** Number of title trigram buckets (a power of two). */
+    private static final int TRIGRAM_BUCKETS = 1 << 16;
+    /** Length of the title fragments counted. */
+    private static final int TRIGRAM_LENGTH = 3;
+
+    /** Number of entries. */
+    private int bookCount;
+    /** Number of entries by author. */
+    private final Map<String, Integer> authorCounts;
+    /** Number of entries by rating bucket. */
+    private final int[] ratingHistogram;
+    /** Number of titles containing a trigram of the bucket, by trigram bucket. */
+    private final int[] trigramCounts;
+
+    /** Create empty statistics. */
+    public LibraryStatistics() {
+        bookCount = 0;
+        authorCounts = new HashMap<>();
+        ratingHistogram = new int[RATING_BUCKETS];
+        trigramCounts = new int[TRIGRAM_BUCKETS];
+    }
+
+    @Override
+    public void add(BookEntry entry) {
+        update(entry, 1);
+    }
+
+    @Override
+    public void remove(BookEntry entry) {
+        update(entry, -1);
+    }
+
+    @Override
+    public long estimateBytes() {
+        long bytes = MemoryLayout.object(3 * MemoryLayout.REFERENCE + 4) + MemoryLayout.hashMap(authorCounts.size())
+                + MemoryLayout.array(ratingHistogram.length, Integer.BYTES)
+                + MemoryLayout.array(trigramCounts.length, Integer.BYTES);
+        for (int count : authorCounts.values()) {
+            bytes += count > Byte.MAX_VALUE ? MemoryLayout.BOXED_INT : 0; // smaller ones are cached
+        }
+        return bytes;
+    }
+
+    /**
+     * Number of entries in the library.
+     *
+     * @return number of entries
+     */
+    public int getBookCount() {
+        return bookCount;
+    }
+
+    /**
+     * Number of distinct authors in the library.
+     *
+     * @return number of distinct authors
+     */
+    public int getDistinctAuthors() {
+        return authorCounts.size();
+    }
+
+    /**
+     * Number of entries written by the given author.
+     *
+     * @param author full name of the author
+     * @return exact number of entries of the author
+     */
+    public int getAuthorCount(String author) {
+        return authorCounts.getOrDefault(author, 0);
+    }
+
+    /**
+     * Estimate the fraction of entries with a rating below the given value,
+     * assuming ratings are spread evenly within each histogram bucket.
+     *
+     * @param rating rating to compare with
+     * @return estimated fraction of entries rated lower, between 0 and 1
+     */
+    public double estimateRatingBelow(double rating) {
+        if (bookCount == 0) {
+            return 0;
+        }
+
+        double below = 0;
+        for (int bucket = 0; bucket < RATING_BUCKETS; bucket++) {
+            double start = bucket * RATING_BUCKET_WIDTH;
+            if (rating >= start + RATING_BUCKET_WIDTH) {
+                below += ratingHistogram[bucket];
+            } else if (rating > start) {
+                below += ratingHistogram[bucket] * (rating - start) / RATING_BUCKET_WIDTH;
+            }
+        }
+        return Math.min(1, below / bookCount);
+    }
+
+    /**
+     * Estimate the fraction of entries with exactly the given rating.
+     *
+     * @param rating rating to compare with
+     * @return estimated fraction of entries with that rating, between 0 and 1
+     */
+    public double estimateRatingEqual(double rating) {
+        if (bookCount == 0 || rating < 0 || rating > 5) {
+            return 0;
+        }
+        return (double) ratingHistogram[ratingBucket((float) rating)] / RATINGS_PER_BUCKET / bookCount;
+    }
+
+    /**
+     * Estimate the number of titles containing the given lower case word.
+     *
+     * @param foldedWord lower case word
+     * @return upper bound of the number of titles containing the word,
+     * or the number of entries if the word is too short to tell
+     */
+    public int estimateTitlesContaining(String foldedWord) {
+        int estimate = bookCount;
+        for (int bucket : trigramBuckets(foldedWord)) {
+            estimate = Math.min(estimate, trigramCounts[bucket]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Add the entries counted by the given statistics to this one.
+     *
+     * @param other statistics of another part of the library
+     */
+    public void merge(LibraryStatistics other) {
+        bookCount += other.bookCount;
+        other.authorCounts.forEach((author, count) -> authorCounts.merge(author, count, Integer::sum));
+        for (int bucket = 0; bucket < RATING_BUCKETS; bucket++) {
+            ratingHistogram[bucket] += other.ratingHistogram[bucket];
+        }
+        for (int bucket = 0; bucket < TRIGRAM_BUCKETS; bucket++) {
+            trigramCounts[bucket] += other.trigramCounts[bucket];
+        }
+    }
+
+    private void update(BookEntry entry, int delta) {
+        bookCount += delta;
+        for (String author : entry.getAuthors()) {
+            authorCounts.merge(author, delta, (count, change) -> count + change == 0 ? null : count + change);
+        }
+        ratingHistogram[ratingBucket(entry.getRating())] += delta;
+        for (int bucket : trigramBuckets(entry.getFoldedTitle())) {
+            trigramCounts[bucket] += delta;
+        }
+    }
+
+    private static int ratingBucket(float rating) {
+        return Math.min(RATING_BUCKETS - 1, (int) (rating / RATING_BUCKET_WIDTH));
+    }
+
+    /** Distinct buckets of all trigrams of the given text, in ascending order. */
+    private static int[] trigramBuckets(String text) {
+        int count = Math.max(0, text.length() - TRIGRAM_LENGTH + 1);
+        int[] buckets = new int[count];
+        for (int i = 0; i < count; i++) {
+            int hash = (text.charAt(i) * 31 + text.charAt(i + 1)) * 31 + text.charAt(i + 2);
+            hash *= 0x9E3779B9;
+            buckets[i] = (hash ^ (hash >>> 16)) & (TRIGRAM_BUCKETS - 1);
+        }
+
+        Arrays.sort(buckets);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || buckets[i] != buckets[i - 1]) {
+                buckets[distinct++] = buckets[i];
+            }
+        }
+        return Arrays.copyOf(buckets, distinct);
+    }
+}
@@ -0,0 +1,161 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Approximate catalogue-wide statistics of the library, kept in sketches of
+ * fixed size: HyperLogLog sketches of the distinct authors and titles and KLL
+ * sketches of the rating and page count distributions.
+ *
+ * Sketches only take additions, so a removal merely marks the summary stale
+ * and LibraryData rebuilds it in a single pass on next use. Summaries of parts
+ * of the library, such as those held by cluster workers, merge into the
+ * summary of the whole library.
+ */
+class LibrarySummary implements LibraryIndex {
+
+    /** Number of entries. */
+    private int bookCount;
+    private final HyperLogLog authors;
+    private final HyperLogLog titles;
+    private final KllSketch ratings;
+    private final KllSketch pages;
+    /** True once an entry has been removed, which the sketches cannot reflect. */
+    private boolean stale;
+
+    /** Create an empty summary. */
+    public LibrarySummary() {
+        bookCount = 0;
+        authors = new HyperLogLog();
+        titles = new HyperLogLog();
+        ratings = new KllSketch();
+        pages = new KllSketch();
+        stale = false;
+    }
+
+    private LibrarySummary(int bookCount, HyperLogLog authors, HyperLogLog titles, KllSketch ratings,
+            KllSketch pages) {
+        this.bookCount = bookCount;
+        this.authors = authors;
+        this.titles = titles;
+        this.ratings = ratings;
+        this.pages = pages;
+        stale = false;
+    }
+
+    @Override
+    public void add(BookEntry entry) {
+        bookCount++;
+        for (String author : entry.getAuthors()) {
+            authors.add(author);
+        }
+        titles.add(entry.getTitle());
+        ratings.add(entry.getRating());
+        pages.add(entry.getPages());
+    }
+
+    @Override
+    public void remove(BookEntry entry) {
+        bookCount--;
+        stale = true;
+    }
+
+    @Override
+    public long estimateBytes() {
+        return MemoryLayout.object(4 * MemoryLayout.REFERENCE + 4 + 1) + authors.estimateBytes()
+                + titles.estimateBytes() + ratings.estimateBytes() + pages.estimateBytes();
+    }
+
+    /**
+     * Check if entries have been removed since the summary has been built.
+     * @return true if the sketches still count removed entries
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Number of entries in the library.
+     * @return exact number of entries
+     */
+    public int getBookCount() {
+        return bookCount;
+    }
+
+    /**
+     * Estimate the number of distinct authors.
+     * @return estimated number of distinct authors
+     */
+    public long estimateDistinctAuthors() {
+        return authors.estimate();
+    }
+
+    /**
+     * Estimate the number of distinct titles.
+     * @return estimated number of distinct titles
+     */
+    public long estimateDistinctTitles() {
+        return titles.estimate();
+    }
+
+    /**
+     * Estimate the rating below which the given fraction of the entries lie.
+     *
+     * @param fraction fraction of the entries between 0 (the lowest) and 1 (the highest rating)
+     * @return estimated rating quantile, or NaN if there are no entries
+     */
+    public double ratingQuantile(double fraction) {
+        return ratings.quantile(fraction);
+    }
+
+    /**
+     * Estimate the page count below which the given fraction of the entries lie.
+     *
+     * @param fraction fraction of the entries between 0 (the fewest) and 1 (the most pages)
+     * @return estimated page count quantile, or NaN if there are no entries
+     */
+    public double pagesQuantile(double fraction) {
+        return pages.quantile(fraction);
+    }
+
+    /**
+     * Add the entries summarised by the given summary to this one.
+     * @param other summary of another part of the library
+     */
+    public void merge(LibrarySummary other) {
+        bookCount += other.bookCount;
+        authors.merge(other.authors);
+        titles.merge(other.titles);
+        ratings.merge(other.ratings);
+        pages.merge(other.pages);
+        stale |= other.stale;
+    }
+
+    /**
+     * Write the summary to the given stream.
+     * @param out stream to write to
+     * @throws IOException if writing fails
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(bookCount);
+        authors.writeTo(out);
+        titles.writeTo(out);
+        ratings.writeTo(out);
+        pages.writeTo(out);
+    }
+
+    /**
+     * Read a summary written by writeTo.
+     * @param in stream to read from
+     * @return summary read
+     * @throws IOException if reading fails
+     */
+    static LibrarySummary readFrom(DataInputStream in) throws IOException {
+        int bookCount = in.readInt();
+        HyperLogLog authors = HyperLogLog.readFrom(in);
+        HyperLogLog titles = HyperLogLog.readFrom(in);
+        KllSketch ratings = KllSketch.readFrom(in);
+        KllSketch pages = KllSketch.readFrom(in);
+        return new LibrarySummary(bookCount, authors, titles, ratings, pages);
+    }
+}
@@ -1,9 +1,13 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
 
 /**
  * List command used to print either a short (only titles) or
- * a long extensive list of the books in the library.
+ * a long extensive list of the books in the library, or their
+ * titles sorted alphabetically.
  */
 public class ListCmd extends LibraryCommand {
 
@@ -11,7 +15,7 @@ public class ListCmd extends LibraryCommand {
      * Extending it will have to be followed by also extending the switch
      * case in execute method of the class.
      */
-    private enum ListArgumentType { LONG, SHORT }
+    private enum ListArgumentType { LONG, SHORT, SORTED }
     /** An enum instance representing the argument input for list command
      * (null if argument input is invalid)
      */
@@ -20,7 +24,7 @@ public class ListCmd extends LibraryCommand {
     /**
      * Create a list command.
      *
-     * @param argumentInput argument input is expected to be either 'long', or 'short', or to be completely blank.
+     * @param argumentInput argument input is expected to be either 'long', 'short', or 'sorted', or to be completely blank.
      * @throws IllegalArgumentException if given arguments are invalid
      * @throws NullPointerException if the given argumentInput is null.
      */
@@ -30,7 +34,8 @@ public class ListCmd extends LibraryCommand {
 
     /**
      * Execute the list command. This prints the amount of books in the library and
-     * a long or a short version of the list of the books.
+     * a long or a short version of the list of the books, or the titles sorted,
+     * spilling to disk beyond the sort memory of the library if it is limited.
      *
      * @param data book data to be considered for command execution.
      * @throws NullPointerException if the given data is null
@@ -42,34 +47,127 @@ public class ListCmd extends LibraryCommand {
         Objects.requireNonNull(data, "Given data must not be null.");
 
         List<BookEntry> books = data.getBookData();
-        if (books.size() > 0) {
-            System.out.println(books.size() + " books in library:");
+        printHeader(books.size());
+
+        if (commandArgument == ListArgumentType.SORTED) {
+            printSorted(books, data.getSortMemory() > 0 ? data.getSortMemory() : Long.MAX_VALUE);
+            return;
+        }
+        for (BookEntry entry : books) {
+            System.out.println(describe(entry));
+        }
+    }
+
+    /**
+     * Print the titles of the given books in alphabetical order, books with
+     * the same title in library order.
+     *
+     * @param books book entries to list
+     * @param memoryBudget maximum bytes of titles held in memory before spilling sorted runs to disk
+     */
+    private void printSorted(List<BookEntry> books, long memoryBudget) {
+        try (ExternalSorter sorter = new ExternalSorter(memoryBudget)) {
+            for (BookEntry entry : books) {
+                sorter.add(entry.getTitle(), "");
+            }
+            sorter.forEachSorted((title, unused) -> System.out.println(title));
+        } catch (IOException e) {
+            reportFailure("Sorting on disk failed: " + e);
+        }
+    }
+
+    /**
+     * Ask every worker for its book descriptions and print them merged into library order.
+     * Sorted listings are not supported.
+     *
+     * @param cluster coordinator connected to the workers holding the book data
+     * @throws IOException if communicating with a worker fails
+     */
+    @Override
+    public void executeOnCluster(ClusterCoordinator cluster) throws IOException {
+        if (commandArgument == ListArgumentType.SORTED) {
+            System.err.println("ERROR: Sorted listing is not supported in cluster mode.");
+            return;
+        }
+
+        List<DataInputStream> replies = cluster.broadcast(this);
+        int bookCount = 0;
+        for (DataInputStream reply : replies) {
+            bookCount += reply.readInt();
+        }
+
+        printHeader(bookCount);
+        ClusterProtocol.mergeBySequence(replies, ClusterProtocol::readString,
+                (sequence, description) -> System.out.println(description));
+    }
+
+    /**
+     * Reply with the number of books held followed by the description of every book.
+     *
+     * @param worker worker holding part of the book data
+     * @param request empty payload
+     * @param reply receives the number of books and their descriptions in sequence order
+     * @throws IOException if writing the reply fails
+     */
+    @Override
+    void executeOnWorker(ClusterWorker worker, DataInputStream request, DataOutputStream reply) throws IOException {
+        List<BookEntry> books = worker.getData().getBookData();
+        reply.writeInt(books.size());
+        for (BookEntry entry : books) {
+            reply.writeLong(worker.sequenceOf(entry));
+            ClusterProtocol.writeString(reply, describe(entry));
+        }
+        reply.writeLong(ClusterProtocol.END_OF_RECORDS);
+    }
+
+    /**
+     * Print the amount of books in the library.
+     * @param bookCount number of books
+     */
+    private void printHeader(int bookCount) {
+        if (bookCount > 0) {
+            System.out.println(bookCount + " books in library:");
         }
         else {
             System.out.println("The library has no book entries.");
         }
+    }
 
+    /**
+     * Describe a book as listed by this command.
+     *
+     * @param entry book to describe
+     * @return the title for a short list, all data of the book for a long list
+     * @throws UnsupportedOperationException if the enumerator of possible list command
+     * arguments has been extended but the switch case for dealing with them has not
+     */
+    private String describe(BookEntry entry) {
         switch(commandArgument) {
             case SHORT:
-                for (BookEntry entry : books) {
-                    System.out.println(entry.getTitle());
-                }
-                break;
+            case SORTED:
+                return entry.getTitle();
             case LONG:
-                for (BookEntry entry : books) {
-                    System.out.println(entry.toString());
-                }
-                break;
+                return entry.toString();
             default:
                 throw new UnsupportedOperationException("Command argument " + commandArgument + " is not yet implemented");
         }
     }
 
+    /**
+     * The output only depends on the arguments and the book data, so it may be cached.
+     *
+     * @return command type and argument
+     */
+    @Override
+    public String cacheKey() {
+        return getType() + " " + commandArgument;
+    }
+
     /**
      * Remembers the command argument input in commandArgument field for later use.
      *
      * @param argumentInput argument input for list command
-     * @return true if the given argument is either 'long' or 'short', or blank.
+     * @return true if the given argument is either 'long', 'short' or 'sorted', or blank.
      * @throws NullPointerException if the given argumentInput is null.
      */
     @Override
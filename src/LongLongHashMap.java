@@ -0,0 +1,152 @@
+/**
+ * Hash map from long keys to long values held in two primitive arrays,
+ * using open addressing with linear probing.
+ *
+ * The key 0 marks empty slots and therefore cannot be stored.
+ */
+final class LongLongHashMap {
+
+    /** Value returned for keys not contained in the map. */
+    public static final long NO_VALUE = -1;
+    /** Key of empty slots. */
+    private static final long EMPTY_KEY = 0;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+
+    /** Create an empty map. */
+    public LongLongHashMap() {
+        keys = new long[16];
+        values = new long[16];
+        size = 0;
+    }
+
+    /**
+     * Get the value stored for the given key.
+     *
+     * @param key non-zero key
+     * @return value stored for the key, or NO_VALUE if there is none
+     */
+    public long get(long key) {
+        int slot = findSlot(key);
+        return keys[slot] == EMPTY_KEY ? NO_VALUE : values[slot];
+    }
+
+    /**
+     * Store a value for the given key, replacing any previous one.
+     *
+     * @param key non-zero key
+     * @param value value to store
+     * @throws IllegalArgumentException if the key is 0
+     */
+    public void put(long key, long value) {
+        if (key == EMPTY_KEY) {
+            throw new IllegalArgumentException("Key 0 cannot be stored.");
+        }
+
+        int slot = findSlot(key);
+        if (keys[slot] == EMPTY_KEY) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+
+        if (size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * Remove the given key and its value.
+     *
+     * @param key non-zero key
+     */
+    public void remove(long key) {
+        int slot = findSlot(key);
+        if (keys[slot] == EMPTY_KEY) {
+            return;
+        }
+
+        // move later keys of the same probe sequence back so lookups still find them
+        int mask = keys.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY_KEY) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        keys[gap] = EMPTY_KEY;
+        size--;
+    }
+
+    /**
+     * Number of keys in the map.
+     *
+     * @return number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of slots allocated for keys and values.
+     *
+     * @return current capacity of the map
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Estimate the heap memory retained by the map.
+     *
+     * @return estimated number of bytes
+     */
+    public long estimateBytes() {
+        return MemoryLayout.object(2 * MemoryLayout.REFERENCE + 4) + 2 * MemoryLayout.array(keys.length, Long.BYTES);
+    }
+
+    /** Remove all keys. */
+    public void clear() {
+        keys = new long[16];
+        values = new long[16];
+        size = 0;
+    }
+
+    /** Find the slot holding the given key, or the empty slot where it would be inserted. */
+    private int findSlot(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY_KEY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[capacity];
+        values = new long[capacity];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
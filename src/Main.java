@@ -1,12 +1,226 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
 /** Main entry point into the library browser program. */
 public class Main {
 
+    /** Option to keep the book data outside the Java heap. */
+    private static final String OFF_HEAP_OPTION = "--off-heap";
+    /** Option to map book data files into memory and decode their records on access. */
+    private static final String MAPPED_OPTION = "--mapped";
+    /** Option to partition the book data into shards, followed by their number. */
+    private static final String SHARDS_OPTION = "--shards";
+    /** Option to limit the memory of grouping and sorting, followed by the number of megabytes. */
+    private static final String SORT_MEMORY_OPTION = "--sort-memory";
+    /** Option to run as a cluster worker, followed by the address to listen on. */
+    private static final String WORKER_OPTION = "--worker";
+    /** Option to browse a library held by cluster workers, followed by their addresses. */
+    private static final String CLUSTER_OPTION = "--cluster";
+    /** Option to stream all changes to replication followers, followed by the address to listen on. */
+    private static final String PRIMARY_OPTION = "--primary";
+    /** Option to follow a replication primary, followed by its address. */
+    private static final String FOLLOW_OPTION = "--follow";
+    /** Delimiter between the addresses of cluster workers. */
+    private static final String ADDRESS_DELIMITER = ",";
+
     /**
      * Start the library browser program.
-     * @param args not used for arguments
+     * @param args optionally '--off-heap' to keep the book data outside the Java heap,
+     *             '--mapped' to map book data files into memory and decode books on
+     *             access, or '--shards n' to partition the book data into n shards. With
+     *             '--worker [host:]port' the program holds part of a library for a
+     *             cluster instead of browsing it, and with '--cluster [host:]port,...'
+     *             it browses the library held by the given workers. With
+     *             '--primary [host:]port' all changes are streamed to followers
+     *             connecting to the given address, and with '--follow [host:]port'
+     *             the library is a read-only replica of the given primary.
+     *             '--sort-memory mb' makes grouping and sorting spill to disk beyond
+     *             the given number of megabytes.
      */
     public static void main(String[] args) {
-        LibraryBrowser browser = new LibraryBrowser();
+        boolean offHeap = false;
+        boolean mapped = false;
+        int shards = 0;
+        int sortMegabytes = 0;
+        InetSocketAddress workerAddress = null;
+        List<InetSocketAddress> clusterAddresses = null;
+        InetSocketAddress primaryAddress = null;
+        InetSocketAddress followAddress = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals(WORKER_OPTION) && i + 1 < args.length) {
+                workerAddress = ClusterProtocol.parseAddress(args[++i]);
+                if (workerAddress == null) {
+                    System.err.println("ERROR: Invalid worker address: " + args[i]);
+                    return;
+                }
+            } else if (args[i].equals(CLUSTER_OPTION) && i + 1 < args.length) {
+                clusterAddresses = parseAddresses(args[++i]);
+                if (clusterAddresses == null) {
+                    System.err.println("ERROR: Invalid worker addresses: " + args[i]);
+                    return;
+                }
+            } else if (args[i].equals(PRIMARY_OPTION) && i + 1 < args.length) {
+                primaryAddress = ClusterProtocol.parseAddress(args[++i]);
+                if (primaryAddress == null) {
+                    System.err.println("ERROR: Invalid primary address: " + args[i]);
+                    return;
+                }
+            } else if (args[i].equals(FOLLOW_OPTION) && i + 1 < args.length) {
+                followAddress = ClusterProtocol.parseAddress(args[++i]);
+                if (followAddress == null) {
+                    System.err.println("ERROR: Invalid primary address: " + args[i]);
+                    return;
+                }
+            } else if (args[i].equals(SORT_MEMORY_OPTION) && i + 1 < args.length) {
+                sortMegabytes = parseCount(args[++i]);
+                if (sortMegabytes < 1) {
+                    System.err.println("ERROR: Invalid sort memory: " + args[i]);
+                    return;
+                }
+            } else if (args[i].equals(OFF_HEAP_OPTION)) {
+                offHeap = true;
+            } else if (args[i].equals(MAPPED_OPTION)) {
+                mapped = true;
+            } else if (args[i].equals(SHARDS_OPTION) && i + 1 < args.length) {
+                shards = parseCount(args[++i]);
+                if (shards < 1) {
+                    System.err.println("ERROR: Invalid number of shards: " + args[i]);
+                    return;
+                }
+            } else {
+                System.err.println("ERROR: Unknown option: " + args[i]);
+                return;
+            }
+        }
+        if ((offHeap ? 1 : 0) + (mapped ? 1 : 0) + (shards > 0 ? 1 : 0) > 1) {
+            System.err.println("ERROR: Options " + OFF_HEAP_OPTION + ", " + MAPPED_OPTION + " and " + SHARDS_OPTION
+                    + " cannot be combined.");
+            return;
+        }
+
+        int roles = (workerAddress != null ? 1 : 0) + (primaryAddress != null ? 1 : 0) + (followAddress != null ? 1 : 0);
+        if (roles > 1) {
+            System.err.println("ERROR: Options " + WORKER_OPTION + ", " + PRIMARY_OPTION + " and " + FOLLOW_OPTION
+                    + " cannot be combined.");
+            return;
+        }
+
+        if (clusterAddresses != null) {
+            if (roles > 0 || offHeap || mapped || shards > 0 || sortMegabytes > 0) {
+                System.err.println("ERROR: Option " + CLUSTER_OPTION + " cannot be combined with other options.");
+                return;
+            }
+            runCoordinator(clusterAddresses);
+            return;
+        }
+
+        LibraryData data;
+        if (mapped) {
+            data = LibraryData.createMapped();
+        } else {
+            data = shards > 0 ? new LibraryData(shards) : new LibraryData(offHeap);
+        }
+        data.setSortMemory((long) sortMegabytes << 20);
+        if (workerAddress != null) {
+            runWorker(data, workerAddress);
+            return;
+        }
+        if (primaryAddress != null && !startPrimary(data, primaryAddress)) {
+            return;
+        }
+        if (followAddress != null) {
+            new ReplicationFollower(data, followAddress).start();
+            System.out.println("Following replication primary " + followAddress);
+        }
+        LibraryBrowser browser = new LibraryBrowser(data);
         browser.run();
     }
+
+    /**
+     * Browse the library held by the workers at the given addresses.
+     * @param addresses addresses of all workers
+     */
+    private static void runCoordinator(List<InetSocketAddress> addresses) {
+        ClusterCoordinator cluster;
+        try {
+            cluster = new ClusterCoordinator(addresses);
+        } catch (IOException e) {
+            System.err.println("ERROR: Connecting to cluster workers failed: " + e);
+            return;
+        }
+
+        LibraryBrowser browser = new LibraryBrowser(cluster);
+        browser.run();
+        cluster.close();
+    }
+
+    /**
+     * Hold part of a library for coordinators connecting to the given address, until killed.
+     * @param data empty library to hold the book data
+     * @param address address to listen on
+     */
+    private static void runWorker(LibraryData data, InetSocketAddress address) {
+        ClusterWorker worker;
+        try {
+            worker = new ClusterWorker(data, address);
+        } catch (IOException e) {
+            System.err.println("ERROR: Listening on " + address + " failed: " + e);
+            return;
+        }
+
+        System.out.println("Cluster worker listening on " + worker.getAddress());
+        worker.run();
+    }
+
+    /**
+     * Stream all changes of the library to followers connecting to the given address.
+     * @param data library to be replicated
+     * @param address address to listen on
+     * @return true if followers are accepted, false if the address cannot be listened on
+     */
+    private static boolean startPrimary(LibraryData data, InetSocketAddress address) {
+        ReplicationPrimary primary;
+        try {
+            primary = new ReplicationPrimary(data, address);
+        } catch (IOException e) {
+            System.err.println("ERROR: Listening on " + address + " failed: " + e);
+            return false;
+        }
+
+        primary.start();
+        System.out.println("Replication primary listening on " + primary.getAddress());
+        return true;
+    }
+
+    /**
+     * Parse the addresses of cluster workers.
+     * @param argument addresses separated by ','
+     * @return the addresses or null if any of them is invalid
+     */
+    private static List<InetSocketAddress> parseAddresses(String argument) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String address : argument.split(ADDRESS_DELIMITER)) {
+            InetSocketAddress parsed = ClusterProtocol.parseAddress(address.trim());
+            if (parsed == null) {
+                return null;
+            }
+            addresses.add(parsed);
+        }
+        return addresses;
+    }
+
+    /**
+     * Parse a count, such as the number of shards.
+     * @param argument count
+     * @return the count or -1 if it is invalid
+     */
+    private static int parseCount(String argument) {
+        try {
+            return Integer.parseInt(argument);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 }
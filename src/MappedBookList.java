@@ -0,0 +1,459 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * List of book entries decoded lazily from memory-mapped book data files.
+ *
+ * Mapping a file takes a single pass over its bytes, which finds where every
+ * record starts and checks it with the tokenizer like parsing would, but
+ * without creating a book entry or strings for its title and authors. The heap
+ * holds one row per entry, which either locates a mapped record by file and
+ * byte offset or holds an entry added as BookEntry instance rather than mapped.
+ * Records are parsed into new BookEntry instances whenever they are accessed,
+ * so callers should not rely on object identity, and the page cache rather
+ * than the heap holds the book data.
+ *
+ * Rows with the same ISBN key are chained, and a primitive hash map from ISBN
+ * key to latest row gives fast duplicate checks via contains, which only
+ * decode records with the same ISBN. Records which are duplicates of entries
+ * already in the list, or of earlier records of the same file, are not mapped.
+ *
+ * Mapped files must not be changed while they are mapped. A record which turns
+ * out to be invalid when parsed makes the access fail with an
+ * IllegalStateException.
+ */
+class MappedBookList extends AbstractList<BookEntry> implements RandomAccess, ModificationCounting {
+
+    /** Number of bytes of a file mapped at once (a power of two). */
+    private static final int SEGMENT_SIZE = 1 << 30;
+    /** Bits of a handle holding the byte offset of a record within its file. */
+    private static final int OFFSET_BITS = 44;
+    /** Row marking the end of a chain of rows with the same ISBN key. */
+    private static final int NO_ROW = (int) LongLongHashMap.NO_VALUE;
+
+    /** A mapped book data file. */
+    private static final class MappedFile {
+
+        private final Path path;
+        /** Consecutive mapped segments of the file, all but the last one SEGMENT_SIZE bytes long. */
+        private final MappedByteBuffer[] segments;
+        private final long size;
+
+        private MappedFile(Path path) throws IOException {
+            this.path = path;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                size = channel.size();
+                segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+                for (int i = 0; i < segments.length; i++) {
+                    long start = (long) i * SEGMENT_SIZE;
+                    segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+                }
+            }
+        }
+
+        private byte get(long position) {
+            return segments[(int) (position / SEGMENT_SIZE)].get((int) (position % SEGMENT_SIZE));
+        }
+    }
+
+    /** Mapped files, by index as stored in handles. */
+    private final List<MappedFile> files;
+    /** Rows of all entries in list order. */
+    private int[] rows;
+    /** Number of entries in the list. */
+    private int size;
+
+    /** Handle of the mapped record by row (file index in the upper and offset in the lower bits). */
+    private long[] rowHandles;
+    /** Entry added as instance by row (null for mapped records and free rows). */
+    private BookEntry[] rowEntries;
+    /** Next row with the same ISBN key by row, or next free row for free rows. */
+    private int[] nextRows;
+    /** Number of rows ever used. */
+    private int rowCount;
+    /** First free row available for reuse. */
+    private int freeRow;
+    /** Latest row for every ISBN key. */
+    private LongLongHashMap isbnChains;
+
+    /** Create an empty list. */
+    public MappedBookList() {
+        files = new ArrayList<>();
+        reset();
+    }
+
+    /**
+     * Map the given plain book data file and append all its records, except
+     * for the header line. Invalid records are rejected, and records which are
+     * duplicates of entries in the list or of earlier records are skipped.
+     *
+     * @param path plain book data file, which must not be compressed
+     * @param lenient true to skip rejected records, false to map nothing if any record is rejected
+     * @param rejected receives a description of every rejected record, consisting of line
+     *                 number, reason and record text separated by tabs
+     * @param duplicates receives every record skipped as duplicate, in file order
+     * @return number of records appended
+     * @throws IOException if the file cannot be mapped
+     * @throws IllegalArgumentException if not lenient and a record is malformed or contains invalid book data
+     */
+    int map(Path path, boolean lenient, List<String> rejected, List<BookEntry> duplicates) throws IOException {
+        MappedFile file = new MappedFile(path);
+        long fileIndex = files.size();
+
+        // all records are checked before any is appended, so nothing has to be undone if one is invalid
+        long[] recordHandles = new long[16];
+        long[] recordKeys = new long[16];
+        int recordCount = 0;
+        CsvTokenizer tokenizer = new CsvTokenizer();
+        byte[] record = new byte[256];
+        int length = 0;
+        boolean header = true;
+        long recordStart = 0;
+        int recordLine = 1;
+        int line = 1;
+        boolean quoted = false;
+        for (long position = 0; position <= file.size; position++) {
+            byte b = position < file.size ? file.get(position) : (byte) '\n';
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n') {
+                line++;
+            }
+            if (b != '\n' || (quoted && position < file.size)) {
+                if (!header) {
+                    if (length == record.length) {
+                        record = Arrays.copyOf(record, length * 2);
+                    }
+                    record[length++] = b;
+                }
+                continue;
+            }
+
+            String text = header ? "" : recordText(record, length);
+            if (!text.isBlank()) {
+                try {
+                    String isbn = LibraryFileLoader.checkRecord(tokenizer, text);
+                    if (recordCount == recordHandles.length) {
+                        recordHandles = Arrays.copyOf(recordHandles, recordCount * 2);
+                        recordKeys = Arrays.copyOf(recordKeys, recordCount * 2);
+                    }
+                    recordHandles[recordCount] = (fileIndex << OFFSET_BITS) | recordStart;
+                    recordKeys[recordCount++] = IsbnIndex.isbnKey(isbn);
+                } catch (IllegalArgumentException e) {
+                    if (!lenient) {
+                        throw new IllegalArgumentException("Invalid book record in line " + recordLine + ": "
+                                + e.getMessage(), e);
+                    }
+                    rejected.add(recordLine + "\t" + e.getMessage() + "\t" + text.replace("\n", "\\n"));
+                }
+            }
+            header = false;
+            recordStart = position + 1;
+            recordLine = line;
+            length = 0;
+            quoted = false;
+        }
+
+        files.add(file);
+        int appended = 0;
+        for (int i = 0; i < recordCount; i++) {
+            // only records with an ISBN key already in the list are decoded
+            if (isbnChains.get(recordKeys[i]) != NO_ROW) {
+                BookEntry entry = decode(recordHandles[i]);
+                if (containsRow(recordKeys[i], entry)) {
+                    duplicates.add(entry);
+                    continue;
+                }
+            }
+            ensureCapacity();
+            rows[size++] = newRow(recordHandles[i], null, recordKeys[i]);
+            appended++;
+        }
+        modCount++;
+        return appended;
+    }
+
+    @Override
+    public BookEntry get(int index) {
+        checkIndex(index, size);
+        return rowEntry(rows[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getModificationCount() {
+        return modCount;
+    }
+
+    @Override
+    public void add(int index, BookEntry entry) {
+        checkIndex(index, size + 1);
+
+        int row = newRow(0, entry, IsbnIndex.isbnKey(entry.getISBN()));
+        ensureCapacity();
+        System.arraycopy(rows, index, rows, index + 1, size - index);
+        rows[index] = row;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public BookEntry set(int index, BookEntry entry) {
+        BookEntry previous = get(index);
+        releaseRow(rows[index], IsbnIndex.isbnKey(previous.getISBN()));
+        rows[index] = newRow(0, entry, IsbnIndex.isbnKey(entry.getISBN()));
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public BookEntry remove(int index) {
+        BookEntry removed = get(index);
+        releaseRow(rows[index], IsbnIndex.isbnKey(removed.getISBN()));
+        System.arraycopy(rows, index + 1, rows, index, size - index - 1);
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Remove all entries matching the given filter, compacting the list in a
+     * single pass rather than shifting its tail for every entry removed.
+     *
+     * @param filter condition for entries to be removed
+     * @return true if any entry has been removed
+     * @throws NullPointerException if the given filter is null
+     */
+    @Override
+    public boolean removeIf(Predicate<? super BookEntry> filter) {
+        Objects.requireNonNull(filter, "Given filter must not be null.");
+
+        int kept = 0;
+        int index = 0;
+        boolean removed;
+        try {
+            for (; index < size; index++) {
+                int row = rows[index];
+                BookEntry entry = rowEntry(row);
+                if (filter.test(entry)) {
+                    releaseRow(row, IsbnIndex.isbnKey(entry.getISBN()));
+                } else {
+                    rows[kept++] = row;
+                }
+            }
+        } finally {
+            // entries not tested yet because the filter failed are kept, those released are gone either way
+            System.arraycopy(rows, index, rows, kept, size - index);
+            kept += size - index;
+            removed = kept < size;
+            if (removed) {
+                size = kept;
+                modCount++;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        reset();
+        files.clear();
+        modCount++;
+    }
+
+    /**
+     * Check if an entry equal to the given one is in the list, only decoding
+     * records with the same ISBN.
+     *
+     * @param o object to look for
+     * @return true if an equal entry is in the list
+     */
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof BookEntry)) {
+            return false;
+        }
+
+        BookEntry entry = (BookEntry) o;
+        return containsRow(IsbnIndex.isbnKey(entry.getISBN()), entry);
+    }
+
+    /**
+     * Number of bytes of all mapped files.
+     *
+     * @return total size of the files, held in the page cache rather than on the heap
+     */
+    public long getMappedBytes() {
+        long mapped = 0;
+        for (MappedFile file : files) {
+            mapped += file.size;
+        }
+        return mapped;
+    }
+
+    /**
+     * Estimate the heap memory retained by the list, which holds the record
+     * handles and the entries added as instances.
+     *
+     * @return estimated number of bytes, not counting the strings of entries added as instances
+     */
+    public long estimateHeapBytes() {
+        final long mappedBufferObject = MemoryLayout.object(4 * MemoryLayout.REFERENCE + 6 * 4 + 2 * 8);
+        long bytes = MemoryLayout.object(6 * MemoryLayout.REFERENCE + 4 * 4)
+                + MemoryLayout.array(rows.length, Integer.BYTES)
+                + MemoryLayout.array(rowHandles.length, Long.BYTES)
+                + MemoryLayout.array(rowEntries.length, MemoryLayout.REFERENCE)
+                + MemoryLayout.array(nextRows.length, Integer.BYTES)
+                + isbnChains.estimateBytes()
+                + MemoryLayout.arrayList(files.size());
+        for (MappedFile file : files) {
+            bytes += MemoryLayout.object(2 * MemoryLayout.REFERENCE + Long.BYTES)
+                    + MemoryLayout.array(file.segments.length, MemoryLayout.REFERENCE)
+                    + file.segments.length * mappedBufferObject;
+        }
+        for (int i = 0; i < size; i++) {
+            if (rowEntries[rows[i]] != null) {
+                bytes += MemoryLayout.object(4 * MemoryLayout.REFERENCE + Float.BYTES + Integer.BYTES);
+            }
+        }
+        return bytes;
+    }
+
+    private void reset() {
+        rows = new int[16];
+        size = 0;
+        rowHandles = new long[16];
+        rowEntries = new BookEntry[16];
+        nextRows = new int[16];
+        rowCount = 0;
+        freeRow = NO_ROW;
+        isbnChains = new LongLongHashMap();
+    }
+
+    private void ensureCapacity() {
+        if (size == rows.length) {
+            rows = Arrays.copyOf(rows, size * 2);
+        }
+    }
+
+    /** Entry of the given row, decoding mapped records. */
+    private BookEntry rowEntry(int row) {
+        return rowEntries[row] != null ? rowEntries[row] : decode(rowHandles[row]);
+    }
+
+    /** Check if the chain of the given ISBN key holds an entry equal to the given one. */
+    private boolean containsRow(long key, BookEntry entry) {
+        for (int row = (int) isbnChains.get(key); row != NO_ROW; row = nextRows[row]) {
+            if (rowEntry(row).equals(entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Take a free row for a mapped record or an entry and link it into the chain of its ISBN key. */
+    private int newRow(long handle, BookEntry entry, long key) {
+        int row;
+        if (freeRow != NO_ROW) {
+            row = freeRow;
+            freeRow = nextRows[row];
+        } else {
+            if (rowCount == rowHandles.length) {
+                rowHandles = Arrays.copyOf(rowHandles, rowCount * 2);
+                rowEntries = Arrays.copyOf(rowEntries, rowCount * 2);
+                nextRows = Arrays.copyOf(nextRows, rowCount * 2);
+            }
+            row = rowCount++;
+        }
+
+        rowHandles[row] = handle;
+        rowEntries[row] = entry;
+        nextRows[row] = (int) isbnChains.get(key);
+        isbnChains.put(key, row);
+        return row;
+    }
+
+    /** Unlink a row from the chain of its ISBN key and free it for reuse. */
+    private void releaseRow(int row, long key) {
+        int previous = NO_ROW;
+        for (int current = (int) isbnChains.get(key); current != row; current = nextRows[current]) {
+            previous = current;
+        }
+        if (previous != NO_ROW) {
+            nextRows[previous] = nextRows[row];
+        } else if (nextRows[row] != NO_ROW) {
+            isbnChains.put(key, nextRows[row]);
+        } else {
+            isbnChains.remove(key);
+        }
+
+        rowEntries[row] = null;
+        nextRows[row] = freeRow;
+        freeRow = row;
+    }
+
+    /** Parse the record with the given handle into a new book entry. */
+    private BookEntry decode(long handle) {
+        MappedFile file = files.get((int) (handle >>> OFFSET_BITS));
+        long start = handle & ((1L << OFFSET_BITS) - 1);
+        String record = readRecord(file, start);
+        try {
+            return LibraryFileLoader.parseRecord(new CsvTokenizer(), record);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid book record at byte " + start + " of file " + file.path + ": "
+                    + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Read the text of the record starting at the given offset, up to the
+     * first line break outside quotes.
+     */
+    private static String readRecord(MappedFile file, long start) {
+        byte[] bytes = new byte[64];
+        int length = 0;
+        boolean quoted = false;
+        for (long position = start; position < file.size; position++) {
+            byte b = file.get(position);
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                break;
+            }
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, length * 2);
+            }
+            bytes[length++] = b;
+        }
+        return recordText(bytes, length);
+    }
+
+    /** Decode the bytes of a record without its line break, dropping a carriage return at its end. */
+    private static String recordText(byte[] bytes, int length) {
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
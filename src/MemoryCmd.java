@@ -0,0 +1,150 @@
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Memory command used to print an estimate of the heap memory retained by the
+ * library, broken down into book entries, their strings, indexes and caches,
+ * and how much deduplicating equal strings would save.
+ *
+ * Sizes are estimated from the object layout of a 64-bit JVM with compressed
+ * references (see MemoryLayout) rather than measured, so they do not depend
+ * on garbage collection timing and are the same on every run.
+ */
+public class MemoryCmd extends LibraryCommand {
+
+    /**
+     * Create a memory command.
+     *
+     * @param argumentInput argument input is expected to be blank.
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public MemoryCmd(String argumentInput) {
+        super(CommandType.MEMORY, argumentInput);
+    }
+
+    /**
+     * Execute the memory command. This prints the estimated bytes of every
+     * component of the library, the total and the bytes per book.
+     *
+     * @param data book data to be considered for command execution.
+     * @throws NullPointerException if the given data is null
+     */
+    @Override
+    public void execute(LibraryData data) {
+        Objects.requireNonNull(data, "Given data must not be null.");
+
+        List<BookEntry> books = data.getBookData();
+        System.out.println("Estimated heap memory of " + books.size() + " books:");
+
+        long total = 0;
+        StringCensus census = null;
+        if (books instanceof OffHeapBookList) {
+            OffHeapBookList offHeapBooks = (OffHeapBookList) books;
+            total += printComponent("book list", offHeapBooks.estimateHeapBytes());
+        } else if (books instanceof MappedBookList) {
+            total += printComponent("book list", ((MappedBookList) books).estimateHeapBytes());
+        } else {
+            census = new StringCensus();
+            long entries = MemoryLayout.arrayList(books.size());
+            long titles = 0;
+            long authors = 0;
+            long isbns = 0;
+            for (BookEntry book : books) {
+                entries += MemoryLayout.object(4 * MemoryLayout.REFERENCE + Float.BYTES + Integer.BYTES)
+                        + MemoryLayout.array(book.getAuthors().length, MemoryLayout.REFERENCE);
+                titles += census.measure(book.getTitle()) + census.measure(book.getFoldedTitle());
+                for (String author : book.getAuthors()) {
+                    authors += census.measure(author);
+                }
+                isbns += census.measure(book.getISBN());
+            }
+
+            total += printComponent("book entries", entries);
+            total += printComponent("titles", titles);
+            total += printComponent("authors", authors);
+            total += printComponent("ISBNs", isbns);
+        }
+
+        // sharded book data keeps an index of each type per shard, which are reported together
+        Map<String, Long> indexBytes = new LinkedHashMap<>();
+        for (LibraryIndex index : data.getBuiltIndexes()) {
+            indexBytes.merge(index.getClass().getSimpleName(), index.estimateBytes(), Long::sum);
+        }
+        for (Map.Entry<String, Long> index : indexBytes.entrySet()) {
+            total += printComponent("index " + index.getKey(), index.getValue());
+        }
+        total += printComponent("result cache", data.getResultCache().getUsedBytes());
+
+        String perBook = books.isEmpty() ? "" : ", " + total / books.size() + " bytes per book";
+        System.out.println("  total: " + total + " bytes" + perBook);
+
+        if (books instanceof MappedBookList) {
+            System.out.println("Mapped files: " + ((MappedBookList) books).getMappedBytes() + " bytes");
+        } else if (census == null) {
+            OffHeapBookList offHeapBooks = (OffHeapBookList) books;
+            System.out.println("Native memory: " + offHeapBooks.getReservedBytes() + " bytes reserved, "
+                    + offHeapBooks.getLiveBytes() + " bytes used by books");
+        } else {
+            System.out.println("String deduplication would save " + census.duplicateBytes + " bytes ("
+                    + census.duplicates + " duplicate strings)");
+        }
+    }
+
+    /**
+     * Checks that no arguments have been given.
+     *
+     * @param argumentInput argument input for memory command
+     * @return true if the argument input is blank
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+
+        return argumentInput.isBlank();
+    }
+
+    private static long printComponent(String component, long bytes) {
+        System.out.println("  " + component + ": " + bytes + " bytes");
+        return bytes;
+    }
+
+    /** Measures strings, counting every instance once and remembering instances equal to earlier ones. */
+    private static final class StringCensus {
+
+        /** First instance of every distinct string value. */
+        private final Map<String, String> firstInstances = new HashMap<>();
+        /** Instances measured so far. */
+        private final Set<String> measured = Collections.newSetFromMap(new IdentityHashMap<>());
+        /** Number of instances equal to an earlier instance. */
+        private long duplicates;
+        /** Bytes of instances equal to an earlier instance. */
+        private long duplicateBytes;
+
+        /**
+         * Measure the given string.
+         *
+         * @param value string retained by the library
+         * @return bytes of the string, or 0 if the same instance has been measured before
+         */
+        private long measure(String value) {
+            if (!measured.add(value)) {
+                return 0;
+            }
+
+            long bytes = MemoryLayout.string(value);
+            if (firstInstances.putIfAbsent(value, value) != null) {
+                duplicates++;
+                duplicateBytes += bytes;
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Static helpers estimating the retained heap size of objects, assuming the
+ * layout of a 64-bit HotSpot JVM with compressed references and compact
+ * strings: 12 byte object headers, 16 byte array headers, 4 byte references
+ * and objects aligned to 8 bytes.
+ *
+ * The estimates are meant for capacity planning and for comparing the effect
+ * of optimizations, so they count what the library keeps alive but ignore
+ * details such as unused capacity of growable collections.
+ */
+final class MemoryLayout {
+
+    /** Bytes of an object header. */
+    public static final int OBJECT_HEADER = 12;
+    /** Bytes of an array header, including the length. */
+    public static final int ARRAY_HEADER = 16;
+    /** Bytes of a reference. */
+    public static final int REFERENCE = 4;
+    /** Bytes every object size is rounded up to a multiple of. */
+    private static final int ALIGNMENT = 8;
+
+    /** Bytes of a String object without its character array (value, hash, coder, hashIsZero). */
+    private static final long STRING_OBJECT = object(REFERENCE + 4 + 1 + 1);
+    /** Bytes of a boxed Integer. */
+    public static final long BOXED_INT = object(4);
+    /** Bytes of a HashMap object without its table and nodes. */
+    private static final long HASH_MAP_OBJECT = object(3 * REFERENCE + 4 * 4 + REFERENCE);
+    /** Bytes of a HashMap node (hash, key, value, next). */
+    private static final long HASH_MAP_NODE = object(4 + 3 * REFERENCE);
+    /** Bytes of a TreeMap entry (key, value, left, right, parent, color). */
+    private static final long TREE_MAP_ENTRY = object(5 * REFERENCE + 1);
+    /** Bytes of a TreeMap object without its entries. */
+    private static final long TREE_MAP_OBJECT = object(5 * REFERENCE + 2 * 4);
+    /** Bytes of an ArrayList object without its element array. */
+    private static final long ARRAY_LIST_OBJECT = object(2 * 4 + REFERENCE);
+
+    /** Not to be used. */
+    private MemoryLayout() {
+        throw new UnsupportedOperationException("This constructor should never be used.");
+    }
+
+    /**
+     * Bytes of an object with the given total size of its fields.
+     *
+     * @param fieldBytes bytes of all fields of the object
+     * @return aligned size of the object
+     */
+    public static long object(int fieldBytes) {
+        return align(OBJECT_HEADER + fieldBytes);
+    }
+
+    /**
+     * Bytes of an array.
+     *
+     * @param length number of elements
+     * @param elementBytes bytes per element
+     * @return aligned size of the array
+     */
+    public static long array(long length, int elementBytes) {
+        return align(ARRAY_HEADER + length * elementBytes);
+    }
+
+    /**
+     * Bytes of a String including its character array, which holds one byte
+     * per char if all chars are Latin-1 and two bytes per char otherwise.
+     *
+     * @param value string to measure
+     * @return retained size of the string
+     */
+    public static long string(String value) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < value.length() && bytesPerChar == 1; i++) {
+            if (value.charAt(i) > 0xff) {
+                bytesPerChar = 2;
+            }
+        }
+        return STRING_OBJECT + array(value.length(), bytesPerChar);
+    }
+
+    /**
+     * Bytes of a HashMap with the given number of entries, without keys and
+     * values, assuming the default load factor.
+     *
+     * @param size number of entries
+     * @return size of map, table and nodes
+     */
+    public static long hashMap(int size) {
+        long needed = (size * 4L + 2) / 3;
+        long capacity = Math.max(16, needed <= 1 ? 1 : Long.highestOneBit(needed - 1) << 1);
+        long table = size == 0 ? 0 : array(capacity, REFERENCE); // allocated on first insertion
+        return HASH_MAP_OBJECT + table + size * HASH_MAP_NODE;
+    }
+
+    /**
+     * Bytes of a TreeMap with the given number of entries, without keys and values.
+     *
+     * @param size number of entries
+     * @return size of map and entries
+     */
+    public static long treeMap(int size) {
+        return TREE_MAP_OBJECT + size * TREE_MAP_ENTRY;
+    }
+
+    /**
+     * Bytes of an ArrayList with the given number of elements, without the elements.
+     *
+     * @param size number of elements
+     * @return size of list and element array
+     */
+    public static long arrayList(int size) {
+        return ARRAY_LIST_OBJECT + array(size, REFERENCE);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
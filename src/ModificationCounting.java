@@ -0,0 +1,12 @@
+/**
+ * Book list counting every change made to it, including replaced elements,
+ * so a library can tell whether its book data changed without going through it.
+ */
+interface ModificationCounting {
+
+    /**
+     * Number of changes made to the list so far.
+     * @return count increased by every addition, removal and replacement of an element
+     */
+    int getModificationCount();
+}
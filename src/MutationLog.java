@@ -0,0 +1,134 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Ordered feed of the changes of a library, kept by a replication primary for
+ * its followers.
+ *
+ * Every mutation gets the next position of the feed. Only the most recent
+ * mutations are retained, so a follower which has fallen further behind
+ * starts again from a snapshot of the library.
+ */
+final class MutationLog {
+
+    /** Kinds of changes of the library. */
+    enum Kind { ADD, REMOVE }
+
+    /** A single change of the library. */
+    static final class Mutation {
+
+        private final long position;
+        private final Kind kind;
+        private final BookEntry entry;
+        /** Time the change has been made on the primary, in milliseconds since the epoch. */
+        private final long timestamp;
+
+        Mutation(long position, Kind kind, BookEntry entry, long timestamp) {
+            this.position = position;
+            this.kind = kind;
+            this.entry = entry;
+            this.timestamp = timestamp;
+        }
+
+        long getPosition() {
+            return position;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        BookEntry getEntry() {
+            return entry;
+        }
+
+        long getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    /** Maximum number of mutations retained. */
+    private final int capacity;
+    /** Retained mutations, oldest first. */
+    private final ArrayDeque<Mutation> mutations;
+    /** Position of the next mutation appended. */
+    private long head;
+
+    /**
+     * Create an empty feed.
+     *
+     * @param capacity maximum number of mutations retained
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    MutationLog(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+
+        this.capacity = capacity;
+        mutations = new ArrayDeque<>();
+        head = 0;
+    }
+
+    /**
+     * Append a change, dropping the oldest one if the feed is full, and wake up readers.
+     *
+     * @param kind kind of change
+     * @param entry book entry added or removed
+     */
+    synchronized void append(Kind kind, BookEntry entry) {
+        if (mutations.size() == capacity) {
+            mutations.removeFirst();
+        }
+        mutations.addLast(new Mutation(head++, kind, entry, System.currentTimeMillis()));
+        notifyAll();
+    }
+
+    /**
+     * Position of the next mutation appended.
+     * @return number of mutations appended so far
+     */
+    synchronized long getHead() {
+        return head;
+    }
+
+    /**
+     * Check if mutations from the given position on are still retained.
+     *
+     * @param position position of the first mutation needed
+     * @return true if reading from the position is possible
+     */
+    synchronized boolean retains(long position) {
+        return position <= head && position >= head - mutations.size();
+    }
+
+    /**
+     * Get the mutations from the given position on, waiting for new ones if
+     * there are none yet.
+     *
+     * @param position position of the first mutation needed
+     * @param timeoutMillis maximum time to wait for new mutations, 0 for not waiting
+     * @return mutations in position order, empty if none have been appended in time,
+     *         or null if the mutations at the position are no longer retained
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized List<Mutation> read(long position, long timeoutMillis) throws InterruptedException {
+        if (position == head && timeoutMillis > 0) {
+            wait(timeoutMillis);
+        }
+        if (!retains(position)) {
+            return null;
+        }
+
+        List<Mutation> read = new ArrayList<>();
+        Iterator<Mutation> it = mutations.descendingIterator();
+        for (long p = head; p > position; p--) {
+            read.add(it.next());
+        }
+        Collections.reverse(read);
+        return read;
+    }
+}
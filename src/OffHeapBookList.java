@@ -0,0 +1,397 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * List of book entries stored as encoded records in native memory outside the Java heap,
+ * so the garbage collector does not have to trace the book data.
+ *
+ * Records are appended to large direct byte buffers (arenas). The heap only holds one
+ * long handle per entry, locating its record, plus a dictionary of distinct author names
+ * which records refer to by id. Entries are decoded into new BookEntry instances whenever
+ * they are accessed, so callers should not rely on object identity.
+ *
+ * Every record starts with the handle of the previous record with the same ISBN key,
+ * which together with a primitive hash map from ISBN key to latest record gives fast
+ * duplicate checks via contains without any per-entry heap objects.
+ *
+ * Removed and replaced records are left in place until they make up more than half of
+ * the used native memory, at which point all live records are copied into new arenas.
+ *
+ * Record layout: previous handle (long), title length (int), title (UTF-8), folded title length
+ * (int, SAME_AS_TITLE if the title is already in lower case), folded title (UTF-8, if different),
+ * ISBN length (int), ISBN (UTF-8), rating (float), pages (int), number of authors (int), author ids
+ * (int each). Storing the folded title spares decoding from lower-casing the title again.
+ */
+class OffHeapBookList extends AbstractList<BookEntry> implements RandomAccess, ModificationCounting {
+
+    /** Size of a regular arena in bytes. */
+    private static final int ARENA_SIZE = 1 << 23;
+    /** Handle marking the end of a chain of records with the same ISBN key. */
+    private static final long NO_RECORD = LongLongHashMap.NO_VALUE;
+    /** Folded title length of a record whose title is already in lower case. */
+    private static final int SAME_AS_TITLE = -1;
+
+    /** Arenas holding the encoded records. */
+    private List<ByteBuffer> arenas;
+    /** Handles of all entries in list order (arena index in the upper and offset in the lower half). */
+    private long[] handles;
+    /** Number of entries in the list. */
+    private int size;
+    /** Latest record for every ISBN key. */
+    private LongLongHashMap isbnChains;
+    /** Bytes of records still in the list. */
+    private long liveBytes;
+    /** Bytes of records removed from the list. */
+    private long deadBytes;
+
+    /** Distinct author names by id. */
+    private List<String> authorNames;
+    /** Ids of distinct author names. */
+    private Map<String, Integer> authorIds;
+
+    /** Create an empty list. */
+    public OffHeapBookList() {
+        reset();
+    }
+
+    @Override
+    public BookEntry get(int index) {
+        checkIndex(index, size);
+        return decode(handles[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getModificationCount() {
+        return modCount;
+    }
+
+    @Override
+    public void add(int index, BookEntry entry) {
+        checkIndex(index, size + 1);
+
+        long handle = encode(entry);
+        if (size == handles.length) {
+            handles = Arrays.copyOf(handles, size * 2);
+        }
+        System.arraycopy(handles, index, handles, index + 1, size - index);
+        handles[index] = handle;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public BookEntry set(int index, BookEntry entry) {
+        checkIndex(index, size);
+
+        BookEntry previous = decode(handles[index]);
+        release(handles[index]);
+        handles[index] = encode(entry);
+        modCount++;
+        compactIfWasteful();
+        return previous;
+    }
+
+    @Override
+    public BookEntry remove(int index) {
+        checkIndex(index, size);
+
+        BookEntry removed = decode(handles[index]);
+        release(handles[index]);
+        System.arraycopy(handles, index + 1, handles, index, size - index - 1);
+        size--;
+        modCount++;
+        compactIfWasteful();
+        return removed;
+    }
+
+    /**
+     * Remove all entries matching the given filter, releasing their records
+     * and compacting the handles in a single pass rather than shifting them
+     * for every entry removed.
+     *
+     * @param filter condition for entries to be removed
+     * @return true if any entry has been removed
+     * @throws NullPointerException if the given filter is null
+     */
+    @Override
+    public boolean removeIf(Predicate<? super BookEntry> filter) {
+        Objects.requireNonNull(filter, "Given filter must not be null.");
+
+        int kept = 0;
+        int index = 0;
+        boolean removed;
+        try {
+            for (; index < size; index++) {
+                long handle = handles[index];
+                if (filter.test(decode(handle))) {
+                    release(handle);
+                } else {
+                    handles[kept++] = handle;
+                }
+            }
+        } finally {
+            // entries not tested yet because the filter failed are kept, those released are gone either way
+            System.arraycopy(handles, index, handles, kept, size - index);
+            kept += size - index;
+            removed = kept < size;
+            if (removed) {
+                size = kept;
+                modCount++;
+                compactIfWasteful();
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        reset();
+        modCount++;
+    }
+
+    /**
+     * Check if an entry equal to the given one is in the list, only decoding
+     * records with the same ISBN.
+     *
+     * @param o object to look for
+     * @return true if an equal entry is in the list
+     */
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof BookEntry)) {
+            return false;
+        }
+
+        BookEntry entry = (BookEntry) o;
+        long handle = isbnChains.get(IsbnIndex.isbnKey(entry.getISBN()));
+        for (; handle != NO_RECORD; handle = arena(handle).getLong(offset(handle))) {
+            if (decode(handle).equals(entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Number of bytes of native memory reserved for records.
+     *
+     * @return total capacity of all arenas
+     */
+    public long getReservedBytes() {
+        long reserved = 0;
+        for (ByteBuffer arena : arenas) {
+            reserved += arena.capacity();
+        }
+        return reserved;
+    }
+
+    /**
+     * Number of bytes of native memory used by records still in the list.
+     *
+     * @return bytes of live records
+     */
+    public long getLiveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Estimate the heap memory retained by the list, which holds the record
+     * handles, the ISBN chains and the distinct author names.
+     *
+     * @return estimated number of bytes, not counting the native memory of the arenas
+     */
+    public long estimateHeapBytes() {
+        final long directBufferObject = MemoryLayout.object(4 * MemoryLayout.REFERENCE + 6 * 4 + 2 * 8);
+        long bytes = MemoryLayout.object(5 * MemoryLayout.REFERENCE + 4 + 2 * 8)
+                + MemoryLayout.arrayList(arenas.size()) + arenas.size() * directBufferObject
+                + MemoryLayout.array(handles.length, Long.BYTES) + isbnChains.estimateBytes()
+                + MemoryLayout.arrayList(authorNames.size()) + MemoryLayout.hashMap(authorIds.size());
+        for (int id = 0; id < authorNames.size(); id++) {
+            bytes += MemoryLayout.string(authorNames.get(id)) + (id > Byte.MAX_VALUE ? MemoryLayout.BOXED_INT : 0);
+        }
+        return bytes;
+    }
+
+    private void reset() {
+        arenas = new ArrayList<>();
+        handles = new long[16];
+        size = 0;
+        isbnChains = new LongLongHashMap();
+        liveBytes = 0;
+        deadBytes = 0;
+        authorNames = new ArrayList<>();
+        authorIds = new HashMap<>();
+    }
+
+    /** Write the given entry as a new record and link it into its ISBN chain. */
+    private long encode(BookEntry entry) {
+        byte[] title = entry.getTitle().getBytes(StandardCharsets.UTF_8);
+        byte[] foldedTitle = entry.getFoldedTitle().equals(entry.getTitle())
+                ? null : entry.getFoldedTitle().getBytes(StandardCharsets.UTF_8);
+        byte[] isbn = entry.getISBN().getBytes(StandardCharsets.UTF_8);
+        String[] authors = entry.getAuthors();
+        int length = Long.BYTES + Integer.BYTES + title.length
+                + Integer.BYTES + (foldedTitle == null ? 0 : foldedTitle.length) + Integer.BYTES + isbn.length
+                + Float.BYTES + Integer.BYTES + Integer.BYTES + Integer.BYTES * authors.length;
+
+        long key = IsbnIndex.isbnKey(entry.getISBN());
+        long handle = allocate(length);
+        ByteBuffer record = arena(handle).duplicate();
+        record.position(offset(handle));
+
+        record.putLong(isbnChains.get(key));
+        record.putInt(title.length).put(title);
+        if (foldedTitle == null) {
+            record.putInt(SAME_AS_TITLE);
+        } else {
+            record.putInt(foldedTitle.length).put(foldedTitle);
+        }
+        record.putInt(isbn.length).put(isbn);
+        record.putFloat(entry.getRating());
+        record.putInt(entry.getPages());
+        record.putInt(authors.length);
+        for (String author : authors) {
+            record.putInt(authorIds.computeIfAbsent(author, a -> {
+                authorNames.add(a);
+                return authorNames.size() - 1;
+            }));
+        }
+
+        isbnChains.put(key, handle);
+        liveBytes += length;
+        return handle;
+    }
+
+    /** Create a book entry from the record with the given handle. */
+    private BookEntry decode(long handle) {
+        return decode(arena(handle), offset(handle), authorNames);
+    }
+
+    /** Create a book entry from the record at the given offset of an arena, with authors by the given ids. */
+    private static BookEntry decode(ByteBuffer arena, int offset, List<String> authorNames) {
+        ByteBuffer record = arena.duplicate();
+        record.position(offset + Long.BYTES);
+
+        String title = readString(record);
+        int foldedTitleLength = record.getInt();
+        String foldedTitle = foldedTitleLength == SAME_AS_TITLE ? title : readString(record, foldedTitleLength);
+        String isbn = readString(record);
+        float rating = record.getFloat();
+        int pages = record.getInt();
+        String[] authors = new String[record.getInt()];
+        for (int i = 0; i < authors.length; i++) {
+            authors[i] = authorNames.get(record.getInt());
+        }
+
+        return new BookEntry(title, authors, rating, isbn, pages, foldedTitle);
+    }
+
+    /** Unlink a record from its ISBN chain and account for it as dead. */
+    private void release(long handle) {
+        ByteBuffer record = arena(handle).duplicate();
+        record.position(offset(handle) + Long.BYTES);
+        int titleLength = record.getInt();
+        record.position(record.position() + titleLength);
+        int foldedTitleLength = record.getInt();
+        if (foldedTitleLength != SAME_AS_TITLE) {
+            record.position(record.position() + foldedTitleLength);
+        }
+        byte[] isbn = new byte[record.getInt()];
+        record.get(isbn);
+        record.position(record.position() + Float.BYTES + Integer.BYTES);
+        int authorCount = record.getInt();
+        int length = record.position() + Integer.BYTES * authorCount - offset(handle);
+
+        long key = IsbnIndex.isbnKey(new String(isbn, StandardCharsets.UTF_8));
+        long previous = arena(handle).getLong(offset(handle));
+        long current = isbnChains.get(key);
+        if (current == handle) {
+            if (previous == NO_RECORD) {
+                isbnChains.remove(key);
+            } else {
+                isbnChains.put(key, previous);
+            }
+        } else {
+            while (current != NO_RECORD) {
+                long next = arena(current).getLong(offset(current));
+                if (next == handle) {
+                    arena(current).putLong(offset(current), previous);
+                    break;
+                }
+                current = next;
+            }
+        }
+
+        liveBytes -= length;
+        deadBytes += length;
+    }
+
+    /** Copy all live records and their authors into new arenas once most of the used memory is dead. */
+    private void compactIfWasteful() {
+        if (deadBytes <= liveBytes || deadBytes < ARENA_SIZE) {
+            return;
+        }
+
+        List<ByteBuffer> oldArenas = arenas;
+        long[] oldHandles = Arrays.copyOf(handles, size);
+        List<String> oldAuthorNames = authorNames;
+        reset();
+
+        handles = new long[Math.max(16, oldHandles.length)];
+        for (long handle : oldHandles) {
+            BookEntry entry = decode(oldArenas.get((int) (handle >>> 32)), offset(handle), oldAuthorNames);
+            handles[size++] = encode(entry);
+        }
+    }
+
+    /** Reserve space for a record of the given length and return its handle. */
+    private long allocate(int length) {
+        ByteBuffer current = arenas.isEmpty() ? null : arenas.get(arenas.size() - 1);
+        if (current == null || current.remaining() < length) {
+            current = ByteBuffer.allocateDirect(Math.max(ARENA_SIZE, length));
+            arenas.add(current);
+        }
+
+        int offset = current.position();
+        current.position(offset + length);
+        return ((long) (arenas.size() - 1) << 32) | offset;
+    }
+
+    private ByteBuffer arena(long handle) {
+        return arenas.get((int) (handle >>> 32));
+    }
+
+    private static int offset(long handle) {
+        return (int) handle;
+    }
+
+    private static String readString(ByteBuffer record) {
+        return readString(record, record.getInt());
+    }
+
+    private static String readString(ByteBuffer record, int length) {
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + bound);
+        }
+    }
+}
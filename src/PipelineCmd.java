@@ -0,0 +1,375 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Pipeline command used to chain a search or list of the library with filters,
+ * limits and grouping, such as 'SEARCH war | FILTER rating>=4 | GROUP AUTHOR | LIMIT 20'.
+ *
+ * All stages before grouping are fused into a single lazy stream, so book entries
+ * are passed through the pipeline one at a time and no intermediate lists are
+ * built. A LIMIT stops the search as soon as enough books have passed.
+ *
+ * The books are found as planned by the query planner, which may use the
+ * filters before the first LIMIT to look at fewer books. The plan, with
+ * estimated and actual numbers of books per stage, can be shown with EXPLAIN.
+ */
+public class PipelineCmd extends LibraryCommand {
+
+    /** Delimiter between the stages of a pipeline. */
+    public static final String STAGE_DELIMITER = "|";
+    /** Delimiter between stage keyword and corresponding argument. */
+    private static final String STAGE_ARGUMENT_DELIMITER = " ";
+    /** Keyword of stages passing only books satisfying a condition. */
+    private static final String FILTER_STAGE = "FILTER";
+    /** Keyword of stages passing only a maximum number of books, or of groups after grouping. */
+    private static final String LIMIT_STAGE = "LIMIT";
+    /** Argument of the grouping by author. */
+    private static final String AUTHOR_GROUPING = "AUTHOR";
+    /** Maximum number of groups when grouping by title (letters and digits). */
+    private static final int MAX_TITLE_GROUPS = 27;
+
+    /** Search providing the books of the pipeline (null to start with all books). */
+    private SearchCmd source;
+    /** Filter and limit stages applied to the books in the given order. */
+    private List<Stage> stages;
+    /** Final grouping of the books (null to print their titles). */
+    private GroupCmd grouping;
+    /** Argument of the final grouping. */
+    private String groupArgument;
+    /** Maximum number of groups to be printed. */
+    private long maxGroups;
+    /** All stages of the pipeline, normalised to single delimiters. */
+    private String normalisedPipeline;
+
+    /**
+     * Create a pipeline command.
+     *
+     * @param argumentInput argument input is expected to be either a SEARCH command
+     *                      or LIST, followed by stages separated by '|'. Stages are
+     *                      'FILTER condition' with a condition like 'rating>=4',
+     *                      'LIMIT n' and finally 'GROUP TITLE|AUTHOR', after which
+     *                      only a LIMIT of the groups may follow.
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public PipelineCmd(String argumentInput) {
+        super(CommandType.PIPELINE, argumentInput);
+    }
+
+    /**
+     * Execute the pipeline command. This prints the titles of all books passing
+     * the pipeline in the order they were found, or the groups of their titles
+     * if the pipeline ends with a grouping.
+     *
+     * @param data book data to be considered for command execution.
+     * @throws NullPointerException if the given data is null
+     */
+    @Override
+    public void execute(LibraryData data) {
+        Objects.requireNonNull(data, "Given data must not be null.");
+
+        Stream<BookEntry> books = plan(data).rows();
+        for (Stage stage : stages) {
+            books = stage.apply(books);
+        }
+
+        boolean found;
+        if (grouping == null) {
+            found = printTitles(books);
+        } else {
+            found = printGroups(books);
+        }
+
+        if (!found) {
+            System.out.println("No books passed the pipeline: " + normalisedPipeline);
+        }
+    }
+
+    /**
+     * The output only depends on the stages and the book data, so it may be cached.
+     *
+     * @return command type and normalised stages
+     */
+    @Override
+    public String cacheKey() {
+        return getType() + " " + normalisedPipeline;
+    }
+
+    /**
+     * Execute the pipeline without printing its result, and print its plan
+     * instead. For every stage, the estimated number of books passing it is
+     * printed next to the actual number.
+     *
+     * @param data book data to be considered for command execution.
+     * @throws NullPointerException if the given data is null
+     */
+    protected void explain(LibraryData data) {
+        Objects.requireNonNull(data, "Given data must not be null.");
+
+        QueryPlan plan = plan(data);
+        long[] actualRows = new long[stages.size() + 1];
+        Stream<BookEntry> books = plan.rows().peek(book -> actualRows[0]++);
+        for (int i = 0; i < stages.size(); i++) {
+            int stageIdx = i + 1;
+            books = stages.get(i).apply(books).peek(book -> actualRows[stageIdx]++);
+        }
+
+        long actualGroups = 0;
+        if (grouping == null) {
+            books.forEach(book -> { });
+        } else {
+            actualGroups = Math.min(maxGroups, grouping.groupEntries(books::iterator).size());
+        }
+
+        QueryPlanner planner = new QueryPlanner(data);
+        System.out.println("Plan for: " + normalisedPipeline);
+        double estimatedRows = plan.getEstimatedRows();
+        printPlanStep("ACCESS " + plan, estimatedRows, actualRows[0]);
+        for (String alternative : plan.getAlternatives()) {
+            System.out.println("  not chosen: " + alternative);
+        }
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            if (stage.filter == null || !plan.hasApplied(stage.filter)) {
+                estimatedRows = stage.estimateRows(estimatedRows, planner);
+            }
+            printPlanStep(stage.toString(), estimatedRows, actualRows[i + 1]);
+        }
+
+        if (grouping != null) {
+            double estimatedGroups = groupArgument.equals(AUTHOR_GROUPING)
+                    ? planner.estimateDistinctAuthors(estimatedRows)
+                    : Math.min(estimatedRows, MAX_TITLE_GROUPS);
+            String step = CommandType.GROUP + " " + groupArgument;
+            if (maxGroups != Long.MAX_VALUE) {
+                estimatedGroups = Math.min(estimatedGroups, maxGroups);
+                step += " " + STAGE_DELIMITER + " " + LIMIT_STAGE + " " + maxGroups;
+            }
+            System.out.println(step + ": estimated groups " + Math.round(estimatedGroups)
+                    + ", actual groups " + actualGroups);
+        }
+    }
+
+    /**
+     * Plan finding the books of the first stage, narrowed down by the filters
+     * before the first LIMIT if the planner finds that cheaper.
+     *
+     * @param data book data to be queried
+     * @return plan finding the books of the first stage
+     */
+    private QueryPlan plan(LibraryData data) {
+        List<BookFilter> leadingFilters = new ArrayList<>();
+        for (Stage stage : stages) {
+            if (stage.filter == null) {
+                break;
+            }
+            leadingFilters.add(stage.filter);
+        }
+
+        if (source == null) {
+            return new QueryPlanner(data).planTitleSearch(null, leadingFilters);
+        }
+        return source.plan(data, leadingFilters);
+    }
+
+    private static void printPlanStep(String step, double estimatedRows, long actualRows) {
+        System.out.println(step + ": estimated rows " + Math.round(estimatedRows) + ", actual rows " + actualRows);
+    }
+
+    /**
+     * Parses the stages of the pipeline and remembers them for execution.
+     *
+     * @param argumentInput argument input for pipeline command
+     * @return true if the first stage is a valid SEARCH command or LIST and
+     * all further stages are valid and in a valid order.
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+
+        source = null;
+        stages = new ArrayList<>();
+        grouping = null;
+        groupArgument = null;
+        maxGroups = Long.MAX_VALUE;
+
+        String[] stageInputs = argumentInput.split(Pattern.quote(STAGE_DELIMITER), -1);
+        List<String> normalisedStages = new ArrayList<>();
+        for (int i = 0; i < stageInputs.length; i++) {
+            String stageInput = stageInputs[i].trim();
+            int spaceIdx = stageInput.indexOf(STAGE_ARGUMENT_DELIMITER);
+            String keyword = spaceIdx == -1 ? stageInput : stageInput.substring(0, spaceIdx);
+            String argument = spaceIdx == -1 ? "" : stageInput.substring(spaceIdx + 1).trim();
+
+            boolean valid;
+            if (i == 0) {
+                valid = parseSource(keyword, argument);
+            } else if (grouping != null) {
+                valid = keyword.equals(LIMIT_STAGE) && maxGroups == Long.MAX_VALUE && parseGroupLimit(argument);
+            } else {
+                valid = parseStage(keyword, argument);
+            }
+
+            if (!valid) {
+                return false;
+            }
+            normalisedStages.add(stageInput);
+        }
+
+        normalisedPipeline = String.join(" " + STAGE_DELIMITER + " ", normalisedStages);
+        return true;
+    }
+
+    /**
+     * Parse the first stage of the pipeline, which provides the books.
+     *
+     * @param keyword SEARCH or LIST
+     * @param argument search query or blank
+     * @return true if the stage is valid
+     */
+    private boolean parseSource(String keyword, String argument) {
+        if (keyword.equals(CommandType.LIST.name())) {
+            return argument.isEmpty();
+        }
+        if (!keyword.equals(CommandType.SEARCH.name())) {
+            return false;
+        }
+
+        try {
+            source = new SearchCmd(argument);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parse a stage between the first stage and the grouping.
+     *
+     * @param keyword FILTER, LIMIT or GROUP
+     * @param argument argument of the stage
+     * @return true if the stage is valid
+     */
+    private boolean parseStage(String keyword, String argument) {
+        if (keyword.equals(FILTER_STAGE)) {
+            BookFilter filter = BookFilter.parse(argument);
+            if (filter == null) {
+                return false;
+            }
+            stages.add(new Stage(filter, Long.MAX_VALUE));
+            return true;
+        }
+        if (keyword.equals(LIMIT_STAGE)) {
+            long limit = parseLimit(argument);
+            if (limit < 0) {
+                return false;
+            }
+            stages.add(new Stage(null, limit));
+            return true;
+        }
+        if (!keyword.equals(CommandType.GROUP.name())) {
+            return false;
+        }
+
+        try {
+            grouping = new GroupCmd(argument);
+            groupArgument = argument;
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parse the limit of the number of groups after the grouping.
+     *
+     * @param argument maximum number of groups
+     * @return true if the limit is valid
+     */
+    private boolean parseGroupLimit(String argument) {
+        maxGroups = parseLimit(argument);
+        return maxGroups >= 0;
+    }
+
+    /**
+     * Parse a non-negative limit.
+     *
+     * @param argument limit
+     * @return the limit or -1 if it is invalid
+     */
+    private static long parseLimit(String argument) {
+        try {
+            return Math.max(-1, Long.parseLong(argument));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Print the titles of the given books.
+     *
+     * @param books books passing the pipeline
+     * @return true if any book has been printed
+     */
+    private boolean printTitles(Stream<BookEntry> books) {
+        boolean found = false;
+        for (BookEntry book : (Iterable<BookEntry>) books::iterator) {
+            System.out.println(book.getTitle());
+            found = true;
+        }
+        return found;
+    }
+
+    /**
+     * Group the given books and print at most the maximum number of groups.
+     *
+     * @param books books passing the pipeline
+     * @return true if any book has been grouped
+     */
+    private boolean printGroups(Stream<BookEntry> books) {
+        TreeMap<String, ArrayList<String>> groups = grouping.groupEntries(books::iterator);
+        if (groups.isEmpty()) {
+            return false;
+        }
+
+        while (groups.size() > maxGroups) {
+            groups.pollLastEntry();
+        }
+
+        System.out.println("Grouped data by " + groupArgument);
+        grouping.printGroup(groups);
+        return true;
+    }
+
+    /** Filter or limit stage between the first stage and the grouping. */
+    private static final class Stage {
+
+        /** Condition of a filter stage (null for limit stages). */
+        private final BookFilter filter;
+        /** Maximum number of books passing a limit stage. */
+        private final long limit;
+
+        private Stage(BookFilter filter, long limit) {
+            this.filter = filter;
+            this.limit = limit;
+        }
+
+        private Stream<BookEntry> apply(Stream<BookEntry> books) {
+            return filter == null ? books.limit(limit) : books.filter(filter);
+        }
+
+        private double estimateRows(double inputRows, QueryPlanner planner) {
+            return filter == null ? Math.min(inputRows, limit) : inputRows * planner.estimateSelectivity(filter);
+        }
+
+        @Override
+        public String toString() {
+            return filter == null ? LIMIT_STAGE + " " + limit : FILTER_STAGE + " " + filter;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Case insensitive prefix trie over all book titles and author names of the library.
+ * Used to answer autocompletion requests without scanning the book data.
+ *
+ * Children of a node are kept in sorted parallel arrays rather than maps to keep
+ * the trie compact, and a depth first walk in child order yields completions in
+ * lexicographic order, so a lookup only visits as many nodes as it returns.
+ */
+class PrefixTrie implements LibraryIndex {
+
+    /** Root node representing the empty prefix. */
+    private final Node root;
+
+    /** Create an empty trie. */
+    public PrefixTrie() {
+        root = new Node();
+    }
+
+    @Override
+    public void add(BookEntry entry) {
+        insert(entry.getTitle());
+        for (String author : entry.getAuthors()) {
+            insert(author);
+        }
+    }
+
+    @Override
+    public void remove(BookEntry entry) {
+        delete(entry.getTitle());
+        for (String author : entry.getAuthors()) {
+            delete(author);
+        }
+    }
+
+    @Override
+    public long estimateBytes() {
+        long bytes = MemoryLayout.object(MemoryLayout.REFERENCE);
+        ArrayDeque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            bytes += node.estimateBytes();
+            for (int i = 0; i < node.childCount; i++) {
+                pending.push(node.children[i]);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Find titles and author names starting with the given prefix, ignoring case.
+     *
+     * @param prefix prefix to complete
+     * @param limit maximum number of completions to return
+     * @return up to limit completions in lexicographic order of their lower case form
+     * @throws NullPointerException if the given prefix is null
+     */
+    public List<String> complete(String prefix, int limit) {
+        String key = prefix.toLowerCase();
+        List<String> completions = new ArrayList<>();
+
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node != null) {
+            collect(node, completions, limit);
+        }
+
+        return completions;
+    }
+
+    /**
+     * Combine the tries of disjoint parts of the library, such as its shards,
+     * into a trie completing over all of them. The combined trie reflects later
+     * changes of the parts, but cannot be changed itself.
+     *
+     * @param parts tries of the parts
+     * @return trie over all parts
+     */
+    static PrefixTrie union(List<PrefixTrie> parts) {
+        return new Union(parts);
+    }
+
+    /**
+     * Add a single title or author name to the trie.
+     *
+     * @param value string to be added
+     */
+    private void insert(String value) {
+        String key = value.toLowerCase();
+
+        Node node = root;
+        node.weight++;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+            node.weight++;
+        }
+
+        if (node.values == null) {
+            node.values = new TreeMap<>();
+        }
+        node.values.merge(value, 1, Integer::sum);
+    }
+
+    /**
+     * Remove a single occurrence of a title or author name from the trie,
+     * pruning nodes no longer leading to any value.
+     *
+     * @param value string to be removed
+     */
+    private void delete(String value) {
+        String key = value.toLowerCase();
+
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null || node.values == null || !node.values.containsKey(value)) {
+            return;
+        }
+
+        if (node.values.merge(value, -1, Integer::sum) == 0) {
+            node.values.remove(value);
+        }
+
+        node = root;
+        node.weight--;
+        for (int i = 0; i < key.length(); i++) {
+            Node next = node.child(key.charAt(i));
+            if (--next.weight == 0) {
+                node.removeChild(key.charAt(i));
+                return;
+            }
+            node = next;
+        }
+    }
+
+    /**
+     * Walk the subtree of the given node in lexicographic order
+     * and collect its values until the limit is reached.
+     *
+     * @param node subtree root
+     * @param completions list to add found values to
+     * @param limit maximum size of the completions list
+     */
+    private void collect(Node node, List<String> completions, int limit) {
+        if (node.values != null) {
+            for (Map.Entry<String, Integer> value : node.values.entrySet()) {
+                if (completions.size() >= limit) {
+                    return;
+                }
+                completions.add(value.getKey());
+            }
+        }
+
+        for (int i = 0; i < node.childCount && completions.size() < limit; i++) {
+            collect(node.children[i], completions, limit);
+        }
+    }
+
+    /** Trie answering completions from the tries of several parts of the library. */
+    private static final class Union extends PrefixTrie {
+
+        /** Order of completions, as a walk of a single trie yields them. */
+        private static final Comparator<String> COMPLETION_ORDER = Comparator.comparing((String value) -> value.toLowerCase())
+                .thenComparing(Comparator.naturalOrder());
+
+        private final List<PrefixTrie> parts;
+
+        private Union(List<PrefixTrie> parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        public void add(BookEntry entry) {
+            throw new UnsupportedOperationException("Combined trie cannot be changed, its parts can.");
+        }
+
+        @Override
+        public void remove(BookEntry entry) {
+            throw new UnsupportedOperationException("Combined trie cannot be changed, its parts can.");
+        }
+
+        @Override
+        public long estimateBytes() {
+            long bytes = 0;
+            for (PrefixTrie part : parts) {
+                bytes += part.estimateBytes();
+            }
+            return bytes;
+        }
+
+        @Override
+        public List<String> complete(String prefix, int limit) {
+            // each part returns its first completions, so the first of all of them are among those
+            TreeSet<String> completions = new TreeSet<>(COMPLETION_ORDER);
+            for (PrefixTrie part : parts) {
+                completions.addAll(part.complete(prefix, limit));
+            }
+
+            List<String> first = new ArrayList<>();
+            for (String completion : completions) {
+                if (first.size() >= limit) {
+                    break;
+                }
+                first.add(completion);
+            }
+            return first;
+        }
+    }
+
+    /** Single trie node with its children sorted by character. */
+    private static final class Node {
+
+        /** Sorted characters leading to the children of this node. */
+        private char[] keys = new char[0];
+        /** Child nodes in the same order as keys. */
+        private Node[] children = new Node[0];
+        /** Number of used slots in keys and children. */
+        private int childCount;
+        /** Number of values stored in the subtree of this node. */
+        private int weight;
+        /** Original spellings ending at this node and how often each occurs (null if none). */
+        private TreeMap<String, Integer> values;
+
+        /** Estimated bytes of this node without its children and the original spellings. */
+        private long estimateBytes() {
+            long bytes = MemoryLayout.object(3 * MemoryLayout.REFERENCE + 2 * 4)
+                    + MemoryLayout.array(keys.length, Character.BYTES)
+                    + MemoryLayout.array(children.length, MemoryLayout.REFERENCE);
+            if (values != null) {
+                bytes += MemoryLayout.treeMap(values.size());
+                for (int count : values.values()) {
+                    bytes += count > Byte.MAX_VALUE ? MemoryLayout.BOXED_INT : 0; // smaller ones are cached
+                }
+            }
+            return bytes;
+        }
+
+        private Node child(char c) {
+            int idx = Arrays.binarySearch(keys, 0, childCount, c);
+            return idx >= 0 ? children[idx] : null;
+        }
+
+        private Node childOrCreate(char c) {
+            int idx = Arrays.binarySearch(keys, 0, childCount, c);
+            if (idx >= 0) {
+                return children[idx];
+            }
+
+            int insertAt = -idx - 1;
+            if (childCount == keys.length) {
+                int capacity = Math.max(2, childCount * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, insertAt, keys, insertAt + 1, childCount - insertAt);
+            System.arraycopy(children, insertAt, children, insertAt + 1, childCount - insertAt);
+
+            Node child = new Node();
+            keys[insertAt] = c;
+            children[insertAt] = child;
+            childCount++;
+            return child;
+        }
+
+        private void removeChild(char c) {
+            int idx = Arrays.binarySearch(keys, 0, childCount, c);
+            if (idx >= 0) {
+                System.arraycopy(keys, idx + 1, keys, idx, childCount - idx - 1);
+                System.arraycopy(children, idx + 1, children, idx, childCount - idx - 1);
+                childCount--;
+                children[childCount] = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Access path chosen by the query planner for finding the books of a query,
+ * together with its estimated cost and the alternatives it was preferred to.
+ */
+final class QueryPlan {
+
+    /** Ways of finding the books of a query. */
+    enum AccessPath {
+        /** Check every book of the library. */
+        FULL_SCAN,
+        /** Look up the books with a given ISBN in the ISBN index. */
+        ISBN_INDEX,
+        /** Look up the words containing a title fragment in the vocabulary of the search index. */
+        TITLE_VOCABULARY,
+        /** Rank books by relevance with the search index. */
+        RANKED_INDEX
+    }
+
+    private final AccessPath accessPath;
+    private final String condition;
+    private final double cost;
+    private final DoubleSupplier estimatedRows;
+    private final Supplier<Stream<BookEntry>> rows;
+    private final List<String> alternatives;
+    private final List<BookFilter> appliedFilters;
+
+    /**
+     * Create a plan.
+     *
+     * @param accessPath way of finding the books
+     * @param condition condition the books found satisfy
+     * @param cost estimated number of books and index entries looked at
+     * @param estimatedRows estimates the number of books found, only called when needed
+     * @param rows finds the books
+     * @param alternatives descriptions of the access paths not chosen
+     * @param appliedFilters filters all books found satisfy
+     */
+    QueryPlan(AccessPath accessPath, String condition, double cost, DoubleSupplier estimatedRows,
+            Supplier<Stream<BookEntry>> rows, List<String> alternatives, List<BookFilter> appliedFilters) {
+        this.accessPath = accessPath;
+        this.condition = condition;
+        this.cost = cost;
+        this.estimatedRows = estimatedRows;
+        this.rows = rows;
+        this.alternatives = alternatives;
+        this.appliedFilters = appliedFilters;
+    }
+
+    /**
+     * Way of finding the books.
+     * @return chosen access path
+     */
+    public AccessPath getAccessPath() {
+        return accessPath;
+    }
+
+    /**
+     * Estimated number of books and index entries looked at.
+     * @return estimated cost of the plan
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * Estimated number of books found.
+     * @return estimated number of books satisfying the condition
+     */
+    public double getEstimatedRows() {
+        return estimatedRows.getAsDouble();
+    }
+
+    /**
+     * Descriptions of the access paths not chosen, with their cost or the reason they were not possible.
+     * @return descriptions of the alternatives
+     */
+    public List<String> getAlternatives() {
+        return alternatives;
+    }
+
+    /**
+     * Check if all books found satisfy the given filter already, so applying it does not drop any.
+     * @param filter filter of the query
+     * @return true if the filter has been applied by the access path
+     */
+    public boolean hasApplied(BookFilter filter) {
+        return appliedFilters.contains(filter);
+    }
+
+    /**
+     * Lazily find the books satisfying the condition, in library order or,
+     * for ranked searches, most relevant first.
+     * @return stream of the books found
+     */
+    public Stream<BookEntry> rows() {
+        return rows.get();
+    }
+
+    /**
+     * Short description of the plan.
+     * @return access path, condition and cost
+     */
+    @Override
+    public String toString() {
+        return accessPath + " " + condition + " (cost " + Math.round(cost) + ")";
+    }
+}
@@ -0,0 +1,200 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Chooses the cheapest way of finding the books of a query and estimates
+ * how many books conditions select, based on the library statistics.
+ *
+ * Costs are measured in books and index entries looked at. Indexes are only
+ * considered if they have been built already, so planning never triggers a
+ * pass over the whole library which the query itself could have avoided.
+ * Statistics are only consulted once an index is available or an estimate
+ * is actually requested.
+ */
+final class QueryPlanner {
+
+    /** Fraction of books assumed to satisfy a range condition without statistics. */
+    private static final double DEFAULT_RANGE_SELECTIVITY = 1.0 / 3;
+    /** Fraction of books assumed to satisfy an equality condition without statistics. */
+    private static final double DEFAULT_EQUALITY_SELECTIVITY = 1.0 / 10;
+
+    private final LibraryData data;
+
+    /**
+     * Create a planner for queries on the given library.
+     *
+     * @param data library to be queried
+     * @throws NullPointerException if the given library is null
+     */
+    public QueryPlanner(LibraryData data) {
+        this.data = Objects.requireNonNull(data, "Given data must not be null.");
+    }
+
+    /**
+     * Plan finding all books whose title contains the given word. Filters
+     * which are applied to the books found anyway may be used to narrow down
+     * the books looked at, but are not guaranteed to be applied by the plan.
+     *
+     * @param foldedWord lower case word the titles have to contain, or null for all books
+     * @param filters conditions the books found will be filtered by afterwards
+     * @return cheapest plan, finding books in library order
+     * @throws NullPointerException if the given filters are null
+     */
+    public QueryPlan planTitleSearch(String foldedWord, List<BookFilter> filters) {
+        Objects.requireNonNull(filters, "Given filters must not be null.");
+
+        Predicate<BookEntry> titleMatches = foldedWord == null
+                ? book -> true
+                : book -> book.getFoldedTitle().contains(foldedWord);
+        String condition = foldedWord == null ? "all books" : "title contains '" + foldedWord + "'";
+        int bookCount = data.getBookData().size();
+
+        List<QueryPlan> candidates = new ArrayList<>();
+        List<String> impossible = new ArrayList<>();
+        candidates.add(new QueryPlan(QueryPlan.AccessPath.FULL_SCAN, condition, bookCount,
+                () -> estimateTitleRows(foldedWord), () -> scan(titleMatches),
+                new ArrayList<>(), List.of()));
+
+        BookFilter isbnFilter = null;
+        for (BookFilter filter : filters) {
+            if (filter.getField() == BookFilter.Field.ISBN) {
+                isbnFilter = filter;
+                break;
+            }
+        }
+        if (isbnFilter == null) {
+            impossible.add(QueryPlan.AccessPath.ISBN_INDEX + " not applicable without isbn filter");
+        } else if (!data.isIndexBuilt(IsbnIndex.class)) {
+            impossible.add(QueryPlan.AccessPath.ISBN_INDEX + " not built");
+        } else {
+            String isbn = isbnFilter.getValue();
+            List<BookEntry> found = data.getIsbnIndex().lookup(isbn);
+            candidates.add(new QueryPlan(QueryPlan.AccessPath.ISBN_INDEX, condition + " and " + isbnFilter,
+                    1 + found.size(), () -> Math.min(found.size(), estimateTitleRows(foldedWord)),
+                    () -> found.stream().filter(titleMatches), new ArrayList<>(), List.of(isbnFilter)));
+        }
+
+        if (foldedWord == null || !InvertedIndex.tokenize(foldedWord).equals(List.of(foldedWord))) {
+            impossible.add(QueryPlan.AccessPath.TITLE_VOCABULARY + " not applicable to " + condition);
+        } else if (!data.isIndexBuilt(InvertedIndex.class)) {
+            impossible.add(QueryPlan.AccessPath.TITLE_VOCABULARY + " not built");
+        } else {
+            InvertedIndex index = data.getSearchIndex();
+            double rows = estimateTitleRows(foldedWord);
+            // authors containing the word are found as well and only dropped when checking the titles
+            candidates.add(new QueryPlan(QueryPlan.AccessPath.TITLE_VOCABULARY, condition,
+                    index.getVocabularySize() + 2 * rows, () -> rows,
+                    () -> index.findWordsContaining(foldedWord).stream().filter(titleMatches), new ArrayList<>(),
+                    List.of()));
+        }
+
+        QueryPlan cheapest = candidates.get(0);
+        for (QueryPlan candidate : candidates) {
+            if (candidate.getCost() < cheapest.getCost()) {
+                cheapest = candidate;
+            }
+        }
+        for (QueryPlan candidate : candidates) {
+            if (candidate != cheapest) {
+                cheapest.getAlternatives().add(candidate.toString());
+            }
+        }
+        cheapest.getAlternatives().addAll(impossible);
+
+        return cheapest;
+    }
+
+    /**
+     * Plan ranking books by relevance for the given words.
+     *
+     * @param terms lower case words to search for
+     * @param matchAll true if books must contain all the words
+     * @param limit maximum number of books to find
+     * @return plan using the search index, finding the most relevant books first
+     * @throws NullPointerException if the given terms are null
+     */
+    public QueryPlan planRankedSearch(List<String> terms, boolean matchAll, int limit) {
+        Objects.requireNonNull(terms, "Given terms must not be null.");
+
+        String condition = "title or authors match " + String.join(matchAll ? " AND " : " OR ", terms);
+        double cost = data.isIndexBuilt(InvertedIndex.class) ? terms.size() : data.getBookData().size();
+        return new QueryPlan(QueryPlan.AccessPath.RANKED_INDEX, condition, cost,
+                () -> Math.min(limit, data.getBookData().size()),
+                () -> data.getSearchIndex().search(terms, matchAll, limit).stream(), new ArrayList<>(), List.of());
+    }
+
+    /**
+     * Estimate the fraction of books satisfying the given filter.
+     *
+     * @param filter condition on a field of the books
+     * @return estimated fraction of books satisfying the condition, between 0 and 1
+     * @throws NullPointerException if the given filter is null
+     */
+    public double estimateSelectivity(BookFilter filter) {
+        Objects.requireNonNull(filter, "Given filter must not be null.");
+
+        LibraryStatistics statistics = data.getStatistics();
+        int bookCount = Math.max(1, statistics.getBookCount());
+        boolean equality = filter.getOperator().equals("=");
+        boolean inequality = filter.getOperator().equals("!=");
+
+        switch (filter.getField()) {
+            case RATING:
+                double rating = Float.parseFloat(filter.getValue());
+                double below = statistics.estimateRatingBelow(rating);
+                double equal = statistics.estimateRatingEqual(rating);
+                switch (filter.getOperator()) {
+                    case "<": return below;
+                    case "<=": return Math.min(1, below + equal);
+                    case ">": return Math.max(0, 1 - below - equal);
+                    case ">=": return 1 - below;
+                    case "=": return equal;
+                    default: return 1 - equal;
+                }
+            case PAGES:
+                if (equality || inequality) {
+                    return equality ? DEFAULT_EQUALITY_SELECTIVITY : 1 - DEFAULT_EQUALITY_SELECTIVITY;
+                }
+                return DEFAULT_RANGE_SELECTIVITY;
+            case AUTHOR:
+                return Math.min(1, (double) statistics.getAuthorCount(filter.getValue()) / bookCount);
+            case ISBN:
+                return 1.0 / bookCount;
+            default:
+                throw new UnsupportedOperationException("Filter field " + filter.getField() + " is not yet implemented");
+        }
+    }
+
+    /**
+     * Estimate the number of distinct authors among the given number of books.
+     *
+     * @param books number of books
+     * @return estimated number of distinct authors
+     */
+    public double estimateDistinctAuthors(double books) {
+        return Math.min(books, data.getStatistics().getDistinctAuthors());
+    }
+
+    /**
+     * Find all books matching the given condition by looking at every book,
+     * in parallel across the shards of sharded book data.
+     *
+     * @param condition condition the books have to satisfy
+     * @return stream of the matching books in library order
+     */
+    private Stream<BookEntry> scan(Predicate<BookEntry> condition) {
+        List<BookEntry> books = data.getBookData();
+        if (books instanceof ShardedBookList) {
+            return ((ShardedBookList) books).filter(condition).stream();
+        }
+        return books.stream().filter(condition);
+    }
+
+    private double estimateTitleRows(String foldedWord) {
+        LibraryStatistics statistics = data.getStatistics();
+        return foldedWord == null ? statistics.getBookCount() : statistics.estimateTitlesContaining(foldedWord);
+    }
+}
@@ -1,6 +1,10 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Predicate;
 
 /**
  * Remove command used to remove a book with specific title or all books for a given author.
@@ -48,14 +52,12 @@ public class RemoveCmd extends LibraryCommand {
     public void execute(LibraryData data) {
         Objects.requireNonNull(data, "Given input argument must not be null.");
 
-        List<BookEntry> books = data.getBookData();
-
         switch(bookRemovalArgument) {
             case TITLE:
-                removeByTitle(books);
+                removeByTitle(data);
                 break;
             case AUTHOR:
-                removeByAuthor(books);
+                removeByAuthor(data);
                 break;
             default:
                 throw new UnsupportedOperationException("Removal by argument " + bookRemovalArgument + " is not yet implemented");
@@ -63,38 +65,136 @@ public class RemoveCmd extends LibraryCommand {
     }
 
     /**
-     * Removes all the books form the library for a given author.
+     * Removing books changes the book data.
      *
-     * @param books a list of books in the library
+     * @return true
      */
-    private void removeByAuthor(List<BookEntry> books) {
-        int booksRemoved = 0;
-        for (BookEntry book : books) {
-            if (Arrays.asList(book.getAuthors()).contains(bookToRemove)) {
-                books.remove(book);
-                booksRemoved++;
+    @Override
+    public boolean changesData() {
+        return true;
+    }
+
+    /**
+     * Remove the books from the workers holding them and print if the operation
+     * was successful. A book to be removed by title is looked up on all workers
+     * first, so only the first matching book in library order is removed.
+     *
+     * @param cluster coordinator connected to the workers holding the book data
+     * @throws IOException if communicating with a worker fails
+     */
+    @Override
+    public void executeOnCluster(ClusterCoordinator cluster) throws IOException {
+        if (bookRemovalArgument == RemoveArgumentType.AUTHOR) {
+            int booksRemoved = 0;
+            for (DataInputStream reply : cluster.broadcast(this)) {
+                booksRemoved += reply.readInt();
+            }
+            printRemoved(booksRemoved);
+            return;
+        }
+
+        for (int i = 0; i < cluster.getWorkerCount(); i++) {
+            DataOutputStream request = cluster.send(i, this);
+            request.writeLong(ClusterProtocol.END_OF_RECORDS);
+            request.flush();
+        }
+        List<DataInputStream> replies = cluster.replies();
+        int firstWorker = -1;
+        long firstSequence = Long.MAX_VALUE;
+        for (int i = 0; i < replies.size(); i++) {
+            long sequence = replies.get(i).readLong();
+            if (sequence != ClusterProtocol.END_OF_RECORDS && sequence < firstSequence) {
+                firstWorker = i;
+                firstSequence = sequence;
             }
         }
-        System.out.println(booksRemoved + " books removed for author: " + bookToRemove);
+
+        boolean removed = false;
+        if (firstWorker >= 0) {
+            DataOutputStream request = cluster.send(firstWorker, this);
+            request.writeLong(firstSequence);
+            request.flush();
+            removed = replies.get(firstWorker).readBoolean();
+        }
+        printRemoved(removed ? 1 : 0);
     }
 
     /**
-     * Removes a book form the library with a given title.
+     * Remove all books held for the author and reply with their number, or
+     * for a title, either reply with the sequence number of the first book
+     * held with the title or remove the book with the requested sequence number.
      *
-     * @param books a list of books in the library
+     * @param worker worker holding part of the book data
+     * @param request empty payload for an author, otherwise the sequence number
+     *                of the book to remove or END_OF_RECORDS to look it up
+     * @param reply receives the number of books removed, the sequence number of the
+     *              book found (END_OF_RECORDS if none), or whether the book has been removed
+     * @throws IOException if reading the request or writing the reply fails
      */
-    private void removeByTitle(List<BookEntry> books) {
-        boolean ifAnyRemoved = false; // A flag to check if any books have been removed.;
-
-        for (BookEntry book : books) {
-            if (book.getTitle().equals(bookToRemove)) {
-                books.remove(book);
-                System.out.println(bookToRemove + ": removed successfully.");
-                ifAnyRemoved = true;
+    @Override
+    void executeOnWorker(ClusterWorker worker, DataInputStream request, DataOutputStream reply) throws IOException {
+        if (bookRemovalArgument == RemoveArgumentType.AUTHOR) {
+            reply.writeInt(worker.removeEntries(removalFilter()));
+            return;
+        }
+
+        long sequence = request.readLong();
+        if (sequence != ClusterProtocol.END_OF_RECORDS) {
+            reply.writeBoolean(worker.removeEntry(sequence));
+            return;
+        }
+
+        Predicate<BookEntry> filter = removalFilter();
+        for (BookEntry book : worker.getData().getBookData()) {
+            if (filter.test(book)) {
+                sequence = worker.sequenceOf(book);
                 break;
             }
         }
-        if (!ifAnyRemoved) {
+        reply.writeLong(sequence);
+    }
+
+    /**
+     * Removes all the books form the library for a given author.
+     *
+     * @param data book data to remove the books from
+     */
+    private void removeByAuthor(LibraryData data) {
+        printRemoved(data.removeEntries(removalFilter()));
+    }
+
+    /**
+     * Removes a book form the library with a given title.
+     *
+     * @param data book data to remove the book from
+     */
+    private void removeByTitle(LibraryData data) {
+        printRemoved(data.removeFirstEntry(removalFilter()) ? 1 : 0);
+    }
+
+    /**
+     * Condition for books to be removed.
+     * @return filter matching books of the author or with the title to be removed
+     */
+    private Predicate<BookEntry> removalFilter() {
+        if (bookRemovalArgument == RemoveArgumentType.AUTHOR) {
+            return book -> Arrays.asList(book.getAuthors()).contains(bookToRemove);
+        }
+        return book -> book.getTitle().equals(bookToRemove);
+    }
+
+    /**
+     * Print if the operation was successful.
+     * @param booksRemoved number of books removed
+     */
+    private void printRemoved(int booksRemoved) {
+        if (bookRemovalArgument == RemoveArgumentType.AUTHOR) {
+            System.out.println(booksRemoved + " books removed for author: " + bookToRemove);
+        }
+        else if (booksRemoved > 0) {
+            System.out.println(bookToRemove + ": removed successfully.");
+        }
+        else {
             System.out.println(bookToRemove + ": not found.");
         }
     }
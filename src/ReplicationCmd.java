@@ -0,0 +1,56 @@
+import java.util.Objects;
+
+/**
+ * Replication command used to print the state of replication: on a primary
+ * the position of its feed of changes and how far every follower lags behind,
+ * on a follower how far it lags behind the primary.
+ */
+public class ReplicationCmd extends LibraryCommand {
+
+    /**
+     * Create a replication command.
+     *
+     * @param argumentInput argument input is expected to be blank.
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public ReplicationCmd(String argumentInput) {
+        super(CommandType.REPLICATION, argumentInput);
+    }
+
+    /**
+     * Execute the replication command. This prints the state of replication,
+     * or that the library is not replicated.
+     *
+     * @param data book data to be considered for command execution.
+     * @throws NullPointerException if the given data is null
+     */
+    @Override
+    public void execute(LibraryData data) {
+        Objects.requireNonNull(data, "Given data must not be null.");
+
+        ReplicationRole role = data.getReplicationRole();
+        if (role == null) {
+            System.out.println("The library is not replicated.");
+            return;
+        }
+
+        for (String line : role.getStatus()) {
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Checks that no arguments have been given.
+     *
+     * @param argumentInput argument input for replication command
+     * @return true if the argument input is blank
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+
+        return argumentInput.isBlank();
+    }
+}
@@ -0,0 +1,228 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Follower of a replicated library, applying the feed of changes streamed by
+ * the primary to its own library, which serves read commands only.
+ *
+ * The feed is read on a background thread, which reconnects whenever the
+ * connection is lost and continues where it left off, as long as the primary
+ * is still the run whose epoch came with the last snapshot. Changes received
+ * together are applied at once while synchronized on the library.
+ */
+final class ReplicationFollower implements ReplicationRole {
+
+    /** Milliseconds to wait before reconnecting to the primary. */
+    private static final long RECONNECT_MILLIS = 1000;
+
+    /** Library the changes are applied to. */
+    private final LibraryData data;
+    /** Address of the primary. */
+    private final InetSocketAddress primary;
+
+    /** True while connected to the primary. */
+    private volatile boolean connected;
+    /** Epoch of the primary run the applied position belongs to (NO_EPOCH until a snapshot has been applied). */
+    private volatile long appliedEpoch;
+    /** Position of the next change to be applied (NO_POSITION until a snapshot has been applied). */
+    private volatile long appliedPosition;
+    /** Time the last applied change has been made on the primary. */
+    private volatile long appliedTimestamp;
+    /** Latest position of the primary known. */
+    private volatile long primaryPosition;
+    /** Time on the primary at which it has been at the latest known position. */
+    private volatile long primaryTimestamp;
+
+    /**
+     * Make the given library a follower of the primary at the given address,
+     * which starts following once started.
+     *
+     * @param data empty library the changes are applied to
+     * @param primary address of the primary
+     * @throws NullPointerException if any of the given parameters are null
+     */
+    ReplicationFollower(LibraryData data, InetSocketAddress primary) {
+        this.data = Objects.requireNonNull(data, "Given data must not be null.");
+        this.primary = Objects.requireNonNull(primary, "Given address must not be null.");
+        connected = false;
+        appliedEpoch = ReplicationPrimary.NO_EPOCH;
+        appliedPosition = ReplicationPrimary.NO_POSITION;
+        appliedTimestamp = 0;
+        primaryPosition = 0;
+        primaryTimestamp = 0;
+        data.setReplicationRole(this, null);
+    }
+
+    /** Follow the primary on a background thread, reconnecting whenever the connection is lost. */
+    void start() {
+        Thread thread = new Thread(this::followPrimary, "replication follower of " + primary);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Followers only apply the changes of the primary.
+     * @return false
+     */
+    @Override
+    public boolean acceptsChanges() {
+        return false;
+    }
+
+    /**
+     * Describe how far this follower lags behind the primary, in changes and in
+     * time between the last applied change and the latest known state of the primary.
+     * @return status line
+     */
+    @Override
+    public List<String> getStatus() {
+        long applied = Math.max(0, appliedPosition);
+        long lag = Math.max(0, primaryPosition - applied);
+        long lagMillis = lag == 0 ? 0 : Math.max(0, primaryTimestamp - appliedTimestamp);
+        return List.of("Replication follower of " + primary + " (" + (connected ? "connected" : "disconnected")
+                + "): applied position " + applied + " of " + primaryPosition + ", lag " + lag + " mutations, "
+                + lagMillis + " ms");
+    }
+
+    /**
+     * Position of the next change to be applied.
+     * @return number of changes of the primary reflected by the library
+     */
+    long getAppliedPosition() {
+        return Math.max(0, appliedPosition);
+    }
+
+    /**
+     * Epoch of the primary run the library reflects.
+     * @return epoch received with the last snapshot, or NO_EPOCH before the first one
+     */
+    long getAppliedEpoch() {
+        return appliedEpoch;
+    }
+
+    private void followPrimary() {
+        while (true) {
+            try (Socket socket = new Socket()) {
+                socket.connect(primary);
+                socket.setTcpNoDelay(true);
+                follow(socket);
+            } catch (IOException e) {
+                if (connected) {
+                    System.err.println("ERROR: Connection to replication primary lost: " + e);
+                }
+            } finally {
+                connected = false;
+            }
+
+            try {
+                Thread.sleep(RECONNECT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Apply the feed read from the given connection until it is closed.
+     * @param socket connection to the primary
+     * @throws IOException if the connection fails
+     */
+    private void follow(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(),
+                ClusterWorker.BUFFER_SIZE));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        out.writeLong(appliedEpoch);
+        out.writeLong(appliedPosition);
+        out.flush();
+
+        if (in.readByte() == ReplicationPrimary.SNAPSHOT) {
+            long epoch = in.readLong();
+            long position = in.readLong();
+            List<BookEntry> books = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                books.add(ClusterProtocol.readEntry(in));
+            }
+            synchronized (data) {
+                data.removeEntries(entry -> true);
+                data.addEntries(books);
+                appliedEpoch = epoch;
+                appliedPosition = position;
+            }
+            primaryPosition = position;
+        }
+        connected = true;
+
+        List<MutationLog.Mutation> received = new ArrayList<>();
+        while (true) {
+            do {
+                byte kind = in.readByte();
+                long position = in.readLong();
+                long timestamp = in.readLong();
+                if (kind == ReplicationPrimary.HEARTBEAT) {
+                    primaryPosition = position;
+                    primaryTimestamp = timestamp;
+                } else {
+                    MutationLog.Kind mutationKind = kind == ReplicationPrimary.ADD
+                            ? MutationLog.Kind.ADD : MutationLog.Kind.REMOVE;
+                    received.add(new MutationLog.Mutation(position, mutationKind, ClusterProtocol.readEntry(in),
+                            timestamp));
+                }
+            } while (in.available() > 0);
+
+            if (!received.isEmpty()) {
+                apply(received);
+                received.clear();
+                out.writeLong(appliedPosition);
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Add the given entries to the library, if any, and forget them.
+     * @param added entries added on the primary
+     */
+    private void addEntries(List<BookEntry> added) {
+        if (!added.isEmpty()) {
+            data.addEntries(added);
+            added.clear();
+        }
+    }
+
+    /**
+     * Apply the given changes, adding consecutive entries at once.
+     * @param mutations changes in position order
+     */
+    private void apply(List<MutationLog.Mutation> mutations) {
+        synchronized (data) {
+            List<BookEntry> added = new ArrayList<>();
+            for (MutationLog.Mutation mutation : mutations) {
+                if (mutation.getKind() == MutationLog.Kind.ADD) {
+                    added.add(mutation.getEntry());
+                } else {
+                    addEntries(added);
+                    BookEntry removed = mutation.getEntry();
+                    data.removeFirstEntry(removed::equals);
+                }
+            }
+            addEntries(added);
+
+            MutationLog.Mutation last = mutations.get(mutations.size() - 1);
+            appliedPosition = last.getPosition() + 1;
+            appliedTimestamp = last.getTimestamp();
+            if (appliedPosition > primaryPosition) {
+                primaryPosition = appliedPosition;
+                primaryTimestamp = appliedTimestamp;
+            }
+        }
+    }
+}
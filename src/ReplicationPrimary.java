@@ -0,0 +1,258 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Primary of a replicated library, streaming every change of the library to
+ * the follower processes connected to it.
+ *
+ * A follower connecting for the first time, or after falling behind further
+ * than the retained part of the feed, first receives a snapshot of the whole
+ * library and then the changes made after it. A follower reconnecting in time
+ * only receives the changes it has missed. Positions start at 0 whenever a
+ * primary starts, so every primary draws a random epoch sent with the
+ * snapshot, and a follower presenting the epoch of another primary run always
+ * starts from a snapshot, even if its position happens to be retained. While there are no changes, a
+ * heartbeat tells the followers the current position and time, so they can
+ * tell how far they lag behind. Followers acknowledge the position they have
+ * applied, which the primary reports in its status.
+ */
+final class ReplicationPrimary implements ReplicationRole {
+
+    /** Message starting a snapshot of the library. */
+    static final byte SNAPSHOT = 0;
+    /** Message continuing the feed where the follower left off. */
+    static final byte TAIL = 1;
+    /** Message of an added entry. */
+    static final byte ADD = 2;
+    /** Message of a removed entry. */
+    static final byte REMOVE = 3;
+    /** Message of the current position while nothing changes. */
+    static final byte HEARTBEAT = 4;
+    /** Position sent by a follower which does not hold any data yet. */
+    static final long NO_POSITION = -1;
+    /** Epoch sent by a follower which does not hold any data yet. */
+    static final long NO_EPOCH = 0;
+
+    /** Number of changes retained for followers reconnecting. */
+    private static final int RETAINED_MUTATIONS = 1 << 16;
+    /** Milliseconds between heartbeats while nothing changes. */
+    static final long HEARTBEAT_MILLIS = 1000;
+
+    /** Library being replicated. */
+    private final LibraryData data;
+    /** Feed of all changes of the library. */
+    private final MutationLog log;
+    /** Random identifier of this primary run, which the positions of the feed belong to. */
+    private final long epoch;
+    /** Socket accepting connections of followers. */
+    private final ServerSocket serverSocket;
+    /** Position acknowledged by every connected follower, by follower address. */
+    private final Map<SocketAddress, Long> followers;
+
+    /**
+     * Make the given library the primary of a replication, accepting followers
+     * on the given address once started.
+     *
+     * @param data library to be replicated
+     * @param address address to listen on, port 0 choosing any free port
+     * @throws IOException if the address cannot be listened on
+     * @throws NullPointerException if any of the given parameters are null
+     */
+    ReplicationPrimary(LibraryData data, InetSocketAddress address) throws IOException {
+        this.data = Objects.requireNonNull(data, "Given data must not be null.");
+        Objects.requireNonNull(address, "Given address must not be null.");
+        log = new MutationLog(RETAINED_MUTATIONS);
+        epoch = newEpoch();
+        followers = new ConcurrentHashMap<>();
+        serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+        data.setReplicationRole(this, log);
+    }
+
+    /**
+     * Address followers connect to.
+     * @return local address of the server socket
+     */
+    InetSocketAddress getAddress() {
+        return (InetSocketAddress) serverSocket.getLocalSocketAddress();
+    }
+
+    /**
+     * Random identifier of this primary run.
+     * @return epoch followers have to present to continue the feed
+     */
+    long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Position of the next change of the library.
+     * @return number of changes streamed so far
+     */
+    long getPosition() {
+        return log.getHead();
+    }
+
+    /** Accept followers on a background thread, serving each of them on its own thread. */
+    void start() {
+        Thread thread = new Thread(this::acceptFollowers, "replication primary " + getAddress());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Stop accepting followers. Connected followers keep being served. */
+    void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("ERROR: Closing replication primary failed: " + e);
+        }
+    }
+
+    /**
+     * The primary accepts changes.
+     * @return true
+     */
+    @Override
+    public boolean acceptsChanges() {
+        return true;
+    }
+
+    /**
+     * Describe the position of the primary and how far every follower lags behind.
+     * @return status lines
+     */
+    @Override
+    public List<String> getStatus() {
+        long head = getPosition();
+        List<String> status = new ArrayList<>();
+        status.add("Replication primary on " + getAddress() + " at position " + head + ", "
+                + followers.size() + " followers connected");
+        followers.forEach((address, position) -> status.add("  follower " + address + ": applied position "
+                + position + ", lag " + Math.max(0, head - position) + " mutations"));
+        return status;
+    }
+
+    private void acceptFollowers() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("ERROR: Accepting replication follower failed: " + e);
+                }
+                continue;
+            }
+
+            Thread thread = new Thread(() -> serve(socket), "replication follower " + socket.getRemoteSocketAddress());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stream the feed to a single follower until it disconnects.
+     * @param socket connection to the follower
+     */
+    private void serve(Socket socket) {
+        SocketAddress follower = socket.getRemoteSocketAddress();
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(),
+                     ClusterWorker.BUFFER_SIZE))) {
+            socket.setTcpNoDelay(true);
+            long followerEpoch = in.readLong();
+            long position = in.readLong();
+            if (position == NO_POSITION || followerEpoch != epoch || !log.retains(position)) {
+                position = writeSnapshot(out);
+            } else {
+                out.writeByte(TAIL);
+            }
+            followers.put(follower, position);
+            out.flush();
+
+            while (true) {
+                List<MutationLog.Mutation> mutations = log.read(position, HEARTBEAT_MILLIS);
+                if (mutations == null) {
+                    return; // fallen behind, the follower reconnects and starts from a snapshot
+                }
+
+                for (MutationLog.Mutation mutation : mutations) {
+                    out.writeByte(mutation.getKind() == MutationLog.Kind.ADD ? ADD : REMOVE);
+                    out.writeLong(mutation.getPosition());
+                    out.writeLong(mutation.getTimestamp());
+                    ClusterProtocol.writeEntry(out, mutation.getEntry());
+                    position = mutation.getPosition() + 1;
+                }
+                if (mutations.isEmpty()) {
+                    out.writeByte(HEARTBEAT);
+                    out.writeLong(log.getHead());
+                    out.writeLong(System.currentTimeMillis());
+                }
+                out.flush();
+
+                while (in.available() >= Long.BYTES) {
+                    followers.put(follower, in.readLong());
+                }
+            }
+        } catch (IOException e) {
+            // the follower has disconnected and reconnects on its own
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.remove(follower);
+        }
+    }
+
+    /**
+     * Write a snapshot of the whole library.
+     *
+     * @param out stream to the follower
+     * @return position of the feed the snapshot reflects
+     * @throws IOException if writing fails
+     */
+    private long writeSnapshot(DataOutputStream out) throws IOException {
+        List<BookEntry> books = new ArrayList<>();
+        long[] position = new long[1];
+        data.runQuery(() -> {
+            books.addAll(data.getBookData());
+            position[0] = log.getHead();
+        });
+
+        out.writeByte(SNAPSHOT);
+        out.writeLong(epoch);
+        out.writeLong(position[0]);
+        out.writeInt(books.size());
+        for (BookEntry book : books) {
+            ClusterProtocol.writeEntry(out, book);
+        }
+        return position[0];
+    }
+
+    /**
+     * Draw the epoch of a new primary run.
+     * @return random epoch other than NO_EPOCH
+     */
+    private static long newEpoch() {
+        SecureRandom random = new SecureRandom();
+        long epoch;
+        do {
+            epoch = random.nextLong();
+        } while (epoch == NO_EPOCH);
+        return epoch;
+    }
+}
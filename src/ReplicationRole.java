@@ -0,0 +1,17 @@
+import java.util.List;
+
+/** Role of a library taking part in replication, either as primary or as follower. */
+interface ReplicationRole {
+
+    /**
+     * Check if commands may change the library, which is only the case on a primary.
+     * @return true if the library may be changed by commands
+     */
+    boolean acceptsChanges();
+
+    /**
+     * Describe the state of replication, such as how far followers lag behind.
+     * @return lines describing the state
+     */
+    List<String> getStatus();
+}
@@ -0,0 +1,140 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Least recently used cache of command output, bounded by the number of bytes held.
+ *
+ * Every output is stored together with the modification version of the library
+ * it was produced from. Output of an older version is never returned, but
+ * dropped on lookup, so repeated commands are only served from the cache as
+ * long as the library has not been changed in between.
+ */
+class ResultCache {
+
+    /** Estimated heap bytes of a cache entry apart from key and output. */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    /** Cached output by normalised command, least recently used first. */
+    private final LinkedHashMap<String, CachedResult> results;
+    /** Maximum number of bytes held by the cache. */
+    private final long capacityBytes;
+    /** Estimated number of bytes currently held by the cache. */
+    private long usedBytes;
+
+    /**
+     * Create an empty cache.
+     *
+     * @param capacityBytes maximum number of bytes to hold
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    public ResultCache(long capacityBytes) {
+        if (capacityBytes < 0) {
+            throw new IllegalArgumentException("Cache capacity must not be negative.");
+        }
+
+        this.results = new LinkedHashMap<>(16, 0.75f, true);
+        this.capacityBytes = capacityBytes;
+        this.usedBytes = 0;
+    }
+
+    /**
+     * Get the output cached for the given command and library version.
+     *
+     * @param key normalised command
+     * @param version modification version of the library
+     * @return cached output, or null if there is none for this version
+     * @throws NullPointerException if the given key is null
+     */
+    public byte[] get(String key, long version) {
+        Objects.requireNonNull(key, "Given key must not be null.");
+
+        CachedResult result = results.get(key);
+        if (result == null) {
+            return null;
+        }
+        if (result.version != version) {
+            remove(key);
+            return null;
+        }
+        return result.output;
+    }
+
+    /**
+     * Cache the output of the given command for the given library version,
+     * evicting the least recently used results if the cache gets too large.
+     * Output too large for the whole cache is not cached.
+     *
+     * @param key normalised command
+     * @param version modification version of the library the output was produced from
+     * @param output output of the command
+     * @throws NullPointerException if the given key or output is null
+     */
+    public void put(String key, long version, byte[] output) {
+        Objects.requireNonNull(key, "Given key must not be null.");
+        Objects.requireNonNull(output, "Given output must not be null.");
+
+        remove(key);
+        long size = sizeOf(key, output);
+        if (size > capacityBytes) {
+            return;
+        }
+
+        results.put(key, new CachedResult(version, output));
+        usedBytes += size;
+
+        Iterator<Map.Entry<String, CachedResult>> eldest = results.entrySet().iterator();
+        while (usedBytes > capacityBytes) {
+            Map.Entry<String, CachedResult> evicted = eldest.next();
+            usedBytes -= sizeOf(evicted.getKey(), evicted.getValue().output);
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Largest output which can be cached for the given command, so larger
+     * output does not have to be kept for caching at all.
+     *
+     * @param key normalised command
+     * @return maximum number of output bytes, negative if nothing can be cached for the key
+     * @throws NullPointerException if the given key is null
+     */
+    public long getMaxOutputBytes(String key) {
+        Objects.requireNonNull(key, "Given key must not be null.");
+
+        return capacityBytes - sizeOf(key, new byte[0]);
+    }
+
+    /**
+     * Number of bytes currently held by the cache.
+     *
+     * @return estimated size of all cached keys and outputs
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    private void remove(String key) {
+        CachedResult removed = results.remove(key);
+        if (removed != null) {
+            usedBytes -= sizeOf(key, removed.output);
+        }
+    }
+
+    private static long sizeOf(String key, byte[] output) {
+        return ENTRY_OVERHEAD + 2L * key.length() + output.length;
+    }
+
+    /** Output of a command together with the library version it was produced from. */
+    private static final class CachedResult {
+
+        private final long version;
+        private final byte[] output;
+
+        private CachedResult(long version, byte[] output) {
+            this.version = version;
+            this.output = output;
+        }
+    }
+}
@@ -1,18 +1,44 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.stream.Collectors;
 
 /**
- * Search command used search and print book titles containing a given word.
+ * Search command used search and print book titles containing a given word,
+ * or the best matches for several words ranked by relevance.
  */
 public class SearchCmd extends LibraryCommand {
 
+    /** Delimiter between the words of a search query. */
+    private static final String QUERY_DELIMITER = " ";
+    /** Operator requiring all words of a query to match. */
+    private static final String AND_OPERATOR = "AND";
+    /** Operator requiring any word of a query to match (the default). */
+    private static final String OR_OPERATOR = "OR";
+    /** Maximum number of titles printed for a ranked search. */
+    private static final int MAX_RANKED_HITS = 20;
+    /** Minimum number of books for scanning titles in parallel. */
+    protected static final int PARALLEL_THRESHOLD = 1 << 16;
+
     /** A string to remember the word to search for in the library. */
     private String wordToSearchFor;
+    /** The word to search for in lower case, as compared to the folded titles. */
+    private String foldedWordToSearchFor;
+    /** Words of a multi-word query (null for a single word search). */
+    private List<String> queryTerms;
+    /** True if all words of a multi-word query have to match. */
+    private boolean matchAllTerms;
 
     /**
      * Create a search command.
      *
-     * @param argumentInput argument input is expected to be a single word.
+     * @param argumentInput argument input is expected to be a single word, or several
+     *                      words optionally joined by either 'AND' or 'OR'.
      * @throws IllegalArgumentException if given arguments are invalid
      * @throws NullPointerException if the given argumentInput is null.
      */
@@ -21,9 +47,10 @@ public class SearchCmd extends LibraryCommand {
     }
 
     /**
-     * Execute the search command. This searches through and prints
-     * all the titles of the books in the library containing
-     * the word to search for.
+     * Execute the search command. For a single word this searches through
+     * and prints all the titles of the books in the library containing
+     * the word to search for. For several words this prints the titles of
+     * the books whose title and authors match the words best.
      *
      * @param data book data to be considered for command execution.
      * @throws NullPointerException if the given data is null
@@ -32,28 +59,143 @@ public class SearchCmd extends LibraryCommand {
     public void execute(LibraryData data) {
         Objects.requireNonNull(data, "Given input argument must not be null.");
 
-        boolean isSuccessfulSearch = false; // A flag to determine if any of the entries satisfied the search.
+        List<String> hits = queryTerms == null ? searchTitles(data) : searchRanked(data);
+
+        for (String title : hits) {
+            System.out.println(title);
+        }
+
+        if (hits.isEmpty()) {
+            printNoHits();
+        }
+    }
+
+    /**
+     * Ask every worker for its titles containing the word and print them merged
+     * into library order. Ranked searches are not supported in cluster mode, as
+     * relevance depends on the statistics of the whole library.
+     *
+     * @param cluster coordinator connected to the workers holding the book data
+     * @throws IOException if communicating with a worker fails
+     */
+    @Override
+    public void executeOnCluster(ClusterCoordinator cluster) throws IOException {
+        if (queryTerms != null) {
+            System.err.println("ERROR: Searching for several words is not supported in cluster mode.");
+            return;
+        }
+
+        int[] hitCount = new int[1];
+        ClusterProtocol.mergeBySequence(cluster.broadcast(this), ClusterProtocol::readString, (sequence, title) -> {
+            hitCount[0]++;
+            System.out.println(title);
+        });
+
+        if (hitCount[0] == 0) {
+            printNoHits();
+        }
+    }
+
+    /**
+     * Reply with the titles held containing the word to search for.
+     *
+     * @param worker worker holding part of the book data
+     * @param request empty payload
+     * @param reply receives the matching titles in sequence order
+     * @throws IOException if writing the reply fails
+     */
+    @Override
+    void executeOnWorker(ClusterWorker worker, DataInputStream request, DataOutputStream reply) throws IOException {
+        Iterator<BookEntry> hits = plan(worker.getData(), List.of()).rows().iterator();
+        while (hits.hasNext()) {
+            BookEntry hit = hits.next();
+            reply.writeLong(worker.sequenceOf(hit));
+            ClusterProtocol.writeString(reply, hit.getTitle());
+        }
+        reply.writeLong(ClusterProtocol.END_OF_RECORDS);
+    }
+
+    private void printNoHits() {
+        System.out.println("No hits found for search term: " + wordToSearchFor);
+    }
+
+    /**
+     * The output only depends on the arguments and the book data, so it may be cached.
+     *
+     * @return command type and argument
+     */
+    @Override
+    public String cacheKey() {
+        return getType() + " " + wordToSearchFor;
+    }
+
+    /**
+     * Find all titles containing the word to search for, ignoring case.
+     * Large libraries are scanned in parallel, unless the query planner
+     * finds a cheaper way than scanning. Sharded libraries are scanned by
+     * the query planner, one shard per thread, with the matches merged back
+     * into library order.
+     *
+     * @param data book data to search
+     * @return matching titles in library order
+     */
+    private List<String> searchTitles(LibraryData data) {
         List<BookEntry> books = data.getBookData();
+        QueryPlan plan = plan(data, List.of());
 
-        for (BookEntry book: books) {
-            String lowerTitle = book.getTitle().toLowerCase();
-            String lowerStrToSearch = wordToSearchFor.toLowerCase();
-            if (lowerTitle.contains(lowerStrToSearch)) {
-                System.out.println(book.getTitle());
-                isSuccessfulSearch = true;
-            }
+        if (plan.getAccessPath() == QueryPlan.AccessPath.FULL_SCAN
+                && books.size() >= PARALLEL_THRESHOLD && books instanceof RandomAccess
+                && !(books instanceof ShardedBookList)) {
+            // ordered stream, so the titles are collected in library order
+            return books.parallelStream()
+                    .filter(book -> book.getFoldedTitle().contains(foldedWordToSearchFor))
+                    .map(BookEntry::getTitle)
+                    .collect(Collectors.toList());
+        }
+
+        return plan.rows().map(BookEntry::getTitle).collect(Collectors.toList());
+    }
+
+    /**
+     * Plan finding the books matching this search, in the order their titles would be printed.
+     *
+     * @param data book data to search
+     * @param filters conditions the books found will be filtered by afterwards, which
+     *                the plan may use to narrow down the books looked at
+     * @return plan finding the books with matching titles in library order for a
+     * single word, or the best matching books, most relevant first, for several words
+     */
+    protected QueryPlan plan(LibraryData data, List<BookFilter> filters) {
+        QueryPlanner planner = new QueryPlanner(data);
+        if (queryTerms == null) {
+            return planner.planTitleSearch(foldedWordToSearchFor, filters);
         }
+        return planner.planRankedSearch(queryTerms, matchAllTerms, MAX_RANKED_HITS);
+    }
 
-        if (!isSuccessfulSearch) {
-            System.out.println("No hits found for search term: " + wordToSearchFor);
+    /**
+     * Find the titles of the books best matching the query words.
+     *
+     * @param data book data to search
+     * @return matching titles, most relevant first
+     */
+    private List<String> searchRanked(LibraryData data) {
+        List<String> hits = new ArrayList<>();
+
+        for (BookEntry book : data.getSearchIndex().search(queryTerms, matchAllTerms, MAX_RANKED_HITS)) {
+            hits.add(book.getTitle());
         }
+
+        return hits;
     }
 
     /**
-     * Remembers the command argument input in wordToSearchFor field.
+     * Remembers the command argument input in wordToSearchFor field and,
+     * for multi-word queries, the separate words in queryTerms.
      *
      * @param argumentInput argument input for search command
-     * @return true iff the given argument consists of a single word.
+     * @return true iff the given argument consists of a single word, or of several
+     * words where operators are not mixed and only appear between two words.
      * @throws NullPointerException if the given argumentInput is null.
      */
     @Override
@@ -61,7 +203,37 @@ public class SearchCmd extends LibraryCommand {
         Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
 
         wordToSearchFor = argumentInput.trim();
+        foldedWordToSearchFor = wordToSearchFor.toLowerCase();
+        queryTerms = null;
+        matchAllTerms = false;
+
+        String[] words = wordToSearchFor.split(QUERY_DELIMITER);
+        if (wordToSearchFor.isBlank() || words.length == 1) {
+            return !wordToSearchFor.isBlank();
+        }
+
+        queryTerms = new ArrayList<>();
+        String operator = null;
+        boolean expectWord = true;
+        for (String word : words) {
+            if (word.isEmpty()) {
+                continue;
+            }
+
+            boolean isOperator = word.equals(AND_OPERATOR) || word.equals(OR_OPERATOR);
+            if (isOperator) {
+                if (expectWord || (operator != null && !operator.equals(word))) {
+                    return false;
+                }
+                operator = word;
+                expectWord = true;
+            } else {
+                queryTerms.addAll(InvertedIndex.tokenize(word));
+                expectWord = false;
+            }
+        }
+        matchAllTerms = AND_OPERATOR.equals(operator);
 
-        return !wordToSearchFor.isBlank() && wordToSearchFor.split(" ").length == 1;
+        return !expectWord;
     }
 }
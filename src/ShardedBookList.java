@@ -0,0 +1,680 @@
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * List of book entries partitioned by ISBN into independent shards, each with
+ * its own indexes, modification version and lock, so changes of different
+ * shards are made concurrently, and bulk additions, removals and scans work on
+ * all shards in parallel, each shard from a single thread.
+ *
+ * Every entry gets a sequence number when it is added, and results from the
+ * shards are merged by sequence number, so all operations give the same results
+ * in the same order as on a single list. Entries with the same ISBN in any
+ * notation end up in the same shard, so duplicates are found by looking at the
+ * Bloom filter and ISBN index of a single shard. Further indexes are built per
+ * shard on demand and from then on kept up to date by the changes of the shard,
+ * and LibraryData combines them into indexes over the whole library.
+ *
+ * Next to the shards, the list keeps a reference to every entry in sequence
+ * order, which gives positional access in constant time. As new entries always
+ * get the highest sequence numbers, additions only append to that order, and
+ * removals compact it in a single pass. This order is all the shards share: a
+ * change holds the write locks of the shards it changes, and synchronizes on the
+ * order only while assigning sequence numbers, updating the order and appending
+ * to the replication feed, so the feed lists the changes in list order.
+ * Additions lock the shards of the added entries only, removals lock all shards,
+ * as any entry might match.
+ *
+ * Reading the list, including positional access and the indexes of the shards,
+ * requires the read locks of all shards (see readLocked) unless no other thread
+ * changes it. LibraryData.runQuery takes them for commands.
+ */
+class ShardedBookList extends AbstractList<BookEntry> implements RandomAccess, ModificationCounting {
+
+    /** Shards the entries are partitioned into. */
+    private final Shard[] shards;
+    /** Sequence number of the next entry added (guarded by entries). */
+    private long nextSequence;
+    /** All entries in sequence order, for positional access (changed while synchronized on it). */
+    private final ArrayList<BookEntry> entries;
+    /** Sequence numbers of all entries, ascending (guarded by entries). */
+    private long[] sequences;
+    /** Feed all changes are appended to in list order (null unless changes are replicated). */
+    private MutationLog mutationLog;
+
+    /**
+     * Create an empty list.
+     *
+     * @param shardCount number of shards
+     * @throws IllegalArgumentException if the number of shards is not positive
+     */
+    public ShardedBookList(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Number of shards must be positive: " + shardCount);
+        }
+
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+        nextSequence = 0;
+        entries = new ArrayList<>();
+        sequences = new long[16];
+        mutationLog = null;
+    }
+
+    @Override
+    public BookEntry get(int index) {
+        return entries.get(index);
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public int getModificationCount() {
+        return modCount;
+    }
+
+    @Override
+    public boolean add(BookEntry entry) {
+        Shard shard = shardOf(entry);
+        shard.lock.writeLock().lock();
+        try {
+            shard.prepareAdditions(1);
+            shard.add(entry);
+            long sequence;
+            synchronized (entries) {
+                sequence = nextSequence++;
+                append(entry, sequence);
+                modCount++;
+            }
+            shard.setSequence(shard.books.size() - 1, sequence);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    @Override
+    public BookEntry remove(int index) {
+        boolean[] locked = allShards();
+        lockForWriting(locked);
+        try {
+            return removeAt(index);
+        } finally {
+            unlockForWriting(locked);
+        }
+    }
+
+    @Override
+    public void clear() {
+        removeMatching(entry -> true);
+    }
+
+    /**
+     * Number of shards the entries are partitioned into.
+     *
+     * @return number of shards
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Let the list append all changes to the given feed, in list order.
+     *
+     * @param log feed of changes, or null if changes are not replicated
+     */
+    void setMutationLog(MutationLog log) {
+        mutationLog = log;
+    }
+
+    /**
+     * Run the given action while holding the read locks of all shards, so no
+     * changes are made until it has completed. Other readers run concurrently.
+     *
+     * @param action action reading the list or the indexes of its shards
+     */
+    public void readLocked(Runnable action) {
+        int locked = 0;
+        try {
+            // always in shard order, as writers lock them, so neither side waits for the other in turn
+            for (; locked < shards.length; locked++) {
+                shards[locked].lock.readLock().lock();
+            }
+            action.run();
+        } finally {
+            while (locked > 0) {
+                shards[--locked].lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Modification version of the list, the sum of the versions of all
+     * shards. Every change of a shard increases its version, so equal
+     * versions mean equal book data.
+     *
+     * @return current modification version
+     */
+    public long getVersion() {
+        long version = 0;
+        for (Shard shard : shards) {
+            version += shard.version;
+        }
+        return version;
+    }
+
+    /**
+     * Get the index of the given type of every shard, building those which do
+     * not exist yet or are outdated in parallel.
+     *
+     * @param type class of the requested index
+     * @param factory creates a new empty index of the requested type
+     * @param outdated condition for an existing index to be rebuilt
+     * @return index of every shard in shard order
+     */
+    public <T extends LibraryIndex> List<T> getShardIndexes(Class<T> type, Supplier<T> factory,
+            Predicate<? super T> outdated) {
+        LibraryIndex[] found = new LibraryIndex[shards.length];
+        IntStream.range(0, shards.length).parallel()
+                .forEach(s -> found[s] = shards[s].getIndex(type, factory, outdated));
+
+        List<T> indexes = new ArrayList<>(shards.length);
+        for (LibraryIndex index : found) {
+            indexes.add(type.cast(index));
+        }
+        return indexes;
+    }
+
+    /**
+     * Check if the index of the given type has been built for all shards.
+     *
+     * @param type class of the index
+     * @return true if every shard keeps the index up to date already
+     */
+    public boolean isIndexBuilt(Class<? extends LibraryIndex> type) {
+        for (Shard shard : shards) {
+            if (!shard.hasIndex(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get all indexes of all shards, including their ISBN indexes and Bloom filters.
+     *
+     * @return built indexes, shard by shard
+     */
+    public List<LibraryIndex> getBuiltIndexes() {
+        List<LibraryIndex> indexes = new ArrayList<>();
+        for (Shard shard : shards) {
+            indexes.add(shard.isbnIndex);
+            if (shard.duplicateFilter != null) {
+                indexes.add(shard.duplicateFilter);
+            }
+            synchronized (shard.indexes) {
+                indexes.addAll(shard.indexes.values());
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Sequence number of the given entry, which orders entries from different
+     * shards as the list does.
+     *
+     * @param entry entry of the list
+     * @return sequence number the entry got when it was added
+     */
+    public long sequenceOf(BookEntry entry) {
+        return shardOf(entry).sequencesByEntry.get(entry);
+    }
+
+    /**
+     * Add all given entries which are not equal to an entry in the list or to
+     * an earlier given entry, locking the shards of the given entries only and
+     * working on them in parallel.
+     *
+     * @param loaded entries to be added in the given order
+     * @param duplicates receives the entries not added, in the given order
+     * @return entries added, in the given order
+     */
+    public List<BookEntry> addAllAbsent(List<BookEntry> loaded, List<BookEntry> duplicates) {
+        // positions of the entries grouped by shard, each group in the given order
+        int[] shardIdxs = new int[loaded.size()];
+        int[] shardStarts = new int[shards.length + 1];
+        for (int i = 0; i < loaded.size(); i++) {
+            shardIdxs[i] = shardIdx(loaded.get(i));
+            shardStarts[shardIdxs[i] + 1]++;
+        }
+        boolean[] locked = new boolean[shards.length];
+        for (int s = 0; s < shards.length; s++) {
+            locked[s] = shardStarts[s + 1] > 0;
+            shardStarts[s + 1] += shardStarts[s];
+        }
+        int[] positions = new int[loaded.size()];
+        int[] filled = Arrays.copyOf(shardStarts, shards.length);
+        for (int i = 0; i < loaded.size(); i++) {
+            positions[filled[shardIdxs[i]]++] = i;
+        }
+
+        boolean[] added = new boolean[loaded.size()];
+        long[] addedSequences = new long[loaded.size()];
+        List<BookEntry> addedEntries = new ArrayList<>();
+        lockForWriting(locked);
+        try {
+            // the shards' own entries are added first, in the given order, their sequence numbers follow below
+            int[] firstAdded = new int[shards.length];
+            IntStream.range(0, shards.length).filter(s -> locked[s]).parallel().forEach(s -> {
+                Shard shard = shards[s];
+                firstAdded[s] = shard.books.size();
+                shard.prepareAdditions(shardStarts[s + 1] - shardStarts[s]);
+                for (int p = shardStarts[s]; p < shardStarts[s + 1]; p++) {
+                    added[positions[p]] = shard.addAbsent(loaded.get(positions[p]));
+                }
+            });
+
+            synchronized (entries) {
+                for (int i = 0; i < loaded.size(); i++) {
+                    if (added[i]) {
+                        addedSequences[i] = nextSequence++;
+                        append(loaded.get(i), addedSequences[i]);
+                        addedEntries.add(loaded.get(i));
+                    }
+                }
+                if (!addedEntries.isEmpty()) {
+                    modCount++;
+                }
+            }
+
+            IntStream.range(0, shards.length).filter(s -> locked[s]).parallel().forEach(s -> {
+                int idx = firstAdded[s];
+                for (int p = shardStarts[s]; p < shardStarts[s + 1]; p++) {
+                    if (added[positions[p]]) {
+                        shards[s].setSequence(idx++, addedSequences[positions[p]]);
+                    }
+                }
+            });
+        } finally {
+            unlockForWriting(locked);
+        }
+
+        for (int i = 0; i < loaded.size(); i++) {
+            if (!added[i]) {
+                duplicates.add(loaded.get(i));
+            }
+        }
+        return addedEntries;
+    }
+
+    /**
+     * Remove all entries matching the given filter, locking all shards and
+     * working on them in parallel.
+     *
+     * @param filter condition for entries to be removed, which may be tested concurrently
+     * @return entries removed, in list order
+     */
+    public List<BookEntry> removeMatching(Predicate<BookEntry> filter) {
+        boolean[] locked = allShards();
+        lockForWriting(locked);
+        try {
+            long[][] removedParts = new long[shards.length][];
+            IntStream.range(0, shards.length).parallel()
+                    .forEach(s -> removedParts[s] = shards[s].removeMatching(filter));
+
+            int removedCount = 0;
+            for (long[] part : removedParts) {
+                removedCount += part.length;
+            }
+            long[] removedSequences = new long[removedCount];
+            int filled = 0;
+            for (long[] part : removedParts) {
+                System.arraycopy(part, 0, removedSequences, filled, part.length);
+                filled += part.length;
+            }
+            Arrays.sort(removedSequences);
+
+            // both are in sequence order, so a single pass finds every removed entry
+            List<BookEntry> removedEntries = new ArrayList<>(removedCount);
+            synchronized (entries) {
+                int kept = 0;
+                int next = 0;
+                for (int i = 0; i < entries.size(); i++) {
+                    if (next < removedCount && sequences[i] == removedSequences[next]) {
+                        removedEntries.add(entries.get(i));
+                        logChange(MutationLog.Kind.REMOVE, entries.get(i));
+                        next++;
+                    } else {
+                        entries.set(kept, entries.get(i));
+                        sequences[kept] = sequences[i];
+                        kept++;
+                    }
+                }
+                entries.subList(kept, entries.size()).clear();
+                if (removedCount > 0) {
+                    modCount++;
+                }
+            }
+            return removedEntries;
+        } finally {
+            unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Remove the first entry in list order matching the given filter, locking all shards.
+     *
+     * @param filter condition for the entry to be removed
+     * @return true if an entry has been removed, false otherwise
+     */
+    public boolean removeFirst(Predicate<BookEntry> filter) {
+        boolean[] locked = allShards();
+        lockForWriting(locked);
+        try {
+            for (int i = 0; i < entries.size(); i++) {
+                if (filter.test(entries.get(i))) {
+                    removeAt(i);
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Find all entries matching the given filter, scanning all shards in parallel.
+     *
+     * @param filter condition for entries to be found, which may be tested concurrently
+     * @return matching entries in list order
+     */
+    public List<BookEntry> filter(Predicate<BookEntry> filter) {
+        int[][] foundParts = new int[shards.length][];
+        IntStream.range(0, shards.length).parallel()
+                .forEach(s -> foundParts[s] = shards[s].indexesMatching(filter));
+
+        int foundCount = 0;
+        for (int[] part : foundParts) {
+            foundCount += part.length;
+        }
+
+        // each part is in sequence order, so always taking the lowest next sequence number merges them in list order
+        List<BookEntry> found = new ArrayList<>(foundCount);
+        int[] next = new int[shards.length];
+        for (int n = 0; n < foundCount; n++) {
+            int lowest = -1;
+            long lowestSequence = Long.MAX_VALUE;
+            for (int s = 0; s < shards.length; s++) {
+                if (next[s] < foundParts[s].length) {
+                    long sequence = shards[s].sequences[foundParts[s][next[s]]];
+                    if (sequence < lowestSequence) {
+                        lowest = s;
+                        lowestSequence = sequence;
+                    }
+                }
+            }
+            found.add(shards[lowest].books.get(foundParts[lowest][next[lowest]++]));
+        }
+        return found;
+    }
+
+    /** Remove the entry at the given position, with all shards locked for writing. */
+    private BookEntry removeAt(int index) {
+        BookEntry entry;
+        long sequence;
+        synchronized (entries) {
+            entry = entries.remove(index);
+            sequence = sequences[index];
+            System.arraycopy(sequences, index + 1, sequences, index, entries.size() - index);
+            logChange(MutationLog.Kind.REMOVE, entry);
+            modCount++;
+        }
+
+        Shard shard = shardOf(entry);
+        shard.removeAt(Arrays.binarySearch(shard.sequences, 0, shard.books.size(), sequence));
+        return entry;
+    }
+
+    /** Append an entry with the highest sequence number so far to the entries in sequence order. */
+    private void append(BookEntry entry, long sequence) {
+        if (entries.size() == sequences.length) {
+            sequences = Arrays.copyOf(sequences, sequences.length * 2);
+        }
+        sequences[entries.size()] = sequence;
+        entries.add(entry);
+        logChange(MutationLog.Kind.ADD, entry);
+    }
+
+    private void logChange(MutationLog.Kind kind, BookEntry entry) {
+        if (mutationLog != null) {
+            mutationLog.append(kind, entry);
+        }
+    }
+
+    /** Lock the given shards for writing, always in shard order so concurrent writers cannot deadlock. */
+    private void lockForWriting(boolean[] locked) {
+        for (int s = 0; s < shards.length; s++) {
+            if (locked[s]) {
+                shards[s].lock.writeLock().lock();
+            }
+        }
+    }
+
+    private void unlockForWriting(boolean[] locked) {
+        for (int s = shards.length - 1; s >= 0; s--) {
+            if (locked[s]) {
+                shards[s].lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private boolean[] allShards() {
+        boolean[] all = new boolean[shards.length];
+        Arrays.fill(all, true);
+        return all;
+    }
+
+    /**
+     * Lock of the given shard, for tests.
+     * @param shardIdx index of the shard
+     * @return lock held while the shard is read or changed
+     */
+    ReentrantReadWriteLock getShardLock(int shardIdx) {
+        return shards[shardIdx].lock;
+    }
+
+    private Shard shardOf(BookEntry entry) {
+        return shards[shardIdx(entry)];
+    }
+
+    private int shardIdx(BookEntry entry) {
+        return shardIndex(entry, shards.length);
+    }
+
+    /**
+     * Shard the given entry belongs to, which is the same for all entries
+     * with the same ISBN in any notation.
+     *
+     * @param entry book entry
+     * @param shardCount number of shards
+     * @return index of the shard between 0 and shardCount - 1
+     */
+    static int shardIndex(BookEntry entry, int shardCount) {
+        long key = IsbnIndex.isbnKey(entry.getISBN()) * 0x9E3779B97F4A7C15L;
+        return Math.floorMod((int) (key ^ (key >>> 32)), shardCount);
+    }
+
+    /**
+     * Entries of a single shard with their sequence numbers and indexes,
+     * changed while holding the write lock of the shard.
+     */
+    private static final class Shard {
+
+        /** Lock held for writing while the shard is changed, and for reading while the list is read. */
+        private final ReentrantReadWriteLock lock;
+        /** Entries in sequence order. */
+        private final ArrayList<BookEntry> books;
+        /** Sequence numbers of the entries, ascending. */
+        private long[] sequences;
+        /** Sequence number of every entry, to merge index results of several shards in list order. */
+        private final IdentityHashMap<BookEntry, Long> sequencesByEntry;
+        /** ISBN index of the entries, used to find duplicates. */
+        private final IsbnIndex isbnIndex;
+        /** Bloom filter over the entries, ruling out duplicates (null until entries are added). */
+        private EntryBloomFilter duplicateFilter;
+        /** Further indexes built on demand, by index type (built while synchronized on it). */
+        private final Map<Class<? extends LibraryIndex>, LibraryIndex> indexes;
+        /** Modification version, increased whenever an entry is added or removed. */
+        private long version;
+
+        private Shard() {
+            lock = new ReentrantReadWriteLock();
+            books = new ArrayList<>();
+            sequences = new long[16];
+            sequencesByEntry = new IdentityHashMap<>();
+            isbnIndex = new IsbnIndex();
+            duplicateFilter = null;
+            indexes = new LinkedHashMap<>();
+            version = 0;
+        }
+
+        /** Rebuild the Bloom filter with a larger capacity if it cannot take the given number of additions. */
+        private void prepareAdditions(int additions) {
+            if (duplicateFilter == null || !duplicateFilter.canHold(additions)) {
+                // leave room for further additions, so the filter is not rebuilt on every load
+                duplicateFilter = new EntryBloomFilter((int) Math.min(Integer.MAX_VALUE, 2L * (books.size() + additions)));
+                for (BookEntry entry : books) {
+                    duplicateFilter.add(entry);
+                }
+            }
+        }
+
+        /** Add the entry unless an equal one is in the shard already. */
+        private boolean addAbsent(BookEntry entry) {
+            if (duplicateFilter.mightContain(entry) && isbnIndex.contains(entry)) {
+                return false;
+            }
+            add(entry);
+            return true;
+        }
+
+        /** Add the entry to the shard and its indexes, its sequence number has to be set afterwards. */
+        private void add(BookEntry entry) {
+            if (books.size() == sequences.length) {
+                sequences = Arrays.copyOf(sequences, sequences.length * 2);
+            }
+            books.add(entry);
+            isbnIndex.add(entry);
+            duplicateFilter.add(entry);
+            for (LibraryIndex index : indexes.values()) {
+                index.add(entry);
+            }
+            version++;
+        }
+
+        private void setSequence(int idx, long sequence) {
+            sequences[idx] = sequence;
+            sequencesByEntry.put(books.get(idx), sequence);
+        }
+
+        private void removeAt(int idx) {
+            BookEntry entry = books.remove(idx);
+            System.arraycopy(sequences, idx + 1, sequences, idx, books.size() - idx);
+            removed(entry);
+        }
+
+        /** Update the indexes and the version after the given entry has been removed. */
+        private void removed(BookEntry entry) {
+            sequencesByEntry.remove(entry);
+            isbnIndex.remove(entry);
+            for (LibraryIndex index : indexes.values()) {
+                index.remove(entry);
+            }
+            version++;
+        }
+
+        /** Indexes of all matching entries, in ascending order. */
+        private int[] indexesMatching(Predicate<BookEntry> filter) {
+            int[] found = new int[0];
+            int foundCount = 0;
+            for (int i = 0; i < books.size(); i++) {
+                if (filter.test(books.get(i))) {
+                    if (foundCount == found.length) {
+                        found = Arrays.copyOf(found, Math.max(16, foundCount * 2));
+                    }
+                    found[foundCount++] = i;
+                }
+            }
+            return Arrays.copyOf(found, foundCount);
+        }
+
+        /** Remove all matching entries, returning their sequence numbers in ascending order. */
+        private long[] removeMatching(Predicate<BookEntry> filter) {
+            long[] removed = new long[0];
+            int removedCount = 0;
+            int kept = 0;
+            for (int i = 0; i < books.size(); i++) {
+                BookEntry entry = books.get(i);
+                if (filter.test(entry)) {
+                    if (removedCount == removed.length) {
+                        removed = Arrays.copyOf(removed, Math.max(16, removedCount * 2));
+                    }
+                    removed[removedCount++] = sequences[i];
+                    removed(entry);
+                } else {
+                    books.set(kept, entry);
+                    sequences[kept] = sequences[i];
+                    kept++;
+                }
+            }
+            books.subList(kept, books.size()).clear();
+            return Arrays.copyOf(removed, removedCount);
+        }
+
+        private boolean hasIndex(Class<? extends LibraryIndex> type) {
+            if (type == IsbnIndex.class) {
+                return true;
+            }
+            synchronized (indexes) {
+                return indexes.containsKey(type);
+            }
+        }
+
+        /** Index of the given type, built from the entries of the shard if it does not exist yet or is outdated. */
+        private <T extends LibraryIndex> LibraryIndex getIndex(Class<T> type, Supplier<T> factory,
+                Predicate<? super T> outdated) {
+            if (type == IsbnIndex.class) {
+                return isbnIndex;
+            }
+
+            // readers holding the read lock may build indexes concurrently
+            synchronized (indexes) {
+                LibraryIndex index = indexes.get(type);
+                if (index == null || outdated.test(type.cast(index))) {
+                    index = factory.get();
+                    for (BookEntry entry : books) {
+                        index.add(entry);
+                    }
+                    indexes.put(type, index);
+                }
+                return index;
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving summary tracking the most frequent strings of a stream with a
+ * fixed number of counters.
+ *
+ * A string not monitored yet takes over the counter with the lowest count,
+ * inheriting that count as its possible overestimate. Counts are therefore
+ * never lower than the true frequency and exceed it by at most the recorded
+ * error, and every string occurring more often than the stream length divided
+ * by the number of counters is monitored. Counters are kept in a min-heap by
+ * count, so every update takes logarithmic time. Summaries of several streams
+ * merge into a summary of their concatenation with the same guarantees.
+ */
+final class SpaceSaving {
+
+    /** Counter of a monitored string. */
+    static final class Counter {
+
+        private final String item;
+        private long count;
+        /** Maximum amount by which the count exceeds the true frequency. */
+        private long error;
+        /** Position of the counter in the heap. */
+        private int heapIndex;
+
+        private Counter(String item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+
+        String getItem() {
+            return item;
+        }
+
+        /**
+         * Upper bound of the frequency of the string.
+         * @return estimated frequency
+         */
+        long getCount() {
+            return count;
+        }
+
+        /**
+         * Lower bound of the frequency of the string.
+         * @return frequency the string has at least
+         */
+        long getGuaranteedCount() {
+            return count - error;
+        }
+    }
+
+    /** Order of counters by descending count, ties broken by string. */
+    private static final Comparator<Counter> TOP_ORDER =
+            Comparator.comparingLong((Counter counter) -> -counter.count).thenComparing(counter -> counter.item);
+
+    /** Maximum number of monitored strings. */
+    private final int capacity;
+    /** Counters by monitored string. */
+    private final Map<String, Counter> counters;
+    /** Counters as min-heap by count. */
+    private Counter[] heap;
+    /** Number of strings added. */
+    private long streamLength;
+
+    /**
+     * Create an empty summary.
+     *
+     * @param capacity maximum number of monitored strings
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+
+        this.capacity = capacity;
+        counters = new HashMap<>();
+        heap = new Counter[0];
+        streamLength = 0;
+    }
+
+    /**
+     * Count an occurrence of the given string.
+     * @param item string occurring in the stream
+     */
+    void add(String item) {
+        streamLength++;
+
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            counter.count++;
+            siftDown(counter.heapIndex);
+        } else if (counters.size() < capacity) {
+            counter = new Counter(item, 1, 0);
+            counters.put(item, counter);
+            if (counters.size() > heap.length) {
+                heap = Arrays.copyOf(heap, Math.min(capacity, Math.max(2 * heap.length, 16)));
+            }
+            counter.heapIndex = counters.size() - 1;
+            heap[counter.heapIndex] = counter;
+            siftUp(counter.heapIndex);
+        } else {
+            // take over the least frequent counter, which might have counted this string
+            Counter replaced = heap[0];
+            counters.remove(replaced.item);
+            counter = new Counter(item, replaced.count + 1, replaced.count);
+            counter.heapIndex = 0;
+            heap[0] = counter;
+            counters.put(item, counter);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Number of strings added, including those of merged summaries.
+     * @return length of the stream
+     */
+    long getStreamLength() {
+        return streamLength;
+    }
+
+    /**
+     * The most frequent strings by estimated count.
+     *
+     * @param n maximum number of strings returned
+     * @return counters of at most n strings, the most frequent first
+     */
+    List<Counter> top(int n) {
+        List<Counter> top = new ArrayList<>(counters.values());
+        top.sort(TOP_ORDER);
+        return top.subList(0, Math.min(n, top.size()));
+    }
+
+    /**
+     * Add the stream summarised by the given summary to this one. Strings
+     * monitored by only one of the summaries may have occurred up to the
+     * lowest count of the other one, which is added as their error.
+     *
+     * @param other summary of another stream
+     */
+    void merge(SpaceSaving other) {
+        long minCount = minCount();
+        long otherMinCount = other.minCount();
+
+        Map<String, Counter> merged = new HashMap<>();
+        for (Counter counter : counters.values()) {
+            merged.put(counter.item, new Counter(counter.item, counter.count + otherMinCount,
+                    counter.error + otherMinCount));
+        }
+        for (Counter counter : other.counters.values()) {
+            Counter mergedCounter = merged.get(counter.item);
+            if (mergedCounter == null) {
+                merged.put(counter.item, new Counter(counter.item, counter.count + minCount, counter.error + minCount));
+            } else {
+                mergedCounter.count += counter.count - otherMinCount;
+                mergedCounter.error += counter.error - otherMinCount;
+            }
+        }
+
+        List<Counter> kept = new ArrayList<>(merged.values());
+        kept.sort(TOP_ORDER);
+        kept = kept.subList(0, Math.min(capacity, kept.size()));
+
+        counters.clear();
+        heap = new Counter[kept.size()];
+        for (int i = kept.size() - 1; i >= 0; i--) {
+            // descending order reversed is a valid min-heap
+            Counter counter = kept.get(i);
+            counter.heapIndex = kept.size() - 1 - i;
+            heap[counter.heapIndex] = counter;
+            counters.put(counter.item, counter);
+        }
+        streamLength += other.streamLength;
+    }
+
+    /**
+     * Estimate the heap memory of the summary, not counting the strings,
+     * which are shared with the book data.
+     * @return estimated number of bytes
+     */
+    long estimateBytes() {
+        return MemoryLayout.object(2 * MemoryLayout.REFERENCE + Integer.BYTES + Long.BYTES)
+                + MemoryLayout.hashMap(counters.size()) + MemoryLayout.array(heap.length, MemoryLayout.REFERENCE)
+                + counters.size() * MemoryLayout.object(MemoryLayout.REFERENCE + 2 * Long.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Lowest count of a monitored string, which any string not monitored
+     * may have reached, or 0 while not all counters are in use.
+     * @return count a string not monitored may have
+     */
+    private long minCount() {
+        return counters.size() < capacity ? 0 : heap[0].count;
+    }
+
+    private void siftUp(int index) {
+        Counter counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(counter, index);
+    }
+
+    private void siftDown(int index) {
+        Counter counter = heap[index];
+        int size = counters.size();
+        while (2 * index + 1 < size) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(counter, index);
+    }
+
+    private void place(Counter counter, int index) {
+        heap[index] = counter;
+        counter.heapIndex = index;
+    }
+}
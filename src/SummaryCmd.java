@@ -0,0 +1,128 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Summary command used to print approximate catalogue-wide statistics: the
+ * number of distinct authors and titles and quantiles of the ratings and
+ * page counts.
+ *
+ * The statistics come from the sketches of LibrarySummary, which are kept up
+ * to date as books are added, so the command takes the same time regardless
+ * of the size of the library.
+ */
+public class SummaryCmd extends LibraryCommand {
+
+    /** Fractions of the books below the printed quantiles. */
+    private static final double[] QUANTILES = { 0, 0.25, 0.5, 0.75, 0.9, 0.99, 1 };
+    /** Names of the printed quantiles. */
+    private static final String[] QUANTILE_NAMES = { "min", "p25", "median", "p75", "p90", "p99", "max" };
+
+    /**
+     * Create a summary command.
+     *
+     * @param argumentInput argument input is expected to be blank.
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public SummaryCmd(String argumentInput) {
+        super(CommandType.SUMMARY, argumentInput);
+    }
+
+    /**
+     * Execute the summary command. This prints the number of books, the
+     * estimated numbers of distinct authors and titles and the estimated
+     * quantiles of the ratings and page counts.
+     *
+     * @param data book data to be considered for command execution.
+     * @throws NullPointerException if the given data is null
+     */
+    @Override
+    public void execute(LibraryData data) {
+        Objects.requireNonNull(data, "Given data must not be null.");
+
+        printSummary(data.getSummary());
+    }
+
+    /**
+     * Ask every worker for the summary of its books and print them merged.
+     *
+     * @param cluster coordinator connected to the workers holding the book data
+     * @throws IOException if communicating with a worker fails
+     */
+    @Override
+    public void executeOnCluster(ClusterCoordinator cluster) throws IOException {
+        LibrarySummary summary = new LibrarySummary();
+        List<DataInputStream> replies = cluster.broadcast(this);
+        for (DataInputStream reply : replies) {
+            summary.merge(LibrarySummary.readFrom(reply));
+        }
+        printSummary(summary);
+    }
+
+    /**
+     * Reply with the summary of the books held.
+     *
+     * @param worker worker holding part of the book data
+     * @param request empty payload
+     * @param reply receives the summary
+     * @throws IOException if writing the reply fails
+     */
+    @Override
+    void executeOnWorker(ClusterWorker worker, DataInputStream request, DataOutputStream reply) throws IOException {
+        worker.getData().getSummary().writeTo(reply);
+    }
+
+    /**
+     * Print the given summary, or that the library is empty.
+     * @param summary summary of all books of the library
+     */
+    private void printSummary(LibrarySummary summary) {
+        if (summary.getBookCount() == 0) {
+            System.out.println("The library has no book entries.");
+            return;
+        }
+
+        System.out.println("Summary of " + summary.getBookCount() + " books (approximate):");
+        System.out.println("  distinct authors: " + summary.estimateDistinctAuthors());
+        System.out.println("  distinct titles: " + summary.estimateDistinctTitles());
+
+        StringBuilder ratings = new StringBuilder("  rating:");
+        StringBuilder pages = new StringBuilder("  pages:");
+        for (int i = 0; i < QUANTILES.length; i++) {
+            String separator = i == 0 ? " " : ", ";
+            ratings.append(separator).append(QUANTILE_NAMES[i]).append(' ')
+                    .append(String.format("%.2f", summary.ratingQuantile(QUANTILES[i])));
+            pages.append(separator).append(QUANTILE_NAMES[i]).append(' ')
+                    .append(Math.round(summary.pagesQuantile(QUANTILES[i])));
+        }
+        System.out.println(ratings);
+        System.out.println(pages);
+    }
+
+    /**
+     * The output only depends on the book data, so it may be cached.
+     *
+     * @return command type
+     */
+    @Override
+    public String cacheKey() {
+        return getType().toString();
+    }
+
+    /**
+     * Checks that no arguments have been given.
+     *
+     * @param argumentInput argument input for summary command
+     * @return true if the argument input is blank
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+
+        return argumentInput.isBlank();
+    }
+}
@@ -0,0 +1,85 @@
+import java.util.Objects;
+
+/**
+ * Top authors command used to print the authors credited most often in the
+ * book data files added, both over all files and in the file added last.
+ *
+ * The authors are counted while the files are parsed, with a fixed number of
+ * counters (see SpaceSaving), so counting needs neither a map of all authors
+ * nor a second pass over the book data. Counts are upper bounds; where an
+ * author may have been counted too often, the guaranteed count is printed too.
+ */
+public class TopAuthorsCmd extends LibraryCommand {
+
+    /** Number of authors to print, initialised in the parseArguments method (0 if the argument is invalid). */
+    private int authorCount;
+
+    /**
+     * Create a top authors command.
+     *
+     * @param argumentInput argument input is expected to be a positive number of authors.
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public TopAuthorsCmd(String argumentInput) {
+        super(CommandType.TOPAUTHORS, argumentInput);
+    }
+
+    /**
+     * Execute the top authors command. This prints the most frequent authors of
+     * all book data files added and of the file added last, with the number of
+     * their books.
+     *
+     * @param data book data to be considered for command execution.
+     * @throws NullPointerException if the given data is null
+     */
+    @Override
+    public void execute(LibraryData data) {
+        Objects.requireNonNull(data, "Given data must not be null.");
+
+        SpaceSaving lastAdded = data.getLastAddedAuthors();
+        if (lastAdded == null) {
+            System.out.println("No book data files have been added yet.");
+            return;
+        }
+
+        printTop("all added books", data.getAddedAuthors());
+        printTop("the last added file", lastAdded);
+    }
+
+    /**
+     * Print the most frequent authors of the given summary.
+     *
+     * @param source description of the books counted
+     * @param authors heavy hitter summary of their authors
+     */
+    private void printTop(String source, SpaceSaving authors) {
+        System.out.println("Top " + authorCount + " authors of " + source + " (" + authors.getStreamLength()
+                + " author credits):");
+        for (SpaceSaving.Counter author : authors.top(authorCount)) {
+            String guaranteed = author.getGuaranteedCount() == author.getCount()
+                    ? "" : " (at least " + author.getGuaranteedCount() + ")";
+            System.out.println("  " + author.getItem() + ": " + author.getCount() + " books" + guaranteed);
+        }
+    }
+
+    /**
+     * Remembers the number of authors to print in the authorCount field.
+     *
+     * @param argumentInput argument input for top authors command
+     * @return true if the argument is a positive number
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+
+        try {
+            authorCount = Math.max(0, Integer.parseInt(argumentInput.trim()));
+        } catch (NumberFormatException e) {
+            authorCount = 0;
+        }
+
+        return authorCount > 0;
+    }
+}
@@ -0,0 +1,251 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+
+/**
+ * Writes text and numbers as UTF-8 to a channel through a single reusable
+ * direct buffer, without creating Strings or byte arrays for what is written.
+ *
+ * Characters are encoded by hand, so no CharsetEncoder state or intermediate
+ * char buffer is needed. Unpaired surrogates are written as '?', like
+ * String.getBytes does. The buffer is only handed to the channel when it is
+ * full or the writer is flushed, so a file is written in large blocks.
+ */
+final class Utf8ChannelWriter implements AutoCloseable {
+
+    /** Size of the direct buffer. */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /** Maximum number of bytes a single code point is encoded to. */
+    private static final int MAX_BYTES_PER_CODE_POINT = 4;
+    /** Hexadecimal digits for escaping control characters. */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    /** Scratch array the digits of an int are collected in, in reverse order. */
+    private final byte[] digits;
+
+    /**
+     * Create a writer for the given channel.
+     *
+     * @param channel channel to write to, closed when the writer is closed
+     * @throws NullPointerException if the given channel is null
+     */
+    public Utf8ChannelWriter(WritableByteChannel channel) {
+        this.channel = Objects.requireNonNull(channel, "Given channel must not be null.");
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        digits = new byte[11];
+    }
+
+    /**
+     * Write a single ASCII character.
+     *
+     * @param c character below 0x80
+     * @return this writer
+     * @throws IOException if writing to the channel fails
+     */
+    public Utf8ChannelWriter writeAscii(char c) throws IOException {
+        ensureRemaining(1);
+        buffer.put((byte) c);
+        return this;
+    }
+
+    /**
+     * Write the given text unchanged.
+     *
+     * @param text text to be written
+     * @return this writer
+     * @throws IOException if writing to the channel fails
+     */
+    public Utf8ChannelWriter write(CharSequence text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            i = writeCodePoint(text, i);
+        }
+        return this;
+    }
+
+    /**
+     * Write the given text as a CSV field, enclosed in double quotes if it
+     * contains commas, quotes or line breaks, with quotes escaped by doubling them.
+     *
+     * @param text field content
+     * @return this writer
+     * @throws IOException if writing to the channel fails
+     */
+    public Utf8ChannelWriter writeCsvField(CharSequence text) throws IOException {
+        if (!needsCsvQuotes(text)) {
+            return write(text);
+        }
+
+        writeAscii('"');
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                writeAscii('"');
+            }
+            i = writeCodePoint(text, i);
+        }
+        return writeAscii('"');
+    }
+
+    /**
+     * Check if the given text has to be enclosed in quotes as a CSV field.
+     *
+     * @param text field content
+     * @return true if the text contains commas, quotes or line breaks
+     */
+    public static boolean needsCsvQuotes(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Write the given text as a JSON string, enclosed in double quotes and
+     * with quotes, backslashes and control characters escaped.
+     *
+     * @param text string content
+     * @return this writer
+     * @throws IOException if writing to the channel fails
+     */
+    public Utf8ChannelWriter writeJsonString(CharSequence text) throws IOException {
+        writeAscii('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                writeAscii('\\').writeAscii(c);
+            } else if (c == '\n') {
+                writeAscii('\\').writeAscii('n');
+            } else if (c == '\r') {
+                writeAscii('\\').writeAscii('r');
+            } else if (c == '\t') {
+                writeAscii('\\').writeAscii('t');
+            } else if (c < 0x20) {
+                writeAscii('\\').writeAscii('u').writeAscii('0').writeAscii('0')
+                        .writeAscii(HEX_DIGITS[c >> 4]).writeAscii(HEX_DIGITS[c & 0xf]);
+            } else {
+                i = writeCodePoint(text, i);
+            }
+        }
+        return writeAscii('"');
+    }
+
+    /**
+     * Write the given integer in decimal notation.
+     *
+     * @param value integer to be written
+     * @return this writer
+     * @throws IOException if writing to the channel fails
+     */
+    public Utf8ChannelWriter writeInt(int value) throws IOException {
+        ensureRemaining(digits.length);
+        long remaining = value;
+        if (remaining < 0) {
+            buffer.put((byte) '-');
+            remaining = -remaining;
+        }
+
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+        while (count > 0) {
+            buffer.put(digits[--count]);
+        }
+        return this;
+    }
+
+    /**
+     * Write the given rating with as few decimals as needed to parse it back
+     * to the same float. Ratings with up to two decimals, as found in book data
+     * files, are written without creating a String.
+     *
+     * @param rating rating to be written
+     * @return this writer
+     * @throws IOException if writing to the channel fails
+     */
+    public Utf8ChannelWriter writeRating(float rating) throws IOException {
+        long hundredths = Math.round(rating * 100.0);
+        if (rating < 0 || hundredths > Integer.MAX_VALUE || hundredths / 100f != rating) {
+            return write(Float.toString(rating));
+        }
+
+        writeInt((int) (hundredths / 100));
+        int decimals = (int) (hundredths % 100);
+        if (decimals != 0) {
+            writeAscii('.').writeAscii((char) ('0' + decimals / 10));
+            if (decimals % 10 != 0) {
+                writeAscii((char) ('0' + decimals % 10));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Write all buffered bytes to the channel.
+     *
+     * @throws IOException if writing to the channel fails
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Flush the buffered bytes and close the channel.
+     *
+     * @throws IOException if writing to or closing the channel fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Encode the code point starting at the given index.
+     *
+     * @return index of the last char of the code point
+     */
+    private int writeCodePoint(CharSequence text, int idx) throws IOException {
+        ensureRemaining(MAX_BYTES_PER_CODE_POINT);
+        char c = text.charAt(idx);
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xc0 | c >> 6));
+            buffer.put((byte) (0x80 | c & 0x3f));
+        } else if (!Character.isSurrogate(c)) {
+            buffer.put((byte) (0xe0 | c >> 12));
+            buffer.put((byte) (0x80 | c >> 6 & 0x3f));
+            buffer.put((byte) (0x80 | c & 0x3f));
+        } else if (Character.isHighSurrogate(c) && idx + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(idx + 1))) {
+            int codePoint = Character.toCodePoint(c, text.charAt(++idx));
+            buffer.put((byte) (0xf0 | codePoint >> 18));
+            buffer.put((byte) (0x80 | codePoint >> 12 & 0x3f));
+            buffer.put((byte) (0x80 | codePoint >> 6 & 0x3f));
+            buffer.put((byte) (0x80 | codePoint & 0x3f));
+        } else {
+            buffer.put((byte) '?');
+        }
+        return idx;
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
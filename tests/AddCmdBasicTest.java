@@ -1,14 +1,30 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class AddCmdBasicTest extends CommandTest {
 
     private static final String TEST_PATH = "booksTestData01.csv";
+    private static final String LENIENT_OPTION = "--lenient";
+    private static final String WATCH_OPTION = "--watch";
+    private static final String UNWATCH_OPTION = "--unwatch";
+    private static final String HEADER = CommandTestUtils.DATA_HEADER + "\n";
 
     @Override
     protected CommandType getCmdType() {
@@ -33,14 +49,25 @@ public class AddCmdBasicTest extends CommandTest {
         CommandTestUtils.checkArgumentInput(testCommand, false, blankArg);
         String invalidPath = "notACsvfile.dat";
         CommandTestUtils.checkArgumentInput(testCommand, false, invalidPath);
+        invalidPath = "this/is/not/a/csv/file.txt.gz";
+        CommandTestUtils.checkArgumentInput(testCommand, false, invalidPath);
         invalidPath = "this/is/not/a/csv/file.txt";
         CommandTestUtils.checkArgumentInput(testCommand, false, invalidPath);
+        CommandTestUtils.checkArgumentInput(testCommand, false, LENIENT_OPTION);
+        CommandTestUtils.checkArgumentInput(testCommand, false, WATCH_OPTION + " books.csv.gz");
+        CommandTestUtils.checkArgumentInput(testCommand, false, UNWATCH_OPTION + " " + WATCH_OPTION + " " + TEST_PATH);
+        CommandTestUtils.checkArgumentInput(testCommand, false, LENIENT_OPTION + " " + UNWATCH_OPTION + " " + TEST_PATH);
     }
 
     @Test
     public void testParseArgumentsLegalArgument() {
         CommandTestUtils.checkArgumentInput(testCommand, true, TEST_PATH);
         CommandTestUtils.checkArgumentInput(testCommand, true, "this/is/some/test/path/for/books.csv");
+        CommandTestUtils.checkArgumentInput(testCommand, true, LENIENT_OPTION + " " + TEST_PATH);
+        CommandTestUtils.checkArgumentInput(testCommand, true, "this/is/some/test/path/for/books.csv.gz");
+        CommandTestUtils.checkArgumentInput(testCommand, true, WATCH_OPTION + " " + TEST_PATH);
+        CommandTestUtils.checkArgumentInput(testCommand, true, WATCH_OPTION + " " + LENIENT_OPTION + " " + TEST_PATH);
+        CommandTestUtils.checkArgumentInput(testCommand, true, UNWATCH_OPTION + " " + TEST_PATH);
     }
 
     // ------------------------- execute tests --------------------
@@ -65,4 +92,712 @@ public class AddCmdBasicTest extends CommandTest {
                     expectedBookValues.get(i));
         }
     }
+
+    @Test
+    public void testExecuteLoadDataTwice() {
+        testCommand.execute(testLibrary);
+        String output = CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+
+        int expectedBookAmount = 3;
+        assertEquals("Unexpected amount of books after loading a file twice.", expectedBookAmount,
+                testLibrary.getBookData().size());
+        assertTrue("Duplicates expected to be reported.", output.contains("Duplicate entry found for book"));
+        assertTrue("No books expected to be added again.", output.contains("0 new book entries added."));
+    }
+
+    @Test
+    public void testDuplicateFilterHasNoFalseNegatives() {
+        List<BookEntry> books = CommandTestUtils.generateBooks(5000);
+        EntryBloomFilter filter = new EntryBloomFilter(100);
+        for (BookEntry book : books) {
+            filter.add(book);
+        }
+        for (BookEntry book : books) {
+            assertTrue("Added entry reported absent by an overfull filter: " + book, filter.mightContain(book));
+        }
+
+        filter.remove(books.get(0));
+        assertTrue("Removed entry may still be reported present.", filter.mightContain(books.get(0)));
+        filter.add(books.get(0));
+        assertTrue("Re-added entry reported absent.", filter.mightContain(books.get(0)));
+    }
+
+    @Test
+    public void testDuplicateFilterAfterRemovalAndReAdd() {
+        testLibrary = new LibraryData();
+        List<BookEntry> books = CommandTestUtils.generateBooks(100);
+        assertTrue("No duplicates expected.", testLibrary.addEntries(books).isEmpty());
+
+        BookEntry removed = books.get(42);
+        assertEquals("Unexpected amount of removed books.", 1, testLibrary.removeEntries(removed::equals));
+        assertTrue("Removed entry expected to be added again.", testLibrary.addEntries(List.of(removed)).isEmpty());
+        assertEquals("Unexpected duplicates of a re-added entry.", List.of(removed),
+                testLibrary.addEntries(List.of(removed)));
+        assertEquals("Unexpected amount of books.", books.size(), testLibrary.getBookData().size());
+
+        EntryBloomFilter filter = getDuplicateFilter(testLibrary);
+        for (BookEntry book : books) {
+            assertTrue("Entry of the library reported absent: " + book, filter.mightContain(book));
+        }
+    }
+
+    @Test
+    public void testDuplicateFilterRebuiltLargerWhenFull() {
+        testLibrary = new LibraryData();
+        List<BookEntry> books = CommandTestUtils.generateBooks(6000);
+        testLibrary.addEntries(books.subList(0, 1000));
+        EntryBloomFilter small = getDuplicateFilter(testLibrary);
+        int smallCapacity = (int) FieldTestUtils.getPrivateField(small, EntryBloomFilter.class, "capacity");
+        assertTrue("Filter expected to hold some more entries.", small.canHold(smallCapacity - 1000));
+        assertFalse("Filter expected to be full after further entries.", small.canHold(smallCapacity - 1000 + 1));
+
+        testLibrary.addEntries(books.subList(1000, books.size()));
+        EntryBloomFilter rebuilt = getDuplicateFilter(testLibrary);
+        assertNotSame("Full filter expected to be rebuilt.", small, rebuilt);
+        int rebuiltCapacity = (int) FieldTestUtils.getPrivateField(rebuilt, EntryBloomFilter.class, "capacity");
+        assertTrue("Rebuilt filter expected to be larger: " + rebuiltCapacity, rebuiltCapacity > smallCapacity);
+        assertTrue("Rebuilt filter expected to hold all entries.", rebuiltCapacity >= books.size());
+        assertEquals("Unexpected amount of books.", books.size(), testLibrary.getBookData().size());
+        for (BookEntry book : books) {
+            assertTrue("Entry reported absent by the rebuilt filter: " + book, rebuilt.mightContain(book));
+        }
+    }
+
+    @Test
+    public void testFingerprintConsistentWithEquals() {
+        String[] authors = { "Author" };
+        BookEntry positiveZero = new BookEntry("Title", authors, 0.0f, "ISBN", 10);
+        BookEntry negativeZero = new BookEntry("Title", authors, -0.0f, "ISBN", 10);
+        BookEntry nan = new BookEntry("Title", authors, Float.NaN, "ISBN", 10);
+        BookEntry otherNan = new BookEntry("Title", authors, Float.intBitsToFloat(0x7fc00001), "ISBN", 10);
+
+        assertNotEquals("Entries rated 0.0 and -0.0 expected to differ.", positiveZero, negativeZero);
+        assertNotEquals("Unequal entries expected to have different fingerprints.",
+                EntryBloomFilter.fingerprint(positiveZero), EntryBloomFilter.fingerprint(negativeZero));
+        assertEquals("Entries rated NaN expected to be equal.", nan, otherNan);
+        assertEquals("Equal entries expected to have equal fingerprints.",
+                EntryBloomFilter.fingerprint(nan), EntryBloomFilter.fingerprint(otherNan));
+
+        testLibrary = new LibraryData();
+        assertTrue("No duplicates expected.", testLibrary.addEntries(List.of(positiveZero, nan)).isEmpty());
+        assertEquals("Only the entry with another NaN expected to be a duplicate.", List.of(otherNan),
+                testLibrary.addEntries(List.of(negativeZero, otherNan)));
+    }
+
+    @Test
+    public void testExecuteLoadDataOffHeap() {
+        testLibrary = new LibraryData(true);
+        testCommand.execute(testLibrary);
+        CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+
+        List<BookEntry> books = testLibrary.getBookData();
+        int expectedBookAmount = 2;
+        assertEquals("Unexpected amount of off-heap books after loading a file twice.", expectedBookAmount, books.size());
+
+        List<Object[]> expectedBookValues = new ArrayList<>();
+        expectedBookValues.add(
+                new Object[] { "The Changeling", new String[] { "Zilpha Keatley Snyder" }, 4.17f, "595321801", 228 });
+        expectedBookValues.add(
+                new Object[] { "Animal Farm", new String[] { "George Orwell" }, 3.91f, "452284244", 122 });
+
+        for (int i = 0; i < books.size(); i++) {
+            BookEntryTestUtils.checkBookFieldValues(books.get(i), BookEntryBasicTest.BOOK_ENTRY_FIELD_NAMES,
+                    expectedBookValues.get(i));
+        }
+    }
+
+    @Test
+    public void testOffHeapRecordsKeepFoldedTitle() {
+        OffHeapBookList books = new OffHeapBookList();
+        BookEntry mixedCase = new BookEntry("Animal Farm", new String[] { "George Orwell" }, 3.91f, "452284244", 122);
+        BookEntry lowerCase = new BookEntry("the changeling", new String[] { "Zilpha Keatley Snyder" }, 4.17f,
+                "595321801", 228);
+        BookEntry nonAscii = new BookEntry("\u00c9TUDES \u00dcber", new String[] { "Author" }, 2f, "123", 1);
+        books.add(mixedCase);
+        books.add(lowerCase);
+        books.add(nonAscii);
+
+        assertEquals("Unexpected folded title.", "animal farm", books.get(0).getFoldedTitle());
+        BookEntry decoded = books.get(1);
+        assertSame("Folded title of a lower case title expected to be the title.", decoded.getTitle(),
+                decoded.getFoldedTitle());
+        assertEquals("Unexpected folded title.", "\u00e9tudes \u00fcber", books.get(2).getFoldedTitle());
+
+        books.remove(0);
+        assertEquals("Records after a removed one expected to stay intact.", List.of(lowerCase, nonAscii), books);
+        assertTrue("Duplicate check expected to find a record after a removed one.", books.contains(nonAscii));
+        assertFalse("Removed record expected to be gone.", books.contains(mixedCase));
+    }
+
+    @Test
+    public void testExecuteLoadDataSharded() {
+        testLibrary = new LibraryData(4);
+        testCommand.execute(testLibrary);
+        String output = CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+        assertTrue("Duplicates expected to be reported.", output.contains("Duplicate entry found for book"));
+
+        List<BookEntry> books = testLibrary.getBookData();
+        int expectedBookAmount = 2;
+        assertEquals("Unexpected amount of sharded books after loading a file twice.", expectedBookAmount,
+                books.size());
+
+        List<Object[]> expectedBookValues = new ArrayList<>();
+        expectedBookValues.add(
+                new Object[] { "The Changeling", new String[] { "Zilpha Keatley Snyder" }, 4.17f, "595321801", 228 });
+        expectedBookValues.add(
+                new Object[] { "Animal Farm", new String[] { "George Orwell" }, 3.91f, "452284244", 122 });
+
+        for (int i = 0; i < books.size(); i++) {
+            BookEntryTestUtils.checkBookFieldValues(books.get(i), BookEntryBasicTest.BOOK_ENTRY_FIELD_NAMES,
+                    expectedBookValues.get(i));
+        }
+    }
+
+    @Test
+    public void testAddToDifferentShardsConcurrently() throws InterruptedException {
+        testLibrary = new LibraryData(2);
+        ShardedBookList books = (ShardedBookList) testLibrary.getBookData();
+        BookEntry lockedShardBook = bookInShard(0, 2);
+        BookEntry otherShardBook = bookInShard(1, 2);
+
+        Thread lockedShardWriter = new Thread(() -> testLibrary.addEntries(List.of(lockedShardBook)));
+        books.getShardLock(0).writeLock().lock();
+        try {
+            Thread otherShardWriter = new Thread(() -> testLibrary.addEntries(List.of(otherShardBook)));
+            otherShardWriter.start();
+            otherShardWriter.join(10_000);
+            assertFalse("Adding to another shard expected not to wait for the locked one.", otherShardWriter.isAlive());
+
+            lockedShardWriter.start();
+            lockedShardWriter.join(200);
+            assertTrue("Adding to the locked shard expected to wait.", lockedShardWriter.isAlive());
+        } finally {
+            books.getShardLock(0).writeLock().unlock();
+        }
+        lockedShardWriter.join(10_000);
+
+        assertEquals("Unexpected books after adding to both shards.", List.of(otherShardBook, lockedShardBook), books);
+        assertEquals("Book added to the locked shard expected to be found by ISBN.", List.of(lockedShardBook),
+                testLibrary.getIsbnIndex().lookup(lockedShardBook.getISBN()));
+    }
+
+    @Test
+    public void testExecuteLoadDataMapped() {
+        testLibrary = LibraryData.createMapped();
+        String output = CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+        assertTrue("Mapped books expected to be reported.", output.contains("2 new book entries added."));
+
+        List<BookEntry> books = testLibrary.getBookData();
+        assertEquals("Unexpected amount of mapped books.", 2, books.size());
+
+        List<Object[]> expectedBookValues = new ArrayList<>();
+        expectedBookValues.add(
+                new Object[] { "The Changeling", new String[] { "Zilpha Keatley Snyder" }, 4.17f, "595321801", 228 });
+        expectedBookValues.add(
+                new Object[] { "Animal Farm", new String[] { "George Orwell" }, 3.91f, "452284244", 122 });
+
+        for (int i = 0; i < books.size(); i++) {
+            BookEntryTestUtils.checkBookFieldValues(books.get(i), BookEntryBasicTest.BOOK_ENTRY_FIELD_NAMES,
+                    expectedBookValues.get(i));
+        }
+    }
+
+    @Test
+    public void testExecuteLoadDataMappedMatchesParsed() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        try {
+            Files.writeString(bookFile, HEADER
+                    + "\"Title, with comma\",AuthorB-AuthorC,4.1,ISBNB,100\r\n"
+                    + "\n"
+                    + "\"Title\nOn two lines\",\"Author \"\"D\"\"\",3.9,ISBND,200\r\n"
+                    + "Caf\u00e9,AuthorE,4.0,ISBNE,300");
+            testCommand = new AddCmd(bookFile.toString());
+            CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+            LibraryData mappedLibrary = LibraryData.createMapped();
+            mappedLibrary.getBookData().add(new BookEntry("TitleA", new String[] { "AuthorA" }, 3.2f, "ISBNA", 500));
+            CommandTestUtils.captureExecuteStdOutput(testCommand, mappedLibrary);
+
+            assertEquals("Mapped books should equal parsed books.", testLibrary.getBookData(),
+                    mappedLibrary.getBookData());
+            assertEquals("Mapped books should be listed like parsed books.",
+                    CommandTestUtils.captureExecuteStdOutput(new ListCmd("long"), testLibrary),
+                    CommandTestUtils.captureExecuteStdOutput(new ListCmd("long"), mappedLibrary));
+
+            assertTrue("Mapped book should be removed.", mappedLibrary.removeFirstEntry(
+                    entry -> entry.getISBN().equals("ISBND")));
+            assertEquals("Unexpected amount of mapped books after removal.", 3, mappedLibrary.getBookData().size());
+            assertEquals("Unexpected book after removed one.", "Caf\u00e9", mappedLibrary.getBookData().get(2).getTitle());
+        } finally {
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    @Test
+    public void testExecuteLenientLoadDataMapped() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        Path rejectFile = bookFile.resolveSibling(bookFile.getFileName() + ".rejects");
+        try {
+            Files.write(bookFile, List.of(
+                    "title,authors,average_rating,isbn,# num_pages",
+                    "The Changeling,Zilpha Keatley Snyder,4.17,595321801,228",
+                    "Too Short,Some Author,3.5",
+                    "Animal Farm,George Orwell,3.91,452284244,122"));
+            testLibrary = LibraryData.createMapped();
+
+            CommandTestUtils.captureExecuteStdOutput(new AddCmd(bookFile.toString()), testLibrary);
+            assertEquals("No books expected to be mapped from an invalid file.", 0, testLibrary.getBookData().size());
+
+            CommandTestUtils.captureExecuteStdOutput(new AddCmd(LENIENT_OPTION + " " + bookFile), testLibrary);
+            assertEquals("Unexpected amount of books after lenient mapping.", 2, testLibrary.getBookData().size());
+            assertEquals("Unexpected book after rejected record.", "Animal Farm",
+                    testLibrary.getBookData().get(1).getTitle());
+
+            List<String> rejects = Files.readAllLines(rejectFile);
+            assertEquals("Unexpected rejected records.",
+                    List.of("3\tBook record has too few fields.\tToo Short,Some Author,3.5"), rejects);
+        } finally {
+            Files.deleteIfExists(bookFile);
+            Files.deleteIfExists(rejectFile);
+        }
+    }
+
+    @Test
+    public void testExecuteLoadDataMappedRejectsInvalidNumbers() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        Path rejectFile = bookFile.resolveSibling(bookFile.getFileName() + ".rejects");
+        try {
+            Files.write(bookFile, List.of(
+                    "title,authors,average_rating,isbn,# num_pages",
+                    "The Changeling,Zilpha Keatley Snyder,4.17,595321801,228",
+                    "Broken Rating,Some Author,not a number,123,100",
+                    "Too High,Some Author,7.5,124,100",
+                    "Broken Pages,Some Author,3.5,125,many",
+                    "Animal Farm,George Orwell,3.91,452284244,122"));
+            testLibrary = LibraryData.createMapped();
+
+            CommandTestUtils.captureExecuteStdOutput(new AddCmd(bookFile.toString()), testLibrary);
+            assertEquals("No books expected to be mapped from an invalid file.", 0, testLibrary.getBookData().size());
+
+            CommandTestUtils.captureExecuteStdOutput(new AddCmd(LENIENT_OPTION + " " + bookFile), testLibrary);
+            assertEquals("Unexpected amount of books after lenient mapping.", 2, testLibrary.getBookData().size());
+            assertTrue("Mapped books should be listed without failing.",
+                    CommandTestUtils.captureExecuteStdOutput(new ListCmd("short"), testLibrary).contains("Animal Farm"));
+
+            List<String> rejects = Files.readAllLines(rejectFile);
+            assertEquals("Unexpected amount of rejected records.", 3, rejects.size());
+            assertTrue("Rejected record should name its line.", rejects.get(2).startsWith("5\t"));
+        } finally {
+            Files.deleteIfExists(bookFile);
+            Files.deleteIfExists(rejectFile);
+        }
+    }
+
+    @Test
+    public void testExecuteLoadDataMappedSkipsDuplicates() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        try {
+            Files.writeString(bookFile, HEADER
+                    + "TitleB,AuthorB,4.1,ISBNB,100\n"
+                    + "TitleB,AuthorB,4.1,ISBNB,100\n"
+                    + "TitleC,AuthorC,3.9,ISBNB,200\n"
+                    + "TitleA,AuthorA,3.2,ISBNA,500\n");
+            testLibrary = LibraryData.createMapped();
+            testLibrary.getBookData().add(new BookEntry("TitleA", new String[] { "AuthorA" }, 3.2f, "ISBNA", 500));
+
+            String output = CommandTestUtils.captureExecuteStdOutput(new AddCmd(bookFile.toString()), testLibrary);
+            assertTrue("Added books should be reported.", output.contains("2 new book entries added."));
+            assertTrue("Duplicates should be reported.", output.contains("Duplicate entry found for book: TitleB"));
+            assertEquals("Unexpected amount of books after mapping.", 3, testLibrary.getBookData().size());
+
+            output = CommandTestUtils.captureExecuteStdOutput(new AddCmd(bookFile.toString()), testLibrary);
+            assertTrue("No books should be added twice.", output.contains("0 new book entries added."));
+            assertEquals("Unexpected amount of books after mapping twice.", 3, testLibrary.getBookData().size());
+
+            testLibrary.getBookData().removeIf(entry -> entry.getTitle().equals("TitleB"));
+            CommandTestUtils.captureExecuteStdOutput(new AddCmd(bookFile.toString()), testLibrary);
+            assertEquals("Removed book should be mapped again.", 3, testLibrary.getBookData().size());
+            assertEquals("Unexpected book mapped again.", "TitleB", testLibrary.getBookData().get(2).getTitle());
+        } finally {
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    @Test
+    public void testExecuteLoadDataMappedCompressed() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv.gz");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(bookFile))) {
+                out.write((HEADER + "TitleB,AuthorB,4.1,ISBNB,100\n").getBytes(StandardCharsets.UTF_8));
+            }
+            testLibrary = LibraryData.createMapped();
+
+            CommandTestUtils.captureExecuteStdOutput(new AddCmd(bookFile.toString()), testLibrary);
+            assertEquals("Compressed file should be loaded as usual.", 1, testLibrary.getBookData().size());
+            assertEquals("Unexpected book from compressed file.", "TitleB",
+                    testLibrary.getBookData().get(0).getTitle());
+        } finally {
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    @Test
+    public void testExecuteLenientLoadData() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        Path rejectFile = bookFile.resolveSibling(bookFile.getFileName() + ".rejects");
+        try {
+            Files.write(bookFile, List.of(
+                    "title,authors,average_rating,isbn,# num_pages",
+                    "The Changeling,Zilpha Keatley Snyder,4.17,595321801,228",
+                    "Broken Rating,Some Author,not a number,123,100",
+                    "Too High,Some Author,7.5,124,100",
+                    "Animal Farm,George Orwell,3.91,452284244,122"));
+
+            testCommand = new AddCmd(LENIENT_OPTION + " " + bookFile);
+            CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+
+            assertEquals("Unexpected amount of books in library after lenient loading.", 3,
+                    testLibrary.getBookData().size());
+
+            List<String> rejects = Files.readAllLines(rejectFile);
+            assertEquals("Unexpected amount of rejected records.", 2, rejects.size());
+            assertTrue("Reject should start with line number.", rejects.get(0).startsWith("3\t"));
+            assertTrue("Reject should start with line number.", rejects.get(1).startsWith("4\t"));
+            assertTrue("Reject should contain the record.", rejects.get(1).endsWith("Too High,Some Author,7.5,124,100"));
+        } finally {
+            Files.deleteIfExists(bookFile);
+            Files.deleteIfExists(rejectFile);
+        }
+    }
+
+    @Test
+    public void testExecuteLenientLoadDataDeletesStaleRejects() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        Path rejectFile = bookFile.resolveSibling(bookFile.getFileName() + ".rejects");
+        try {
+            Files.write(bookFile, List.of(
+                    "title,authors,average_rating,isbn,# num_pages",
+                    "Too High,Some Author,7.5,124,100"));
+            CommandTestUtils.captureExecuteStdOutput(new AddCmd(LENIENT_OPTION + " " + bookFile), testLibrary);
+            assertTrue("Reject file expected after lenient loading of an invalid record.", Files.exists(rejectFile));
+
+            Files.write(bookFile, List.of(
+                    "title,authors,average_rating,isbn,# num_pages",
+                    "Animal Farm,George Orwell,3.91,452284244,122"));
+            CommandTestUtils.captureExecuteStdOutput(new AddCmd(LENIENT_OPTION + " " + bookFile), testLibrary);
+            assertFalse("Reject file should be deleted after lenient loading without invalid records.",
+                    Files.exists(rejectFile));
+        } finally {
+            Files.deleteIfExists(bookFile);
+            Files.deleteIfExists(rejectFile);
+        }
+    }
+
+    @Test
+    public void testExecuteLenientLoadDataMappedDeletesStaleRejects() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        Path rejectFile = bookFile.resolveSibling(bookFile.getFileName() + ".rejects");
+        try {
+            Files.write(rejectFile, List.of("3\tBook record has too few fields.\tToo Short,Some Author,3.5"));
+            Files.write(bookFile, List.of(
+                    "title,authors,average_rating,isbn,# num_pages",
+                    "Animal Farm,George Orwell,3.91,452284244,122"));
+            testLibrary = LibraryData.createMapped();
+
+            CommandTestUtils.captureExecuteStdOutput(new AddCmd(LENIENT_OPTION + " " + bookFile), testLibrary);
+            assertEquals("Unexpected amount of books after lenient mapping.", 1, testLibrary.getBookData().size());
+            assertFalse("Reject file should be deleted after lenient mapping without invalid records.",
+                    Files.exists(rejectFile));
+        } finally {
+            Files.deleteIfExists(bookFile);
+            Files.deleteIfExists(rejectFile);
+        }
+    }
+
+    @Test
+    public void testExecuteStrictLoadDataInvalidRecord() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        try {
+            Files.write(bookFile, List.of(
+                    "title,authors,average_rating,isbn,# num_pages",
+                    "The Changeling,Zilpha Keatley Snyder,4.17,595321801,228",
+                    "Too High,Some Author,7.5,124,100"));
+
+            testCommand = new AddCmd(bookFile.toString());
+            CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+
+            assertEquals("No books expected to be added from an invalid file.", 1, testLibrary.getBookData().size());
+        } finally {
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    @Test
+    public void testWatcherAddsAppendedRecords() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        try {
+            Files.writeString(bookFile, HEADER + "TitleB,AuthorB,4.1,ISBNB,100\n");
+            LibraryFileWatcher watcher = new LibraryFileWatcher(testLibrary, bookFile, false);
+            pollWatcher(watcher);
+            assertEquals("Unexpected amount of books after first poll.", 2, testLibrary.getBookData().size());
+
+            appendToFile(bookFile, "TitleC,AuthorC,3.9,ISBNC,200\nTitleD,Auth");
+            pollWatcher(watcher);
+            assertEquals("Incomplete record should not be added.", 3, testLibrary.getBookData().size());
+
+            appendToFile(bookFile, "orD,4.0,ISBND,300\n\"Title\nE\",AuthorE,4.2,ISBNE,400");
+            pollWatcher(watcher);
+            assertEquals("Completed record should be added.", 4, testLibrary.getBookData().size());
+            assertEquals("Unexpected author of completed record.", "AuthorD",
+                    testLibrary.getBookData().get(3).getAuthors()[0]);
+
+            appendToFile(bookFile, "\r\n");
+            pollWatcher(watcher);
+            assertEquals("Record with line break in title should be added.", "Title\nE",
+                    testLibrary.getBookData().get(4).getTitle());
+        } finally {
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    @Test
+    public void testWatcherRereadsTruncatedFile() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        try {
+            Files.writeString(bookFile, HEADER + "TitleB,AuthorB,4.1,ISBNB,100\nTitleC,AuthorC,3.9,ISBNC,200\n");
+            LibraryFileWatcher watcher = new LibraryFileWatcher(testLibrary, bookFile, false);
+            pollWatcher(watcher);
+
+            Files.writeString(bookFile, HEADER + "TitleD,AuthorD,4.0,ISBND,300\n");
+            String output = pollWatcher(watcher);
+            assertTrue("Truncation should be reported.", output.contains("truncated or replaced"));
+            assertEquals("Unexpected amount of books after truncation.", 4, testLibrary.getBookData().size());
+        } finally {
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    @Test
+    public void testWatcherWaitsForLineBreakOfLastRecord() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        try {
+            Files.writeString(bookFile, HEADER + "TitleB,AuthorB,4.1,ISBNB,100\nTitleC,AuthorC,3.9,ISBNC,40");
+            LibraryFileWatcher watcher = new LibraryFileWatcher(testLibrary, bookFile, false);
+            pollWatcher(watcher);
+            assertEquals("Last record without line break should not be added by the first poll.", 2,
+                    testLibrary.getBookData().size());
+
+            appendToFile(bookFile, "8\nTitleD,AuthorD,4.0,ISBND,300\n");
+            pollWatcher(watcher);
+            assertEquals("Completed records should be added.", 4, testLibrary.getBookData().size());
+            assertEquals("Completed record should have all its pages.", 408,
+                    testLibrary.getBookData().get(2).getPages());
+        } finally {
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    @Test
+    public void testWatcherKeepsRejectsOfEarlierRecords() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        Path rejectFile = bookFile.resolveSibling(bookFile.getFileName() + ".rejects");
+        try {
+            Files.writeString(bookFile, HEADER + "TitleB,AuthorB,7.5,ISBNB,100\n");
+            LibraryFileWatcher watcher = new LibraryFileWatcher(testLibrary, bookFile, true);
+            pollWatcher(watcher);
+            assertTrue("Reject file expected after reading an invalid record.", Files.exists(rejectFile));
+
+            appendToFile(bookFile, "TitleC,AuthorC,3.9,ISBNC,200\n");
+            pollWatcher(watcher);
+            assertTrue("Appended valid records should keep the reject file.", Files.exists(rejectFile));
+
+            Files.writeString(bookFile, HEADER + "TitleD,AuthorD,4.0,ISBND,300\n");
+            pollWatcher(watcher);
+            assertFalse("Reading the file again without invalid records should delete the reject file.",
+                    Files.exists(rejectFile));
+        } finally {
+            Files.deleteIfExists(bookFile);
+            Files.deleteIfExists(rejectFile);
+        }
+    }
+
+    @Test
+    public void testWatcherWaitsForLineBreakAfterTruncation() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        try {
+            Files.writeString(bookFile, HEADER + "TitleB,AuthorB,4.1,ISBNB,100\nTitleC,AuthorC,3.9,ISBNC,200\n");
+            LibraryFileWatcher watcher = new LibraryFileWatcher(testLibrary, bookFile, false);
+            pollWatcher(watcher);
+
+            Files.writeString(bookFile, HEADER + "TitleD,AuthorD,4.0,ISBND,30");
+            pollWatcher(watcher);
+            assertEquals("Record without line break should not be added after truncation.", 3,
+                    testLibrary.getBookData().size());
+
+            appendToFile(bookFile, "0\n");
+            pollWatcher(watcher);
+            assertEquals("Completed record should be added once.", 4, testLibrary.getBookData().size());
+            assertEquals("Completed record should have all its pages.", 300,
+                    testLibrary.getBookData().get(3).getPages());
+        } finally {
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    @Test
+    public void testWatcherSkipsUnbalancedQuote() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        Path rejectFile = bookFile.resolveSibling(bookFile.getFileName() + ".rejects");
+        try {
+            Files.writeString(bookFile, HEADER);
+            LibraryFileWatcher watcher = new LibraryFileWatcher(testLibrary, bookFile, true);
+            pollWatcher(watcher);
+
+            StringBuilder appended = new StringBuilder("\"Stray,AuthorB,4.1,ISBNB,100\n");
+            for (int i = 0; i < LibraryFileLoader.MAX_RECORD_LINES; i++) {
+                appended.append("Title").append(i).append(",AuthorC,3.9,ISBN").append(i).append(",200\n");
+            }
+            appendToFile(bookFile, appended.toString());
+            pollWatcher(watcher);
+            assertEquals("Records after an unbalanced quote should be added.",
+                    1 + LibraryFileLoader.MAX_RECORD_LINES, testLibrary.getBookData().size());
+        } finally {
+            Files.deleteIfExists(bookFile);
+            Files.deleteIfExists(rejectFile);
+        }
+    }
+
+    @Test
+    public void testExecuteWatchAddsAppendedRecords() throws IOException, InterruptedException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        try {
+            Files.writeString(bookFile, HEADER + "TitleB,AuthorB,4.1,ISBNB,100\n");
+            testCommand = new AddCmd(WATCH_OPTION + " " + bookFile);
+            CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+            assertEquals("Existing records should be added right away.", 2, testLibrary.getBookData().size());
+
+            appendToFile(bookFile, "TitleC,AuthorC,3.9,ISBNC,200\n");
+            assertEquals("Appended record should be added in the background.", 3, awaitBookCount(3));
+        } finally {
+            CommandTestUtils.captureExecuteStdOutput(new AddCmd(UNWATCH_OPTION + " " + bookFile), testLibrary);
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    @Test
+    public void testExecuteWatchAddsRecordWrittenInTwoParts() throws IOException, InterruptedException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        try {
+            Files.writeString(bookFile, HEADER + "TitleB,AuthorB,4.1,ISBNB,100\n");
+            CommandTestUtils.captureExecuteStdOutput(new AddCmd(WATCH_OPTION + " " + bookFile), testLibrary);
+
+            appendToFile(bookFile, "TitleC,AuthorC,3.9,8484497291,40");
+            Thread.sleep(200);
+            synchronized (testLibrary) {
+                assertEquals("Half written record should not be added.", 2, testLibrary.getBookData().size());
+            }
+
+            appendToFile(bookFile, "8\n");
+            assertEquals("Completed record should be added in the background.", 3, awaitBookCount(3));
+            synchronized (testLibrary) {
+                assertEquals("Completed record should have all its pages.", 408,
+                        testLibrary.getBookData().get(2).getPages());
+            }
+            Thread.sleep(200);
+            synchronized (testLibrary) {
+                assertEquals("Completed record should be added once.", 3, testLibrary.getBookData().size());
+            }
+        } finally {
+            CommandTestUtils.captureExecuteStdOutput(new AddCmd(UNWATCH_OPTION + " " + bookFile), testLibrary);
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    @Test
+    public void testExecuteUnwatchStopsAddingRecords() throws IOException, InterruptedException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        try {
+            Files.writeString(bookFile, HEADER + "TitleB,AuthorB,4.1,ISBNB,100\n");
+            CommandTestUtils.captureExecuteStdOutput(new AddCmd(WATCH_OPTION + " " + bookFile), testLibrary);
+            String output = CommandTestUtils.captureExecuteStdOutput(new AddCmd(UNWATCH_OPTION + " " + bookFile),
+                    testLibrary);
+            assertTrue("Unwatching should be reported.", output.contains("Stopped watching file"));
+
+            appendToFile(bookFile, "TitleC,AuthorC,3.9,ISBNC,200\n");
+            Thread.sleep(200);
+            synchronized (testLibrary) {
+                assertEquals("No record should be added after unwatching.", 2, testLibrary.getBookData().size());
+            }
+
+            output = CommandTestUtils.captureExecuteStdOutput(new AddCmd(UNWATCH_OPTION + " " + bookFile),
+                    testLibrary);
+            assertTrue("Unwatching twice should be reported.", output.contains("File is not watched"));
+        } finally {
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    @Test
+    public void testWatcherThreadEndsWhenClosed() throws IOException, InterruptedException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        try {
+            Files.writeString(bookFile, HEADER);
+            LibraryFileWatcher watcher = new LibraryFileWatcher(testLibrary, bookFile, false);
+            assertTrue("Watcher should start.", watcher.start());
+            watcher.close();
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (watcher.isWatching() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertFalse("Watcher thread should end when closed.", watcher.isWatching());
+        } finally {
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    /** Create a book belonging to the given shard of a library with the given number of shards. */
+    private static BookEntry bookInShard(int shard, int shardCount) {
+        for (int i = 0; ; i++) {
+            BookEntry book = new BookEntry("Title" + i, new String[] { "Author" + i }, 3.5f, "ISBN" + i, 100);
+            if (ShardedBookList.shardIndex(book, shardCount) == shard) {
+                return book;
+            }
+        }
+    }
+
+    /** Wait until the test library holds the given number of books, or a timeout has passed. */
+    private int awaitBookCount(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        int size;
+        do {
+            Thread.sleep(20);
+            synchronized (testLibrary) {
+                size = testLibrary.getBookData().size();
+            }
+        } while (size < expected && System.currentTimeMillis() < deadline);
+        return size;
+    }
+
+    private static void appendToFile(Path file, String text) throws IOException {
+        Files.writeString(file, text, StandardOpenOption.APPEND);
+    }
+
+    private static String pollWatcher(LibraryFileWatcher watcher) {
+        StdStreamIntercept intercept = new StdStreamIntercept();
+        intercept.stdCaptureStart();
+        watcher.poll();
+        String output = intercept.getCapturedStdOut();
+        intercept.stdCaptureStop();
+        return output;
+    }
+
+
+    private static EntryBloomFilter getDuplicateFilter(LibraryData library) {
+        for (LibraryIndex index : library.getBuiltIndexes()) {
+            if (index instanceof EntryBloomFilter) {
+                return (EntryBloomFilter) index;
+            }
+        }
+        throw new AssertionError("Duplicate filter expected to be built.");
+    }
 }
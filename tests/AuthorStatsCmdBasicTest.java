@@ -0,0 +1,115 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class AuthorStatsCmdBasicTest extends AuthorStatsCmdTest {
+
+    // ------------------------- parseArguments tests --------------------
+
+    @Test
+    public void testParseArgumentsLegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, true, BLANK_ARGUMENT);
+        CommandTestUtils.checkArgumentInput(testCommand, true, "Leo Tolstoy");
+    }
+
+    // ------------------------- execute tests --------------------
+
+    @Test
+    public void testExecuteEmptyBookData() {
+        testLibrary = new LibraryData();
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, "The library has no book entries.");
+    }
+
+    @Test
+    public void testExecuteSingleAuthor() {
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary,
+                "Leo Tolstoy: 3 books, rating 4.13 on average (4.00 to 4.30), 2601 pages in total");
+    }
+
+    @Test
+    public void testExecuteUnknownAuthor() {
+        testCommand = new AuthorStatsCmd("Fyodor Dostoevsky");
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary,
+                "No books found for author: Fyodor Dostoevsky");
+    }
+
+    @Test
+    public void testExecuteAllAuthors() {
+        testCommand = new AuthorStatsCmd(BLANK_ARGUMENT);
+        String expectedConsoleOutput = "2 authors in library:\n"
+                + "Anton Chekhov: 2 books, rating 4.10 on average (3.90 to 4.30), 608 pages in total\n"
+                + "Leo Tolstoy: 3 books, rating 4.13 on average (4.00 to 4.30), 2601 pages in total";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+    }
+
+    @Test
+    public void testExecuteAfterRemoveUpdatedIncrementally() {
+        AuthorAggregates aggregates = testLibrary.getAuthorAggregates();
+        testLibrary.removeEntries(book -> book.getTitle().equals("Collected Stories"));
+
+        assertSame("Aggregates expected to be updated rather than rebuilt.", aggregates,
+                testLibrary.getAuthorAggregates());
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary,
+                "Leo Tolstoy: 2 books, rating 4.05 on average (4.00 to 4.10), 2089 pages in total");
+
+        testLibrary.removeEntries(book -> book.getTitle().equals("The Cherry Orchard"));
+        assertEquals("Author without books expected to be dropped.", 1, aggregates.getAuthorCount());
+    }
+
+    @Test
+    public void testExecuteAfterAddUpdatedIncrementally() {
+        AuthorAggregates aggregates = testLibrary.getAuthorAggregates();
+        testLibrary.addEntries(List.of(new BookEntry("Resurrection", new String[] { "Leo Tolstoy" }, 3.8f,
+                "ISBNH", 483)));
+
+        assertSame("Aggregates expected to be updated rather than rebuilt.", aggregates,
+                testLibrary.getAuthorAggregates());
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary,
+                "Leo Tolstoy: 4 books, rating 4.05 on average (3.80 to 4.30), 3084 pages in total");
+    }
+
+    @Test
+    public void testAggregatesMatchRecomputationAfterChanges() {
+        List<BookEntry> bookData = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String[] authors = i % 3 == 0
+                    ? new String[] { "Author " + i % 17, "Author " + i % 5 }
+                    : new String[] { "Author " + i % 17 };
+            bookData.add(new BookEntry("Title " + i, authors, (i * 37 % 501) / 100f, "ISBN" + i, 1 + i % 900));
+        }
+        FieldTestUtils.setPrivateField(testLibrary, testLibrary.getClass(), "books", bookData);
+        AuthorAggregates aggregates = testLibrary.getAuthorAggregates();
+        testLibrary.removeEntries(book -> book.getRating() > 4.5f || book.getPages() % 7 == 0);
+
+        AuthorAggregates recomputed = new AuthorAggregates();
+        for (BookEntry book : testLibrary.getBookData()) {
+            recomputed.add(book);
+        }
+        assertEquals("Incremental aggregates expected to match recomputed ones.",
+                recomputed.getAllStats().toString(), aggregates.getAllStats().toString());
+    }
+
+    @Test
+    public void testAggregatesOfShardsMatchRecomputation() {
+        testLibrary = new LibraryData(3);
+        for (int i = 0; i < 3000; i++) {
+            testLibrary.getBookData().add(new BookEntry("Title " + i, new String[] { "Author " + i % 17 },
+                    (i * 37 % 501) / 100f, "ISBN" + i, 1 + i % 900));
+        }
+        testLibrary.getAuthorAggregates();
+        testLibrary.removeEntries(book -> book.getRating() > 4.5f || book.getPages() % 7 == 0);
+        testLibrary.addEntries(List.of(new BookEntry("Resurrection", new String[] { "Author 3" }, 3.8f,
+                "ISBNH", 483)));
+
+        AuthorAggregates recomputed = new AuthorAggregates();
+        for (BookEntry book : testLibrary.getBookData()) {
+            recomputed.add(book);
+        }
+        assertEquals("Aggregates merged from the shards expected to match recomputed ones.",
+                recomputed.getAllStats().toString(), testLibrary.getAuthorAggregates().getAllStats().toString());
+    }
+}
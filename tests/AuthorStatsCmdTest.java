@@ -0,0 +1,26 @@
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class AuthorStatsCmdTest extends CommandTest {
+
+    @Override
+    protected CommandType getCmdType() {
+        return CommandType.AUTHORSTATS;
+    }
+
+    @Before
+    public void setup() {
+        testCommand = new AuthorStatsCmd("Leo Tolstoy");
+
+        testLibrary = new LibraryData();
+        List<BookEntry> bookData = new ArrayList<>();
+        bookData.add(new BookEntry("War and Peace", new String[] { "Leo Tolstoy" }, 4.1f, "ISBNA", 1225));
+        bookData.add(new BookEntry("Anna Karenina", new String[] { "Leo Tolstoy" }, 4.0f, "ISBNC", 864));
+        bookData.add(new BookEntry("Collected Stories", new String[] { "Leo Tolstoy", "Anton Chekhov" }, 4.3f,
+                "ISBNF", 512));
+        bookData.add(new BookEntry("The Cherry Orchard", new String[] { "Anton Chekhov" }, 3.9f, "ISBNG", 96));
+        FieldTestUtils.setPrivateField(testLibrary, testLibrary.getClass(), "books", bookData);
+    }
+}
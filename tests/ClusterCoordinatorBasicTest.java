@@ -0,0 +1,193 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ClusterCoordinatorBasicTest extends ClusterCoordinatorTest {
+
+    @Test
+    public void testParseAddress() {
+        assertEquals("Port expected on loopback interface.", 4711, ClusterProtocol.parseAddress("4711").getPort());
+        assertTrue("Port expected on loopback interface.",
+                ClusterProtocol.parseAddress("4711").getAddress().isLoopbackAddress());
+        assertEquals("Unexpected port.", 4712, ClusterProtocol.parseAddress("localhost:4712").getPort());
+        assertNull("Invalid port expected to be rejected.", ClusterProtocol.parseAddress("localhost:port"));
+        assertNull("Invalid port expected to be rejected.", ClusterProtocol.parseAddress("70000"));
+        assertNull("Missing host expected to be rejected.", ClusterProtocol.parseAddress(":4711"));
+    }
+
+    @Test
+    public void testExecuteAddSpreadsBooks() {
+        String output = checkSameOutput("ADD " + bookDataFile);
+        assertTrue("Duplicate expected to be reported.", output.contains("Duplicate entry found for book"));
+        assertTrue("Added books expected to be reported.", output.contains("300 new book entries added."));
+
+        int total = 0;
+        for (ClusterWorker worker : workers) {
+            int held = worker.getData().getBookData().size();
+            assertTrue("Every worker expected to hold part of the books.", held > 0 && held < 300);
+            total += held;
+        }
+        assertEquals("Every book expected to be held by exactly one worker.", 300, total);
+
+        output = checkSameOutput("ADD " + bookDataFile);
+        assertTrue("Books added again expected to be duplicates.", output.contains("0 new book entries added."));
+    }
+
+    @Test
+    public void testExecuteReadCommandsMatchLocalLibrary() {
+        checkSameOutput("LIST");
+        checkSameOutput("GROUP TITLE");
+        checkSameOutput("ADD " + bookDataFile);
+
+        checkSameOutput("LIST");
+        checkSameOutput("LIST long");
+        checkSameOutput("SEARCH book");
+        checkSameOutput("SEARCH ways");
+        checkSameOutput("SEARCH nothing");
+        checkSameOutput("GROUP TITLE");
+        checkSameOutput("GROUP AUTHOR");
+        checkSameOutput("AUTHORSTATS");
+        checkSameOutput("AUTHORSTATS Author 3");
+        checkSameOutput("AUTHORSTATS Nobody");
+    }
+
+    @Test
+    public void testExecuteRemoveMatchesLocalLibrary() {
+        checkSameOutput("ADD " + bookDataFile);
+
+        checkSameOutput("REMOVE TITLE Art of Book 10");
+        checkSameOutput("REMOVE TITLE Art of Book 10");
+        checkSameOutput("REMOVE TITLE Missing");
+        checkSameOutput("REMOVE AUTHOR Author 3");
+        checkSameOutput("REMOVE AUTHOR Author 3");
+
+        checkSameOutput("LIST");
+        checkSameOutput("GROUP AUTHOR");
+    }
+
+    @Test
+    public void testExecuteSummaryMergesWorkerSketches() {
+        checkSameOutput("ADD " + bookDataFile);
+
+        LibraryCommand command = new SummaryCmd("");
+        String[] localLines = CommandTestUtils.captureExecuteStdOutputLines(command, localLibrary);
+        String[] clusterLines = captureClusterOutput(command).split("\n");
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Book count and distinct counts expected to match.", localLines[i], clusterLines[i]);
+        }
+    }
+
+    @Test
+    public void testExecuteAfterReconnectKeepsOrder() throws IOException {
+        checkSameOutput("ADD " + bookDataFile);
+        coordinator.close();
+        coordinator = connect();
+
+        checkSameOutput("ADD books01.csv");
+        checkSameOutput("LIST");
+    }
+
+    @Test
+    public void testExecuteAddFromTwoCoordinatorsKeepsOrder() throws IOException {
+        ClusterCoordinator other = connect();
+        try {
+            checkSameOutput("ADD " + bookDataFile);
+            LibraryCommand command = new AddCmd("books01.csv");
+            CommandTestUtils.captureExecuteStdOutput(command, localLibrary);
+            StdStreamIntercept intercept = new StdStreamIntercept();
+            intercept.stdCaptureStart();
+            try {
+                other.execute(command);
+            } finally {
+                intercept.stdCaptureStop();
+            }
+
+            checkSameOutput("LIST");
+            checkSameOutput("REMOVE TITLE " + localLibrary.getBookData().get(0).getTitle());
+            checkSameOutput("LIST");
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    public void testExecuteAddLongTitle() throws IOException {
+        String title = "Long".repeat(20_000);
+        Files.write(bookDataFile, List.of(CommandTestUtils.DATA_HEADER, title + ",Author,3.5,ISBN1,100"));
+
+        checkSameOutput("ADD " + bookDataFile);
+        checkSameOutput("LIST long");
+        checkSameOutput("SEARCH " + title);
+        checkSameOutput("GROUP TITLE");
+    }
+
+    @Test
+    public void testExecuteAddMoreThanOneBatch() throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(CommandTestUtils.DATA_HEADER);
+        for (int i = 0; i < 2 * ClusterCoordinator.BATCH_SIZE + 10; i++) {
+            int book = i % (ClusterCoordinator.BATCH_SIZE + 5);
+            lines.add("Title " + book + ",Author " + book % 13 + ",3.5,ISBN" + book + "," + book);
+        }
+        Files.write(bookDataFile, lines);
+
+        String output = checkSameOutput("ADD " + bookDataFile);
+        assertTrue("Duplicates of earlier batches expected to be reported.",
+                output.contains((ClusterCoordinator.BATCH_SIZE + 5) + " new book entries added."));
+        checkSameOutput("LIST");
+    }
+
+    @Test
+    public void testExecuteReconnectsAfterFailure() {
+        checkSameOutput("ADD " + bookDataFile);
+
+        String errors = captureClusterErrors(new LibraryCommand(CommandType.LIST, "") {
+            @Override
+            public void execute(LibraryData data) {
+            }
+
+            @Override
+            public void executeOnCluster(ClusterCoordinator cluster) throws IOException {
+                throw new IOException("broken connection");
+            }
+
+            @Override
+            protected boolean parseArguments(String argumentInput) {
+                return true;
+            }
+        });
+        assertTrue("Failure expected to be reported.", errors.startsWith("ERROR: Cluster request failed"));
+
+        checkSameOutput("LIST");
+    }
+
+    @Test
+    public void testExecuteUnsupportedCommand() {
+        checkSameOutput("ADD " + bookDataFile);
+
+        String errors = captureClusterErrors(new CommandInterpreter().parseCommand("COMPLETE Ar"));
+        assertEquals("Unexpected error.", "ERROR: COMPLETE command is not supported in cluster mode.", errors.trim());
+        errors = captureClusterErrors(new SearchCmd("book AND art"));
+        assertEquals("Unexpected error.", "ERROR: Searching for several words is not supported in cluster mode.",
+                errors.trim());
+
+        checkSameOutput("LIST");
+    }
+
+    @Test(expected = IOException.class)
+    public void testConnectFailure() throws IOException {
+        ClusterWorker worker = startWorker();
+        InetSocketAddress address = worker.getAddress();
+        worker.close();
+
+        new ClusterCoordinator(List.of(address)).close();
+    }
+}
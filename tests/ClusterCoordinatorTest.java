@@ -0,0 +1,108 @@
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public abstract class ClusterCoordinatorTest {
+
+    protected static final int WORKER_COUNT = 3;
+
+    protected List<ClusterWorker> workers;
+    protected ClusterCoordinator coordinator;
+    /** Library holding the same book data as the cluster. */
+    protected LibraryData localLibrary;
+    protected Path bookDataFile;
+
+    @Before
+    public void setup() throws IOException {
+        workers = new ArrayList<>();
+        for (int i = 0; i < WORKER_COUNT; i++) {
+            workers.add(startWorker());
+        }
+        coordinator = connect();
+        localLibrary = new LibraryData();
+
+        List<String> lines = new ArrayList<>();
+        lines.add(CommandTestUtils.DATA_HEADER);
+        for (int i = 0; i < 300; i++) {
+            String title = (i % 7 == 0 ? i + " Ways" : (char) ('A' + (i * 11) % 26) + "rt of Book " + i % 50);
+            String authors = "Author " + i % 13 + (i % 5 == 0 ? "-Author " + i % 4 : "");
+            lines.add(title + "," + authors + "," + (i % 50) / 10f + ",ISBN" + i + "," + i);
+        }
+        lines.add(lines.get(5)); // duplicate entry
+        bookDataFile = Files.createTempFile("cluster", ".csv");
+        Files.write(bookDataFile, lines);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        coordinator.close();
+        for (ClusterWorker worker : workers) {
+            worker.close();
+        }
+        Files.deleteIfExists(bookDataFile);
+    }
+
+    protected static ClusterWorker startWorker() throws IOException {
+        ClusterWorker worker = new ClusterWorker(new LibraryData(),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        Thread thread = new Thread(worker::run);
+        thread.setDaemon(true);
+        thread.start();
+        return worker;
+    }
+
+    protected ClusterCoordinator connect() throws IOException {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (ClusterWorker worker : workers) {
+            addresses.add(worker.getAddress());
+        }
+        return new ClusterCoordinator(addresses);
+    }
+
+    /**
+     * Execute the given command input on the cluster and on the local library.
+     * @param inputLine command input
+     * @return output of the cluster, checked to be equal to the output of the local library
+     */
+    protected String checkSameOutput(String inputLine) {
+        LibraryCommand command = new CommandInterpreter().parseCommand(inputLine);
+        assertNotNull("Command expected to be valid: " + inputLine, command);
+
+        String localOutput = CommandTestUtils.captureExecuteStdOutput(command, localLibrary);
+        String clusterOutput = captureClusterOutput(command);
+        assertEquals("Cluster output expected to match local output for: " + inputLine, localOutput, clusterOutput);
+        return clusterOutput;
+    }
+
+    protected String captureClusterOutput(LibraryCommand command) {
+        StdStreamIntercept intercept = new StdStreamIntercept();
+        intercept.stdCaptureStart();
+        try {
+            coordinator.execute(command);
+            return intercept.getCapturedStdOut();
+        } finally {
+            intercept.stdCaptureStop();
+        }
+    }
+
+    protected String captureClusterErrors(LibraryCommand command) {
+        StdStreamIntercept intercept = new StdStreamIntercept();
+        intercept.stdCaptureStart();
+        try {
+            coordinator.execute(command);
+            return intercept.getCapturedStdErr();
+        } finally {
+            intercept.stdCaptureStop();
+        }
+    }
+}
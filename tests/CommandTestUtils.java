@@ -1,4 +1,6 @@
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 import static org.junit.Assert.*;
@@ -7,6 +9,17 @@ public final class CommandTestUtils {
 
     private static final String PARSE_ARGUMENTS_EXPECTED_SIGNATURE = "protected boolean %s.parseArguments(java.lang.String)";
 
+    /** Header line of book data files. */
+    public static final String DATA_HEADER = "title,authors,average_rating,isbn,# num_pages";
+    /** Author of every FREQUENT_AUTHOR_PERIOD-th generated book. */
+    public static final String FREQUENT_AUTHOR = "Frequent Author";
+    public static final int FREQUENT_AUTHOR_PERIOD = 4;
+    /** Word in the titles of about every eighth generated book. */
+    public static final String SEARCH_WORD = "castle";
+
+    private static final String[] TITLE_WORDS = { SEARCH_WORD, "river", "night", "garden", "winter", "shadow",
+            "empire", "letters", "stone", "harbour", "silent", "golden", "journey", "forest", "island", "mirror" };
+
     private CommandTestUtils() {
         throw new UnsupportedOperationException("Constructor is not to be used for static utils collection class.");
     }
@@ -121,4 +134,30 @@ public final class CommandTestUtils {
         boolean result = cmd.parseArguments(argument);
         assertEquals("ParseArguments returned unexpected value for argument: " + argument, isLegal, result);
     }
-}
\ No newline at end of file
+
+    /**
+     * Generate the given number of distinct books, the same ones on every call.
+     * Titles are two title words followed by the number of the book. Every
+     * FREQUENT_AUTHOR_PERIOD-th book is by FREQUENT_AUTHOR, the others are spread
+     * evenly over count / 5 further authors. Ratings cover 0 to 5 and pages 1 to
+     * 1000 evenly.
+     *
+     * @param count number of books
+     * @return generated books
+     */
+    public static List<BookEntry> generateBooks(int count) {
+        int authorCount = Math.max(1, count / 5);
+        List<BookEntry> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String title = TITLE_WORDS[i % TITLE_WORDS.length] + " "
+                    + TITLE_WORDS[i / TITLE_WORDS.length % TITLE_WORDS.length] + " " + i;
+            // number of the book among those not by the frequent author, so every other author gets books
+            int other = i - i / FREQUENT_AUTHOR_PERIOD - 1;
+            String author = i % FREQUENT_AUTHOR_PERIOD == 0
+                    ? FREQUENT_AUTHOR : "Author " + (int) ((long) other * 7919 % authorCount);
+            books.add(new BookEntry(title, new String[] { author }, (i * 37 % 501) / 100f, "ISBN" + i,
+                    1 + i * 13 % 1000));
+        }
+        return books;
+    }
+}
@@ -0,0 +1,96 @@
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CompleteCmdBasicTest extends CompleteCmdTest {
+
+    // ------------------------- parseArguments tests --------------------
+
+    @Test
+    public void testParseArgumentsIllegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, false, BLANK_ARGUMENT);
+        CommandTestUtils.checkArgumentInput(testCommand, false, "   ");
+    }
+
+    @Test
+    public void testParseArgumentsLegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, true, TITLE_PREFIX);
+        CommandTestUtils.checkArgumentInput(testCommand, true, "the ");
+    }
+
+    // ------------------------- execute tests --------------------
+
+    @Test
+    public void testExecuteCompleteTitles() {
+        String expectedConsoleOutput = "The Changeling\nThe Hobbit\nTheory of Everything";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+    }
+
+    @Test
+    public void testExecuteCompleteAuthors() {
+        testCommand = new CompleteCmd(AUTHOR_PREFIX);
+        String expectedConsoleOutput = "George Eliot\nGeorge Orwell";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+    }
+
+    @Test
+    public void testExecuteCompleteWithTrailingSpace() {
+        testCommand = new CompleteCmd("the ");
+        String expectedConsoleOutput = "The Changeling\nThe Hobbit";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+    }
+
+    @Test
+    public void testExecuteCompleteAfterRemove() {
+        String initialConsoleOutput = "The Changeling\nThe Hobbit\nTheory of Everything";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, initialConsoleOutput);
+
+        new RemoveCmd("TITLE The Hobbit").execute(testLibrary);
+        String expectedConsoleOutput = "The Changeling\nTheory of Everything";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+
+        new RemoveCmd("AUTHOR George Orwell").execute(testLibrary);
+        testCommand = new CompleteCmd(AUTHOR_PREFIX);
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, "George Eliot");
+    }
+
+    @Test
+    public void testExecuteCompleteAfterReplacingEntry() {
+        testLibrary = new LibraryData();
+        testLibrary.getBookData().add(new BookEntry("The Hobbit", new String[]{"J.R.R. Tolkien"}, 4.2f, "ISBNA", 310));
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, "The Hobbit");
+
+        testLibrary.getBookData().set(0, new BookEntry("The Silmarillion", new String[]{"J.R.R. Tolkien"}, 3.9f,
+                "ISBNE", 365));
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, "The Silmarillion");
+    }
+
+    @Test
+    public void testExecuteCompleteShardedLibrary() {
+        LibraryData shardedLibrary = new LibraryData(4);
+        shardedLibrary.getBookData().addAll(testLibrary.getBookData());
+        for (int i = 0; i < 40; i++) {
+            // equal spellings in several shards are completed once, different ones in trie order
+            String title = (i % 2 == 0 ? "The Hobbit " : "the hobbit ") + i % 7;
+            BookEntry book = new BookEntry(title, new String[] { "George Eliot" }, 4.0f, "ISBN" + i, 300);
+            testLibrary.getBookData().add(book);
+            shardedLibrary.getBookData().add(book);
+        }
+
+        for (String prefix : List.of("the", "THE HOBBIT", "george")) {
+            testCommand = new CompleteCmd(prefix);
+            assertEquals("Unexpected completions in sharded library: " + prefix,
+                    CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary),
+                    CommandTestUtils.captureExecuteStdOutput(testCommand, shardedLibrary));
+        }
+    }
+
+    @Test
+    public void testExecuteNoCompletion() {
+        String prefix = "xyz";
+        testCommand = new CompleteCmd(prefix);
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, NO_COMPLETIONS_MESSAGE + prefix);
+    }
+}
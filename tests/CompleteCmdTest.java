@@ -0,0 +1,30 @@
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class CompleteCmdTest extends CommandTest {
+
+    protected static final String TITLE_PREFIX = "the";
+    protected static final String AUTHOR_PREFIX = "Geo";
+
+    protected static final String NO_COMPLETIONS_MESSAGE = "No completions found for prefix: ";
+
+    @Override
+    protected CommandType getCmdType() {
+        return CommandType.COMPLETE;
+    }
+
+    @Before
+    public void setup() {
+        testCommand = new CompleteCmd(TITLE_PREFIX);
+
+        testLibrary = new LibraryData();
+        List<BookEntry> bookData = new ArrayList<>();
+        bookData.add(new BookEntry("The Hobbit", new String[]{"J.R.R. Tolkien"}, 4.2f, "ISBNA", 310));
+        bookData.add(new BookEntry("Animal Farm", new String[]{"George Orwell"}, 3.9f, "ISBNB", 122));
+        bookData.add(new BookEntry("Theory of Everything", new String[]{"Stephen Hawking"}, 4.0f, "ISBNC", 176));
+        bookData.add(new BookEntry("The Changeling", new String[]{"Zilpha Keatley Snyder", "George Eliot"}, 4.1f, "ISBND", 228));
+        FieldTestUtils.setPrivateField(testLibrary, testLibrary.getClass(), "books", bookData);
+    }
+}
@@ -0,0 +1,82 @@
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExplainCmdBasicTest extends ExplainCmdTest {
+
+    // ------------------------- test helpers ----------------------------
+
+    private String[] explain(String pipeline) {
+        testCommand = new ExplainCmd(pipeline);
+        return CommandTestUtils.captureExecuteStdOutputLines(testCommand, testLibrary);
+    }
+
+    private String findStep(String[] planLines, String stepPrefix) {
+        for (String line : planLines) {
+            if (line.startsWith(stepPrefix)) {
+                return line;
+            }
+        }
+        throw new AssertionError("Plan step not found: " + stepPrefix);
+    }
+
+    // ------------------------- parseArguments tests --------------------
+
+    @Test
+    public void testParseArgumentsIllegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, false, BLANK_ARGUMENT);
+        CommandTestUtils.checkArgumentInput(testCommand, false, "GROUP AUTHOR");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "SEARCH war | FILTER rating");
+    }
+
+    @Test
+    public void testParseArgumentsLegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, true, SEARCH_PIPELINE);
+        CommandTestUtils.checkArgumentInput(testCommand, true, "SEARCH war");
+        CommandTestUtils.checkArgumentInput(testCommand, true, "LIST | FILTER author=Leo Tolstoy | GROUP TITLE");
+    }
+
+    // ------------------------- execute tests --------------------
+
+    @Test
+    public void testExecuteFullScan() {
+        String[] planLines = explain(SEARCH_PIPELINE);
+
+        assertEquals("Unexpected plan header.", PLAN_HEADER + SEARCH_PIPELINE, planLines[0]);
+        assertEquals("Unexpected access step.",
+                "ACCESS FULL_SCAN title contains 'war' (cost 6): estimated rows 4, actual rows 3", planLines[1]);
+        assertEquals("Unexpected filter step.",
+                "FILTER rating>=4: estimated rows 3, actual rows 2", findStep(planLines, "FILTER"));
+        assertEquals("Unexpected limit step.",
+                "LIMIT 2: estimated rows 2, actual rows 2", findStep(planLines, "LIMIT"));
+    }
+
+    @Test
+    public void testExecuteIsbnIndex() {
+        testLibrary.getIsbnIndex();
+        String[] planLines = explain("LIST | FILTER isbn=ISBNC | GROUP AUTHOR");
+
+        assertTrue("ISBN index expected to be used.", planLines[1].startsWith("ACCESS ISBN_INDEX"));
+        assertTrue("Unexpected actual rows of ISBN lookup.", planLines[1].endsWith("actual rows 1"));
+        assertEquals("Unexpected group step.", "GROUP AUTHOR: estimated groups 1, actual groups 1",
+                planLines[planLines.length - 1]);
+    }
+
+    @Test
+    public void testExecuteTitleVocabulary() {
+        List<BookEntry> bookData = testLibrary.getBookData();
+        for (int i = 0; i < 300; i++) {
+            bookData.add(new BookEntry("Filler Book", new String[] { "Some Author" }, 2.5f, "FILLER" + i, 100));
+        }
+        testLibrary.getSearchIndex();
+        String[] planLines = explain("SEARCH war");
+
+        assertTrue("Title vocabulary expected to be used.", planLines[1].startsWith("ACCESS TITLE_VOCABULARY"));
+        assertTrue("Unexpected actual rows of vocabulary lookup.", planLines[1].endsWith("actual rows 4"));
+        CommandTestUtils.checkExecuteConsoleOutput(new SearchCmd("war"), testLibrary,
+                "War and Peace\nThe War of the Worlds\nThe Art of War\nWarbreaker");
+    }
+}
@@ -0,0 +1,106 @@
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class ExportCmdBasicTest extends ExportCmdTest {
+
+    // ------------------------- parseArguments tests --------------------
+
+    @Test
+    public void testParseArgumentsIllegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, false, BLANK_ARGUMENT);
+        CommandTestUtils.checkArgumentInput(testCommand, false, "books.csv");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "books.xml xml");
+        CommandTestUtils.checkArgumentInput(testCommand, false, CSV_FORMAT);
+    }
+
+    @Test
+    public void testParseArgumentsLegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, true, "books.csv " + CSV_FORMAT);
+        CommandTestUtils.checkArgumentInput(testCommand, true, "my books.json " + JSON_FORMAT);
+        CommandTestUtils.checkArgumentInput(testCommand, true, "books.ndjson.gz NDJSON");
+    }
+
+    // ------------------------- execute tests --------------------
+
+    @Test
+    public void testExecuteCsvCanBeAddedAgain() {
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary,
+                "Exported 3 books to " + exportFile);
+
+        LibraryFileLoader loader = new LibraryFileLoader();
+        loader.loadFileContent(exportFile);
+        List<BookEntry> books = loader.parseFileContent();
+
+        assertEquals("Unexpected amount of books read from export.", 3, books.size());
+        for (int i = 0; i < books.size(); i++) {
+            assertEquals("Exported book should be read unchanged.", testLibrary.getBookData().get(i), books.get(i));
+        }
+    }
+
+    @Test
+    public void testExecuteCsvContent() throws IOException {
+        CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+
+        List<String> lines = Files.readAllLines(exportFile);
+        assertEquals("Unexpected export.", List.of(
+                "title,authors,average_rating,isbn,# num_pages",
+                "The Changeling,Zilpha Keatley Snyder,4.17,595321801,228",
+                "\"Say \"\"Cheese\"\", Please\",\"Anne Rice-Sam Smith, Jr.\",3.8,ISBNB,96",
+                "Cr\u00e8me Br\u00fbl\u00e9e \uD83C\uDF70,Zo\u00eb,4,0-452-28424-4,1225"), lines);
+    }
+
+    @Test
+    public void testExecuteJson() throws IOException {
+        testCommand = new ExportCmd(exportFile + " " + JSON_FORMAT);
+        CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+
+        String expected = "[\n"
+                + "{\"title\":\"The Changeling\",\"authors\":[\"Zilpha Keatley Snyder\"],\"rating\":4.17,"
+                + "\"isbn\":\"595321801\",\"pages\":228},\n"
+                + "{\"title\":\"Say \\\"Cheese\\\", Please\",\"authors\":[\"Anne Rice\",\"Sam Smith, Jr.\"],"
+                + "\"rating\":3.8,\"isbn\":\"ISBNB\",\"pages\":96},\n"
+                + "{\"title\":\"Cr\u00e8me Br\u00fbl\u00e9e \uD83C\uDF70\",\"authors\":[\"Zo\u00eb\"],\"rating\":4,"
+                + "\"isbn\":\"0-452-28424-4\",\"pages\":1225}\n"
+                + "]\n";
+        assertEquals("Unexpected export.", expected, Files.readString(exportFile));
+    }
+
+    @Test
+    public void testExecuteCompressedNdjson() throws IOException {
+        Path compressedFile = Files.createTempFile("export", ".ndjson.gz");
+        try {
+            testCommand = new ExportCmd(compressedFile + " " + NDJSON_FORMAT);
+            CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+
+            List<String> lines;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(compressedFile)), StandardCharsets.UTF_8))) {
+                lines = reader.lines().collect(Collectors.toList());
+            }
+            assertEquals("Unexpected amount of exported lines.", 3, lines.size());
+            assertEquals("Unexpected export.", "{\"title\":\"The Changeling\",\"authors\":[\"Zilpha Keatley Snyder\"],"
+                    + "\"rating\":4.17,\"isbn\":\"595321801\",\"pages\":228}", lines.get(0));
+        } finally {
+            Files.deleteIfExists(compressedFile);
+        }
+    }
+
+    @Test
+    public void testExecuteEmptyLibrary() throws IOException {
+        testLibrary = new LibraryData();
+        testCommand = new ExportCmd(exportFile + " " + JSON_FORMAT);
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, "Exported 0 books to " + exportFile);
+        assertEquals("Unexpected export.", "[]\n", Files.readString(exportFile));
+    }
+}
@@ -0,0 +1,41 @@
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class ExportCmdTest extends CommandTest {
+
+    protected static final String CSV_FORMAT = "csv";
+    protected static final String JSON_FORMAT = "json";
+    protected static final String NDJSON_FORMAT = "ndjson";
+
+    protected Path exportFile;
+
+    @Override
+    protected CommandType getCmdType() {
+        return CommandType.EXPORT;
+    }
+
+    @Before
+    public void setup() throws IOException {
+        exportFile = Files.createTempFile("export", ".csv");
+        testCommand = new ExportCmd(exportFile + " " + CSV_FORMAT);
+
+        testLibrary = new LibraryData();
+        List<BookEntry> bookData = new ArrayList<>();
+        bookData.add(new BookEntry("The Changeling", new String[] { "Zilpha Keatley Snyder" }, 4.17f, "595321801", 228));
+        bookData.add(new BookEntry("Say \"Cheese\", Please", new String[] { "Anne Rice", "Sam Smith, Jr." }, 3.8f,
+                "ISBNB", 96));
+        bookData.add(new BookEntry("Cr\u00e8me Br\u00fbl\u00e9e \uD83C\uDF70", new String[] { "Zo\u00eb" }, 4f, "0-452-28424-4", 1225));
+        FieldTestUtils.setPrivateField(testLibrary, testLibrary.getClass(), "books", bookData);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(exportFile);
+    }
+}
@@ -1,7 +1,9 @@
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 
@@ -9,6 +11,77 @@ public class GroupCmdBasicTest extends GroupCmdTest {
 
     // ------------------------- test helpers ----------------------------
 
+    private void checkLargeLibraryMatchesSequentialGrouping(String argument) {
+        List<BookEntry> bookData = new ArrayList<>();
+        for (int i = 0; i < 2 * GroupCmd.PARALLEL_THRESHOLD + 7; i++) {
+            String title = (char) ('A' + (i * 7) % 26) + " Title " + i;
+            String[] authors = i % 5 == 0
+                    ? new String[] { "Author " + (i * 31) % 97, "Author " + i % 13 }
+                    : new String[] { "Author " + (i * 31) % 97 };
+            bookData.add(new BookEntry(title, authors, 3.5f, "ISBN" + i, 100));
+        }
+        FieldTestUtils.setPrivateField(testLibrary, testLibrary.getClass(), "books", bookData);
+
+        GroupCmd groupCmd = new GroupCmd(argument);
+        List<String> expectedLines = new ArrayList<>();
+        expectedLines.add(String.format(GROUP_HEADER_OUTPUT, argument));
+        Map<String, ArrayList<String>> sequentialGroups = argument.equals(TITLE_ARGUMENT)
+                ? groupCmd.groupByTitle(bookData) : groupCmd.groupByAuthor(bookData);
+        sequentialGroups.forEach((key, titles) -> {
+            expectedLines.add(GROUP_TITLE_PREFIX + key);
+            titles.forEach(title -> expectedLines.add("   " + title));
+        });
+
+        String[] executeStdOutLines = CommandTestUtils.captureExecuteStdOutputLines(groupCmd, testLibrary);
+        assertEquals("Parallel grouping expected to match sequential grouping.", expectedLines,
+                List.of(executeStdOutLines));
+    }
+
+    private void checkShardedLibraryMatchesSequentialGrouping(String argument) {
+        testLibrary = new LibraryData(3);
+        List<BookEntry> bookData = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String title = (char) ('A' + (i * 7) % 26) + " Title " + i;
+            bookData.add(new BookEntry(title, new String[] { "Author " + (i * 31) % 17 }, 3.5f, "ISBN" + i, 100));
+        }
+        testLibrary.getBookData().addAll(bookData);
+
+        GroupCmd groupCmd = new GroupCmd(argument);
+        Map<String, ArrayList<String>> sequentialGroups = argument.equals(TITLE_ARGUMENT)
+                ? groupCmd.groupByTitle(bookData) : groupCmd.groupByAuthor(bookData);
+        List<String> expectedLines = new ArrayList<>();
+        expectedLines.add(String.format(GROUP_HEADER_OUTPUT, argument));
+        sequentialGroups.forEach((key, titles) -> {
+            expectedLines.add(GROUP_TITLE_PREFIX + key);
+            titles.forEach(title -> expectedLines.add("   " + title));
+        });
+
+        String[] executeStdOutLines = CommandTestUtils.captureExecuteStdOutputLines(groupCmd, testLibrary);
+        assertEquals("Sharded grouping expected to match sequential grouping.", expectedLines,
+                List.of(executeStdOutLines));
+    }
+
+    private void checkOnDiskGroupingMatchesInMemoryGrouping(String argument) {
+        List<BookEntry> bookData = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String title = (char) ('A' + (i * 11) % 26) + " Title " + i;
+            String[] authors = i % 3 == 0
+                    ? new String[] { "Author " + (i * 31) % 23, "Author " + i % 7 }
+                    : new String[] { "Author " + (i * 31) % 23 };
+            bookData.add(new BookEntry(title, authors, 3.5f, "ISBN" + i, 100));
+        }
+        FieldTestUtils.setPrivateField(testLibrary, testLibrary.getClass(), "books", bookData);
+
+        GroupCmd groupCmd = new GroupCmd(argument);
+        String[] inMemoryLines = CommandTestUtils.captureExecuteStdOutputLines(groupCmd, testLibrary);
+        testLibrary.setSortMemory(4096);
+        String[] onDiskLines = CommandTestUtils.captureExecuteStdOutputLines(groupCmd, testLibrary);
+        testLibrary.setSortMemory(0);
+
+        assertEquals("Grouping on disk expected to match grouping in memory.", List.of(inMemoryLines),
+                List.of(onDiskLines));
+    }
+
     private void checkOutputHeader(String expectedHeader) {
         String[] executeStdOutLines = CommandTestUtils.captureExecuteStdOutputLines(testCommand, testLibrary);
         assertEquals("Unexpected group output header.", expectedHeader, executeStdOutLines[0]);
@@ -77,4 +150,33 @@ public class GroupCmdBasicTest extends GroupCmdTest {
         List<String> expectedGroups = List.of("A Author", "B Author", "C Author", "D Author", "E Author", "F Author");
         checkGroupOutputOrder(executeStdOutLines, expectedGroups);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testExecuteGroupByTitleLargeLibrary() {
+        checkLargeLibraryMatchesSequentialGrouping(TITLE_ARGUMENT);
+    }
+
+    @Test
+    public void testExecuteGroupByAuthorLargeLibrary() {
+        checkLargeLibraryMatchesSequentialGrouping(AUTHOR_ARGUMENT);
+    }
+
+    @Test
+    public void testExecuteGroupShardedLibrary() {
+        checkShardedLibraryMatchesSequentialGrouping(TITLE_ARGUMENT);
+        checkShardedLibraryMatchesSequentialGrouping(AUTHOR_ARGUMENT);
+    }
+
+    @Test
+    public void testExecuteGroupOnDisk() {
+        checkOnDiskGroupingMatchesInMemoryGrouping(TITLE_ARGUMENT);
+        checkOnDiskGroupingMatchesInMemoryGrouping(AUTHOR_ARGUMENT);
+    }
+
+    @Test
+    public void testExecuteGroupOnDiskEmptyBookData() {
+        testLibrary.setSortMemory(4096);
+        FieldTestUtils.setPrivateField(testLibrary, testLibrary.getClass(), "books", new ArrayList<>());
+        checkOutputHeader("The library has no book entries.");
+    }
+}
@@ -0,0 +1,69 @@
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IsbnCmdBasicTest extends IsbnCmdTest {
+
+    // ------------------------- parseArguments tests --------------------
+
+    @Test
+    public void testParseArgumentsIllegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, false, BLANK_ARGUMENT);
+        CommandTestUtils.checkArgumentInput(testCommand, false, "0747 54624X");
+    }
+
+    @Test
+    public void testParseArgumentsLegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, true, ISBN_ARGUMENT);
+        CommandTestUtils.checkArgumentInput(testCommand, true, "0-7475-4624-X");
+        CommandTestUtils.checkArgumentInput(testCommand, true, "ISBNC");
+    }
+
+    // ------------------------- execute tests --------------------
+
+    @Test
+    public void testExecuteFound() {
+        String expectedConsoleOutput = "TitleB\nby AuthorB\nRating: 4.30\nISBN: 74754624X\n400 pages";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+
+        testCommand = new IsbnCmd("0-7475-4624-x");
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+    }
+
+    @Test
+    public void testExecuteFoundNonNumeric() {
+        testCommand = new IsbnCmd("ISBNC");
+        String expectedConsoleOutput = "TitleC\nby AuthorC\nRating: 1.30\nISBN: ISBNC\n300 pages";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+    }
+
+    @Test
+    public void testExecuteNotFound() {
+        String isbn = "595321802";
+        testCommand = new IsbnCmd(isbn);
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, NOT_FOUND_MESSAGE + isbn);
+    }
+
+    @Test
+    public void testExecuteNotFoundAfterRemove() {
+        CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+        testLibrary.removeFirstEntry(book -> book.getTitle().equals("TitleB"));
+
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, NOT_FOUND_MESSAGE + ISBN_ARGUMENT);
+    }
+
+    @Test
+    public void testIndexDuplicateDetection() {
+        IsbnIndex index = testLibrary.getIsbnIndex();
+        List<BookEntry> books = testLibrary.getBookData();
+
+        for (BookEntry book : books) {
+            assertTrue("Library entry expected to be found in ISBN index.", index.contains(book));
+        }
+        BookEntry differentPages = new BookEntry("TitleB", new String[]{"AuthorB"}, 4.3f, "74754624X", 401);
+        assertFalse("Different entry with same ISBN must not be reported as duplicate.", index.contains(differentPages));
+    }
+}
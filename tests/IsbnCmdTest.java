@@ -0,0 +1,28 @@
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class IsbnCmdTest extends CommandTest {
+
+    protected static final String ISBN_ARGUMENT = "074754624X";
+
+    protected static final String NOT_FOUND_MESSAGE = "No book found for ISBN: ";
+
+    @Override
+    protected CommandType getCmdType() {
+        return CommandType.ISBN;
+    }
+
+    @Before
+    public void setup() {
+        testCommand = new IsbnCmd(ISBN_ARGUMENT);
+
+        testLibrary = new LibraryData();
+        List<BookEntry> bookData = new ArrayList<>();
+        bookData.add(new BookEntry("TitleA", new String[]{"AuthorA"}, 3.2f, "595321801", 500));
+        bookData.add(new BookEntry("TitleB", new String[]{"AuthorB"}, 4.3f, "74754624X", 400));
+        bookData.add(new BookEntry("TitleC", new String[]{"AuthorC"}, 1.3f, "ISBNC", 300));
+        FieldTestUtils.setPrivateField(testLibrary, testLibrary.getClass(), "books", bookData);
+    }
+}
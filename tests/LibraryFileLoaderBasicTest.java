@@ -1,12 +1,66 @@
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.Assert.*;
 
 public class LibraryFileLoaderBasicTest extends LibraryFileLoaderTest {
 
+    // ------------------------- check loadFileContent --------------------
+
+    @Test
+    public void testLoadFileContentCompressed() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv.gz");
+        try {
+            try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(bookFile)),
+                    StandardCharsets.UTF_8)) {
+                writer.write(String.join("\n", testBookData) + "\n");
+            }
+
+            testFileLoader = new LibraryFileLoader();
+            assertTrue("Compressed file expected to be loaded successfully.", testFileLoader.loadFileContent(bookFile));
+            assertEquals("Unexpected content loaded from compressed file.", testBookData,
+                    FieldTestUtils.getPrivateField(testFileLoader, testFileLoader.getClass(), FILE_CONTENT_FIELD_NAME));
+        } finally {
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    @Test
+    public void testLoadFileContentCorruptCompressed() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv.gz");
+        try {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (OutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(String.join("\n", testBookData).getBytes(StandardCharsets.UTF_8));
+            }
+            byte[] truncated = Arrays.copyOf(compressed.toByteArray(), compressed.size() / 2);
+            Files.write(bookFile, truncated);
+
+            testFileLoader = new LibraryFileLoader();
+            StdStreamIntercept intercept = new StdStreamIntercept();
+            intercept.stdCaptureStart();
+            try {
+                assertFalse("Truncated compressed file expected to fail loading.", testFileLoader.loadFileContent(bookFile));
+            } finally {
+                intercept.stdCaptureStop();
+            }
+        } finally {
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
     // ------------------------- check parseFileContent --------------------
 
     @Test
@@ -25,6 +79,146 @@ public class LibraryFileLoaderBasicTest extends LibraryFileLoaderTest {
         checkBookCollectionResult(testBookData, expectedValues);
     }
 
+    @Test
+    public void testParseFileContentQuotedFields() {
+        testBookData.add("\"Guns, Germs, and Steel\",\"Jared \"\"J.\"\" Diamond-Someone\",4.03,393061310,\"480\"");
+        testBookData.add("\"A Title Spanning");
+        testBookData.add("Two Lines\",Some Author,3.5,12345,100");
+
+        List<Object[]> expectedValues = new ArrayList<>();
+        expectedValues.add(BOOK_SAMPLE1_VALUES);
+        expectedValues.add(BOOK_SAMPLE2_VALUES);
+        expectedValues.add(new Object[] { "Guns, Germs, and Steel", new String[] { "Jared \"J.\" Diamond", "Someone" },
+                4.03f, "393061310", 480 });
+        expectedValues.add(new Object[] { "A Title Spanning\nTwo Lines", new String[] { "Some Author" }, 3.5f, "12345",
+                100 });
+
+        checkBookCollectionResult(testBookData, expectedValues);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseFileContentTooFewFields() {
+        testBookData.add("Title Only,Some Author");
+        testFileLoader.parseFileContent();
+    }
+
+    @Test
+    public void testParseFileContentLenient() {
+        testBookData.add("Broken,Some Author,4.x,1234,100");
+        testBookData.add(DATA_SAMPLE1);
+        testBookData.add("Negative Pages,Some Author,4.5,1235,-3");
+
+        List<BookEntry> books = testFileLoader.parseFileContent(true);
+        assertEquals("Valid records expected to be parsed in lenient mode.", 3, books.size());
+
+        List<String> rejected = testFileLoader.getRejectedRecords();
+        assertEquals("Invalid records expected to be rejected in lenient mode.", 2, rejected.size());
+        assertTrue("Rejected record should start with its line number.", rejected.get(0).startsWith("4\t"));
+        assertTrue("Rejected record should start with its line number.", rejected.get(1).startsWith("6\t"));
+    }
+
+    @Test
+    public void testParseFileContentLenientUnbalancedQuote() {
+        testBookData.add("\"Multi");
+        testBookData.add("line\",Some Author,4.2,1235,100");
+        testBookData.add("\"Unbalanced,Some Author,4.1,1234,100");
+        testBookData.add(DATA_SAMPLE1);
+        testBookData.add("Last,Some Author,4.0,1236,100");
+
+        List<BookEntry> books = testFileLoader.parseFileContent(true);
+        assertEquals("Records after an unbalanced quote expected to be parsed.", 5, books.size());
+        assertEquals("Unexpected record joined from two lines.", "Multi\nline", books.get(2).getTitle());
+        assertEquals("Unexpected last record.", "Last", books.get(4).getTitle());
+
+        List<String> rejected = testFileLoader.getRejectedRecords();
+        assertEquals("Only the line with the unbalanced quote expected to be rejected.", 1, rejected.size());
+        assertTrue("Rejected record should start with its line number.", rejected.get(0).startsWith("6\t"));
+    }
+
+    @Test
+    public void testParseFileContentQuoteNotClosedWithinMaxLines() {
+        testBookData.add("\"Unbalanced,Some Author,4.1,1234,100");
+        for (int i = 0; i < LibraryFileLoader.MAX_RECORD_LINES; i++) {
+            testBookData.add("Title" + i + ",Some Author,4.1,ISBN" + i + ",100");
+        }
+        testBookData.add("\"Closing quote,Some Author,4.1,1236,100");
+
+        List<BookEntry> books = testFileLoader.parseFileContent(true);
+        assertEquals("Records within the maximum record lines expected to be parsed.",
+                2 + LibraryFileLoader.MAX_RECORD_LINES, books.size());
+        assertEquals("Both lines with unbalanced quotes expected to be rejected.", 2,
+                testFileLoader.getRejectedRecords().size());
+    }
+
+    // ------------------------- check parseFile --------------------
+
+    @Test
+    public void testParseFileMatchesParseFileContent() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        try {
+            List<String> lines = new ArrayList<>();
+            lines.add(testBookData.get(0));
+            for (int i = 0; lines.size() < 3 * LibraryFileLoader.PARSED_LINES; i++) {
+                if (i % 97 == 0) {
+                    // a record spanning lines, some of which end up on both sides of a read ahead
+                    lines.add("\"Title " + i);
+                    lines.add("continued\",Author" + i + ",3.5,ISBN" + i + ",100");
+                } else if (i % 1000 == 0) {
+                    lines.add("\"Stray quote,Author" + i + ",3.5,ISBN" + i + ",100");
+                } else {
+                    lines.add("Title " + i + ",Author" + i + ",3.5,ISBN" + i + ",100");
+                }
+            }
+            Files.write(bookFile, lines);
+
+            testFileLoader = new LibraryFileLoader();
+            testFileLoader.loadFileContent(bookFile);
+            List<BookEntry> expected = testFileLoader.parseFileContent(true);
+            List<String> expectedRejects = new ArrayList<>(testFileLoader.getRejectedRecords());
+
+            List<BookEntry> parsed = new ArrayList<>();
+            LibraryFileLoader streamingLoader = new LibraryFileLoader();
+            assertTrue("File expected to be read.", streamingLoader.parseFile(bookFile, true, parsed::add));
+            assertEquals("Streamed entries expected to match parsed content.", expected, parsed);
+            assertEquals("Streamed rejects expected to match parsed content.", expectedRejects,
+                    streamingLoader.getRejectedRecords());
+        } finally {
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    @Test
+    public void testParseFileStrictStopsAtInvalidRecord() throws IOException {
+        Path bookFile = Files.createTempFile("books", ".csv");
+        try {
+            Files.write(bookFile, List.of(testBookData.get(0), testBookData.get(1), "Too Short,Author,3.5",
+                    testBookData.get(2)));
+            List<BookEntry> parsed = new ArrayList<>();
+            try {
+                new LibraryFileLoader().parseFile(bookFile, false, parsed::add);
+                fail("Invalid record expected to fail strict parsing.");
+            } catch (IllegalArgumentException e) {
+                assertTrue("Line number expected in message.", e.getMessage().contains("line 3"));
+            }
+            assertEquals("Entries before the invalid record expected to be passed on.", 1, parsed.size());
+        } finally {
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    @Test
+    public void testParseFileMissingFile() {
+        StdStreamIntercept intercept = new StdStreamIntercept();
+        intercept.stdCaptureStart();
+        try {
+            assertFalse("Missing file expected to fail.",
+                    new LibraryFileLoader().parseFile(Path.of("missing/books.csv"), false, entry -> { }));
+            assertTrue("Error expected.", intercept.getCapturedStdErr().startsWith("ERROR: Reading file content failed"));
+        } finally {
+            intercept.stdCaptureStop();
+        }
+    }
+
     @Test
     public void testParseFileContentNoContentLoadedConsoleOutput() {
         testFileLoader = new LibraryFileLoader();
@@ -8,7 +8,6 @@ import static org.junit.Assert.assertNotNull;
 
 public abstract class LibraryFileLoaderTest {
 
-    protected static final String DATA_HEADER = "title,authors,average_rating,isbn,# num_pages";
     protected static final String DATA_SAMPLE1 = "The Changeling,Zilpha Keatley Snyder,4.17,595321801,228";
     protected static final String DATA_SAMPLE2 = "Chester,Syd Hoff,3.75,64440958,64";
 
@@ -31,7 +30,7 @@ public abstract class LibraryFileLoaderTest {
     public void setup() {
         testFileLoader = new LibraryFileLoader();
         testBookData = new ArrayList<>();
-        testBookData.add(DATA_HEADER);
+        testBookData.add(CommandTestUtils.DATA_HEADER);
         testBookData.add(DATA_SAMPLE1);
         testBookData.add(DATA_SAMPLE2);
 
@@ -1,5 +1,12 @@
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 public class ListCmdBasicTest extends ListCmdTest {
 
     // ------------------------- parseArguments tests --------------------
@@ -14,6 +21,7 @@ public class ListCmdBasicTest extends ListCmdTest {
         CommandTestUtils.checkArgumentInput(testCommand, true, SHORT_ARGUMENT);
         CommandTestUtils.checkArgumentInput(testCommand, true, LONG_ARGUMENT);
         CommandTestUtils.checkArgumentInput(testCommand, true, BLANK_ARGUMENT);
+        CommandTestUtils.checkArgumentInput(testCommand, true, SORTED_ARGUMENT);
     }
 
     // ------------------------- execute tests --------------------
@@ -48,4 +56,92 @@ public class ListCmdBasicTest extends ListCmdTest {
 
         CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
     }
+
+    @Test
+    public void testExecuteSortedList() {
+        List<BookEntry> bookData = new ArrayList<>();
+        bookData.add(new BookEntry("TitleC", new String[]{"AuthorC"}, 1.3f, "ISBNC", 300));
+        bookData.add(new BookEntry("TitleA", new String[]{"AuthorA"}, 3.2f, "ISBNA", 500));
+        bookData.add(new BookEntry("TitleB", new String[]{"AuthorB"}, 4.3f, "ISBNB", 400));
+        FieldTestUtils.setPrivateField(testLibrary, testLibrary.getClass(), "books", bookData);
+        testCommand = new ListCmd(SORTED_ARGUMENT);
+
+        String expectedConsoleOutput = "3 books in library:\nTitleA\nTitleB\nTitleC";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+    }
+
+    @Test
+    public void testExecuteSortedListOnDisk() {
+        List<BookEntry> bookData = new ArrayList<>();
+        List<String> expectedLines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String title = "Title " + (i * 37) % 101;
+            bookData.add(new BookEntry(title, new String[]{"Author"}, 3.5f, "ISBN" + i, 100));
+            expectedLines.add(title);
+        }
+        expectedLines.sort(null);
+        expectedLines.add(0, "500 books in library:");
+        FieldTestUtils.setPrivateField(testLibrary, testLibrary.getClass(), "books", bookData);
+        testLibrary.setSortMemory(1024);
+        testCommand = new ListCmd(SORTED_ARGUMENT);
+
+        String[] executeStdOutLines = CommandTestUtils.captureExecuteStdOutputLines(testCommand, testLibrary);
+        assertEquals("Sorted list on disk expected to match sorted titles.", expectedLines,
+                List.of(executeStdOutLines));
+    }
+
+    @Test
+    public void testSorterSpillsRuns() throws Exception {
+        try (ExternalSorter sorter = new ExternalSorter(1024)) {
+            for (int i = 0; i < 500; i++) {
+                sorter.add("Key " + (i * 37) % 101, "Value " + i);
+            }
+            assertTrue("Sorter expected to spill runs beyond its memory budget.", sorter.getRunCount() > 1);
+
+            List<String> sortedKeys = new ArrayList<>();
+            sorter.forEachSorted((key, value) -> sortedKeys.add(key));
+            List<String> expectedKeys = new ArrayList<>(sortedKeys);
+            expectedKeys.sort(null);
+            assertEquals("Sorter expected to merge runs in key order.", expectedKeys, sortedKeys);
+        }
+    }
+
+    @Test
+    public void testSorterMergesManyRunsStably() throws Exception {
+        try (ExternalSorter sorter = new ExternalSorter(1024)) {
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                String key = "Key " + (i * 37) % 101;
+                sorter.add(key, "Value " + i);
+                expected.add(key + "=" + i);
+            }
+            assertTrue("Sorter expected to spill more runs than it merges at once.",
+                    sorter.getRunCount() > ExternalSorter.MAX_MERGE_RUNS * 2);
+
+            List<String> sorted = new ArrayList<>();
+            sorter.forEachSorted((key, value) -> sorted.add(key + "=" + value.substring("Value ".length())));
+            expected.sort(Comparator.comparing(record -> record.substring(0, record.indexOf('='))));
+            assertEquals("Sorter expected to keep equal keys in the order added.", expected, sorted);
+        }
+    }
+
+    @Test
+    public void testSorterSpillsLongStrings() throws Exception {
+        String longKey = "B" + "x".repeat(70_000);
+        String longValue = "\u00e9".repeat(40_000);
+        try (ExternalSorter sorter = new ExternalSorter(1024)) {
+            sorter.add(longKey, longValue);
+            sorter.add("A", "");
+            sorter.add("C", longValue);
+            assertTrue("Sorter expected to spill runs beyond its memory budget.", sorter.getRunCount() > 1);
+
+            List<String> sorted = new ArrayList<>();
+            sorter.forEachSorted((key, value) -> {
+                sorted.add(key);
+                sorted.add(value);
+            });
+            assertEquals("Long strings expected to be merged unchanged.",
+                    List.of("A", "", longKey, longValue, "C", longValue), sorted);
+        }
+    }
 }
@@ -7,6 +7,7 @@ public abstract class ListCmdTest extends CommandTest {
 
     protected static final String SHORT_ARGUMENT = "short";
     protected static final String LONG_ARGUMENT = "long";
+    protected static final String SORTED_ARGUMENT = "sorted";
 
     @Override
     protected CommandType getCmdType() {
@@ -0,0 +1,98 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryCmdBasicTest extends MemoryCmdTest {
+
+    // ------------------------- parseArguments tests --------------------
+
+    @Test
+    public void testParseArgumentsIllegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, false, "books");
+    }
+
+    @Test
+    public void testParseArgumentsLegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, true, BLANK_ARGUMENT);
+        CommandTestUtils.checkArgumentInput(testCommand, true, "  ");
+    }
+
+    // ------------------------- execute tests --------------------
+
+    @Test
+    public void testExecuteComponents() {
+        String[] lines = CommandTestUtils.captureExecuteStdOutputLines(testCommand, testLibrary);
+
+        assertEquals("Unexpected header.", "Estimated heap memory of 3 books:", lines[0]);
+        // 40 bytes per entry and 24 bytes per single author array, plus 56 bytes of list
+        assertEquals("Unexpected entry bytes.", "  book entries: " + (56 + 3 * (40 + 24)) + " bytes", lines[1]);
+        // 'Leo Tolstoy' takes 24 bytes of String and 32 bytes of array
+        assertEquals("Unexpected author bytes.", "  authors: " + 3 * (24 + 32) + " bytes", lines[3]);
+        assertTrue("Result cache should be listed.", lines[5].startsWith("  result cache: "));
+    }
+
+    @Test
+    public void testExecuteTotalAndDeduplication() {
+        String[] lines = CommandTestUtils.captureExecuteStdOutputLines(testCommand, testLibrary);
+
+        long sum = 0;
+        int totalIdx = 1;
+        for (; !lines[totalIdx].startsWith(TOTAL_PREFIX); totalIdx++) {
+            String bytes = lines[totalIdx].substring(lines[totalIdx].indexOf(": ") + 2, lines[totalIdx].length() - 6);
+            sum += Long.parseLong(bytes);
+        }
+        assertEquals("Total should be the sum of all components.",
+                TOTAL_PREFIX + sum + " bytes, " + sum / 3 + " bytes per book", lines[totalIdx]);
+
+        // the lower case title of 'hadji murat' is the title itself
+        assertEquals("Unexpected deduplication savings.",
+                "String deduplication would save " + 2 * (24 + 32) + " bytes (2 duplicate strings)", lines[totalIdx + 1]);
+    }
+
+    @Test
+    public void testExecuteBuiltIndexes() {
+        testLibrary.getIsbnIndex();
+        String output = CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+        assertTrue("Built index should be listed.", output.contains("  index IsbnIndex: "));
+        assertTrue("Other indexes should not be listed.", !output.contains("index PrefixTrie"));
+    }
+
+    @Test
+    public void testExecuteOffHeap() {
+        testLibrary = new LibraryData(true);
+        testLibrary.getBookData().add(new BookEntry("War and Peace", new String[] { "Leo Tolstoy" }, 4.1f,
+                "ISBNA", 1225));
+        String output = CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+        assertTrue("Book list should be listed.", output.contains("  book list: "));
+        assertTrue("Native memory should be listed.", output.contains("Native memory: "));
+    }
+
+    @Test
+    public void testExecuteOffHeapAfterClear() {
+        testLibrary = new LibraryData(true);
+        testLibrary.getBookData().add(new BookEntry("Anna Karenina", new String[] { "Leo Tolstoy" }, 4.0f,
+                "ISBNB", 864));
+        testLibrary.getBookData().clear();
+        testLibrary.getBookData().add(new BookEntry("War and Peace", new String[] { "Lev Tolstoi" }, 4.1f,
+                "ISBNA", 1225));
+        String output = CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+
+        LibraryData freshLibrary = new LibraryData(true);
+        freshLibrary.getBookData().add(new BookEntry("War and Peace", new String[] { "Lev Tolstoi" }, 4.1f,
+                "ISBNA", 1225));
+        String freshOutput = CommandTestUtils.captureExecuteStdOutput(testCommand, freshLibrary);
+        assertEquals("Authors of cleared books should not be counted.", freshOutput.split("\n")[1],
+                output.split("\n")[1]);
+    }
+
+    @Test
+    public void testExecuteMapped() {
+        testLibrary = LibraryData.createMapped();
+        testLibrary.getBookData().add(new BookEntry("War and Peace", new String[] { "Leo Tolstoy" }, 4.1f,
+                "ISBNA", 1225));
+        String output = CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+        assertTrue("Book list should be listed.", output.contains("  book list: "));
+        assertTrue("Mapped files should be listed.", output.contains("Mapped files: 0 bytes"));
+    }
+}
@@ -0,0 +1,27 @@
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class MemoryCmdTest extends CommandTest {
+
+    protected static final String TOTAL_PREFIX = "  total: ";
+
+    @Override
+    protected CommandType getCmdType() {
+        return CommandType.MEMORY;
+    }
+
+    @Before
+    public void setup() {
+        testCommand = new MemoryCmd(BLANK_ARGUMENT);
+
+        testLibrary = new LibraryData();
+        List<BookEntry> bookData = new ArrayList<>();
+        // equal author names read from a file are separate instances
+        bookData.add(new BookEntry("War and Peace", new String[] { new String("Leo Tolstoy") }, 4.1f, "ISBNA", 1225));
+        bookData.add(new BookEntry("Anna Karenina", new String[] { new String("Leo Tolstoy") }, 4.0f, "ISBNC", 864));
+        bookData.add(new BookEntry("hadji murat", new String[] { "Leo Tolstoy" }, 4.3f, "ISBNF", 128));
+        FieldTestUtils.setPrivateField(testLibrary, testLibrary.getClass(), "books", bookData);
+    }
+}
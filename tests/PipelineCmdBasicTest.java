@@ -0,0 +1,72 @@
+import org.junit.Test;
+
+public class PipelineCmdBasicTest extends PipelineCmdTest {
+
+    // ------------------------- parseArguments tests --------------------
+
+    @Test
+    public void testParseArgumentsIllegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, false, BLANK_ARGUMENT);
+        CommandTestUtils.checkArgumentInput(testCommand, false, "SEARCH war |");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "SEARCH | LIMIT 2");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "LIST long | LIMIT 2");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "GROUP AUTHOR | LIMIT 2");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "SEARCH war | FILTER title>=4");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "SEARCH war | FILTER rating=>4");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "SEARCH war | LIMIT -1");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "SEARCH war | GROUP PAGES");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "SEARCH war | GROUP AUTHOR | FILTER pages<100");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "LIST | GROUP AUTHOR | LIMIT 1 | LIMIT 2");
+    }
+
+    @Test
+    public void testParseArgumentsLegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, true, SEARCH_PIPELINE);
+        CommandTestUtils.checkArgumentInput(testCommand, true, "LIST");
+        CommandTestUtils.checkArgumentInput(testCommand, true, "SEARCH war AND peace | LIMIT 1");
+        CommandTestUtils.checkArgumentInput(testCommand, true, "LIST | FILTER pages < 300 | FILTER rating!=4.2");
+        CommandTestUtils.checkArgumentInput(testCommand, true, "LIST|GROUP AUTHOR|LIMIT 1");
+    }
+
+    // ------------------------- execute tests --------------------
+
+    @Test
+    public void testExecuteFilterAndLimit() {
+        String expectedConsoleOutput = "War and Peace\nThe Art of War";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+    }
+
+    @Test
+    public void testExecuteGroupAndLimitGroups() {
+        testCommand = new PipelineCmd("SEARCH war | FILTER rating>=4 | GROUP AUTHOR | LIMIT 2");
+        String expectedConsoleOutput = "Grouped data by AUTHOR\n## Brandon Sanderson\n   Warbreaker\n"
+                + "## Leo Tolstoy\n   War and Peace";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+    }
+
+    @Test
+    public void testExecuteListFilterGroup() {
+        testCommand = new PipelineCmd("LIST | FILTER pages<1000 | GROUP AUTHOR | LIMIT 1");
+        String expectedConsoleOutput = "Grouped data by AUTHOR\n## Brandon Sanderson\n   Warbreaker";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+
+        testCommand = new PipelineCmd("LIST | FILTER pages<1000 | FILTER rating>4.1 | GROUP AUTHOR");
+        expectedConsoleOutput = "Grouped data by AUTHOR\n## Brandon Sanderson\n   Warbreaker\n"
+                + "## Leo Tolstoy\n   Hadji Murat\n## Sun Tzu\n   The Art of War";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+    }
+
+    @Test
+    public void testExecuteNothingPassed() {
+        testCommand = new PipelineCmd("SEARCH war | FILTER pages>2000");
+        String expectedConsoleOutput = NO_BOOKS_MESSAGE + "SEARCH war | FILTER pages>2000";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+    }
+
+    @Test
+    public void testParseCommandCreatesPipeline() {
+        LibraryCommand command = new CommandInterpreter().parseCommand("SEARCH war|LIMIT 1");
+        CommandTestUtils.checkCtorSuperclassCall(command, CommandType.PIPELINE);
+        CommandTestUtils.checkExecuteConsoleOutput(command, testLibrary, "War and Peace");
+    }
+}
@@ -0,0 +1,31 @@
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class PipelineCmdTest extends CommandTest {
+
+    protected static final String SEARCH_PIPELINE = "SEARCH war | FILTER rating>=4 | LIMIT 2";
+
+    protected static final String NO_BOOKS_MESSAGE = "No books passed the pipeline: ";
+
+    @Override
+    protected CommandType getCmdType() {
+        return CommandType.PIPELINE;
+    }
+
+    @Before
+    public void setup() {
+        testCommand = new PipelineCmd(SEARCH_PIPELINE);
+
+        testLibrary = new LibraryData();
+        List<BookEntry> bookData = new ArrayList<>();
+        bookData.add(new BookEntry("War and Peace", new String[] { "Leo Tolstoy" }, 4.1f, "ISBNA", 1225));
+        bookData.add(new BookEntry("The War of the Worlds", new String[] { "H. G. Wells" }, 3.8f, "ISBNB", 192));
+        bookData.add(new BookEntry("Anna Karenina", new String[] { "Leo Tolstoy" }, 4.0f, "ISBNC", 864));
+        bookData.add(new BookEntry("The Art of War", new String[] { "Sun Tzu" }, 4.2f, "ISBND", 273));
+        bookData.add(new BookEntry("Warbreaker", new String[] { "Brandon Sanderson" }, 4.5f, "ISBNE", 592));
+        bookData.add(new BookEntry("Hadji Murat", new String[] { "Leo Tolstoy" }, 4.3f, "ISBNF", 128));
+        FieldTestUtils.setPrivateField(testLibrary, testLibrary.getClass(), "books", bookData);
+    }
+}
@@ -3,6 +3,11 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
 
 public class RemoveCmdBasicTest extends RemoveCmdTest {
 
@@ -73,4 +78,93 @@ public class RemoveCmdBasicTest extends RemoveCmdTest {
     public void testExecuteNotFound() {
         checkEntryNotFound();
     }
+
+    @Test
+    public void testExecuteRemoveSharded() {
+        List<BookEntry> bookData = testLibrary.getBookData();
+        testLibrary = new LibraryData(2);
+        testLibrary.getBookData().addAll(bookData);
+        testLibrary.getBookData().add(new BookEntry("TitleD", new String[] { AUTHOR_VALUE_ARGUMENT }, 2.0f, "ISBND", 200));
+        testLibrary.getBookData().add(new BookEntry("TitleE", new String[] { "AuthorE" }, 2.5f, "ISBNE", 250));
+
+        testCommand = new RemoveCmd(AUTHOR_ARGUMENT + " " + AUTHOR_VALUE_ARGUMENT);
+        String expectedConsoleOutput = String.format(AUTHOR_REMOVE_MESSAGE, 2, AUTHOR_VALUE_ARGUMENT);
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+
+        checkRemoveTitleExecute(new RemoveCmd(TITLE_ARGUMENT + " TitleC"), testLibrary, "TitleC");
+        assertEquals("Unexpected remaining books.", List.of("TitleA", "TitleE"),
+                testLibrary.getBookData().stream().map(BookEntry::getTitle).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testExecuteRemoveMapped() {
+        List<BookEntry> bookData = testLibrary.getBookData();
+        testLibrary = LibraryData.createMapped();
+        testLibrary.getBookData().addAll(bookData);
+        testLibrary.getBookData().add(new BookEntry("TitleD", new String[] { AUTHOR_VALUE_ARGUMENT }, 2.0f, "ISBND", 200));
+        testLibrary.getBookData().add(new BookEntry("TitleE", new String[] { "AuthorE" }, 2.5f, "ISBNE", 250));
+
+        testCommand = new RemoveCmd(AUTHOR_ARGUMENT + " " + AUTHOR_VALUE_ARGUMENT);
+        String expectedConsoleOutput = String.format(AUTHOR_REMOVE_MESSAGE, 2, AUTHOR_VALUE_ARGUMENT);
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+
+        checkRemoveTitleExecute(new RemoveCmd(TITLE_ARGUMENT + " TitleC"), testLibrary, "TitleC");
+        assertEquals("Unexpected remaining books.", List.of("TitleA", "TitleE"),
+                testLibrary.getBookData().stream().map(BookEntry::getTitle).collect(Collectors.toList()));
+        assertFalse("Removed book should not be contained.", testLibrary.getBookData().contains(bookData.get(1)));
+    }
+
+    @Test
+    public void testExecuteRemoveOffHeap() {
+        List<BookEntry> bookData = testLibrary.getBookData();
+        testLibrary = new LibraryData(true);
+        testLibrary.getBookData().addAll(bookData);
+        testLibrary.getBookData().add(new BookEntry("TitleD", new String[] { AUTHOR_VALUE_ARGUMENT }, 2.0f, "ISBND", 200));
+        testLibrary.getBookData().add(new BookEntry("TitleE", new String[] { "AuthorE" }, 2.5f, "ISBNE", 250));
+
+        testCommand = new RemoveCmd(AUTHOR_ARGUMENT + " " + AUTHOR_VALUE_ARGUMENT);
+        String expectedConsoleOutput = String.format(AUTHOR_REMOVE_MESSAGE, 2, AUTHOR_VALUE_ARGUMENT);
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+
+        checkRemoveTitleExecute(new RemoveCmd(TITLE_ARGUMENT + " TitleC"), testLibrary, "TitleC");
+        assertEquals("Unexpected remaining books.", List.of("TitleA", "TitleE"),
+                testLibrary.getBookData().stream().map(BookEntry::getTitle).collect(Collectors.toList()));
+        assertFalse("Removed book should not be contained.", testLibrary.getBookData().contains(bookData.get(1)));
+    }
+
+    @Test
+    public void testRemoveIfMappedFailingFilter() {
+        checkRemoveIfFailingFilter(LibraryData.createMapped().getBookData());
+    }
+
+    @Test
+    public void testRemoveIfOffHeapFailingFilter() {
+        checkRemoveIfFailingFilter(new LibraryData(true).getBookData());
+    }
+
+    /**
+     * Check that the given empty book list stays consistent when the filter
+     * fails after some entries have been removed.
+     */
+    private void checkRemoveIfFailingFilter(List<BookEntry> books) {
+        for (String title : List.of("TitleA", "TitleB", "TitleC", "TitleD", "TitleE")) {
+            books.add(new BookEntry(title, new String[] { "AuthorA" }, 3.0f, "ISBN" + title, 100));
+        }
+        BookEntry removedEntry = books.get(1);
+
+        assertThrows(IllegalStateException.class, () -> books.removeIf(book -> {
+            if (book.getTitle().equals("TitleD")) {
+                throw new IllegalStateException("Failing filter.");
+            }
+            return book.getTitle().equals("TitleB");
+        }));
+        assertEquals("Unexpected books after failing filter.", List.of("TitleA", "TitleC", "TitleD", "TitleE"),
+                books.stream().map(BookEntry::getTitle).collect(Collectors.toList()));
+        assertFalse("Removed book should not be contained.", books.contains(removedEntry));
+
+        // storage released by the removal is reused without affecting the remaining entries
+        books.add(new BookEntry("TitleF", new String[] { "AuthorF" }, 4.0f, "ISBNF", 200));
+        assertEquals("Unexpected books after adding to the list.", List.of("TitleA", "TitleC", "TitleD", "TitleE", "TitleF"),
+                books.stream().map(BookEntry::getTitle).collect(Collectors.toList()));
+    }
 }
@@ -0,0 +1,148 @@
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReplicationCmdBasicTest extends ReplicationCmdTest {
+
+    // ------------------------- parseArguments tests --------------------
+
+    @Test
+    public void testParseArgumentsIllegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, false, "status");
+    }
+
+    @Test
+    public void testParseArgumentsLegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, true, BLANK_ARGUMENT);
+        CommandTestUtils.checkArgumentInput(testCommand, true, "  ");
+    }
+
+    // ------------------------- execute tests --------------------
+
+    @Test
+    public void testExecuteNotReplicated() {
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, new LibraryData(), "The library is not replicated.");
+    }
+
+    @Test
+    public void testExecuteFollowerAppliesChanges() {
+        LibraryData followerLibrary = new LibraryData();
+        ReplicationFollower follower = startFollower(followerLibrary);
+        awaitCondition(() -> primary.getStatus().get(0).endsWith("1 followers connected"));
+
+        synchronized (testLibrary) {
+            testLibrary.loadData(Paths.get("books01.csv"));
+        }
+        awaitCaughtUp(follower, followerLibrary);
+
+        synchronized (testLibrary) {
+            testLibrary.removeEntries(book -> book.getTitle().startsWith("The"));
+            testLibrary.loadData(Paths.get("booksTestData01.csv"));
+        }
+        awaitCaughtUp(follower, followerLibrary);
+
+        String[] lines = CommandTestUtils.captureExecuteStdOutputLines(testCommand, followerLibrary);
+        assertEquals("Unexpected follower status.", 1, lines.length);
+        assertTrue("Caught up follower expected to have no lag: " + lines[0],
+                lines[0].endsWith("lag 0 mutations, 0 ms"));
+        assertTrue("Follower expected to be connected: " + lines[0], lines[0].contains("(connected)"));
+    }
+
+    @Test
+    public void testExecuteFollowerStartsFromSnapshot() {
+        synchronized (testLibrary) {
+            testLibrary.loadData(Paths.get("books01.csv"));
+        }
+
+        LibraryData followerLibrary = new LibraryData(2);
+        ReplicationFollower follower = startFollower(followerLibrary);
+        awaitCaughtUp(follower, followerLibrary);
+
+        awaitCondition(() -> primary.getStatus().size() == 2 && primary.getStatus().get(1).endsWith("lag 0 mutations"));
+        String[] lines = CommandTestUtils.captureExecuteStdOutputLines(testCommand, testLibrary);
+        assertTrue("Unexpected primary status: " + lines[0], lines[0].startsWith("Replication primary on "));
+        assertTrue("Unexpected primary status: " + lines[0], lines[0].endsWith("1 followers connected"));
+    }
+
+    @Test
+    public void testFollowerStoresEpochOfPrimary() {
+        LibraryData followerLibrary = new LibraryData();
+        ReplicationFollower follower = startFollower(followerLibrary);
+        awaitCaughtUp(follower, followerLibrary);
+
+        assertNotEquals("Primary expected to draw an epoch.", ReplicationPrimary.NO_EPOCH, primary.getEpoch());
+        awaitCondition(() -> follower.getAppliedEpoch() == primary.getEpoch());
+    }
+
+    @Test
+    public void testFollowerOfOtherEpochStartsFromSnapshot() throws IOException {
+        synchronized (testLibrary) {
+            testLibrary.loadData(Paths.get("books01.csv"));
+        }
+        long retained = primary.getPosition() - 1;
+
+        assertEquals("Follower of this primary run expected to continue the feed.", ReplicationPrimary.TAIL,
+                handshake(primary.getEpoch(), retained));
+        assertEquals("Follower of another primary run expected to start from a snapshot.", ReplicationPrimary.SNAPSHOT,
+                handshake(primary.getEpoch() + 1, retained));
+    }
+
+    @Test
+    public void testExecuteFollowerRejectsChanges() {
+        LibraryData followerLibrary = new LibraryData();
+        startFollower(followerLibrary);
+
+        StdStreamIntercept intercept = new StdStreamIntercept();
+        intercept.stdCaptureStart();
+        String errors;
+        try {
+            CommandInterpreter interpreter = new CommandInterpreter();
+            interpreter.executeCommand(interpreter.parseCommand("ADD books01.csv"), followerLibrary);
+            errors = intercept.getCapturedStdErr();
+        } finally {
+            intercept.stdCaptureStop();
+        }
+
+        assertEquals("Unexpected error.", "ERROR: The library is a read-only replica, ADD has to be executed "
+                + "on the primary.", errors.trim());
+        assertTrue("Follower expected to stay empty.", followerLibrary.getBookData().isEmpty());
+    }
+
+    @Test
+    public void testMutationLogRetention() throws InterruptedException {
+        MutationLog log = new MutationLog(2);
+        BookEntry book = new BookEntry("Title", new String[] { "Author" }, 3f, "ISBN", 10);
+        log.append(MutationLog.Kind.ADD, book);
+        log.append(MutationLog.Kind.REMOVE, book);
+        log.append(MutationLog.Kind.ADD, book);
+
+        assertNull("Dropped mutations expected to be unavailable.", log.read(0, 0));
+        List<MutationLog.Mutation> mutations = log.read(1, 0);
+        assertEquals("Unexpected number of retained mutations.", 2, mutations.size());
+        assertEquals("Unexpected first position.", 1, mutations.get(0).getPosition());
+        assertEquals("Unexpected kind.", MutationLog.Kind.REMOVE, mutations.get(0).getKind());
+        assertTrue("No new mutations expected.", log.read(3, 0).isEmpty());
+    }
+
+    private byte handshake(long epoch, long position) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(primary.getAddress());
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeLong(epoch);
+            out.writeLong(position);
+            out.flush();
+            return new DataInputStream(new BufferedInputStream(socket.getInputStream())).readByte();
+        }
+    }
+}
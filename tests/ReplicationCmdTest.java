@@ -0,0 +1,64 @@
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertTrue;
+
+public abstract class ReplicationCmdTest extends CommandTest {
+
+    protected static final long TIMEOUT_MILLIS = 10_000;
+
+    protected ReplicationPrimary primary;
+
+    @Override
+    protected CommandType getCmdType() {
+        return CommandType.REPLICATION;
+    }
+
+    @Before
+    public void setup() throws IOException {
+        testCommand = new ReplicationCmd(BLANK_ARGUMENT);
+
+        testLibrary = new LibraryData();
+        primary = new ReplicationPrimary(testLibrary, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        primary.start();
+    }
+
+    @After
+    public void cleanup() {
+        primary.close();
+    }
+
+    protected ReplicationFollower startFollower(LibraryData followerLibrary) {
+        ReplicationFollower follower = new ReplicationFollower(followerLibrary, primary.getAddress());
+        follower.start();
+        return follower;
+    }
+
+    protected void awaitCaughtUp(ReplicationFollower follower, LibraryData followerLibrary) {
+        awaitCondition(() -> {
+            synchronized (testLibrary) {
+                synchronized (followerLibrary) {
+                    return follower.getAppliedPosition() == primary.getPosition()
+                            && followerLibrary.getBookData().equals(testLibrary.getBookData());
+                }
+            }
+        });
+    }
+
+    protected static void awaitCondition(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue("Condition not reached in time.", System.currentTimeMillis() < deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class ScalabilityBasicTest extends ScalabilityTest {
+
+    // ------------------------- generated data tests --------------------
+
+    @Test
+    public void testGeneratedBooksDeterministic() {
+        assertEquals("Generated books should not depend on the run.", CommandTestUtils.generateBooks(SIZES[0]),
+                CommandTestUtils.generateBooks(SIZES[0]));
+    }
+
+    // ------------------------- scaling tests --------------------
+
+    @Test
+    public void testAddScalesNearLinearly() {
+        long[] nanos = measure(size -> new LibraryData(), sizeIdx -> new AddCmd(bookFiles.get(sizeIdx).toString()));
+        checkNearLinearGrowth("ADD", nanos);
+    }
+
+    @Test
+    public void testAddToLoadedLibraryScalesNearLinearly() {
+        // every book of the file is a duplicate, so each one is compared with the books already loaded
+        long[] nanos = measure(ScalabilityTest::generateLibrary,
+                sizeIdx -> new AddCmd(bookFiles.get(sizeIdx).toString()));
+        checkNearLinearGrowth("ADD of duplicates", nanos);
+    }
+
+    @Test
+    public void testRemoveAuthorScalesNearLinearly() {
+        for (Storage storage : Storage.values()) {
+            long[] nanos = measure(size -> generateLibrary(storage, size),
+                    sizeIdx -> new RemoveCmd(CommandTest.AUTHOR_ARGUMENT + " " + CommandTestUtils.FREQUENT_AUTHOR));
+            checkNearLinearGrowth("REMOVE AUTHOR on " + storage + " storage", nanos);
+        }
+    }
+
+    @Test
+    public void testGrowthOfQuadraticRemovalDetected() {
+        // removing through the iterator shifts the rest of an array list for every book removed
+        long[] nanos = measureAction(ScalabilityTest::generateLibrary, sizeIdx -> data -> {
+            Iterator<BookEntry> it = data.getBookData().iterator();
+            while (it.hasNext()) {
+                if (it.next().getAuthors()[0].equals(CommandTestUtils.FREQUENT_AUTHOR)) {
+                    it.remove();
+                }
+            }
+        });
+        AssertionError error = assertThrows(AssertionError.class,
+                () -> checkNearLinearGrowth("Iterator removal", nanos));
+        assertTrue("Unexpected failure of quadratic removal.", error.getMessage().contains("super-linearly"));
+    }
+
+    @Test
+    public void testRemoveAuthorRemovesAllBooksAtScale() {
+        int size = SIZES[SIZES.length - 1];
+        LibraryData library = generateLibrary(size);
+        String[] lines = CommandTestUtils.captureExecuteStdOutputLines(
+                new RemoveCmd(CommandTest.AUTHOR_ARGUMENT + " " + CommandTestUtils.FREQUENT_AUTHOR), library);
+
+        int removed = size / CommandTestUtils.FREQUENT_AUTHOR_PERIOD;
+        assertEquals("Unexpected removal message.",
+                removed + " books removed for author: " + CommandTestUtils.FREQUENT_AUTHOR, lines[0]);
+        assertEquals("Unexpected amount of books after removal.", size - removed, library.getBookData().size());
+    }
+
+    @Test
+    public void testRemoveTitleScalesNearLinearly() {
+        // the last book is removed, so the whole library is searched
+        for (Storage storage : Storage.values()) {
+            long[] nanos = measure(size -> generateLibrary(storage, size),
+                    sizeIdx -> new RemoveCmd(CommandTest.TITLE_ARGUMENT + " "
+                            + CommandTestUtils.generateBooks(SIZES[sizeIdx]).get(SIZES[sizeIdx] - 1).getTitle()));
+            checkNearLinearGrowth("REMOVE TITLE on " + storage + " storage", nanos);
+        }
+    }
+
+    @Test
+    public void testGroupTitleScalesNearLinearly() {
+        long[] nanos = measure(ScalabilityTest::generateLibrary, sizeIdx -> new GroupCmd(CommandTest.TITLE_ARGUMENT));
+        checkNearLinearGrowth("GROUP TITLE", nanos);
+    }
+
+    @Test
+    public void testGroupAuthorScalesNearLinearly() {
+        long[] nanos = measure(ScalabilityTest::generateLibrary, sizeIdx -> new GroupCmd(CommandTest.AUTHOR_ARGUMENT));
+        checkNearLinearGrowth("GROUP AUTHOR", nanos);
+    }
+
+    @Test
+    public void testSearchScalesNearLinearly() {
+        for (Storage storage : Storage.values()) {
+            long[] nanos = measure(size -> generateLibrary(storage, size),
+                    sizeIdx -> new SearchCmd(CommandTestUtils.SEARCH_WORD));
+            checkNearLinearGrowth("SEARCH on " + storage + " storage", nanos);
+        }
+    }
+
+    @Test
+    public void testListScalesNearLinearly() {
+        long[] nanos = measure(ScalabilityTest::generateLibrary, sizeIdx -> new ListCmd("long"));
+        checkNearLinearGrowth("LIST", nanos);
+    }
+}
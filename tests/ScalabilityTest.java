@@ -0,0 +1,232 @@
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Base of the scaling tests, which run commands over libraries of doubling
+ * size and fail if their running time grows clearly faster than linearly.
+ *
+ * Every library holds the books generated by CommandTestUtils.generateBooks,
+ * so each size always holds the same books. Each size is timed several times on a fresh library and the
+ * fastest run counts, which keeps garbage collection and other noise out of
+ * the comparison. Timings below MIN_MEASURED_NANOS are dominated by noise, so
+ * the growth exponent is fitted over the consecutive largest sizes timed above
+ * it only. It is about 1 for linear and n log n commands and about 2 for
+ * quadratic ones, and only exponents above MAX_GROWTH_EXPONENT fail.
+ *
+ * Timing all commands takes about half a minute, so the timed tests are
+ * skipped unless the system property TIMING_PROPERTY is set to true, as in
+ * java -Dlibrary.timingTests=true org.junit.runner.JUnitCore ScalabilityBasicTest.
+ */
+public abstract class ScalabilityTest {
+
+    /** Library sizes, each doubling the previous one. */
+    protected static final int[] SIZES = { 5_000, 10_000, 20_000, 40_000, 80_000 };
+    /** Highest growth exponent accepted over the sizes timed above MIN_MEASURED_NANOS. */
+    protected static final double MAX_GROWTH_EXPONENT = 1.5;
+    /** Running time below which timings are dominated by noise and left out of the fit. */
+    protected static final long MIN_MEASURED_NANOS = 1_000_000;
+    /** Number of timed runs per size. */
+    protected static final int RUNS = 5;
+    /** Number of shards of sharded libraries. */
+    protected static final int SHARDS = 4;
+    /** System property enabling the timed tests. */
+    protected static final String TIMING_PROPERTY = "library.timingTests";
+
+    /** Ways of storing the book data of a library, each with its own list implementation. */
+    protected enum Storage { DEFAULT, OFF_HEAP, MAPPED, SHARDED }
+
+    /** Book data files of all sizes by index into SIZES, written before every timed test. */
+    protected List<Path> bookFiles;
+
+    @Before
+    public void setup() throws IOException {
+        bookFiles = new ArrayList<>();
+        if (!Boolean.getBoolean(TIMING_PROPERTY)) {
+            return;
+        }
+
+        for (int size : SIZES) {
+            Path bookFile = Files.createTempFile("books" + size + "-", ".csv");
+            List<String> lines = new ArrayList<>();
+            lines.add(CommandTestUtils.DATA_HEADER);
+            for (BookEntry book : CommandTestUtils.generateBooks(size)) {
+                lines.add(toRecord(book));
+            }
+            Files.write(bookFile, lines);
+            bookFiles.add(bookFile);
+        }
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        for (Path bookFile : bookFiles) {
+            Files.deleteIfExists(bookFile);
+        }
+    }
+
+    // ------------------------- helpers ---------------------------------
+
+    /** Create a library holding the generated books of the given size. */
+    protected static LibraryData generateLibrary(int size) {
+        LibraryData library = new LibraryData();
+        FieldTestUtils.setPrivateField(library, LibraryData.class, "books", CommandTestUtils.generateBooks(size));
+        return library;
+    }
+
+    /**
+     * Create a library holding the generated books of the given size in the
+     * given storage. Mapped libraries map the book data file of the size.
+     */
+    protected LibraryData generateLibrary(Storage storage, int size) {
+        LibraryData library;
+        switch (storage) {
+            case OFF_HEAP:
+                library = new LibraryData(true);
+                break;
+            case SHARDED:
+                library = new LibraryData(SHARDS);
+                break;
+            case MAPPED:
+                library = LibraryData.createMapped();
+                StdStreamIntercept intercept = new StdStreamIntercept();
+                intercept.stdCaptureStart();
+                try {
+                    assertTrue("Book data file should be mapped.", library.loadData(bookFileOfSize(size)));
+                } finally {
+                    intercept.stdCaptureStop();
+                }
+                return library;
+            default:
+                return generateLibrary(size);
+        }
+        library.getBookData().addAll(CommandTestUtils.generateBooks(size));
+        return library;
+    }
+
+    /** Book data file holding the generated books of the given size. */
+    private Path bookFileOfSize(int size) {
+        for (int i = 0; i < SIZES.length; i++) {
+            if (SIZES[i] == size) {
+                return bookFiles.get(i);
+            }
+        }
+        throw new IllegalArgumentException("No book data file of size " + size);
+    }
+
+    /**
+     * Time the command created for every size on fresh libraries, without the
+     * time taken to create them. Output is captured and discarded, and
+     * exceptions thrown by the command fail the test.
+     *
+     * @param libraryFactory creates the library of the given size
+     * @param commandFactory creates the command to time for the given index into SIZES
+     * @return fastest running time of every size in nanoseconds
+     */
+    protected static long[] measure(IntFunction<LibraryData> libraryFactory, IntFunction<LibraryCommand> commandFactory) {
+        return measureAction(libraryFactory, sizeIdx -> commandFactory.apply(sizeIdx)::execute);
+    }
+
+    /**
+     * Time the action created for every size on fresh libraries, like measure
+     * does for commands. Skips the test unless TIMING_PROPERTY is set.
+     *
+     * @param libraryFactory creates the library of the given size
+     * @param actionFactory creates the action to time for the given index into SIZES
+     * @return fastest running time of every size in nanoseconds
+     */
+    protected static long[] measureAction(IntFunction<LibraryData> libraryFactory,
+            IntFunction<Consumer<LibraryData>> actionFactory) {
+        Assume.assumeTrue("Timed tests run with -D" + TIMING_PROPERTY + "=true only.",
+                Boolean.getBoolean(TIMING_PROPERTY));
+
+        // let the JIT compile the code paths on the smallest size first
+        for (int i = 0; i < RUNS; i++) {
+            time(libraryFactory.apply(SIZES[0]), actionFactory.apply(0));
+        }
+
+        long[] nanos = new long[SIZES.length];
+        for (int sizeIdx = 0; sizeIdx < SIZES.length; sizeIdx++) {
+            nanos[sizeIdx] = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                LibraryData library = libraryFactory.apply(SIZES[sizeIdx]);
+                nanos[sizeIdx] = Math.min(nanos[sizeIdx], time(library, actionFactory.apply(sizeIdx)));
+            }
+        }
+        return nanos;
+    }
+
+    private static long time(LibraryData library, Consumer<LibraryData> action) {
+        // collect the garbage of creating the library now rather than while timing
+        System.gc();
+        StdStreamIntercept intercept = new StdStreamIntercept();
+        intercept.stdCaptureStart();
+        try {
+            long start = System.nanoTime();
+            action.accept(library);
+            return System.nanoTime() - start;
+        } finally {
+            intercept.stdCaptureStop();
+        }
+    }
+
+    /**
+     * Check that the running times grow at most by MAX_GROWTH_EXPONENT. The
+     * exponent is the slope of a least squares fit of log time over log size,
+     * taken over the consecutive largest sizes timed above MIN_MEASURED_NANOS.
+     * If fewer than two sizes are, the command is too fast to tell.
+     */
+    protected static void checkNearLinearGrowth(String command, long[] nanos) {
+        int first = nanos.length;
+        while (first > 0 && nanos[first - 1] >= MIN_MEASURED_NANOS) {
+            first--;
+        }
+
+        StringBuilder timings = new StringBuilder();
+        for (int i = 0; i < SIZES.length; i++) {
+            timings.append(String.format(" %d books: %.2f ms;", SIZES[i], nanos[i] / 1e6));
+        }
+        if (nanos.length - first < 2) {
+            return;
+        }
+
+        double exponent = growthExponent(first, nanos);
+        assertTrue(String.format("%s grows super-linearly with exponent %.2f:%s", command, exponent, timings),
+                exponent <= MAX_GROWTH_EXPONENT);
+    }
+
+    /** Slope of log time over log size of the sizes from the given index on. */
+    private static double growthExponent(int first, long[] nanos) {
+        int count = nanos.length - first;
+        double meanX = 0;
+        double meanY = 0;
+        for (int i = first; i < nanos.length; i++) {
+            meanX += Math.log(SIZES[i]) / count;
+            meanY += Math.log(nanos[i]) / count;
+        }
+
+        double covariance = 0;
+        double variance = 0;
+        for (int i = first; i < nanos.length; i++) {
+            double x = Math.log(SIZES[i]) - meanX;
+            covariance += x * (Math.log(nanos[i]) - meanY);
+            variance += x * x;
+        }
+        return covariance / variance;
+    }
+
+    private static String toRecord(BookEntry book) {
+        return book.getTitle() + "," + String.join("-", book.getAuthors()) + ","
+                + book.getRating() + "," + book.getISBN() + "," + book.getPages();
+    }
+}
@@ -1,5 +1,14 @@
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
 public class SearchCmdBasicTest extends SearchCmdTest {
 
     // ------------------------- parseArguments tests --------------------
@@ -9,8 +18,10 @@ public class SearchCmdBasicTest extends SearchCmdTest {
         String blankArg = "";
         CommandTestUtils.checkArgumentInput(testCommand, false, blankArg);
 
-        String argWithSpaces = "invalid search query";
-        CommandTestUtils.checkArgumentInput(testCommand, false, argWithSpaces);
+        CommandTestUtils.checkArgumentInput(testCommand, false, "castle AND");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "OR castle sky");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "castle AND OR sky");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "castle AND sky OR harry");
     }
 
     @Test
@@ -19,6 +30,11 @@ public class SearchCmdBasicTest extends SearchCmdTest {
 
         String argWithHyphen = "Hundred-Dollar";
         CommandTestUtils.checkArgumentInput(testCommand, true, argWithHyphen);
+
+        String argWithSpaces = "multi word search query";
+        CommandTestUtils.checkArgumentInput(testCommand, true, argWithSpaces);
+        CommandTestUtils.checkArgumentInput(testCommand, true, "castle AND sky");
+        CommandTestUtils.checkArgumentInput(testCommand, true, "castle OR sky OR harry");
     }
 
     // ------------------------- execute tests --------------------
@@ -43,4 +59,221 @@ public class SearchCmdBasicTest extends SearchCmdTest {
         testCommand = new SearchCmd(searchTerm);
         CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
     }
+
+    @Test
+    public void testExecuteRankedSearch() {
+        testCommand = new SearchCmd("castle sky");
+        String expectedConsoleOutput = MULTI_WORD_TITLE_A + "\n" + MULTI_WORD_TITLE_B;
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+    }
+
+    @Test
+    public void testExecuteRankedSearchAuthors() {
+        testCommand = new SearchCmd("authorb OR unknown");
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, SINGLE_WORD_TITLE);
+    }
+
+    @Test
+    public void testExecuteRankedSearchAllTerms() {
+        testCommand = new SearchCmd("castle AND sky");
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, MULTI_WORD_TITLE_A);
+
+        String searchTerm = "castle AND harry";
+        testCommand = new SearchCmd(searchTerm);
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, NO_HITS_FOUND_MESSAGE + searchTerm);
+    }
+
+    @Test
+    public void testExecuteRankedSearchAfterRemove() {
+        testCommand = new SearchCmd("castle sky");
+        CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+
+        testLibrary.removeFirstEntry(book -> book.getTitle().equals(MULTI_WORD_TITLE_A));
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, MULTI_WORD_TITLE_B);
+    }
+
+    @Test
+    public void testExecuteSearchLargeLibraryInOrder() {
+        List<BookEntry> bookData = new ArrayList<>();
+        List<String> expectedTitles = new ArrayList<>();
+        for (int i = 0; i < SearchCmd.PARALLEL_THRESHOLD + 11; i++) {
+            String title = i % 3 == 0 ? "The CASTLE no. " + i : "The Sky no. " + i;
+            bookData.add(new BookEntry(title, new String[] { "AuthorA" }, 3.2f, "ISBN" + i, 100));
+            if (i % 3 == 0) {
+                expectedTitles.add(title);
+            }
+        }
+        FieldTestUtils.setPrivateField(testLibrary, testLibrary.getClass(), "books", bookData);
+
+        testCommand = new SearchCmd("castle");
+        String[] executeStdOutLines = CommandTestUtils.captureExecuteStdOutputLines(testCommand, testLibrary);
+        assertArrayEquals("Unexpected titles found in large library.", expectedTitles.toArray(), executeStdOutLines);
+    }
+
+    @Test
+    public void testExecuteSearchShardedLibraryInOrder() {
+        testLibrary = new LibraryData(5);
+        List<String> expectedTitles = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String title = i % 3 == 0 ? "The CASTLE no. " + i : "The Sky no. " + i;
+            testLibrary.getBookData().add(new BookEntry(title, new String[] { "AuthorA" }, 3.2f, "ISBN" + i, 100));
+            if (i % 3 == 0) {
+                expectedTitles.add(title);
+            }
+        }
+
+        testCommand = new SearchCmd("castle");
+        String[] executeStdOutLines = CommandTestUtils.captureExecuteStdOutputLines(testCommand, testLibrary);
+        assertArrayEquals("Unexpected titles found in sharded library.", expectedTitles.toArray(), executeStdOutLines);
+    }
+
+    @Test
+    public void testExecuteSearchShardedLibraryAfterRemovalInOrder() {
+        testLibrary = new LibraryData(3);
+        for (int i = 0; i < 300; i++) {
+            testLibrary.getBookData().add(new BookEntry("The CASTLE no. " + i, new String[] { "AuthorA" }, 3.2f, "ISBN" + i, 100));
+        }
+        testLibrary.removeEntries(book -> book.getISBN().hashCode() % 2 == 0);
+        for (int i = 300; i < 400; i++) {
+            testLibrary.getBookData().add(new BookEntry("The CASTLE no. " + i, new String[] { "AuthorA" }, 3.2f, "ISBN" + i, 100));
+        }
+        List<String> expectedTitles = new ArrayList<>();
+        for (BookEntry book : testLibrary.getBookData()) {
+            expectedTitles.add(book.getTitle());
+        }
+
+        testCommand = new SearchCmd("castle");
+        String[] executeStdOutLines = CommandTestUtils.captureExecuteStdOutputLines(testCommand, testLibrary);
+        assertArrayEquals("Unexpected titles found in sharded library after removal.", expectedTitles.toArray(), executeStdOutLines);
+    }
+
+    @Test
+    public void testExecuteRankedSearchShardedLibraryAsUnsharded() {
+        LibraryData shardedLibrary = new LibraryData(4);
+        testLibrary = new LibraryData();
+        String[] words = { "castle", "sky", "harry", "river", "stone" };
+        for (int i = 0; i < 600; i++) {
+            String title = words[i % 5] + " " + words[i / 5 % 5] + " no. " + i % 40;
+            BookEntry book = new BookEntry(title, new String[] { "Author" + i % 13 }, 3.2f, "ISBN" + i, 100);
+            testLibrary.getBookData().add(book);
+            shardedLibrary.getBookData().add(book);
+        }
+        testLibrary.removeEntries(book -> book.getISBN().hashCode() % 3 == 0);
+        shardedLibrary.removeEntries(book -> book.getISBN().hashCode() % 3 == 0);
+
+        // ranked by the word counts of the whole library, ties in library order
+        for (String query : List.of("castle sky", "castle AND sky", "river OR author3 OR stone", "harry")) {
+            testCommand = new SearchCmd(query);
+            String expected = CommandTestUtils.captureExecuteStdOutput(testCommand, testLibrary);
+            assertFalse("Search expected to find books: " + query, expected.startsWith(NO_HITS_FOUND_MESSAGE));
+            assertEquals("Unexpected hits in sharded library: " + query, expected,
+                    CommandTestUtils.captureExecuteStdOutput(testCommand, shardedLibrary));
+        }
+    }
+
+    @Test
+    public void testExecuteCachedSearchAfterRemove() {
+        CommandInterpreter interpreter = new CommandInterpreter();
+        testCommand = new SearchCmd("castle sky");
+
+        String firstOutput = captureInterpreterStdOutput(interpreter);
+        assertTrue("Search output expected to be cached.", testLibrary.getResultCache().getUsedBytes() > 0);
+        assertEquals("Repeated search expected to print the same output.", firstOutput,
+                captureInterpreterStdOutput(interpreter));
+        assertEquals("Unexpected cached search output.", MULTI_WORD_TITLE_A, firstOutput.lines().findFirst().get());
+
+        testLibrary.removeFirstEntry(book -> book.getTitle().equals(MULTI_WORD_TITLE_A));
+        assertEquals("Search after remove expected to ignore cached output.", MULTI_WORD_TITLE_B,
+                captureInterpreterStdOutput(interpreter).strip());
+    }
+
+    @Test
+    public void testExecuteSearchOutputTooLargeForCache() {
+        CommandInterpreter interpreter = new CommandInterpreter();
+        testCommand = new SearchCmd("castle sky");
+        // room for the first ten bytes of the output only
+        long capacity = 10 - new ResultCache(0).getMaxOutputBytes(testCommand.cacheKey());
+        FieldTestUtils.setPrivateField(testLibrary, LibraryData.class, "resultCache", new ResultCache(capacity));
+
+        String output = captureInterpreterStdOutput(interpreter);
+        assertEquals("Output too large for the cache expected to be printed in full.",
+                MULTI_WORD_TITLE_A + "\n" + MULTI_WORD_TITLE_B, output.strip().replace("\r", ""));
+        assertEquals("Output too large for the cache expected not to be cached.", 0,
+                testLibrary.getResultCache().getUsedBytes());
+    }
+
+    @Test
+    public void testExecuteCachedOutputExcludesOtherThreads() {
+        CommandInterpreter interpreter = new CommandInterpreter();
+        testCommand = new LibraryCommand(CommandType.SEARCH, "castle") {
+            @Override
+            public void execute(LibraryData data) {
+                Thread background = new Thread(() -> System.out.println("background"));
+                background.start();
+                try {
+                    background.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                System.out.println("command");
+            }
+
+            @Override
+            public String cacheKey() {
+                return "TEST";
+            }
+
+            @Override
+            protected boolean parseArguments(String argumentInput) {
+                return true;
+            }
+        };
+
+        String output = captureInterpreterStdOutput(interpreter);
+        assertTrue("Output of other threads expected to be printed.", output.contains("background"));
+        byte[] cached = testLibrary.getResultCache().get("TEST", testLibrary.getVersion());
+        assertEquals("Only output of the command expected to be cached.", "command",
+                new String(cached).strip());
+    }
+
+    @Test
+    public void testExecuteFailedOutputNotCached() {
+        CommandInterpreter interpreter = new CommandInterpreter();
+        testCommand = new LibraryCommand(CommandType.SEARCH, "castle") {
+            @Override
+            public void execute(LibraryData data) {
+                System.out.println("partial");
+                reportFailure("Test failure");
+            }
+
+            @Override
+            public String cacheKey() {
+                return "TEST";
+            }
+
+            @Override
+            protected boolean parseArguments(String argumentInput) {
+                return true;
+            }
+        };
+
+        StdStreamIntercept intercept = new StdStreamIntercept();
+        intercept.stdCaptureStart();
+        interpreter.executeCommand(testCommand, testLibrary);
+        String errors = intercept.getCapturedStdErr();
+        intercept.stdCaptureStop();
+        assertTrue("Failure expected to be reported.", errors.contains("ERROR: Test failure"));
+        assertTrue("Failed command expected to report failure.", testCommand.hasFailed());
+        assertNull("Output of failed command expected not to be cached.",
+                testLibrary.getResultCache().get("TEST", testLibrary.getVersion()));
+    }
+
+    private String captureInterpreterStdOutput(CommandInterpreter interpreter) {
+        StdStreamIntercept intercept = new StdStreamIntercept();
+        intercept.stdCaptureStart();
+        interpreter.executeCommand(testCommand, testLibrary);
+        String capturedStdOut = intercept.getCapturedStdOut();
+        intercept.stdCaptureStop();
+        return capturedStdOut;
+    }
 }
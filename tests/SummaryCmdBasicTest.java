@@ -0,0 +1,111 @@
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SummaryCmdBasicTest extends SummaryCmdTest {
+
+    // ------------------------- test helpers ----------------------------
+
+    private static void checkWithinError(String message, double expected, double actual, double relativeError) {
+        assertTrue(message + " expected about " + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected * relativeError);
+    }
+
+    // ------------------------- parseArguments tests --------------------
+
+    @Test
+    public void testParseArgumentsIllegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, false, "authors");
+    }
+
+    @Test
+    public void testParseArgumentsLegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, true, BLANK_ARGUMENT);
+        CommandTestUtils.checkArgumentInput(testCommand, true, "  ");
+    }
+
+    // ------------------------- execute tests --------------------
+
+    @Test
+    public void testExecuteEmptyBookData() {
+        testLibrary = new LibraryData();
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, "The library has no book entries.");
+    }
+
+    @Test
+    public void testExecuteSmallLibraryExact() {
+        String expectedConsoleOutput = String.format(SUMMARY_HEADER, 3) + "\n"
+                + "  distinct authors: 3\n"
+                + "  distinct titles: 3\n"
+                + "  rating: min 1.30, p25 1.30, median 3.20, p75 4.30, p90 4.30, p99 4.30, max 4.30\n"
+                + "  pages: min 300, p25 300, median 400, p75 500, p90 500, p99 500, max 500";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+    }
+
+    @Test
+    public void testExecuteLargeLibraryWithinError() {
+        List<BookEntry> bookData = CommandTestUtils.generateBooks(100000);
+        FieldTestUtils.setPrivateField(testLibrary, testLibrary.getClass(), "books", bookData);
+        LibrarySummary summary = testLibrary.getSummary();
+
+        assertEquals("Book count expected to be exact.", 100000, summary.getBookCount());
+        checkWithinError("Distinct authors", 20000, summary.estimateDistinctAuthors(), 0.05);
+        checkWithinError("Distinct titles", 100000, summary.estimateDistinctTitles(), 0.05);
+        assertEquals("Minimum rating expected to be exact.", 0, summary.ratingQuantile(0), 0);
+        assertEquals("Maximum rating expected to be exact.", 5, summary.ratingQuantile(1), 0);
+        checkWithinError("Median rating", 2.5, summary.ratingQuantile(0.5), 0.03);
+        checkWithinError("90th percentile of pages", 900, summary.pagesQuantile(0.9), 0.03);
+    }
+
+    @Test
+    public void testExecuteAfterAddUpdatedIncrementally() {
+        LibrarySummary summary = testLibrary.getSummary();
+        testLibrary.addEntries(List.of(new BookEntry("TitleD", new String[]{"AuthorA", "AuthorD"}, 4.9f, "ISBND", 900)));
+
+        assertSame("Summary expected to be updated rather than rebuilt.", summary, testLibrary.getSummary());
+        String[] lines = CommandTestUtils.captureExecuteStdOutputLines(testCommand, testLibrary);
+        assertEquals("Unexpected header.", String.format(SUMMARY_HEADER, 4), lines[0]);
+        assertEquals("Unexpected distinct authors.", "  distinct authors: 4", lines[1]);
+        assertTrue("Unexpected maximum rating.", lines[3].endsWith("max 4.90"));
+    }
+
+    @Test
+    public void testExecuteAfterRemoveRebuilt() {
+        LibrarySummary summary = testLibrary.getSummary();
+        testLibrary.removeEntries(book -> book.getTitle().equals("TitleC"));
+
+        assertNotSame("Summary expected to be rebuilt after removal.", summary, testLibrary.getSummary());
+        String[] lines = CommandTestUtils.captureExecuteStdOutputLines(testCommand, testLibrary);
+        assertEquals("Unexpected header.", String.format(SUMMARY_HEADER, 2), lines[0]);
+        assertEquals("Unexpected distinct authors.", "  distinct authors: 2", lines[1]);
+        assertTrue("Unexpected minimum rating.", lines[3].startsWith("  rating: min 3.20,"));
+    }
+
+    @Test
+    public void testMergedSummariesMatchWholeLibrary() {
+        List<BookEntry> bookData = CommandTestUtils.generateBooks(30000);
+        LibrarySummary merged = new LibrarySummary();
+        for (int part = 0; part < 3; part++) {
+            LibrarySummary partSummary = new LibrarySummary();
+            for (BookEntry book : bookData.subList(part * 10000, (part + 1) * 10000)) {
+                partSummary.add(book);
+            }
+            merged.merge(partSummary);
+        }
+        FieldTestUtils.setPrivateField(testLibrary, testLibrary.getClass(), "books", bookData);
+        LibrarySummary whole = testLibrary.getSummary();
+
+        assertEquals("Unexpected merged book count.", whole.getBookCount(), merged.getBookCount());
+        assertEquals("Merged distinct authors expected to match.", whole.estimateDistinctAuthors(),
+                merged.estimateDistinctAuthors());
+        assertEquals("Merged distinct titles expected to match.", whole.estimateDistinctTitles(),
+                merged.estimateDistinctTitles());
+        assertEquals("Merged maximum pages expected to match.", whole.pagesQuantile(1), merged.pagesQuantile(1), 0);
+        checkWithinError("Merged median pages", 500, merged.pagesQuantile(0.5), 0.05);
+    }
+}
@@ -0,0 +1,26 @@
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class SummaryCmdTest extends CommandTest {
+
+    protected static final String SUMMARY_HEADER = "Summary of %d books (approximate):";
+
+    @Override
+    protected CommandType getCmdType() {
+        return CommandType.SUMMARY;
+    }
+
+    @Before
+    public void setup() {
+        testCommand = new SummaryCmd(BLANK_ARGUMENT);
+
+        testLibrary = new LibraryData();
+        List<BookEntry> bookData = new ArrayList<>();
+        bookData.add(new BookEntry("TitleA", new String[]{"AuthorA"}, 3.2f, "ISBNA", 500));
+        bookData.add(new BookEntry("TitleB", new String[]{"AuthorB"}, 4.3f, "ISBNB", 400));
+        bookData.add(new BookEntry("TitleC", new String[]{"AuthorC"}, 1.3f, "ISBNC", 300));
+        FieldTestUtils.setPrivateField(testLibrary, testLibrary.getClass(), "books", bookData);
+    }
+}
@@ -0,0 +1,108 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TopAuthorsCmdBasicTest extends TopAuthorsCmdTest {
+
+    // ------------------------- test helpers ----------------------------
+
+    /** Five heavy authors credited about 1000 times each among 20000 otherwise distinct authors. */
+    private static List<String> heavyHitterRecords(int offset) {
+        List<String> records = new ArrayList<>();
+        for (int i = offset; i < offset + 20000; i++) {
+            String author = i % 4 == 0 ? "Heavy " + (i / 4) % 5 : "Author " + i;
+            records.add("Title " + i + "," + author + ",4.0,ISBN" + i + ",100");
+        }
+        return records;
+    }
+
+    private static void checkHeavyHitters(SpaceSaving authors, long expectedCount) {
+        List<SpaceSaving.Counter> top = authors.top(5);
+        assertEquals("Unexpected number of top authors.", 5, top.size());
+        for (SpaceSaving.Counter author : top) {
+            assertTrue("Heavy author expected but was " + author.getItem(), author.getItem().startsWith("Heavy "));
+            assertTrue("Count expected to be an upper bound.", author.getCount() >= expectedCount);
+            assertTrue("Guaranteed count expected to be a lower bound.", author.getGuaranteedCount() <= expectedCount);
+        }
+    }
+
+    // ------------------------- parseArguments tests --------------------
+
+    @Test
+    public void testParseArgumentsIllegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, false, BLANK_ARGUMENT);
+        CommandTestUtils.checkArgumentInput(testCommand, false, "nonsense");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "0");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "-3");
+        CommandTestUtils.checkArgumentInput(testCommand, false, "2 3");
+    }
+
+    @Test
+    public void testParseArgumentsLegalArgument() {
+        CommandTestUtils.checkArgumentInput(testCommand, true, "1");
+        CommandTestUtils.checkArgumentInput(testCommand, true, " 10 ");
+    }
+
+    // ------------------------- execute tests --------------------
+
+    @Test
+    public void testExecuteNothingAdded() {
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, "No book data files have been added yet.");
+    }
+
+    @Test
+    public void testExecuteSingleFileExact() throws IOException {
+        addBooks(List.of(
+                "TitleA,AuthorA,4.0,ISBNA,100",
+                "TitleB,AuthorB-AuthorA,4.0,ISBNB,100",
+                "TitleC,AuthorC,4.0,ISBNC,100",
+                "TitleD,AuthorA,4.0,ISBND,100",
+                "TitleE,AuthorB,4.0,ISBNE,100"));
+
+        String expectedConsoleOutput = "Top 2 authors of all added books (6 author credits):\n"
+                + "  AuthorA: 3 books\n"
+                + "  AuthorB: 2 books\n"
+                + "Top 2 authors of the last added file (6 author credits):\n"
+                + "  AuthorA: 3 books\n"
+                + "  AuthorB: 2 books";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+    }
+
+    @Test
+    public void testExecuteLastFileSeparate() throws IOException {
+        addBooks(List.of("TitleA,AuthorA,4.0,ISBNA,100", "TitleB,AuthorA,4.0,ISBNB,100"));
+        addBooks(List.of("TitleC,AuthorC,4.0,ISBNC,100", "TitleA,AuthorA,4.0,ISBNA,100"));
+
+        testCommand = new TopAuthorsCmd("1");
+        String expectedConsoleOutput = "Top 1 authors of all added books (4 author credits):\n"
+                + "  AuthorA: 3 books\n"
+                + "Top 1 authors of the last added file (2 author credits):\n"
+                + "  AuthorA: 1 books";
+        CommandTestUtils.checkExecuteConsoleOutput(testCommand, testLibrary, expectedConsoleOutput);
+    }
+
+    @Test
+    public void testExecuteHeavyHittersFoundWithBoundedCounters() throws IOException {
+        addBooks(heavyHitterRecords(0));
+
+        checkHeavyHitters(testLibrary.getLastAddedAuthors(), 1000);
+        String[] lines = CommandTestUtils.captureExecuteStdOutputLines(new TopAuthorsCmd("5"), testLibrary);
+        assertEquals("Unexpected header.", "Top 5 authors of all added books (20000 author credits):", lines[0]);
+        assertTrue("Heavy author expected first.", lines[1].startsWith("  Heavy "));
+    }
+
+    @Test
+    public void testExecuteHeavyHittersOfMergedFiles() throws IOException {
+        addBooks(heavyHitterRecords(0));
+        addBooks(heavyHitterRecords(20000));
+
+        checkHeavyHitters(testLibrary.getLastAddedAuthors(), 1000);
+        checkHeavyHitters(testLibrary.getAddedAuthors(), 2000);
+        assertEquals("Unexpected number of author credits.", 40000, testLibrary.getAddedAuthors().getStreamLength());
+    }
+}
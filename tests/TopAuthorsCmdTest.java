@@ -0,0 +1,44 @@
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class TopAuthorsCmdTest extends CommandTest {
+
+    protected Path bookDataFile;
+
+    @Override
+    protected CommandType getCmdType() {
+        return CommandType.TOPAUTHORS;
+    }
+
+    @Before
+    public void setup() throws IOException {
+        testCommand = new TopAuthorsCmd("2");
+        testLibrary = new LibraryData();
+        bookDataFile = Files.createTempFile("books", ".csv");
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(bookDataFile);
+    }
+
+    protected void addBooks(List<String> records) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(CommandTestUtils.DATA_HEADER);
+        lines.addAll(records);
+        Files.write(bookDataFile, lines);
+        StdStreamIntercept intercept = new StdStreamIntercept();
+        intercept.stdCaptureStart();
+        try {
+            testLibrary.loadData(bookDataFile);
+        } finally {
+            intercept.stdCaptureStop();
+        }
+    }
+}